@@ -0,0 +1,364 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.ToString;
+import se.idsec.signservice.integration.authentication.AuthnRequirements;
+import se.idsec.signservice.integration.authentication.SignerIdentityAttributeValue;
+import se.idsec.signservice.integration.certificate.SigningCertificateRequirements;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+import se.idsec.signservice.integration.core.Extension;
+import se.idsec.signservice.integration.document.DocumentType;
+import se.idsec.signservice.integration.document.TbsDocument;
+import se.idsec.signservice.integration.document.pdf.VisiblePdfSignatureRequirement;
+import se.idsec.signservice.integration.signmessage.SignMessageParameters;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A read-only view of a {@link SignRequestInput} where values that are not given in the input are taken from the
+ * policy defaults ({@link IntegrationServiceDefaultConfiguration}).
+ * <p>
+ * No data is copied when the view is created. Each getter returns the value from the input if present, and otherwise
+ * the (shared) policy default. Therefore, the objects returned by the view must not be modified. If a complete
+ * {@link SignRequestInput} is needed, {@link #toSignRequestInput()} creates one, copying only the objects that need to
+ * be updated with default values.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@ToString
+public final class EffectiveSignRequestInput {
+
+  /** The input. */
+  private final SignRequestInput input;
+
+  /** The policy configuration. */
+  private final IntegrationServiceDefaultConfiguration configuration;
+
+  /**
+   * Constructor.
+   *
+   * @param input the sign request input
+   * @param configuration the configuration for the policy given in the input
+   */
+  private EffectiveSignRequestInput(
+      final SignRequestInput input, final IntegrationServiceDefaultConfiguration configuration) {
+    this.input = Objects.requireNonNull(input, "input must not be null");
+    this.configuration = Objects.requireNonNull(configuration, "configuration must not be null");
+  }
+
+  /**
+   * Creates an effective view of the supplied input using the supplied policy configuration for default values.
+   *
+   * @param input the sign request input
+   * @param configuration the configuration for the policy given in the input
+   * @return an effective view
+   */
+  @Nonnull
+  public static EffectiveSignRequestInput of(
+      @Nonnull final SignRequestInput input, @Nonnull final IntegrationServiceDefaultConfiguration configuration) {
+    return new EffectiveSignRequestInput(input, configuration);
+  }
+
+  /**
+   * Gets the underlying input.
+   *
+   * @return the sign request input
+   */
+  @Nonnull
+  public SignRequestInput getInput() {
+    return this.input;
+  }
+
+  /**
+   * Gets the policy configuration.
+   *
+   * @return the policy configuration
+   */
+  @Nonnull
+  public IntegrationServiceDefaultConfiguration getConfiguration() {
+    return this.configuration;
+  }
+
+  /**
+   * Gets the correlation ID.
+   *
+   * @return the correlation ID
+   */
+  @Nullable
+  public String getCorrelationId() {
+    return this.input.getCorrelationId();
+  }
+
+  /**
+   * Gets the policy.
+   *
+   * @return the policy
+   */
+  @Nonnull
+  public String getPolicy() {
+    return this.input.getPolicy() != null ? this.input.getPolicy() : this.configuration.getPolicy();
+  }
+
+  /**
+   * Gets the sign requester ID.
+   *
+   * @return the sign requester ID
+   * @see IntegrationServiceDefaultConfiguration#getDefaultSignRequesterID()
+   */
+  @Nullable
+  public String getSignRequesterID() {
+    return this.input.getSignRequesterID() != null
+        ? this.input.getSignRequesterID()
+        : this.configuration.getDefaultSignRequesterID();
+  }
+
+  /**
+   * Gets the return URL.
+   *
+   * @return the return URL
+   * @see IntegrationServiceDefaultConfiguration#getDefaultReturnUrl()
+   */
+  @Nullable
+  public String getReturnUrl() {
+    return this.input.getReturnUrl() != null ? this.input.getReturnUrl() : this.configuration.getDefaultReturnUrl();
+  }
+
+  /**
+   * Gets the destination URL.
+   *
+   * @return the destination URL
+   * @see IntegrationServiceDefaultConfiguration#getDefaultDestinationUrl()
+   */
+  @Nullable
+  public String getDestinationUrl() {
+    return this.input.getDestinationUrl() != null
+        ? this.input.getDestinationUrl()
+        : this.configuration.getDefaultDestinationUrl();
+  }
+
+  /**
+   * Gets the signature algorithm.
+   *
+   * @return the signature algorithm
+   * @see IntegrationServiceDefaultConfiguration#getDefaultSignatureAlgorithm()
+   */
+  @Nullable
+  public String getSignatureAlgorithm() {
+    return this.input.getSignatureAlgorithm() != null
+        ? this.input.getSignatureAlgorithm()
+        : this.configuration.getDefaultSignatureAlgorithm();
+  }
+
+  /**
+   * Gets the entityID of the authentication service that should authenticate the signer.
+   *
+   * @return the authentication service ID
+   * @see IntegrationServiceDefaultConfiguration#getDefaultAuthnServiceID()
+   */
+  @Nullable
+  public String getAuthnServiceID() {
+    final AuthnRequirements authn = this.input.getAuthnRequirements();
+    return authn != null && authn.getAuthnServiceID() != null
+        ? authn.getAuthnServiceID()
+        : this.configuration.getDefaultAuthnServiceID();
+  }
+
+  /**
+   * Gets the authentication context class references.
+   *
+   * @return an unmodifiable list of authentication context URIs (may be empty)
+   * @see IntegrationServiceDefaultConfiguration#getDefaultAuthnContextRef()
+   */
+  @Nonnull
+  public List<String> getAuthnContextClassRefs() {
+    final AuthnRequirements authn = this.input.getAuthnRequirements();
+    if (authn != null && authn.getAuthnContextClassRefs() != null && !authn.getAuthnContextClassRefs().isEmpty()) {
+      return Collections.unmodifiableList(authn.getAuthnContextClassRefs());
+    }
+    return this.configuration.getDefaultAuthnContextRef() != null
+        ? List.of(this.configuration.getDefaultAuthnContextRef())
+        : Collections.emptyList();
+  }
+
+  /**
+   * Gets the requested signer attributes.
+   *
+   * @return an unmodifiable list of requested signer attributes (may be empty)
+   */
+  @Nonnull
+  public List<SignerIdentityAttributeValue> getRequestedSignerAttributes() {
+    final AuthnRequirements authn = this.input.getAuthnRequirements();
+    return authn != null && authn.getRequestedSignerAttributes() != null
+        ? Collections.unmodifiableList(authn.getRequestedSignerAttributes())
+        : Collections.emptyList();
+  }
+
+  /**
+   * Gets the signing certificate requirements.
+   *
+   * @return the certificate requirements
+   * @see IntegrationServiceDefaultConfiguration#getDefaultCertificateRequirements()
+   */
+  @Nullable
+  public SigningCertificateRequirements getCertificateRequirements() {
+    return this.input.getCertificateRequirements() != null
+        ? this.input.getCertificateRequirements()
+        : this.configuration.getDefaultCertificateRequirements();
+  }
+
+  /**
+   * Gets the documents to be signed.
+   *
+   * @return an unmodifiable list of documents (may be empty)
+   */
+  @Nonnull
+  public List<TbsDocument> getTbsDocuments() {
+    return this.input.getTbsDocuments() != null
+        ? Collections.unmodifiableList(this.input.getTbsDocuments())
+        : Collections.emptyList();
+  }
+
+  /**
+   * Gets the effective visible PDF signature requirement for the given document. If the document has a requirement
+   * that is the "null requirement" (see
+   * {@link VisiblePdfSignatureRequirement#createNullVisiblePdfSignatureRequirement()}), {@code null} is returned. If
+   * the document is a PDF document without a requirement, the policy default is returned.
+   *
+   * @param document the document
+   * @return the visible PDF signature requirement, or {@code null}
+   * @see IntegrationServiceDefaultConfiguration#getDefaultVisiblePdfSignatureRequirement()
+   */
+  @Nullable
+  public VisiblePdfSignatureRequirement getVisiblePdfSignatureRequirement(@Nonnull final TbsDocument document) {
+    final VisiblePdfSignatureRequirement requirement = document.getVisiblePdfSignatureRequirement();
+    if (requirement != null) {
+      return isNullRequirement(requirement) ? null : requirement;
+    }
+    return isPdf(document) ? this.configuration.getDefaultVisiblePdfSignatureRequirement() : null;
+  }
+
+  /**
+   * Gets the sign message parameters.
+   *
+   * @return the sign message parameters, or {@code null}
+   */
+  @Nullable
+  public SignMessageParameters getSignMessageParameters() {
+    return this.input.getSignMessageParameters();
+  }
+
+  /**
+   * Gets the extension of the input.
+   *
+   * @return the extension, or {@code null}
+   */
+  @Nullable
+  public Extension getExtension() {
+    return this.input.getExtension();
+  }
+
+  /**
+   * Creates a {@link SignRequestInput} where all defaults have been applied. If the input has no values that need to be
+   * taken from the policy defaults, the input object itself is returned. Otherwise, a new object is created that shares
+   * all unchanged objects with the input.
+   *
+   * @return a sign request input with all defaults applied
+   */
+  @Nonnull
+  public SignRequestInput toSignRequestInput() {
+    final AuthnRequirements authn = this.input.getAuthnRequirements();
+    final boolean authnServiceIdMissing = (authn == null || authn.getAuthnServiceID() == null)
+        && this.configuration.getDefaultAuthnServiceID() != null;
+    final boolean authnContextMissing = (authn == null || authn.getAuthnContextClassRefs() == null
+        || authn.getAuthnContextClassRefs().isEmpty()) && this.configuration.getDefaultAuthnContextRef() != null;
+    final boolean visibleReqMissing = this.configuration.getDefaultVisiblePdfSignatureRequirement() != null
+        && this.getTbsDocuments().stream().anyMatch(d -> d.getVisiblePdfSignatureRequirement() == null && isPdf(d));
+
+    final boolean unchanged = Objects.equals(this.input.getPolicy(), this.getPolicy())
+        && Objects.equals(this.input.getSignRequesterID(), this.getSignRequesterID())
+        && Objects.equals(this.input.getReturnUrl(), this.getReturnUrl())
+        && Objects.equals(this.input.getDestinationUrl(), this.getDestinationUrl())
+        && Objects.equals(this.input.getSignatureAlgorithm(), this.getSignatureAlgorithm())
+        && this.input.getCertificateRequirements() == this.getCertificateRequirements()
+        && !authnServiceIdMissing && !authnContextMissing && !visibleReqMissing;
+    if (unchanged) {
+      return this.input;
+    }
+
+    final SignRequestInput.SignRequestInputBuilder builder = this.input.toBuilder()
+        .policy(this.getPolicy())
+        .signRequesterID(this.getSignRequesterID())
+        .returnUrl(this.getReturnUrl())
+        .destinationUrl(this.getDestinationUrl())
+        .signatureAlgorithm(this.getSignatureAlgorithm())
+        .certificateRequirements(this.getCertificateRequirements());
+
+    if (authnServiceIdMissing || authnContextMissing) {
+      final AuthnRequirements.AuthnRequirementsBuilder authnBuilder =
+          authn != null ? authn.toBuilder() : AuthnRequirements.builder();
+      if (authnServiceIdMissing) {
+        authnBuilder.authnServiceID(this.configuration.getDefaultAuthnServiceID());
+      }
+      if (authnContextMissing) {
+        authnBuilder.clearAuthnContextClassRefs().authnContextClassRef(this.configuration.getDefaultAuthnContextRef());
+      }
+      builder.authnRequirements(authnBuilder.build());
+    }
+
+    if (visibleReqMissing) {
+      builder.clearTbsDocuments();
+      for (final TbsDocument d : this.getTbsDocuments()) {
+        builder.tbsDocument(d.getVisiblePdfSignatureRequirement() == null && isPdf(d)
+            ? d.toBuilder()
+                .visiblePdfSignatureRequirement(this.configuration.getDefaultVisiblePdfSignatureRequirement())
+                .build()
+            : d);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Predicate that tells whether the supplied document is a PDF document.
+   *
+   * @param document the document
+   * @return {@code true} for PDF documents and {@code false} otherwise
+   */
+  private static boolean isPdf(final TbsDocument document) {
+    final String mimeType = document.getMimeType();
+    return DocumentType.PDF.getMimeType().equalsIgnoreCase(mimeType) || DocumentType.PDF.name().equalsIgnoreCase(
+        mimeType);
+  }
+
+  /**
+   * Predicate that tells whether the supplied requirement is the "null requirement".
+   *
+   * @param requirement the requirement
+   * @return {@code true} if the requirement is the "null requirement" and {@code false} otherwise
+   */
+  private static boolean isNullRequirement(final VisiblePdfSignatureRequirement requirement) {
+    return Boolean.parseBoolean(
+        requirement.getExtensionValue(VisiblePdfSignatureRequirement.NULL_INDICATOR_EXTENSION));
+  }
+
+}
@@ -17,13 +17,24 @@ package se.idsec.signservice.integration;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.authentication.AssertionNotFoundException;
+import se.idsec.signservice.integration.authentication.SignerAssertionDelivery;
+import se.idsec.signservice.integration.authentication.SignerAssertionInformation;
 import se.idsec.signservice.integration.core.error.InputValidationException;
+import se.idsec.signservice.integration.core.error.NotSupportedException;
 import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
+import se.idsec.signservice.integration.document.ByteRange;
+import se.idsec.signservice.integration.document.DocumentNotFoundException;
+import se.idsec.signservice.integration.document.RangeNotSatisfiableException;
+import se.idsec.signservice.integration.document.SignedDocument;
+import se.idsec.signservice.integration.document.SignedDocumentContent;
 import se.idsec.signservice.integration.document.TbsDocument;
 import se.idsec.signservice.integration.document.pdf.PdfAConsistencyCheckException;
 import se.idsec.signservice.integration.document.pdf.PdfContainsAcroformException;
 import se.idsec.signservice.integration.document.pdf.PdfContainsEncryptionDictionaryException;
 import se.idsec.signservice.integration.document.pdf.PdfPrepareSettings;
+import se.idsec.signservice.integration.document.pdf.PdfProbe;
+import se.idsec.signservice.integration.document.pdf.PdfProbeReport;
 import se.idsec.signservice.integration.document.pdf.PdfSignaturePageFullException;
 import se.idsec.signservice.integration.document.pdf.PdfSignaturePagePreferences;
 import se.idsec.signservice.integration.document.pdf.PreparedPdfDocument;
@@ -129,4 +140,84 @@ public interface ExtendedSignServiceIntegrationService extends SignServiceIntegr
       throws InputValidationException, PdfSignaturePageFullException, PdfAConsistencyCheckException,
       PdfContainsAcroformException, PdfContainsEncryptionDictionaryException, SignServiceIntegrationException;
 
+  /**
+   * A lightweight alternative to {@link #preparePdfDocument(String, byte[], PdfSignaturePagePreferences, Boolean,
+   * String)} that examines a PDF document without preparing it. The report tells whether the document has an AcroForm
+   * or an encryption dictionary, whether it claims PDF/A conformance, and how many signatures it has, i.e., the
+   * conditions behind {@link PdfContainsAcroformException}, {@link PdfContainsEncryptionDictionaryException},
+   * {@link PdfAConsistencyCheckException} and {@link PdfSignaturePageFullException}. A caller may use it to decide
+   * whether a document needs to be prepared.
+   * <p>
+   * The document is scanned without loading its page contents (see {@link PdfProbe}), so the method is fast also for
+   * very large documents. The default implementation invokes {@link PdfProbe#probe(byte[])}.
+   * </p>
+   *
+   * @param pdfDocument the contents of the PDF document
+   * @param callerId optional ID for the calling entity
+   * @return a probe report
+   * @throws InputValidationException if the document is not a PDF document
+   * @throws SignServiceIntegrationException for other processing errors
+   */
+  @Nonnull
+  default PdfProbeReport probePdfDocument(@Nonnull final byte[] pdfDocument, @Nullable final String callerId)
+      throws InputValidationException, SignServiceIntegrationException {
+    try {
+      return PdfProbe.probe(pdfDocument);
+    }
+    catch (final IllegalArgumentException e) {
+      throw new InputValidationException("pdfDocument", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Gets the signer's assertion for a signature operation whose SignResponse was processed using the
+   * {@link SignerAssertionDelivery#REFERENCE} directive (see
+   * {@link SignResponseProcessingParameters#getSignerAssertionDelivery()}). This requires a service running in
+   * stateful mode, and assertions are only kept for a limited time.
+   * <p>
+   * The default implementation throws {@link NotSupportedException}.
+   * </p>
+   *
+   * @param assertionReference the stored assertion reference (see
+   *     {@link SignerAssertionInformation#getStoredAssertionReference()})
+   * @param callerId the identity for the calling entity (only needed if the implementation is a stand-alone service
+   *     running in stateful mode)
+   * @return the Base64-encoded assertion
+   * @throws AssertionNotFoundException if the assertion is not available
+   * @throws NotSupportedException if the service does not support signer assertions by reference
+   * @throws SignServiceIntegrationException for other processing errors
+   */
+  @Nonnull
+  default String getSignerAssertion(@Nonnull final String assertionReference, @Nullable final String callerId)
+      throws AssertionNotFoundException, NotSupportedException, SignServiceIntegrationException {
+    throw new NotSupportedException("Retrieval of signer assertions is not supported");
+  }
+
+  /**
+   * Downloads a signed document that was returned by reference (see
+   * {@link SignResponseProcessingParameters#getReturnDocumentReferences()}). The content is delivered as a stream, and
+   * a byte range may be requested, which makes it possible to resume an interrupted download of a large document.
+   * This requires a service running in stateful mode, and documents are only kept for a limited time.
+   * <p>
+   * The default implementation throws {@link NotSupportedException}.
+   * </p>
+   *
+   * @param documentReference the document reference (see {@link SignedDocument#getSignedContentReference()})
+   * @param range an optional HTTP {@code Range} value (for example {@code bytes=1024-}), see
+   *     {@link ByteRange#parse(String, long)}
+   * @param callerId the identity for the calling entity (only needed if the implementation is a stand-alone service
+   *     running in stateful mode)
+   * @return the document content
+   * @throws DocumentNotFoundException if the document is not available
+   * @throws RangeNotSatisfiableException if the range is beyond the end of the document
+   * @throws NotSupportedException if the service does not support signed documents by reference
+   * @throws SignServiceIntegrationException for other processing errors
+   */
+  @Nonnull
+  default SignedDocumentContent getSignedDocument(@Nonnull final String documentReference,
+      @Nullable final String range, @Nullable final String callerId) throws DocumentNotFoundException,
+      RangeNotSatisfiableException, NotSupportedException, SignServiceIntegrationException {
+    throw new NotSupportedException("Download of signed documents is not supported");
+  }
+
 }
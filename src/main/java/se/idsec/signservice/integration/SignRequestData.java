@@ -22,8 +22,13 @@ import lombok.ToString;
 import se.idsec.signservice.integration.core.Extensible;
 import se.idsec.signservice.integration.core.Extension;
 import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.core.SerializationSupport;
 import se.idsec.signservice.integration.core.SignatureState;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.io.Serial;
 
 /**
@@ -58,17 +63,25 @@ import java.io.Serial;
  * </body>}
  * </pre>
  *
+ * <p>
+ * Since the object is usually stored in the HTTP session, the class is {@link Externalizable} and uses a compact and
+ * versioned serialized form.
+ * </p>
+ *
  * @author Martin Lindström (martin@idsec.se)
  * @author Stefan Santesson (stefan@idsec.se)
  */
 @ToString
 @Builder
 @JsonInclude(Include.NON_NULL)
-public class SignRequestData implements Extensible {
+public class SignRequestData implements Extensible, Externalizable {
 
   @Serial
   private static final long serialVersionUID = 4357498242718442582L;
 
+  /** The current serialization format version. */
+  private static final int SERIAL_FORMAT_VERSION = 1;
+
   /** The default binding. */
   public static final String DEFAULT_BINDING = "POST/XML/1.0";
 
@@ -269,6 +282,30 @@ public class SignRequestData implements Extensible {
     this.extension = extension;
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void writeExternal(final ObjectOutput out) throws IOException {
+    SerializationSupport.writeVersion(out, SERIAL_FORMAT_VERSION);
+    out.writeObject(this.state);
+    SerializationSupport.writeString(out, this.signRequest);
+    SerializationSupport.writeString(out, this.relayState);
+    SerializationSupport.writeString(out, this.binding);
+    SerializationSupport.writeString(out, this.destinationUrl);
+    SerializationSupport.writeExtension(out, this.extension);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+    SerializationSupport.readVersion(in, SERIAL_FORMAT_VERSION, SignRequestData.class);
+    this.state = (SignatureState) in.readObject();
+    this.signRequest = SerializationSupport.readString(in);
+    this.relayState = SerializationSupport.readString(in);
+    this.binding = SerializationSupport.readString(in);
+    this.destinationUrl = SerializationSupport.readString(in);
+    this.extension = SerializationSupport.readExtension(in);
+  }
+
   /**
    * Builder for {@code SignRequestData} objects.
    */
@@ -15,6 +15,7 @@
  */
 package se.idsec.signservice.integration;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import lombok.AllArgsConstructor;
@@ -27,6 +28,7 @@ import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfigur
 import se.idsec.signservice.integration.core.Extensible;
 import se.idsec.signservice.integration.core.Extension;
 import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.core.ProcessingPriority;
 import se.idsec.signservice.integration.document.TbsDocument;
 import se.idsec.signservice.integration.signmessage.SignMessageParameters;
 
@@ -325,6 +327,28 @@ public class SignRequestInput implements Extensible {
     this.signMessageParameters = signMessageParameters;
   }
 
+  /**
+   * Gets the processing priority hint for the createSignRequest call. The hint is stored as the
+   * {@value ProcessingPriority#EXTENSION_NAME} extension value.
+   *
+   * @return the processing priority, or {@code null} if not set
+   */
+  @JsonIgnore
+  public ProcessingPriority getProcessingPriority() {
+    return ProcessingPriority.fromExtension(this);
+  }
+
+  /**
+   * Assigns the processing priority hint for the createSignRequest call. The hint is stored as the
+   * {@value ProcessingPriority#EXTENSION_NAME} extension value.
+   *
+   * @param processingPriority the processing priority ({@code null} removes the hint)
+   */
+  @JsonIgnore
+  public void setProcessingPriority(final ProcessingPriority processingPriority) {
+    ProcessingPriority.toExtension(this, processingPriority);
+  }
+
   /** {@inheritDoc} */
   @Override
   public Extension getExtension() {
@@ -341,6 +365,18 @@ public class SignRequestInput implements Extensible {
    * Builder for {@code SignRequestInput}.
    */
   public static class SignRequestInputBuilder implements ObjectBuilder<SignRequestInput> {
+
+    /**
+     * Assigns the processing priority hint (stored as an extension value).
+     *
+     * @param processingPriority the processing priority
+     * @return the builder
+     */
+    public SignRequestInputBuilder processingPriority(final ProcessingPriority processingPriority) {
+      this.extension = ProcessingPriority.withPriority(this.extension, processingPriority);
+      return this;
+    }
+
     // Lombok
   }
 }
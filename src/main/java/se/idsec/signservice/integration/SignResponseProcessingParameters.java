@@ -20,9 +20,13 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
 import lombok.Builder;
 import lombok.ToString;
+import se.idsec.signservice.integration.authentication.SignerAssertionDelivery;
+import se.idsec.signservice.integration.authentication.SignerAssertionInformation;
 import se.idsec.signservice.integration.core.Extensible;
 import se.idsec.signservice.integration.core.Extension;
 import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.document.SignedDocument;
+import se.idsec.signservice.integration.document.pdf.PdfIncrementalUpdate;
 import se.idsec.signservice.integration.document.xml.XMLSignatureLocation;
 
 import java.io.Serial;
@@ -50,6 +54,24 @@ public class SignResponseProcessingParameters implements Extensible {
    */
   private XMLSignatureLocation xmlSignatureLocation;
 
+  /**
+   * Tells how the signer's assertion is delivered in the signature result. If {@code null},
+   * {@link SignerAssertionDelivery#INCLUDE} is assumed.
+   */
+  private SignerAssertionDelivery signerAssertionDelivery;
+
+  /**
+   * Tells whether signed documents should be returned by reference instead of including their contents in the
+   * signature result.
+   */
+  private Boolean returnDocumentReferences;
+
+  /**
+   * Tells whether only the incremental updates of signed PDF documents should be returned, instead of the entire signed
+   * documents.
+   */
+  private Boolean returnPdfIncrementalUpdates;
+
   /** Extensions for the object. */
   private Extension extension;
 
@@ -66,7 +88,51 @@ public class SignResponseProcessingParameters implements Extensible {
    * @param extension extensions for the object
    */
   public SignResponseProcessingParameters(final XMLSignatureLocation xmlSignatureLocation, final Extension extension) {
+    this(xmlSignatureLocation, null, extension);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param xmlSignatureLocation insertion position for XML signatures
+   * @param signerAssertionDelivery how the signer's assertion is delivered
+   * @param extension extensions for the object
+   */
+  public SignResponseProcessingParameters(final XMLSignatureLocation xmlSignatureLocation,
+      final SignerAssertionDelivery signerAssertionDelivery, final Extension extension) {
+    this(xmlSignatureLocation, signerAssertionDelivery, null, extension);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param xmlSignatureLocation insertion position for XML signatures
+   * @param signerAssertionDelivery how the signer's assertion is delivered
+   * @param returnDocumentReferences whether signed documents are returned by reference
+   * @param extension extensions for the object
+   */
+  public SignResponseProcessingParameters(final XMLSignatureLocation xmlSignatureLocation,
+      final SignerAssertionDelivery signerAssertionDelivery, final Boolean returnDocumentReferences,
+      final Extension extension) {
+    this(xmlSignatureLocation, signerAssertionDelivery, returnDocumentReferences, null, extension);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param xmlSignatureLocation insertion position for XML signatures
+   * @param signerAssertionDelivery how the signer's assertion is delivered
+   * @param returnDocumentReferences whether signed documents are returned by reference
+   * @param returnPdfIncrementalUpdates whether only the incremental updates of signed PDF documents are returned
+   * @param extension extensions for the object
+   */
+  public SignResponseProcessingParameters(final XMLSignatureLocation xmlSignatureLocation,
+      final SignerAssertionDelivery signerAssertionDelivery, final Boolean returnDocumentReferences,
+      final Boolean returnPdfIncrementalUpdates, final Extension extension) {
     this.xmlSignatureLocation = xmlSignatureLocation;
+    this.signerAssertionDelivery = signerAssertionDelivery;
+    this.returnDocumentReferences = returnDocumentReferences;
+    this.returnPdfIncrementalUpdates = returnPdfIncrementalUpdates;
     this.extension = extension;
   }
 
@@ -90,6 +156,80 @@ public class SignResponseProcessingParameters implements Extensible {
     this.xmlSignatureLocation = xmlSignatureLocation;
   }
 
+  /**
+   * Tells how the signer's assertion ({@link SignerAssertionInformation#getAssertion()}) is delivered in the signature
+   * result. Most callers never read the assertion, and by leaving it out the result gets considerably smaller. If
+   * {@link SignerAssertionDelivery#REFERENCE} is used, the assertion may be obtained on demand using
+   * {@link ExtendedSignServiceIntegrationService#getSignerAssertion(String, String)}.
+   *
+   * @return the signer assertion delivery directive, or {@code null} (meaning {@link SignerAssertionDelivery#INCLUDE})
+   */
+  public SignerAssertionDelivery getSignerAssertionDelivery() {
+    return this.signerAssertionDelivery;
+  }
+
+  /**
+   * Assigns how the signer's assertion is delivered in the signature result.
+   *
+   * @param signerAssertionDelivery the signer assertion delivery directive
+   */
+  public void setSignerAssertionDelivery(final SignerAssertionDelivery signerAssertionDelivery) {
+    this.signerAssertionDelivery = signerAssertionDelivery;
+  }
+
+  /**
+   * Tells whether signed documents should be returned by reference. If set, the {@link SignedDocument}s of the
+   * signature result will not hold the signed content, but instead a reference to it (see
+   * {@link SignedDocument#getSignedContentReference()}), and the documents are downloaded using
+   * {@link ExtendedSignServiceIntegrationService#getSignedDocument(String, String, String)}. This keeps the result small
+   * when large documents are signed, and makes it possible to stream the documents to disk.
+   * <p>
+   * This is the {@code processSignResponse} counterpart to the {@code returnDocumentReference} parameter of
+   * {@link ExtendedSignServiceIntegrationService#preparePdfDocument(String, byte[],
+   * se.idsec.signservice.integration.document.pdf.PdfSignaturePagePreferences, Boolean, String)}, and it is only
+   * supported by services running in stateful mode.
+   * </p>
+   *
+   * @return whether signed documents are returned by reference, or {@code null} (meaning {@code false})
+   */
+  public Boolean getReturnDocumentReferences() {
+    return this.returnDocumentReferences;
+  }
+
+  /**
+   * Assigns whether signed documents should be returned by reference.
+   *
+   * @param returnDocumentReferences whether signed documents are returned by reference
+   */
+  public void setReturnDocumentReferences(final Boolean returnDocumentReferences) {
+    this.returnDocumentReferences = returnDocumentReferences;
+  }
+
+  /**
+   * Tells whether only the incremental updates of signed PDF documents should be returned. A PDF signature is appended
+   * to the document as an incremental update, so a caller that holds the document that was sent for signing only needs
+   * the appended bytes. If set, the {@link SignedDocument}s for PDF documents will not hold the signed content, but
+   * instead a {@link PdfIncrementalUpdate} that the caller applies to its copy of the document. For large PDF documents
+   * this saves both transfer and Base64 processing.
+   * <p>
+   * If the signed PDF does not extend the document that was sent for signing, the signed content is returned as usual.
+   * </p>
+   *
+   * @return whether only incremental updates are returned, or {@code null} (meaning {@code false})
+   */
+  public Boolean getReturnPdfIncrementalUpdates() {
+    return this.returnPdfIncrementalUpdates;
+  }
+
+  /**
+   * Assigns whether only the incremental updates of signed PDF documents should be returned.
+   *
+   * @param returnPdfIncrementalUpdates whether only incremental updates are returned
+   */
+  public void setReturnPdfIncrementalUpdates(final Boolean returnPdfIncrementalUpdates) {
+    this.returnPdfIncrementalUpdates = returnPdfIncrementalUpdates;
+  }
+
   /** {@inheritDoc} */
   @Override
   public Extension getExtension() {
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import jakarta.annotation.Nonnull;
+import se.idsec.signservice.integration.core.RestClientSignatureState;
+import se.idsec.signservice.integration.core.SignatureState;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared and preconfigured Jackson objects for JSON processing of the API model classes.
+ * <p>
+ * Creating an {@link ObjectMapper} is expensive, and so is the first (de-)serialization of each type since Jackson
+ * then introspects the class. This class holds one shared, thread-safe, mapper and caches an {@link ObjectReader} and
+ * {@link ObjectWriter} per model type, so that integrators do not have to create (and configure) their own mappers.
+ * </p>
+ * <p>
+ * The mapper has the following settings:
+ * </p>
+ * <ul>
+ * <li>Unknown properties are ignored, so that a client may process messages from a newer version of the service.</li>
+ * <li>Empty beans may be serialized.</li>
+ * <li>Field names are canonicalized and interned. The property names of the model classes are repeated in every
+ * message, and interning means that they are kept as one instance each.</li>
+ * <li>If the {@code com.fasterxml.jackson.module:jackson-module-blackbird} module is available on the classpath, it is
+ * registered. Blackbird replaces reflection-based property access with generated lambdas.</li>
+ * </ul>
+ * <p>
+ * Note that {@link SignatureState} is deserialized into a {@link RestClientSignatureState}, see the
+ * {@code JsonDeserialize} annotation of the interface.
+ * </p>
+ * <p>
+ * The shared mapper must not be reconfigured. Use {@link #newObjectMapper()} to get a mapper with the above settings
+ * that may be customized.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public final class SignServiceIntegrationJackson {
+
+  /** The name of the Blackbird module class. */
+  private static final String BLACKBIRD_MODULE_CLASS = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
+  /** Whether Blackbird is available. */
+  private static final boolean BLACKBIRD_AVAILABLE = isClassAvailable(BLACKBIRD_MODULE_CLASS);
+
+  /** The shared mapper. */
+  private static final ObjectMapper MAPPER = newObjectMapper();
+
+  /** The shared writer. */
+  private static final ObjectWriter WRITER = MAPPER.writer();
+
+  /** Readers per type. */
+  private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+  /** Writers per type. */
+  private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+  /**
+   * Gets the shared {@link ObjectMapper}. The mapper must not be reconfigured.
+   *
+   * @return the shared mapper
+   */
+  @Nonnull
+  public static ObjectMapper getObjectMapper() {
+    return MAPPER;
+  }
+
+  /**
+   * Gets a (cached) {@link ObjectReader} for the given type.
+   *
+   * @param type the type to read
+   * @return an object reader
+   */
+  @Nonnull
+  public static ObjectReader reader(@Nonnull final Class<?> type) {
+    return READERS.computeIfAbsent(type, MAPPER::readerFor);
+  }
+
+  /**
+   * Gets the shared {@link ObjectWriter}.
+   *
+   * @return an object writer
+   */
+  @Nonnull
+  public static ObjectWriter writer() {
+    return WRITER;
+  }
+
+  /**
+   * Gets a (cached) {@link ObjectWriter} for the given type. Using a typed writer means that the serializer is resolved
+   * once, instead of for each call.
+   *
+   * @param type the type to write
+   * @return an object writer
+   */
+  @Nonnull
+  public static ObjectWriter writer(@Nonnull final Class<?> type) {
+    return WRITERS.computeIfAbsent(type, MAPPER::writerFor);
+  }
+
+  /**
+   * Creates a new {@link ObjectMapper} having the settings described in the class documentation. Use this method if
+   * a mapper with additional settings is needed.
+   *
+   * @return a new mapper
+   */
+  @Nonnull
+  public static ObjectMapper newObjectMapper() {
+    final JsonFactory factory = new JsonFactoryBuilder()
+        .enable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)
+        .enable(JsonFactory.Feature.INTERN_FIELD_NAMES)
+        .build();
+    final JsonMapper.Builder builder = JsonMapper.builder(factory)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    if (BLACKBIRD_AVAILABLE) {
+      BlackbirdSupport.register(builder);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Tells whether the Blackbird module is used.
+   *
+   * @return {@code true} if Blackbird is registered, and {@code false} otherwise
+   */
+  public static boolean isBlackbirdEnabled() {
+    return BLACKBIRD_AVAILABLE;
+  }
+
+  /**
+   * Predicate that tells whether the given class is available.
+   *
+   * @param className the class name
+   * @return {@code true} if the class is available and {@code false} otherwise
+   */
+  private static boolean isClassAvailable(final String className) {
+    try {
+      Class.forName(className, false, SignServiceIntegrationJackson.class.getClassLoader());
+      return true;
+    }
+    catch (final ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Isolates the references to the (optional) Blackbird module so that they are only resolved if it is available.
+   */
+  private static final class BlackbirdSupport {
+
+    /**
+     * Registers the Blackbird module.
+     *
+     * @param builder the mapper builder
+     */
+    static void register(final JsonMapper.Builder builder) {
+      builder.addModule(new BlackbirdModule());
+    }
+  }
+
+  // Hidden constructor
+  private SignServiceIntegrationJackson() {
+  }
+
+}
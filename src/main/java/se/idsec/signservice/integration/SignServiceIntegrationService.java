@@ -17,8 +17,13 @@ package se.idsec.signservice.integration;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.config.ConditionalConfiguration;
+import se.idsec.signservice.integration.config.ConfigurationETag;
+import se.idsec.signservice.integration.config.ConfigurationProjection;
 import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
 import se.idsec.signservice.integration.config.PolicyNotFoundException;
+import se.idsec.signservice.integration.config.ResourceNotFoundException;
+import se.idsec.signservice.integration.core.FileResource;
 import se.idsec.signservice.integration.core.SignatureState;
 import se.idsec.signservice.integration.core.error.InputValidationException;
 import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
@@ -117,6 +122,63 @@ public interface SignServiceIntegrationService {
   @Nonnull
   IntegrationServiceDefaultConfiguration getConfiguration(@Nullable final String policy) throws PolicyNotFoundException;
 
+  /**
+   * Conditional version of {@link #getConfiguration(String)}. If the configuration for the given policy matches the
+   * supplied ETag a "not modified" result is returned, otherwise the result holds the configuration and its current
+   * ETag. See {@link ConfigurationETag}.
+   * <p>
+   * The default implementation calculates the ETag on each call. Implementations are encouraged to override this
+   * method, for example by delegating to a
+   * {@link se.idsec.signservice.integration.config.PolicyCatalogue PolicyCatalogue} that caches the ETags.
+   * </p>
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @param etag the ETag held by the caller, or the value of an HTTP {@code If-None-Match} header (may be null)
+   * @return a result holding the configuration, or telling that it has not been modified
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  default ConditionalConfiguration getConfigurationIfChanged(@Nullable final String policy, @Nullable final String etag)
+      throws PolicyNotFoundException {
+    final IntegrationServiceDefaultConfiguration configuration = this.getConfiguration(policy);
+    final String current = ConfigurationETag.calculate(configuration);
+    return ConfigurationETag.matches(current, etag)
+        ? ConditionalConfiguration.notModified(current)
+        : ConditionalConfiguration.modified(configuration, current);
+  }
+
+  /**
+   * Gets a "lite" version of the configuration for the given policy. The lite configuration is equal to the
+   * configuration returned by {@link #getConfiguration(String)}, except that the (potentially large) contents of the
+   * PDF signature pages and PDF signature image templates are replaced by references and digests. See
+   * {@link ConfigurationProjection}.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @return the lite configuration for the given policy
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  default IntegrationServiceDefaultConfiguration getLiteConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return ConfigurationProjection.lite(this.getConfiguration(policy));
+  }
+
+  /**
+   * Gets a file resource referenced from the lite configuration of a policy (see
+   * {@link FileResource#getContentsReference()}).
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @param reference the resource reference
+   * @return the file resource holding the contents
+   * @throws PolicyNotFoundException if the given policy does not exist
+   * @throws ResourceNotFoundException if the given resource does not exist
+   */
+  @Nonnull
+  default FileResource getConfigurationResource(@Nullable final String policy, @Nonnull final String reference)
+      throws PolicyNotFoundException, ResourceNotFoundException {
+    return ConfigurationProjection.getResource(this.getConfiguration(policy), reference);
+  }
+
   /**
    * Returns a list of names of the policies that are defined for this instance of the SignService Integration Service.
    *
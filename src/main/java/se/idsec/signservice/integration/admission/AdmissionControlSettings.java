@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.admission;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.ToString;
+import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.core.ProcessingPriority;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Settings for the {@link AdmissionController}.
+ * <p>
+ * Each policy and each caller has a bulkhead with a maximum number of concurrently executing calls and a maximum number
+ * of calls waiting to be admitted. A call must be admitted by both the bulkhead for the policy and the one for the
+ * caller. Limits may be given per policy and per caller. If no limit is given for a policy or caller, the default
+ * limits are used.
+ * </p>
+ * <p>
+ * Calls are scheduled by {@link ProcessingPriority}. To keep capacity available for interactive calls, batch calls may
+ * only use a share of the concurrency of a policy (see {@link #getBatchConcurrencyShare()}). To prevent starvation, a
+ * batch call that has waited longer than the promotion age (see {@link #getBatchPromotionAge()}) is scheduled before
+ * interactive calls.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@ToString
+@Builder
+public class AdmissionControlSettings {
+
+  /** The default policy limits. */
+  public static final Limits DEFAULT_POLICY_LIMITS = new Limits(32, 64);
+
+  /** The default caller limits. */
+  public static final Limits DEFAULT_CALLER_LIMITS = new Limits(8, 16);
+
+  /** The default maximum wait time. */
+  public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(10);
+
+  /** The default share of a policy's concurrency that may be used by batch calls. */
+  public static final double DEFAULT_BATCH_CONCURRENCY_SHARE = 0.75;
+
+  /** The default age after which a waiting batch call is promoted. */
+  public static final Duration DEFAULT_BATCH_PROMOTION_AGE = Duration.ofSeconds(2);
+
+  /** The default maximum number of policy bulkheads, and of caller bulkheads, that are kept. */
+  public static final int DEFAULT_MAX_BULKHEADS = 1024;
+
+  /** The default limits for policies. */
+  @Builder.Default
+  private final Limits defaultPolicyLimits = DEFAULT_POLICY_LIMITS;
+
+  /** Limits for specific policies. */
+  @Singular
+  private final Map<String, Limits> policyLimits;
+
+  /** The default limits for callers. */
+  @Builder.Default
+  private final Limits defaultCallerLimits = DEFAULT_CALLER_LIMITS;
+
+  /** Limits for specific callers. */
+  @Singular
+  private final Map<String, Limits> callerLimits;
+
+  /** The maximum time a call waits to be admitted. */
+  @Builder.Default
+  private final Duration maxWait = DEFAULT_MAX_WAIT;
+
+  /** The share of a policy's concurrency that may be used by batch calls. */
+  @Builder.Default
+  private final double batchConcurrencyShare = DEFAULT_BATCH_CONCURRENCY_SHARE;
+
+  /** The age after which a waiting batch call is scheduled before interactive calls. */
+  @Builder.Default
+  private final Duration batchPromotionAge = DEFAULT_BATCH_PROMOTION_AGE;
+
+  /** The priority for calls that do not have a priority hint. */
+  @Builder.Default
+  private final ProcessingPriority defaultPriority = ProcessingPriority.INTERACTIVE;
+
+  /** The maximum number of policy bulkheads, and of caller bulkheads, that are kept. */
+  @Builder.Default
+  private final int maxBulkheads = DEFAULT_MAX_BULKHEADS;
+
+  /**
+   * Gets the limits for the given policy.
+   *
+   * @param policy the policy name
+   * @return the limits
+   */
+  @Nonnull
+  public Limits getPolicyLimits(@Nullable final String policy) {
+    final Limits limits = policy != null ? this.policyLimits.get(policy) : null;
+    return limits != null ? limits : this.defaultPolicyLimits;
+  }
+
+  /**
+   * Gets the limits for the given caller.
+   *
+   * @param callerId the caller identity
+   * @return the limits
+   */
+  @Nonnull
+  public Limits getCallerLimits(@Nullable final String callerId) {
+    final Limits limits = callerId != null ? this.callerLimits.get(callerId) : null;
+    return limits != null ? limits : this.defaultCallerLimits;
+  }
+
+  /**
+   * Gets the maximum time a call waits to be admitted.
+   *
+   * @return the maximum wait time
+   */
+  @Nonnull
+  public Duration getMaxWait() {
+    return this.maxWait;
+  }
+
+  /**
+   * Gets the share (0.0 to 1.0) of a policy's maximum concurrency that may be used by batch calls. At least one batch
+   * call is always allowed. The default is {@value #DEFAULT_BATCH_CONCURRENCY_SHARE}.
+   *
+   * @return the batch concurrency share
+   */
+  public double getBatchConcurrencyShare() {
+    return this.batchConcurrencyShare;
+  }
+
+  /**
+   * Gets the maximum number of concurrent batch calls for the given policy limits.
+   *
+   * @param limits the policy limits
+   * @return the maximum number of concurrent batch calls
+   */
+  public int getMaxBatchConcurrent(@Nonnull final Limits limits) {
+    if (limits.maxConcurrent() == Integer.MAX_VALUE) {
+      return Integer.MAX_VALUE;
+    }
+    final double share = Math.min(1.0, Math.max(0.0, this.batchConcurrencyShare));
+    return Math.max(1, (int) Math.floor(limits.maxConcurrent() * share));
+  }
+
+  /**
+   * Gets the age after which a waiting batch call is scheduled before interactive calls.
+   *
+   * @return the batch promotion age
+   */
+  @Nonnull
+  public Duration getBatchPromotionAge() {
+    return this.batchPromotionAge;
+  }
+
+  /**
+   * Gets the priority for calls that do not have a priority hint. The default is
+   * {@link ProcessingPriority#INTERACTIVE}.
+   *
+   * @return the default priority
+   */
+  @Nonnull
+  public ProcessingPriority getDefaultPriority() {
+    return this.defaultPriority;
+  }
+
+  /**
+   * Gets the maximum number of policy bulkheads, and of caller bulkheads, that the controller keeps. When the limit is
+   * exceeded, the least recently used idle bulkheads (no executing and no waiting calls) are evicted, and their
+   * statistics are lost. Bulkheads that are in use are never evicted. The default is
+   * {@value #DEFAULT_MAX_BULKHEADS}.
+   *
+   * @return the maximum number of bulkheads
+   */
+  public int getMaxBulkheads() {
+    return this.maxBulkheads;
+  }
+
+  /**
+   * Bulkhead limits.
+   *
+   * @param maxConcurrent the maximum number of concurrently executing calls
+   * @param maxQueued the maximum number of calls waiting to be admitted
+   */
+  public record Limits(int maxConcurrent, int maxQueued) {
+
+    /**
+     * Constructor.
+     *
+     * @param maxConcurrent the maximum number of concurrently executing calls (must be greater than 0)
+     * @param maxQueued the maximum number of calls waiting to be admitted (0 means that no calls are queued)
+     */
+    public Limits {
+      if (maxConcurrent < 1) {
+        throw new IllegalArgumentException("maxConcurrent must be greater than 0");
+      }
+      if (maxQueued < 0) {
+        throw new IllegalArgumentException("maxQueued must not be negative");
+      }
+    }
+
+    /**
+     * Limits that never restrict any calls.
+     *
+     * @return unlimited limits
+     */
+    public static Limits unlimited() {
+      return new Limits(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+  }
+
+  /**
+   * Builder for {@link AdmissionControlSettings}.
+   */
+  public static class AdmissionControlSettingsBuilder implements ObjectBuilder<AdmissionControlSettings> {
+    // Lombok
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.admission;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.ExtendedSignServiceIntegrationService;
+import se.idsec.signservice.integration.authentication.AssertionNotFoundException;
+import se.idsec.signservice.integration.core.ProcessingPriority;
+import se.idsec.signservice.integration.core.error.InputValidationException;
+import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
+import se.idsec.signservice.integration.document.DocumentNotFoundException;
+import se.idsec.signservice.integration.document.RangeNotSatisfiableException;
+import se.idsec.signservice.integration.document.SignedDocumentContent;
+import se.idsec.signservice.integration.document.pdf.PdfAConsistencyCheckException;
+import se.idsec.signservice.integration.document.pdf.PdfContainsAcroformException;
+import se.idsec.signservice.integration.document.pdf.PdfContainsEncryptionDictionaryException;
+import se.idsec.signservice.integration.document.pdf.PdfProbeReport;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePageFullException;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePagePreferences;
+import se.idsec.signservice.integration.document.pdf.PreparedPdfDocument;
+
+/**
+ * An {@link ExtendedSignServiceIntegrationService} decorator that applies admission control. In addition to the calls
+ * controlled by {@link AdmissionControlledSignServiceIntegrationService}, {@code preparePdfDocument} calls are
+ * admission controlled. Their priority is given by {@link PdfSignaturePagePreferences#getProcessingPriority()}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class AdmissionControlledExtendedSignServiceIntegrationService
+    extends AdmissionControlledSignServiceIntegrationService implements ExtendedSignServiceIntegrationService {
+
+  /**
+   * Constructor.
+   *
+   * @param delegate the service to decorate
+   * @param controller the admission controller
+   */
+  public AdmissionControlledExtendedSignServiceIntegrationService(
+      @Nonnull final ExtendedSignServiceIntegrationService delegate, @Nonnull final AdmissionController controller) {
+    super(delegate, controller);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public PreparedPdfDocument preparePdfDocument(@Nullable final String policy, @Nonnull final byte[] pdfDocument,
+      @Nullable final PdfSignaturePagePreferences signaturePagePreferences,
+      @Nullable final Boolean returnDocumentReference, @Nullable final String callerId)
+      throws InputValidationException, PdfSignaturePageFullException, PdfAConsistencyCheckException,
+      PdfContainsAcroformException, PdfContainsEncryptionDictionaryException, SignServiceIntegrationException {
+    final ProcessingPriority priority =
+        signaturePagePreferences != null ? signaturePagePreferences.getProcessingPriority() : null;
+    try (final AdmissionController.Permit ignored =
+        this.getController().acquire(getPolicyName(policy), callerId, priority)) {
+      return ((ExtendedSignServiceIntegrationService) this.getDelegate())
+          .preparePdfDocument(policy, pdfDocument, signaturePagePreferences, returnDocumentReference, callerId);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public PdfProbeReport probePdfDocument(@Nonnull final byte[] pdfDocument, @Nullable final String callerId)
+      throws InputValidationException, SignServiceIntegrationException {
+    return ((ExtendedSignServiceIntegrationService) this.getDelegate()).probePdfDocument(pdfDocument, callerId);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public String getSignerAssertion(@Nonnull final String assertionReference, @Nullable final String callerId)
+      throws AssertionNotFoundException, SignServiceIntegrationException {
+    return ((ExtendedSignServiceIntegrationService) this.getDelegate())
+        .getSignerAssertion(assertionReference, callerId);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public SignedDocumentContent getSignedDocument(@Nonnull final String documentReference,
+      @Nullable final String range, @Nullable final String callerId)
+      throws DocumentNotFoundException, RangeNotSatisfiableException, SignServiceIntegrationException {
+    return ((ExtendedSignServiceIntegrationService) this.getDelegate())
+        .getSignedDocument(documentReference, range, callerId);
+  }
+
+}
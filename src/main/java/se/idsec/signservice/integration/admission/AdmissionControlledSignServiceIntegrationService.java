@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.admission;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.SignRequestData;
+import se.idsec.signservice.integration.SignRequestInput;
+import se.idsec.signservice.integration.SignResponseCancelStatusException;
+import se.idsec.signservice.integration.SignResponseErrorStatusException;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignServiceIntegrationService;
+import se.idsec.signservice.integration.SignatureResult;
+import se.idsec.signservice.integration.config.ConditionalConfiguration;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+import se.idsec.signservice.integration.config.PolicyNotFoundException;
+import se.idsec.signservice.integration.config.ResourceNotFoundException;
+import se.idsec.signservice.integration.core.FileResource;
+import se.idsec.signservice.integration.core.ProcessingPriority;
+import se.idsec.signservice.integration.core.SignatureState;
+import se.idsec.signservice.integration.core.error.InputValidationException;
+import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A {@link SignServiceIntegrationService} decorator that applies admission control (see {@link AdmissionController})
+ * to the {@code createSignRequest} and {@code processSignResponse} calls. Calls that are not admitted are rejected
+ * with an {@link AdmissionRejectedException}.
+ * <p>
+ * The policy for {@code createSignRequest} is taken from the input (where {@code null} is the default policy). The
+ * {@link SignatureState} passed to {@code processSignResponse} does not tell the policy, so unless a policy resolver is
+ * installed (see {@link #setPolicyResolver(Function)}), these calls are only limited by the caller bulkhead.
+ * </p>
+ * <p>
+ * The priority of a {@code createSignRequest} call is given by {@link SignRequestInput#getProcessingPriority()}.
+ * {@code processSignResponse} calls are always {@link ProcessingPriority#INTERACTIVE}, since the user's browser is
+ * waiting for the result.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class AdmissionControlledSignServiceIntegrationService implements SignServiceIntegrationService {
+
+  /** The decorated service. */
+  private final SignServiceIntegrationService delegate;
+
+  /** The admission controller. */
+  private final AdmissionController controller;
+
+  /** Resolves the policy from a signature state. */
+  private Function<SignatureState, String> policyResolver = s -> null;
+
+  /**
+   * Constructor.
+   *
+   * @param delegate the service to decorate
+   * @param controller the admission controller
+   */
+  public AdmissionControlledSignServiceIntegrationService(
+      @Nonnull final SignServiceIntegrationService delegate, @Nonnull final AdmissionController controller) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+    this.controller = Objects.requireNonNull(controller, "controller must not be null");
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public SignRequestData createSignRequest(
+      @Nonnull final SignRequestInput signRequestInput, @Nullable final String callerId)
+      throws InputValidationException, SignServiceIntegrationException {
+    try (final AdmissionController.Permit ignored = this.controller.acquire(
+        getPolicyName(signRequestInput.getPolicy()), callerId, signRequestInput.getProcessingPriority())) {
+      return this.delegate.createSignRequest(signRequestInput, callerId);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public SignatureResult processSignResponse(@Nonnull final String signResponse, @Nonnull final String relayState,
+      @Nonnull final SignatureState state, @Nullable final SignResponseProcessingParameters parameters,
+      @Nullable final String callerId)
+      throws SignResponseCancelStatusException, SignResponseErrorStatusException, SignServiceIntegrationException {
+    try (final AdmissionController.Permit ignored = this.controller.acquire(
+        this.policyResolver.apply(state), callerId, ProcessingPriority.INTERACTIVE)) {
+      return this.delegate.processSignResponse(signResponse, relayState, state, parameters, callerId);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public IntegrationServiceDefaultConfiguration getConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return this.delegate.getConfiguration(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public ConditionalConfiguration getConfigurationIfChanged(@Nullable final String policy, @Nullable final String etag)
+      throws PolicyNotFoundException {
+    return this.delegate.getConfigurationIfChanged(policy, etag);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public IntegrationServiceDefaultConfiguration getLiteConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return this.delegate.getLiteConfiguration(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public FileResource getConfigurationResource(@Nullable final String policy, @Nonnull final String reference)
+      throws PolicyNotFoundException, ResourceNotFoundException {
+    return this.delegate.getConfigurationResource(policy, reference);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public List<String> getPolicies() {
+    return this.delegate.getPolicies();
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public String getVersion() {
+    return this.delegate.getVersion();
+  }
+
+  /**
+   * Assigns a function that resolves the policy of a signature operation from its {@link SignatureState}. The function
+   * may return {@code null} if the policy is not known. By default, no policy is resolved.
+   *
+   * @param policyResolver the policy resolver
+   */
+  public void setPolicyResolver(@Nonnull final Function<SignatureState, String> policyResolver) {
+    this.policyResolver = Objects.requireNonNull(policyResolver, "policyResolver must not be null");
+  }
+
+  /**
+   * Gets the decorated service.
+   *
+   * @return the decorated service
+   */
+  @Nonnull
+  protected SignServiceIntegrationService getDelegate() {
+    return this.delegate;
+  }
+
+  /**
+   * Gets the admission controller.
+   *
+   * @return the admission controller
+   */
+  @Nonnull
+  public AdmissionController getController() {
+    return this.controller;
+  }
+
+  /**
+   * Gets the policy name, where {@code null} is mapped to the default policy name.
+   *
+   * @param policy the policy name
+   * @return the policy name
+   */
+  @Nonnull
+  protected static String getPolicyName(@Nullable final String policy) {
+    return policy != null ? policy : IntegrationServiceDefaultConfiguration.DEFAULT_POLICY_NAME;
+  }
+
+}
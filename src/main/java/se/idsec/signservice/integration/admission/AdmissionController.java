@@ -0,0 +1,605 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.admission;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.core.ProcessingPriority;
+import se.idsec.signservice.integration.core.error.ErrorCode;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control with bounded concurrency and bounded queues per policy and per caller, and priority scheduling of
+ * interactive and batch calls.
+ * <p>
+ * A call is admitted immediately if both the bulkhead for its policy and the bulkhead for its caller have free
+ * capacity, and no waiting call should go before it. Otherwise, it is queued, unless the policy or caller queue is
+ * full, in which case it is rejected at once with {@link AdmissionRejectedException#QUEUE_FULL}. Calls that are not
+ * admitted within the configured maximum wait time are rejected with {@link AdmissionRejectedException#WAIT_TIMEOUT}.
+ * </p>
+ * <p>
+ * Queued calls are admitted in the following order:
+ * </p>
+ * <ol>
+ * <li>Batch calls that have waited longer than the batch promotion age (oldest first). This prevents starvation of
+ * batch calls.</li>
+ * <li>Interactive calls.</li>
+ * <li>Batch calls, as long as the batch calls of the policy do not use more than their share of the concurrency.</li>
+ * </ol>
+ * <p>
+ * Within a priority, calls are admitted in round-robin order between callers (and in FIFO order for each caller), so
+ * a caller posting a burst of calls for a policy only gets its fair share of the capacity for that policy, and can not
+ * starve other callers.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class AdmissionController {
+
+  /** The bulkhead name used for calls without a caller identity. */
+  public static final String ANONYMOUS_CALLER = "<anonymous>";
+
+  /** The bulkhead name used for calls where the policy is not known. This bulkhead has no limits. */
+  public static final String UNSPECIFIED_POLICY = "<unspecified>";
+
+  /** The settings. */
+  private final AdmissionControlSettings settings;
+
+  /** The listener. */
+  private final AdmissionListener listener;
+
+  /** Guards all bulkhead state. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** Policy bulkheads, in least recently used order. */
+  private final Map<String, Bulkhead> policies = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** Caller bulkheads, in least recently used order. */
+  private final Map<String, Bulkhead> callers = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Constructor.
+   *
+   * @param settings the settings
+   */
+  public AdmissionController(@Nonnull final AdmissionControlSettings settings) {
+    this(settings, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param settings the settings
+   * @param listener optional listener for admission events
+   */
+  public AdmissionController(
+      @Nonnull final AdmissionControlSettings settings, @Nullable final AdmissionListener listener) {
+    this.settings = Objects.requireNonNull(settings, "settings must not be null");
+    this.listener = listener != null ? listener : new AdmissionListener() {
+    };
+  }
+
+  /**
+   * Acquires a permit for executing a call having the default priority. The permit must be closed when the call has
+   * completed.
+   *
+   * @param policy the policy name ({@code null} means that the policy is not known)
+   * @param callerId the caller identity (may be {@code null})
+   * @return a permit
+   * @throws AdmissionRejectedException if the call is not admitted
+   */
+  @Nonnull
+  public Permit acquire(@Nullable final String policy, @Nullable final String callerId)
+      throws AdmissionRejectedException {
+    return this.acquire(policy, callerId, null);
+  }
+
+  /**
+   * Acquires a permit for executing a call. The permit must be closed when the call has completed.
+   *
+   * @param policy the policy name ({@code null} means that the policy is not known)
+   * @param callerId the caller identity (may be {@code null})
+   * @param priority the priority ({@code null} means the default priority)
+   * @return a permit
+   * @throws AdmissionRejectedException if the call is not admitted
+   */
+  @Nonnull
+  public Permit acquire(@Nullable final String policy, @Nullable final String callerId,
+      @Nullable final ProcessingPriority priority) throws AdmissionRejectedException {
+    final String policyName = policy != null ? policy : UNSPECIFIED_POLICY;
+    final String callerName = callerId != null ? callerId : ANONYMOUS_CALLER;
+    final ProcessingPriority prio = priority != null ? priority : this.settings.getDefaultPriority();
+    final long start = System.nanoTime();
+
+    Bulkhead p;
+    Bulkhead c;
+    Waiter waiter = null;
+    ErrorCode rejection = null;
+    String rejectionMessage = null;
+
+    this.lock.lock();
+    try {
+      p = this.policies.computeIfAbsent(policyName, n -> {
+        final AdmissionControlSettings.Limits limits = policy != null
+            ? this.settings.getPolicyLimits(n)
+            : AdmissionControlSettings.Limits.unlimited();
+        return new Bulkhead(n, limits, this.settings.getMaxBatchConcurrent(limits));
+      });
+      c = this.callers.computeIfAbsent(callerName, n ->
+          new Bulkhead(n, this.settings.getCallerLimits(callerId), Integer.MAX_VALUE));
+      this.evictIdle(this.policies, p);
+      this.evictIdle(this.callers, c);
+
+      waiter = new Waiter(p, c, prio, start);
+      if (this.canAdmit(waiter) && this.goesFirst(waiter, start)) {
+        admit(waiter);
+        waiter = null;
+      }
+      else if (p.queued >= p.limits.maxQueued()) {
+        rejection = AdmissionRejectedException.QUEUE_FULL;
+        rejectionMessage = "Queue for policy '%s' is full".formatted(policyName);
+      }
+      else if (c.queued >= c.limits.maxQueued()) {
+        rejection = AdmissionRejectedException.QUEUE_FULL;
+        rejectionMessage = "Queue for caller '%s' is full".formatted(callerName);
+      }
+      else {
+        waiter.condition = this.lock.newCondition();
+        p.waiters(prio).computeIfAbsent(callerName, n -> new ArrayDeque<>()).addLast(waiter);
+        p.queued++;
+        c.queued++;
+        c.waitingIn.merge(p, 1, Integer::sum);
+        this.dispatch(p);
+
+        long remaining = this.settings.getMaxWait().toNanos();
+        while (!waiter.admitted) {
+          if (remaining <= 0L) {
+            this.removeWaiter(waiter);
+            rejection = AdmissionRejectedException.WAIT_TIMEOUT;
+            rejectionMessage = "Call for policy '%s' from caller '%s' was not admitted within %s"
+                .formatted(policyName, callerName, this.settings.getMaxWait());
+            break;
+          }
+          try {
+            remaining = waiter.condition.awaitNanos(remaining);
+          }
+          catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!waiter.admitted) {
+              this.removeWaiter(waiter);
+              rejection = AdmissionRejectedException.WAIT_TIMEOUT;
+              rejectionMessage = "Interrupted while waiting for admission";
+            }
+            break;
+          }
+        }
+      }
+      if (rejection != null) {
+        if (rejection == AdmissionRejectedException.QUEUE_FULL) {
+          p.rejected++;
+          c.rejected++;
+        }
+        else {
+          p.timedOut++;
+          c.timedOut++;
+        }
+      }
+    }
+    finally {
+      this.lock.unlock();
+    }
+
+    if (rejection != null) {
+      this.listener.onRejected(policyName, callerName, prio, rejection);
+      throw new AdmissionRejectedException(rejection, rejectionMessage);
+    }
+    final Duration waitTime = Duration.ofNanos(waiter != null ? waiter.waitNanos : 0L);
+    this.listener.onAdmitted(policyName, callerName, prio, waitTime);
+    return new Permit(p, c, prio);
+  }
+
+  /**
+   * Gets statistics for all policy bulkheads. Idle bulkheads that have been evicted (see
+   * {@link AdmissionControlSettings#getMaxBulkheads()}) are not included.
+   *
+   * @return a map of statistics, keyed by policy name
+   */
+  @Nonnull
+  public Map<String, AdmissionStatistics> getPolicyStatistics() {
+    return this.getStatistics(this.policies);
+  }
+
+  /**
+   * Gets statistics for all caller bulkheads. Idle bulkheads that have been evicted (see
+   * {@link AdmissionControlSettings#getMaxBulkheads()}) are not included.
+   *
+   * @return a map of statistics, keyed by caller identity
+   */
+  @Nonnull
+  public Map<String, AdmissionStatistics> getCallerStatistics() {
+    return this.getStatistics(this.callers);
+  }
+
+  /**
+   * Creates statistics snapshots for the given bulkheads.
+   *
+   * @param bulkheads the bulkheads
+   * @return a (sorted) map of statistics
+   */
+  private Map<String, AdmissionStatistics> getStatistics(final Map<String, Bulkhead> bulkheads) {
+    this.lock.lock();
+    try {
+      final Map<String, AdmissionStatistics> statistics = new TreeMap<>();
+      bulkheads.forEach((name, b) -> statistics.put(name, b.toStatistics()));
+      return statistics;
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Evicts the least recently used idle bulkheads until the number of bulkheads is within the configured maximum.
+   *
+   * @param bulkheads the bulkheads (in least recently used order)
+   * @param current the bulkhead for the current call (never evicted)
+   */
+  private void evictIdle(final Map<String, Bulkhead> bulkheads, final Bulkhead current) {
+    int excess = bulkheads.size() - Math.max(1, this.settings.getMaxBulkheads());
+    for (final Iterator<Bulkhead> i = bulkheads.values().iterator(); excess > 0 && i.hasNext(); ) {
+      final Bulkhead b = i.next();
+      if (b != current && b.isIdle()) {
+        i.remove();
+        excess--;
+      }
+    }
+  }
+
+  /**
+   * Releases the capacity held by a call and admits waiting calls.
+   *
+   * @param p the policy bulkhead
+   * @param c the caller bulkhead
+   * @param priority the priority of the call
+   */
+  private void release(final Bulkhead p, final Bulkhead c, final ProcessingPriority priority) {
+    this.lock.lock();
+    try {
+      p.release(priority);
+      c.release(priority);
+      this.dispatch(p);
+      if (!c.waitingIn.isEmpty()) {
+        // The caller may have waiting calls for other policies that were blocked by the caller limit
+        for (final Bulkhead other : new ArrayList<>(c.waitingIn.keySet())) {
+          if (other != p) {
+            this.dispatch(other);
+          }
+        }
+      }
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Admits as many waiting calls as possible for the given policy bulkhead.
+   *
+   * @param p the policy bulkhead
+   */
+  private void dispatch(final Bulkhead p) {
+    final long now = System.nanoTime();
+    while (p.hasCapacity() && p.queued > 0) {
+      final Waiter next = this.nextAdmittable(p, now);
+      if (next == null) {
+        return;
+      }
+      // Take the waiter, and move the caller to the end of the round-robin order
+      final LinkedHashMap<String, ArrayDeque<Waiter>> waiters = p.waiters(next.priority);
+      final ArrayDeque<Waiter> queue = waiters.remove(next.caller.name);
+      queue.pollFirst();
+      if (!queue.isEmpty()) {
+        waiters.put(next.caller.name, queue);
+      }
+      this.dequeued(next);
+      next.waitNanos = now - next.enqueued;
+      admit(next);
+      next.admitted = true;
+      next.condition.signal();
+    }
+  }
+
+  /**
+   * Finds the next waiter to admit (see the class documentation for the order).
+   *
+   * @param p the policy bulkhead
+   * @param now the current time (nanos)
+   * @return the waiter, or {@code null} if no waiter can be admitted
+   */
+  private Waiter nextAdmittable(final Bulkhead p, final long now) {
+    final Waiter promoted = this.oldestPromotedBatchWaiter(p, now);
+    if (promoted != null) {
+      return promoted;
+    }
+    final Waiter interactive = this.firstAdmittable(p.interactiveWaiters);
+    return interactive != null ? interactive : this.firstAdmittable(p.batchWaiters);
+  }
+
+  /**
+   * Finds the first waiter (in round-robin order) that can be admitted.
+   *
+   * @param waiters the waiters per caller
+   * @return the waiter, or {@code null}
+   */
+  private Waiter firstAdmittable(final LinkedHashMap<String, ArrayDeque<Waiter>> waiters) {
+    for (final ArrayDeque<Waiter> queue : waiters.values()) {
+      final Waiter candidate = queue.peekFirst();
+      if (candidate != null && this.canAdmit(candidate)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the oldest batch waiter that has waited longer than the promotion age and that can be admitted.
+   *
+   * @param p the policy bulkhead
+   * @param now the current time (nanos)
+   * @return the waiter, or {@code null}
+   */
+  private Waiter oldestPromotedBatchWaiter(final Bulkhead p, final long now) {
+    final long promotionAge = this.settings.getBatchPromotionAge().toNanos();
+    Waiter oldest = null;
+    for (final ArrayDeque<Waiter> queue : p.batchWaiters.values()) {
+      final Waiter candidate = queue.peekFirst();
+      if (candidate != null && now - candidate.enqueued >= promotionAge && this.canAdmit(candidate)
+          && (oldest == null || candidate.enqueued - oldest.enqueued < 0)) {
+        oldest = candidate;
+      }
+    }
+    return oldest;
+  }
+
+  /**
+   * Tells whether a new call may be admitted before the calls that are waiting.
+   *
+   * @param call the new call
+   * @param now the current time (nanos)
+   * @return {@code true} if the call goes first
+   */
+  private boolean goesFirst(final Waiter call, final long now) {
+    if (call.policy.queued == 0) {
+      return true;
+    }
+    final Waiter next = this.nextAdmittable(call.policy, now);
+    if (next == null) {
+      return true;
+    }
+    // An interactive call goes before batch calls that have not been promoted
+    return call.priority == ProcessingPriority.INTERACTIVE && next.priority == ProcessingPriority.BATCH
+        && now - next.enqueued < this.settings.getBatchPromotionAge().toNanos();
+  }
+
+  /**
+   * Tells whether a call has capacity in both its bulkheads.
+   *
+   * @param call the call
+   * @return {@code true} if the call can be admitted
+   */
+  private boolean canAdmit(final Waiter call) {
+    return call.policy.hasCapacity(call.priority) && call.caller.hasCapacity(call.priority);
+  }
+
+  /**
+   * Removes a waiter that gave up.
+   *
+   * @param waiter the waiter
+   */
+  private void removeWaiter(final Waiter waiter) {
+    final LinkedHashMap<String, ArrayDeque<Waiter>> waiters = waiter.policy.waiters(waiter.priority);
+    final ArrayDeque<Waiter> queue = waiters.get(waiter.caller.name);
+    if (queue != null && queue.remove(waiter)) {
+      if (queue.isEmpty()) {
+        waiters.remove(waiter.caller.name);
+      }
+      this.dequeued(waiter);
+    }
+  }
+
+  /**
+   * Updates the queue counters for a waiter that has left the queue.
+   *
+   * @param waiter the waiter
+   */
+  private void dequeued(final Waiter waiter) {
+    waiter.policy.queued--;
+    waiter.caller.queued--;
+    waiter.caller.waitingIn.computeIfPresent(waiter.policy, (k, v) -> v > 1 ? v - 1 : null);
+  }
+
+  /**
+   * Updates the bulkheads for an admitted call.
+   *
+   * @param call the call
+   */
+  private static void admit(final Waiter call) {
+    call.policy.admitted(call.priority, call.waitNanos);
+    call.caller.admitted(call.priority, call.waitNanos);
+  }
+
+  /**
+   * A permit for an admitted call. Closing the permit releases the capacity.
+   */
+  public final class Permit implements AutoCloseable {
+
+    /** The policy bulkhead. */
+    private final Bulkhead policy;
+
+    /** The caller bulkhead. */
+    private final Bulkhead caller;
+
+    /** The priority of the call. */
+    private final ProcessingPriority priority;
+
+    /** Whether the permit has been released. */
+    private boolean released;
+
+    /**
+     * Constructor.
+     *
+     * @param policy the policy bulkhead
+     * @param caller the caller bulkhead
+     * @param priority the priority of the call
+     */
+    private Permit(final Bulkhead policy, final Bulkhead caller, final ProcessingPriority priority) {
+      this.policy = policy;
+      this.caller = caller;
+      this.priority = priority;
+    }
+
+    /**
+     * Gets the priority that the call was admitted with.
+     *
+     * @return the priority
+     */
+    @Nonnull
+    public ProcessingPriority getPriority() {
+      return this.priority;
+    }
+
+    /**
+     * Releases the permit. Calling this method more than once has no effect.
+     */
+    @Override
+    public void close() {
+      synchronized (this) {
+        if (this.released) {
+          return;
+        }
+        this.released = true;
+      }
+      AdmissionController.this.release(this.policy, this.caller, this.priority);
+    }
+  }
+
+  /**
+   * A bulkhead for a policy or a caller. Guarded by the controller lock.
+   */
+  private static final class Bulkhead {
+
+    final String name;
+    final AdmissionControlSettings.Limits limits;
+    final int maxBatchConcurrent;
+    int active;
+    int activeBatch;
+    int queued;
+    long admitted;
+    long rejected;
+    long timedOut;
+    long totalWaitNanos;
+    long maxWaitNanos;
+
+    /** For policy bulkheads: waiting interactive calls per caller, in round-robin order. */
+    final LinkedHashMap<String, ArrayDeque<Waiter>> interactiveWaiters = new LinkedHashMap<>();
+
+    /** For policy bulkheads: waiting batch calls per caller, in round-robin order. */
+    final LinkedHashMap<String, ArrayDeque<Waiter>> batchWaiters = new LinkedHashMap<>();
+
+    /** For caller bulkheads: the policy bulkheads where the caller has waiting calls (and how many). */
+    final Map<Bulkhead, Integer> waitingIn = new HashMap<>();
+
+    Bulkhead(final String name, final AdmissionControlSettings.Limits limits, final int maxBatchConcurrent) {
+      this.name = name;
+      this.limits = limits;
+      this.maxBatchConcurrent = maxBatchConcurrent;
+    }
+
+    LinkedHashMap<String, ArrayDeque<Waiter>> waiters(final ProcessingPriority priority) {
+      return priority == ProcessingPriority.BATCH ? this.batchWaiters : this.interactiveWaiters;
+    }
+
+    boolean isIdle() {
+      return this.active == 0 && this.queued == 0 && this.waitingIn.isEmpty();
+    }
+
+    boolean hasCapacity() {
+      return this.active < this.limits.maxConcurrent();
+    }
+
+    boolean hasCapacity(final ProcessingPriority priority) {
+      return this.hasCapacity()
+          && (priority != ProcessingPriority.BATCH || this.activeBatch < this.maxBatchConcurrent);
+    }
+
+    void admitted(final ProcessingPriority priority, final long waitNanos) {
+      this.active++;
+      if (priority == ProcessingPriority.BATCH) {
+        this.activeBatch++;
+      }
+      this.admitted++;
+      this.totalWaitNanos += waitNanos;
+      this.maxWaitNanos = Math.max(this.maxWaitNanos, waitNanos);
+    }
+
+    void release(final ProcessingPriority priority) {
+      this.active--;
+      if (priority == ProcessingPriority.BATCH) {
+        this.activeBatch--;
+      }
+    }
+
+    AdmissionStatistics toStatistics() {
+      return new AdmissionStatistics(this.name, this.limits, this.active, this.activeBatch, this.queued,
+          this.admitted, this.rejected, this.timedOut, Duration.ofNanos(this.totalWaitNanos),
+          Duration.ofNanos(this.maxWaitNanos));
+    }
+  }
+
+  /**
+   * A call waiting to be admitted. Guarded by the controller lock.
+   */
+  private static final class Waiter {
+
+    final Bulkhead policy;
+    final Bulkhead caller;
+    final ProcessingPriority priority;
+    final long enqueued;
+    Condition condition;
+    boolean admitted;
+    long waitNanos;
+
+    Waiter(final Bulkhead policy, final Bulkhead caller, final ProcessingPriority priority, final long enqueued) {
+      this.policy = policy;
+      this.caller = caller;
+      this.priority = priority;
+      this.enqueued = enqueued;
+    }
+  }
+
+}
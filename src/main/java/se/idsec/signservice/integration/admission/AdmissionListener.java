@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.admission;
+
+import jakarta.annotation.Nonnull;
+import se.idsec.signservice.integration.core.ProcessingPriority;
+import se.idsec.signservice.integration.core.error.ErrorCode;
+
+import java.time.Duration;
+
+/**
+ * Listener for admission events. May be used to feed a metrics system with wait times and rejections. See also
+ * {@link AdmissionController#getPolicyStatistics()} and {@link AdmissionController#getCallerStatistics()}.
+ * <p>
+ * The listener is invoked on the calling thread, but not while holding any locks of the controller.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public interface AdmissionListener {
+
+  /**
+   * Invoked when a call has been admitted.
+   *
+   * @param policy the policy bulkhead name
+   * @param callerId the caller bulkhead name
+   * @param priority the priority of the call
+   * @param waitTime the time the call waited before it was admitted
+   */
+  default void onAdmitted(@Nonnull final String policy, @Nonnull final String callerId,
+      @Nonnull final ProcessingPriority priority, @Nonnull final Duration waitTime) {
+  }
+
+  /**
+   * Invoked when a call has been rejected.
+   *
+   * @param policy the policy bulkhead name
+   * @param callerId the caller bulkhead name
+   * @param priority the priority of the call
+   * @param reason {@link AdmissionRejectedException#QUEUE_FULL} or {@link AdmissionRejectedException#WAIT_TIMEOUT}
+   */
+  default void onRejected(@Nonnull final String policy, @Nonnull final String callerId,
+      @Nonnull final ProcessingPriority priority, @Nonnull final ErrorCode reason) {
+  }
+
+}
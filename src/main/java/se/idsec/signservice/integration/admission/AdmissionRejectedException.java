@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.admission;
+
+import se.idsec.signservice.integration.core.error.ErrorCode;
+import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
+
+import java.io.Serial;
+
+/**
+ * Exception reported by the {@link AdmissionController} when a call is not admitted, either because a queue is full,
+ * or because the call could not be admitted within the maximum wait time.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class AdmissionRejectedException extends SignServiceIntegrationException {
+
+  @Serial
+  private static final long serialVersionUID = -2817406154270583349L;
+
+  /** Error code for the case when a call is rejected since the queue for the policy or caller is full. */
+  public static final ErrorCode QUEUE_FULL = new ErrorCode("capacity", "queue-full");
+
+  /** Error code for the case when a call could not be admitted within the maximum wait time. */
+  public static final ErrorCode WAIT_TIMEOUT = new ErrorCode("capacity", "wait-timeout");
+
+  /**
+   * Constructor.
+   *
+   * @param errorCode the error code ({@link #QUEUE_FULL} or {@link #WAIT_TIMEOUT})
+   * @param message the error message
+   */
+  public AdmissionRejectedException(final ErrorCode errorCode, final String message) {
+    super(errorCode, message);
+  }
+
+  /**
+   * Returns 429 (Too Many Requests).
+   */
+  @Override
+  public int getHttpStatus() {
+    return 429;
+  }
+
+}
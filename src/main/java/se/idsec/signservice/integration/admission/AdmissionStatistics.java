@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.admission;
+
+import jakarta.annotation.Nonnull;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the state and counters for one bulkhead (policy or caller) of the {@link AdmissionController}.
+ *
+ * @param name the policy name or caller identity
+ * @param limits the limits for the bulkhead
+ * @param active the number of currently executing calls
+ * @param activeBatch the number of currently executing batch calls
+ * @param queued the number of calls currently waiting to be admitted
+ * @param admitted the total number of admitted calls
+ * @param rejected the total number of calls rejected since a queue was full
+ * @param timedOut the total number of calls that were not admitted within the maximum wait time
+ * @param totalWaitTime the total wait time for all admitted calls
+ * @param maxWaitTime the longest wait time for an admitted call
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public record AdmissionStatistics(@Nonnull String name, @Nonnull AdmissionControlSettings.Limits limits, int active,
+    int activeBatch, int queued, long admitted, long rejected, long timedOut, @Nonnull Duration totalWaitTime,
+    @Nonnull Duration maxWaitTime) {
+
+  /**
+   * Gets the average wait time for admitted calls.
+   *
+   * @return the average wait time
+   */
+  @Nonnull
+  public Duration getAverageWaitTime() {
+    return this.admitted > 0 ? this.totalWaitTime.dividedBy(this.admitted) : Duration.ZERO;
+  }
+
+}
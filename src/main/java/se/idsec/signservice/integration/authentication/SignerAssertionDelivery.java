@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.authentication;
+
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+
+/**
+ * Directive telling how the signer's assertion ({@link SignerAssertionInformation#getAssertion()}) is delivered in a
+ * signature result. See {@link SignResponseProcessingParameters#getSignerAssertionDelivery()}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public enum SignerAssertionDelivery {
+
+  /** The assertion is included in the result (default). */
+  INCLUDE,
+
+  /** The assertion is left out of the result. */
+  OMIT,
+
+  /**
+   * The assertion is left out of the result, but is kept by the service, so that it can be obtained using
+   * {@link SignerAssertionInformation#getStoredAssertionReference()}. This requires a service running in stateful
+   * mode. A service running in stateless mode treats this value as {@link #INCLUDE}.
+   */
+  REFERENCE
+
+}
@@ -17,7 +17,6 @@ package se.idsec.signservice.integration.authentication;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Singular;
 import lombok.ToString;
@@ -26,7 +25,12 @@ import se.idsec.signservice.integration.core.Extension;
 import se.idsec.signservice.integration.core.ObjectBuilder;
 
 import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * A representation of the assertion info for the signer's "authentication for signature" that was performed during a
@@ -36,8 +40,6 @@ import java.util.List;
  * @author Stefan Santesson (stefan@idsec.se)
  */
 @ToString
-@AllArgsConstructor
-@Builder
 @JsonInclude(Include.NON_NULL)
 public class SignerAssertionInformation implements Extensible {
 
@@ -45,7 +47,6 @@ public class SignerAssertionInformation implements Extensible {
   private static final long serialVersionUID = -2836334101319585416L;
 
   /** Identity attributes for the signer. */
-  @Singular
   private List<SignerIdentityAttributeValue> signerAttributes;
 
   /** The time (in millis since epoch) when the SignService authenticated the signer. */
@@ -79,15 +80,54 @@ public class SignerAssertionInformation implements Extensible {
    */
   private String assertion;
 
+  /**
+   * A reference to the stored assertion, set when the assertion is delivered by reference (see
+   * {@link SignerAssertionDelivery#REFERENCE}).
+   */
+  private String storedAssertionReference;
+
   /** Extensions for the object. */
   private Extension extension;
 
+  /**
+   * Index of the signer attributes (attribute name to attribute values). Lazily built from {@link #signerAttributes}
+   * and never serialized.
+   */
+  @ToString.Exclude
+  private transient volatile AttributeIndex attributeIndex;
+
   /**
    * Constructor.
    */
   public SignerAssertionInformation() {
   }
 
+  /**
+   * Constructor.
+   *
+   * @param signerAttributes identity attributes for the signer
+   * @param authnInstant the time (in millis since epoch) when the SignService authenticated the signer
+   * @param authnServiceID the entityID of the authentication service that authenticated the signer
+   * @param authnContextRef the authentication context reference URI
+   * @param authnType the authentication type
+   * @param assertionReference the assertion ID from the user authentication
+   * @param assertion the assertion from the user authentication
+   * @param extension extensions for the object
+   */
+  @Builder
+  public SignerAssertionInformation(@Singular final List<SignerIdentityAttributeValue> signerAttributes,
+      final long authnInstant, final String authnServiceID, final String authnContextRef, final String authnType,
+      final String assertionReference, final String assertion, final Extension extension) {
+    this.signerAttributes = signerAttributes;
+    this.authnInstant = authnInstant;
+    this.authnServiceID = authnServiceID;
+    this.authnContextRef = authnContextRef;
+    this.authnType = authnType;
+    this.assertionReference = assertionReference;
+    this.assertion = assertion;
+    this.extension = extension;
+  }
+
   /**
    * Gets the identity attributes for the signer.
    *
@@ -104,6 +144,45 @@ public class SignerAssertionInformation implements Extensible {
    */
   public void setSignerAttributes(final List<SignerIdentityAttributeValue> signerAttributes) {
     this.signerAttributes = signerAttributes;
+    this.attributeIndex = null;
+  }
+
+  /**
+   * Gets the (first) value of the signer attribute having the given name.
+   *
+   * @param name the attribute name
+   * @return the attribute value, or {@code null} if no such attribute is available
+   */
+  public String getAttributeValue(final String name) {
+    final List<SignerIdentityAttributeValue> values = this.getIndex().get(name);
+    return values.isEmpty() ? null : values.get(0).getValue();
+  }
+
+  /**
+   * Gets all values of the signer attribute having the given name.
+   *
+   * @param name the attribute name
+   * @return a (possibly empty) unmodifiable list of attribute values
+   */
+  public List<String> getAttributeValues(final String name) {
+    return this.getIndex().get(name).stream()
+        .map(SignerIdentityAttributeValue::getValue)
+        .toList();
+  }
+
+  /**
+   * Gets the signer attributes matching the given type and name. A {@code null} type, both as argument and in the
+   * attributes, is interpreted as {@value SignerIdentityAttribute#SAML_TYPE}.
+   *
+   * @param type the attribute type (may be {@code null})
+   * @param name the attribute name
+   * @return a (possibly empty) unmodifiable list of signer attributes
+   */
+  public List<SignerIdentityAttributeValue> getSignerAttributes(final String type, final String name) {
+    final String _type = type != null ? type : SignerIdentityAttribute.SAML_TYPE;
+    return this.getIndex().get(name).stream()
+        .filter(a -> _type.equalsIgnoreCase(a.getType() != null ? a.getType() : SignerIdentityAttribute.SAML_TYPE))
+        .toList();
   }
 
   /**
@@ -224,6 +303,27 @@ public class SignerAssertionInformation implements Extensible {
     this.assertion = assertion;
   }
 
+  /**
+   * Gets the reference to the stored assertion. If the SignResponse was processed with the
+   * {@link SignerAssertionDelivery#REFERENCE} directive, the assertion is not included, and is instead obtained using
+   * this reference. The reference is generated for each signature result, and unlike {@link #getAssertionReference()},
+   * it is not known to other parties than the caller that processed the response.
+   *
+   * @return the reference to the stored assertion, or {@code null} if the assertion is not delivered by reference
+   */
+  public String getStoredAssertionReference() {
+    return this.storedAssertionReference;
+  }
+
+  /**
+   * Assigns the reference to the stored assertion.
+   *
+   * @param storedAssertionReference the reference to the stored assertion
+   */
+  public void setStoredAssertionReference(final String storedAssertionReference) {
+    this.storedAssertionReference = storedAssertionReference;
+  }
+
   /** {@inheritDoc} */
   @Override
   public Extension getExtension() {
@@ -236,6 +336,66 @@ public class SignerAssertionInformation implements Extensible {
     this.extension = extension;
   }
 
+  /**
+   * Gets the attribute index, building it if needed. The index is rebuilt if the signer attributes list has been
+   * replaced since the index was built. Note that in-place modifications of the list are not detected, so
+   * {@link #setSignerAttributes(List)} should be used to update the attributes.
+   *
+   * @return the attribute index
+   */
+  private AttributeIndex getIndex() {
+    final AttributeIndex index = this.attributeIndex;
+    if (index != null && index.source == this.signerAttributes) {
+      return index;
+    }
+    final AttributeIndex newIndex = new AttributeIndex(this.signerAttributes);
+    this.attributeIndex = newIndex;
+    return newIndex;
+  }
+
+  /**
+   * An immutable index mapping attribute names to the signer attribute values having that name.
+   */
+  private static final class AttributeIndex {
+
+    /** The list from which the index was built. */
+    private final List<SignerIdentityAttributeValue> source;
+
+    /** Attribute name to attribute values (in the order given by the source list). */
+    private final Map<String, List<SignerIdentityAttributeValue>> index;
+
+    /**
+     * Constructor building the index.
+     *
+     * @param source the signer attributes (may be {@code null})
+     */
+    AttributeIndex(final List<SignerIdentityAttributeValue> source) {
+      this.source = source;
+      if (source == null || source.isEmpty()) {
+        this.index = Collections.emptyMap();
+        return;
+      }
+      final Map<String, List<SignerIdentityAttributeValue>> map = new HashMap<>();
+      for (final SignerIdentityAttributeValue a : source) {
+        if (a != null && a.getName() != null) {
+          map.computeIfAbsent(a.getName(), n -> new ArrayList<>(1)).add(a);
+        }
+      }
+      map.replaceAll((n, l) -> Collections.unmodifiableList(l));
+      this.index = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Gets the attribute values for the given name.
+     *
+     * @param name the attribute name
+     * @return a (possibly empty) list of attribute values
+     */
+    List<SignerIdentityAttributeValue> get(final String name) {
+      return this.index.getOrDefault(Objects.requireNonNull(name, "name must not be null"), Collections.emptyList());
+    }
+  }
+
   /**
    * Builder for {@code SignerAssertionInformation} objects.
    */
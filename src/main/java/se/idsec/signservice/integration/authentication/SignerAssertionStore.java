@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.authentication;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignatureResult;
+import se.idsec.signservice.integration.core.ExpiringCache;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * A store for signer assertions, for use by services running in stateful mode that support
+ * {@link SignerAssertionDelivery#REFERENCE}. After a SignResponse has been processed, {@link #apply(SignatureResult,
+ * SignResponseProcessingParameters, String)} applies the caller's {@link SignerAssertionDelivery} directive to the
+ * result, and assertions delivered by reference may later be obtained using {@link #getAssertion(String, String)}.
+ * <p>
+ * Each stored assertion gets a random reference (see
+ * {@link SignerAssertionInformation#getStoredAssertionReference()}). The assertion ID is not used as the key since it
+ * is not secret, and the same assertion may back several signature operations. An assertion may only be obtained by
+ * the caller that processed the response. Assertions are kept for a limited
+ * time, and the number of stored assertions is bounded.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignerAssertionStore {
+
+  /** The default maximum number of stored assertions. */
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  /** The default time an assertion is stored. */
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(15);
+
+  /** Source for assertion references. */
+  private static final SecureRandom random = new SecureRandom();
+
+  /** The stored assertions, keyed by stored assertion reference. */
+  private final ExpiringCache<String, Entry> assertions;
+
+  /** The time an assertion is stored. */
+  private final Duration ttl;
+
+  /**
+   * Constructor using {@link #DEFAULT_MAX_ENTRIES} and {@link #DEFAULT_TTL}.
+   */
+  public SignerAssertionStore() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries the maximum number of stored assertions
+   * @param ttl the time an assertion is stored
+   * @param clock the clock
+   */
+  public SignerAssertionStore(final int maxEntries, @Nonnull final Duration ttl, @Nonnull final Clock clock) {
+    this.assertions = new ExpiringCache<>(maxEntries, clock);
+    this.ttl = Objects.requireNonNull(ttl, "ttl must not be null");
+  }
+
+  /**
+   * Applies the signer assertion delivery directive of the given parameters to the given result. For
+   * {@link SignerAssertionDelivery#OMIT} the assertion is removed from the result, and for
+   * {@link SignerAssertionDelivery#REFERENCE} the assertion is removed from the result and stored, and its reference is
+   * assigned to {@link SignerAssertionInformation#setStoredAssertionReference(String)}.
+   *
+   * @param result the signature result
+   * @param parameters the processing parameters (may be null)
+   * @param callerId the identity of the calling entity (may be null)
+   * @return the result
+   */
+  @Nonnull
+  public SignatureResult apply(@Nonnull final SignatureResult result,
+      @Nullable final SignResponseProcessingParameters parameters, @Nullable final String callerId) {
+    final SignerAssertionDelivery delivery = parameters != null ? parameters.getSignerAssertionDelivery() : null;
+    final SignerAssertionInformation info = result.getSignerAssertionInformation();
+    if (delivery == null || delivery == SignerAssertionDelivery.INCLUDE || info == null
+        || info.getAssertion() == null) {
+      return result;
+    }
+    if (delivery == SignerAssertionDelivery.REFERENCE) {
+      final byte[] bytes = new byte[16];
+      random.nextBytes(bytes);
+      final String reference = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+      this.assertions.put(reference, new Entry(info.getAssertion(), callerId),
+          this.assertions.getClock().instant().plus(this.ttl));
+      info.setStoredAssertionReference(reference);
+    }
+    info.setAssertion(null);
+    return result;
+  }
+
+  /**
+   * Gets a stored assertion.
+   *
+   * @param assertionReference the stored assertion reference (see
+   *     {@link SignerAssertionInformation#getStoredAssertionReference()})
+   * @param callerId the identity of the calling entity (may be null)
+   * @return the Base64-encoded assertion
+   * @throws AssertionNotFoundException if no assertion is stored for the reference and caller
+   */
+  @Nonnull
+  public String getAssertion(@Nonnull final String assertionReference, @Nullable final String callerId)
+      throws AssertionNotFoundException {
+    final Entry entry = this.assertions.get(assertionReference);
+    if (entry == null || !Objects.equals(entry.callerId(), callerId)) {
+      throw new AssertionNotFoundException("No assertion available for '%s'".formatted(assertionReference));
+    }
+    return entry.assertion();
+  }
+
+  /**
+   * Gets the number of stored assertions.
+   *
+   * @return the number of stored assertions
+   */
+  public int size() {
+    return this.assertions.size();
+  }
+
+  /**
+   * A stored assertion.
+   *
+   * @param assertion the Base64-encoded assertion
+   * @param callerId the caller that processed the response
+   */
+  private record Entry(String assertion, String callerId) {
+  }
+
+}
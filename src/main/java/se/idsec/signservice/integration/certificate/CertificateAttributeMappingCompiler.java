@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.certificate;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.authentication.AuthnRequirements;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles, and caches, {@link CertificateAttributeMappingPlan}s per policy.
+ * <p>
+ * The plan for a policy is compiled from the policy's default certificate requirements
+ * ({@link IntegrationServiceDefaultConfiguration#getDefaultCertificateRequirements()}) and, optionally, a set of
+ * default authentication requirements. A cached plan is re-compiled if the policy configuration object, or the
+ * supplied authentication requirements object, is replaced.
+ * </p>
+ * <p>
+ * Requests that override the certificate requirements of the policy should use
+ * {@link CertificateAttributeMappingPlan#compile(SigningCertificateRequirements, AuthnRequirements)} directly.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class CertificateAttributeMappingCompiler {
+
+  /** Compiled plans indexed by policy name. */
+  private final Map<String, CachedPlan> plans = new ConcurrentHashMap<>();
+
+  /**
+   * Gets the mapping plan for the supplied policy configuration.
+   *
+   * @param configuration the policy configuration
+   * @return a mapping plan
+   */
+  @Nonnull
+  public CertificateAttributeMappingPlan getPlan(@Nonnull final IntegrationServiceDefaultConfiguration configuration) {
+    return this.getPlan(configuration, null);
+  }
+
+  /**
+   * Gets the mapping plan for the supplied policy configuration, merged with the requested signer attributes of the
+   * supplied authentication requirements.
+   *
+   * @param configuration the policy configuration
+   * @param authnRequirements the policy's default authentication requirements (may be {@code null})
+   * @return a mapping plan
+   */
+  @Nonnull
+  public CertificateAttributeMappingPlan getPlan(@Nonnull final IntegrationServiceDefaultConfiguration configuration,
+      @Nullable final AuthnRequirements authnRequirements) {
+
+    final String policy = Objects.requireNonNull(configuration, "configuration must not be null").getPolicy();
+    final CachedPlan cached = this.plans.get(policy);
+    if (cached != null && cached.isFor(configuration, authnRequirements)) {
+      return cached.plan();
+    }
+    final SigningCertificateRequirements certificateRequirements = configuration.getDefaultCertificateRequirements();
+    final CachedPlan compiled = new CachedPlan(configuration, certificateRequirements, authnRequirements,
+        CertificateAttributeMappingPlan.compile(certificateRequirements, authnRequirements));
+    this.plans.put(policy, compiled);
+    return compiled.plan();
+  }
+
+  /**
+   * Removes the cached plan for the given policy.
+   *
+   * @param policy the policy name
+   */
+  public void evict(@Nonnull final String policy) {
+    this.plans.remove(policy);
+  }
+
+  /**
+   * Removes all cached plans.
+   */
+  public void clear() {
+    this.plans.clear();
+  }
+
+  /**
+   * A compiled plan along with the objects it was compiled from.
+   *
+   * @param configuration the policy configuration
+   * @param certificateRequirements the certificate requirements of the configuration
+   * @param authnRequirements the authentication requirements
+   * @param plan the compiled plan
+   */
+  private record CachedPlan(IntegrationServiceDefaultConfiguration configuration,
+      SigningCertificateRequirements certificateRequirements, AuthnRequirements authnRequirements,
+      CertificateAttributeMappingPlan plan) {
+
+    boolean isFor(final IntegrationServiceDefaultConfiguration configuration,
+        final AuthnRequirements authnRequirements) {
+      return this.configuration == configuration
+          && this.certificateRequirements == configuration.getDefaultCertificateRequirements()
+          && this.authnRequirements == authnRequirements;
+    }
+  }
+
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.certificate;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.ToString;
+import se.idsec.signservice.integration.authentication.AuthnRequirements;
+import se.idsec.signservice.integration.authentication.SignerIdentityAttribute;
+import se.idsec.signservice.integration.authentication.SignerIdentityAttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An immutable, "compiled", representation of the certificate attribute mappings of a
+ * {@link SigningCertificateRequirements} object, optionally merged with the requested signer attributes of an
+ * {@link AuthnRequirements} object.
+ * <p>
+ * A plan is typically compiled once per policy (see {@link CertificateAttributeMappingCompiler}) and then used for
+ * every request under that policy. It holds the deduplicated set of source attributes, the destination metadata for
+ * each mapping and the mappings that are required to be fulfilled.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@ToString
+public final class CertificateAttributeMappingPlan {
+
+  /** The compiled mappings (in the order given by the requirements). */
+  private final List<CompiledMapping> mappings;
+
+  /** The deduplicated source attributes (in the order first seen). */
+  private final List<SignerIdentityAttribute> sourceAttributes;
+
+  /** The requested signer attributes (from the authentication requirements). */
+  private final List<SignerIdentityAttributeValue> requestedSignerAttributes;
+
+  /** The names of all attributes needed from the signer (source attributes and requested signer attributes). */
+  private final Set<String> signerAttributeNames;
+
+  /** The mappings that must be fulfilled (required and without a default value). */
+  private final List<CompiledMapping> requiredMappings;
+
+  /**
+   * Constructor.
+   *
+   * @param mappings the compiled mappings
+   * @param sourceAttributes the deduplicated source attributes
+   * @param requestedSignerAttributes the requested signer attributes
+   * @param signerAttributeNames the names of all attributes needed from the signer
+   */
+  private CertificateAttributeMappingPlan(final List<CompiledMapping> mappings,
+      final List<SignerIdentityAttribute> sourceAttributes,
+      final List<SignerIdentityAttributeValue> requestedSignerAttributes, final Set<String> signerAttributeNames) {
+    this.mappings = Collections.unmodifiableList(mappings);
+    this.sourceAttributes = Collections.unmodifiableList(sourceAttributes);
+    this.requestedSignerAttributes = Collections.unmodifiableList(requestedSignerAttributes);
+    this.signerAttributeNames = Collections.unmodifiableSet(signerAttributeNames);
+    this.requiredMappings = mappings.stream().filter(CompiledMapping::isMandatory).toList();
+  }
+
+  /**
+   * Compiles the attribute mappings of the supplied certificate requirements into a plan.
+   *
+   * @param certificateRequirements the certificate requirements (may be {@code null})
+   * @param authnRequirements optional authentication requirements whose requested signer attributes are merged into
+   *     the plan
+   * @return a mapping plan
+   * @throws IllegalArgumentException if a mapping has no destination, or if the destination has an invalid type
+   */
+  @Nonnull
+  public static CertificateAttributeMappingPlan compile(
+      @Nullable final SigningCertificateRequirements certificateRequirements,
+      @Nullable final AuthnRequirements authnRequirements) throws IllegalArgumentException {
+
+    final List<CompiledMapping> mappings = new ArrayList<>();
+    final Map<String, SignerIdentityAttribute> sources = new LinkedHashMap<>();
+    final Set<String> names = new LinkedHashSet<>();
+
+    if (certificateRequirements != null && certificateRequirements.getAttributeMappings() != null) {
+      for (final CertificateAttributeMapping m : certificateRequirements.getAttributeMappings()) {
+        if (m == null) {
+          continue;
+        }
+        if (m.getDestination() == null) {
+          throw new IllegalArgumentException("Certificate attribute mapping is missing destination");
+        }
+        final List<SignerIdentityAttribute> mappingSources = new ArrayList<>();
+        if (m.getSources() != null) {
+          for (final SignerIdentityAttribute s : m.getSources()) {
+            if (s == null || s.getName() == null) {
+              continue;
+            }
+            final SignerIdentityAttribute source =
+                sources.computeIfAbsent(sourceKey(s.getType(), s.getName()), k -> s);
+            mappingSources.add(source);
+            names.add(source.getName());
+          }
+        }
+        mappings.add(new CompiledMapping(mappingSources, m.getDestination()));
+      }
+    }
+
+    final List<SignerIdentityAttributeValue> requested = new ArrayList<>();
+    if (authnRequirements != null && authnRequirements.getRequestedSignerAttributes() != null) {
+      for (final SignerIdentityAttributeValue a : authnRequirements.getRequestedSignerAttributes()) {
+        if (a != null && a.getName() != null) {
+          requested.add(a);
+          names.add(a.getName());
+        }
+      }
+    }
+
+    return new CertificateAttributeMappingPlan(mappings, new ArrayList<>(sources.values()), requested, names);
+  }
+
+  /**
+   * Gets the compiled mappings (in the order given by the certificate requirements).
+   *
+   * @return an unmodifiable list of mappings
+   */
+  @Nonnull
+  public List<CompiledMapping> getMappings() {
+    return this.mappings;
+  }
+
+  /**
+   * Gets the deduplicated list of source attributes for all mappings.
+   *
+   * @return an unmodifiable list of source attributes
+   */
+  @Nonnull
+  public List<SignerIdentityAttribute> getSourceAttributes() {
+    return this.sourceAttributes;
+  }
+
+  /**
+   * Gets the requested signer attributes that were merged into the plan.
+   *
+   * @return an unmodifiable list of requested signer attributes
+   */
+  @Nonnull
+  public List<SignerIdentityAttributeValue> getRequestedSignerAttributes() {
+    return this.requestedSignerAttributes;
+  }
+
+  /**
+   * Gets the names of all attributes that are needed from the signer, i.e., the names of all source attributes and all
+   * requested signer attributes.
+   *
+   * @return an unmodifiable set of attribute names
+   */
+  @Nonnull
+  public Set<String> getSignerAttributeNames() {
+    return this.signerAttributeNames;
+  }
+
+  /**
+   * Gets the mappings that must be fulfilled, i.e., mappings whose destination is required and has no default value.
+   *
+   * @return an unmodifiable list of mappings
+   */
+  @Nonnull
+  public List<CompiledMapping> getRequiredMappings() {
+    return this.requiredMappings;
+  }
+
+  /**
+   * Checks which of the required mappings can not be fulfilled given the supplied attribute lookup.
+   *
+   * @param attributeLookup function that, given an attribute name, returns its value or {@code null}
+   * @return a (possibly empty) list of the required mappings that are not fulfilled
+   */
+  @Nonnull
+  public List<CompiledMapping> getUnfulfilledMappings(@Nonnull final Function<String, String> attributeLookup) {
+    if (this.requiredMappings.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return this.requiredMappings.stream()
+        .filter(m -> m.resolve(attributeLookup) == null)
+        .toList();
+  }
+
+  /**
+   * Creates the key used when deduplicating source attributes.
+   *
+   * @param type the attribute type (may be {@code null})
+   * @param name the attribute name
+   * @return a key
+   */
+  private static String sourceKey(final String type, final String name) {
+    return (type != null ? type.toLowerCase() : SignerIdentityAttribute.SAML_TYPE) + "|" + name;
+  }
+
+  /**
+   * A compiled certificate attribute mapping.
+   */
+  @ToString
+  public static final class CompiledMapping {
+
+    /** The source attributes (in order of precedence). */
+    private final List<SignerIdentityAttribute> sources;
+
+    /** The destination type. */
+    private final RequestedCertificateAttributeType destinationType;
+
+    /** The destination name (identifier). */
+    private final String destinationName;
+
+    /** The destination friendly name. */
+    private final String friendlyName;
+
+    /** The default value. */
+    private final String defaultValue;
+
+    /** Whether the destination is required. */
+    private final boolean required;
+
+    /**
+     * Constructor.
+     *
+     * @param sources the source attributes
+     * @param destination the destination
+     */
+    private CompiledMapping(
+        final List<SignerIdentityAttribute> sources, final RequestedCertificateAttribute destination) {
+      this.sources = Collections.unmodifiableList(sources);
+      this.destinationType = destination.getType() != null
+          ? RequestedCertificateAttributeType.fromType(destination.getType())
+          : null;
+      this.destinationName = destination.getName();
+      this.friendlyName = destination.getFriendlyName();
+      this.defaultValue = destination.getDefaultValue();
+      this.required = Objects.equals(Boolean.TRUE, destination.getRequired());
+    }
+
+    /**
+     * Gets the source attributes (in order of precedence).
+     *
+     * @return an unmodifiable list of source attributes
+     */
+    @Nonnull
+    public List<SignerIdentityAttribute> getSources() {
+      return this.sources;
+    }
+
+    /**
+     * Gets the destination type.
+     *
+     * @return the destination type, or {@code null} if not set
+     */
+    @Nullable
+    public RequestedCertificateAttributeType getDestinationType() {
+      return this.destinationType;
+    }
+
+    /**
+     * Gets the destination name (identifier).
+     *
+     * @return the destination name
+     */
+    @Nullable
+    public String getDestinationName() {
+      return this.destinationName;
+    }
+
+    /**
+     * Gets the destination friendly name.
+     *
+     * @return the friendly name or {@code null}
+     */
+    @Nullable
+    public String getFriendlyName() {
+      return this.friendlyName;
+    }
+
+    /**
+     * Gets the default value for the destination.
+     *
+     * @return the default value or {@code null}
+     */
+    @Nullable
+    public String getDefaultValue() {
+      return this.defaultValue;
+    }
+
+    /**
+     * Tells whether the destination is required.
+     *
+     * @return whether the destination is required
+     */
+    public boolean isRequired() {
+      return this.required;
+    }
+
+    /**
+     * Tells whether the mapping must be fulfilled by the signer's attributes, i.e., the destination is required and no
+     * default value exists.
+     *
+     * @return whether the mapping is mandatory
+     */
+    public boolean isMandatory() {
+      return this.required && this.defaultValue == null;
+    }
+
+    /**
+     * Resolves the value for the destination attribute. The sources are tried in order, and if none of them gives a
+     * value the default value is returned.
+     *
+     * @param attributeLookup function that, given an attribute name, returns its value or {@code null}
+     * @return the resolved value, or {@code null} if no value could be resolved
+     */
+    @Nullable
+    public String resolve(@Nonnull final Function<String, String> attributeLookup) {
+      for (final SignerIdentityAttribute s : this.sources) {
+        final String value = attributeLookup.apply(s.getName());
+        if (value != null) {
+          return value;
+        }
+      }
+      return this.defaultValue;
+    }
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * The result of a conditional retrieval of a policy configuration, see
+ * {@link PolicyCatalogue#getConfigurationIfChanged(String, String)}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public final class ConditionalConfiguration {
+
+  /** The current ETag of the configuration. */
+  private final String etag;
+
+  /** The configuration (null if not modified). */
+  private final IntegrationServiceDefaultConfiguration configuration;
+
+  /**
+   * Constructor.
+   *
+   * @param etag the current ETag
+   * @param configuration the configuration, or {@code null} if not modified
+   */
+  private ConditionalConfiguration(final String etag, final IntegrationServiceDefaultConfiguration configuration) {
+    this.etag = Objects.requireNonNull(etag, "etag must not be null");
+    this.configuration = configuration;
+  }
+
+  /**
+   * Creates a result for a configuration that has changed (or was not previously held by the caller).
+   *
+   * @param configuration the configuration
+   * @param etag the ETag of the configuration
+   * @return a result
+   */
+  @Nonnull
+  public static ConditionalConfiguration modified(
+      @Nonnull final IntegrationServiceDefaultConfiguration configuration, @Nonnull final String etag) {
+    return new ConditionalConfiguration(etag, Objects.requireNonNull(configuration, "configuration must not be null"));
+  }
+
+  /**
+   * Creates a result telling that the configuration has not changed.
+   *
+   * @param etag the ETag of the configuration
+   * @return a result
+   */
+  @Nonnull
+  public static ConditionalConfiguration notModified(@Nonnull final String etag) {
+    return new ConditionalConfiguration(etag, null);
+  }
+
+  /**
+   * Gets the current ETag of the configuration.
+   *
+   * @return the ETag (without surrounding quotes)
+   */
+  @Nonnull
+  public String getETag() {
+    return this.etag;
+  }
+
+  /**
+   * Tells whether the configuration has changed compared to the ETag supplied by the caller.
+   *
+   * @return {@code true} if the configuration has changed and {@code false} otherwise
+   */
+  public boolean isModified() {
+    return this.configuration != null;
+  }
+
+  /**
+   * Gets the configuration.
+   *
+   * @return the configuration, or {@code null} if not modified
+   */
+  @Nullable
+  public IntegrationServiceDefaultConfiguration getConfiguration() {
+    return this.configuration;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return "etag='%s', modified=%s".formatted(this.etag, this.isModified());
+  }
+
+}
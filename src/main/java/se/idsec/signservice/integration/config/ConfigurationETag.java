@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Utility for calculating entity tags (ETags) for policy configurations.
+ * <p>
+ * The ETag of a configuration is the Base64url-encoded SHA-256 digest of its canonical JSON representation (properties
+ * and map entries sorted by name). Two configurations with the same contents therefore have the same ETag, also when
+ * they are loaded by different instances of a service.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public final class ConfigurationETag {
+
+  /** Writer producing the canonical JSON representation. */
+  private static final ObjectWriter CANONICAL_WRITER = JsonMapper.builder()
+      .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+      .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+      .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+      .build()
+      .writer();
+
+  /**
+   * Calculates the ETag for the given configuration.
+   *
+   * @param configuration the configuration
+   * @return the ETag (without surrounding quotes)
+   */
+  @Nonnull
+  public static String calculate(@Nonnull final IntegrationServiceDefaultConfiguration configuration) {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Base64.getUrlEncoder().withoutPadding()
+          .encodeToString(digest.digest(CANONICAL_WRITER.writeValueAsBytes(configuration)));
+    }
+    catch (final JsonProcessingException e) {
+      throw new IllegalArgumentException("Failed to serialize configuration", e);
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new SecurityException(e);
+    }
+  }
+
+  /**
+   * Tells whether the given ETag matches the value of an HTTP {@code If-None-Match} header (or an ETag held by the
+   * caller). Quoted and weak ({@code W/"..."}) values, lists of values and the {@code *} value are handled.
+   *
+   * @param etag the current ETag (without surrounding quotes)
+   * @param ifNoneMatch the value to compare with (may be {@code null})
+   * @return {@code true} if the ETag matches and {@code false} otherwise
+   */
+  public static boolean matches(@Nonnull final String etag, @Nullable final String ifNoneMatch) {
+    if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+      return false;
+    }
+    for (String value : ifNoneMatch.split(",")) {
+      value = value.strip();
+      if ("*".equals(value)) {
+        return true;
+      }
+      if (value.startsWith("W/")) {
+        value = value.substring(2);
+      }
+      if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+        value = value.substring(1, value.length() - 1);
+      }
+      if (etag.equals(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Hidden constructor
+  private ConfigurationETag() {
+  }
+
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.certificate.SigningCertificateRequirements;
+import se.idsec.signservice.integration.core.Extension;
+import se.idsec.signservice.integration.core.FileResource;
+import se.idsec.signservice.integration.document.pdf.PdfPrepareSettings;
+import se.idsec.signservice.integration.document.pdf.PdfSignatureImageTemplate;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePage;
+import se.idsec.signservice.integration.document.pdf.VisiblePdfSignatureRequirement;
+import se.idsec.signservice.integration.security.EncryptionParameters;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Projections of policy configurations.
+ * <p>
+ * The "lite" projection of a configuration is equal to the configuration, except that the contents of the file
+ * resources of the {@link IntegrationServiceDefaultConfiguration#getPdfSignaturePages() PDF signature pages} and
+ * {@link IntegrationServiceDefaultConfiguration#getPdfSignatureImageTemplates() PDF signature image templates} are
+ * replaced with a {@link FileResource#getContentsReference() reference} and a
+ * {@link FileResource#getContentsDigest() digest}. A client that needs the contents of a resource gets it using
+ * {@link #getResource(IntegrationServiceDefaultConfiguration, String)}.
+ * </p>
+ * <p>
+ * References are derived from the contents (they are the Base64url-encoded SHA-256 digest of the contents) and are
+ * therefore stable over reloads and between service instances, and may be cached by clients.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public final class ConfigurationProjection {
+
+  /**
+   * Creates the lite projection of the given configuration.
+   *
+   * @param configuration the configuration
+   * @return the lite projection
+   */
+  @Nonnull
+  public static IntegrationServiceDefaultConfiguration lite(
+      @Nonnull final IntegrationServiceDefaultConfiguration configuration) {
+    if (configuration instanceof LiteConfiguration) {
+      return configuration;
+    }
+    return new LiteConfiguration(configuration,
+        configuration.getPdfSignatureImageTemplates() != null
+            ? configuration.getPdfSignatureImageTemplates().stream().map(ConfigurationProjection::lite).toList()
+            : null,
+        configuration.getPdfSignaturePages() != null
+            ? configuration.getPdfSignaturePages().stream().map(ConfigurationProjection::lite).toList()
+            : null);
+  }
+
+  /**
+   * Gets the file resource having the given reference from the sign pages and image templates of the given
+   * configuration.
+   * <p>
+   * Each call decodes and hashes the resource contents. Callers that look up resources repeatedly should create an
+   * {@link #index(IntegrationServiceDefaultConfiguration) index} once and keep it (as {@link PolicySnapshot} does).
+   * </p>
+   *
+   * @param configuration the configuration (not a lite projection)
+   * @param reference the reference (see {@link FileResource#getContentsReference()})
+   * @return the file resource (holding the contents)
+   * @throws ResourceNotFoundException if no resource having the given reference exists
+   */
+  @Nonnull
+  public static FileResource getResource(
+      @Nonnull final IntegrationServiceDefaultConfiguration configuration, @Nonnull final String reference)
+      throws ResourceNotFoundException {
+    return resources(configuration)
+        .filter(r -> reference.equals(toReference(r)))
+        .findFirst()
+        .orElseThrow(() -> new ResourceNotFoundException(
+            "No resource '%s' for policy '%s'".formatted(reference, configuration.getPolicy())));
+  }
+
+  /**
+   * Creates an index of the file resources of the sign pages and image templates of the given configuration, keyed by
+   * their references.
+   *
+   * @param configuration the configuration (not a lite projection)
+   * @return an unmodifiable map of file resources (holding the contents), keyed by reference
+   */
+  @Nonnull
+  public static Map<String, FileResource> index(@Nonnull final IntegrationServiceDefaultConfiguration configuration) {
+    final Map<String, FileResource> index = new HashMap<>();
+    resources(configuration).forEach(r -> {
+      final String reference = toReference(r);
+      if (reference != null) {
+        index.putIfAbsent(reference, r);
+      }
+    });
+    return Collections.unmodifiableMap(index);
+  }
+
+  /**
+   * Calculates the reference for the given file resource.
+   *
+   * @param resource the file resource
+   * @return the reference, or {@code null} if the resource has no contents
+   */
+  @Nullable
+  public static String toReference(@Nonnull final FileResource resource) {
+    final byte[] digest = digest(resource);
+    return digest != null ? Base64.getUrlEncoder().withoutPadding().encodeToString(digest) : null;
+  }
+
+  /**
+   * Gets all file resources (having contents) of the given configuration.
+   *
+   * @param configuration the configuration
+   * @return a stream of file resources
+   */
+  private static Stream<FileResource> resources(final IntegrationServiceDefaultConfiguration configuration) {
+    final Stream<FileResource> templates = configuration.getPdfSignatureImageTemplates() != null
+        ? configuration.getPdfSignatureImageTemplates().stream().map(PdfSignatureImageTemplate::getSvgImageFile)
+        : Stream.empty();
+    final Stream<FileResource> pages = configuration.getPdfSignaturePages() != null
+        ? configuration.getPdfSignaturePages().stream().map(PdfSignaturePage::getPdfDocument)
+        : Stream.empty();
+    return Stream.concat(templates, pages).filter(Objects::nonNull);
+  }
+
+  /**
+   * Creates the lite projection of an image template.
+   *
+   * @param template the template
+   * @return the lite projection
+   */
+  private static PdfSignatureImageTemplate lite(final PdfSignatureImageTemplate template) {
+    return PdfSignatureImageTemplate.builder()
+        .reference(template.getReference())
+        .svgImageFile(lite(template.getSvgImageFile()))
+        .width(template.getWidth())
+        .height(template.getHeight())
+        .includeSignerName(template.isIncludeSignerName())
+        .includeSigningTime(template.isIncludeSigningTime())
+        .timeZoneId(template.getTimeZoneId())
+        .dateFormat(template.getDateFormat())
+        .fields(template.getFields())
+        .extension(template.getExtension())
+        .build();
+  }
+
+  /**
+   * Creates the lite projection of a sign page.
+   *
+   * @param page the sign page
+   * @return the lite projection
+   */
+  private static PdfSignaturePage lite(final PdfSignaturePage page) {
+    return PdfSignaturePage.builder()
+        .id(page.getId())
+        .pdfDocument(lite(page.getPdfDocument()))
+        .rows(page.getRows())
+        .columns(page.getColumns())
+        .signatureImageReference(page.getSignatureImageReference())
+        .imagePlacementConfiguration(page.getImagePlacementConfiguration())
+        .extension(page.getExtension())
+        .build();
+  }
+
+  /**
+   * Creates the lite projection of a file resource.
+   *
+   * @param resource the file resource
+   * @return the lite projection
+   */
+  private static FileResource lite(final FileResource resource) {
+    if (resource == null) {
+      return null;
+    }
+    final byte[] digest = digest(resource);
+    if (digest == null) {
+      return resource;
+    }
+    return new FileResource(null, resource.getDescription(), null, false,
+        Base64.getUrlEncoder().withoutPadding().encodeToString(digest), Base64.getEncoder().encodeToString(digest));
+  }
+
+  /**
+   * Calculates the SHA-256 digest of the (decoded) contents of a file resource.
+   *
+   * @param resource the file resource
+   * @return the digest, or {@code null} if the resource has no contents
+   */
+  private static byte[] digest(final FileResource resource) {
+    final String contents = resource.getContents();
+    if (contents == null) {
+      return null;
+    }
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(Base64.getDecoder().decode(contents));
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new SecurityException(e);
+    }
+  }
+
+  /**
+   * The lite projection of a configuration. All settings except the sign pages and image templates are read from the
+   * underlying configuration.
+   */
+  private static final class LiteConfiguration implements IntegrationServiceDefaultConfiguration {
+
+    private final IntegrationServiceDefaultConfiguration configuration;
+
+    private final List<PdfSignatureImageTemplate> pdfSignatureImageTemplates;
+
+    private final List<PdfSignaturePage> pdfSignaturePages;
+
+    LiteConfiguration(final IntegrationServiceDefaultConfiguration configuration,
+        final List<PdfSignatureImageTemplate> pdfSignatureImageTemplates,
+        final List<PdfSignaturePage> pdfSignaturePages) {
+      this.configuration = configuration;
+      this.pdfSignatureImageTemplates = pdfSignatureImageTemplates;
+      this.pdfSignaturePages = pdfSignaturePages;
+    }
+
+    @Override
+    public String getPolicy() {
+      return this.configuration.getPolicy();
+    }
+
+    @Override
+    public String getDefaultSignRequesterID() {
+      return this.configuration.getDefaultSignRequesterID();
+    }
+
+    @Override
+    public String getDefaultReturnUrl() {
+      return this.configuration.getDefaultReturnUrl();
+    }
+
+    @Override
+    public String getDefaultSignatureAlgorithm() {
+      return this.configuration.getDefaultSignatureAlgorithm();
+    }
+
+    @Override
+    public String getSignServiceID() {
+      return this.configuration.getSignServiceID();
+    }
+
+    @Override
+    public String getDefaultDestinationUrl() {
+      return this.configuration.getDefaultDestinationUrl();
+    }
+
+    @Override
+    public String getDefaultAuthnServiceID() {
+      return this.configuration.getDefaultAuthnServiceID();
+    }
+
+    @Override
+    public String getDefaultAuthnContextRef() {
+      return this.configuration.getDefaultAuthnContextRef();
+    }
+
+    @Override
+    public SigningCertificateRequirements getDefaultCertificateRequirements() {
+      return this.configuration.getDefaultCertificateRequirements();
+    }
+
+    @Override
+    public VisiblePdfSignatureRequirement getDefaultVisiblePdfSignatureRequirement() {
+      return this.configuration.getDefaultVisiblePdfSignatureRequirement();
+    }
+
+    @Override
+    public List<? extends PdfSignatureImageTemplate> getPdfSignatureImageTemplates() {
+      return this.pdfSignatureImageTemplates;
+    }
+
+    @Override
+    public List<? extends PdfSignaturePage> getPdfSignaturePages() {
+      return this.pdfSignaturePages;
+    }
+
+    @Nonnull
+    @Override
+    public PdfPrepareSettings getPdfPrepareSettings() {
+      return this.configuration.getPdfPrepareSettings();
+    }
+
+    @Override
+    public boolean isStateless() {
+      return this.configuration.isStateless();
+    }
+
+    @Override
+    public EncryptionParameters getDefaultEncryptionParameters() {
+      return this.configuration.getDefaultEncryptionParameters();
+    }
+
+    @Override
+    public String getSignatureCertificate() {
+      return this.configuration.getSignatureCertificate();
+    }
+
+    @Override
+    public List<String> getSignServiceCertificates() {
+      return this.configuration.getSignServiceCertificates();
+    }
+
+    @Override
+    public List<String> getTrustAnchors() {
+      return this.configuration.getTrustAnchors();
+    }
+
+    @Override
+    public Extension getExtension() {
+      return this.configuration.getExtension();
+    }
+
+    @Override
+    public void setExtension(final Extension extension) {
+      throw new UnsupportedOperationException("A lite configuration can not be modified");
+    }
+  }
+
+  // Hidden constructor
+  private ConfigurationProjection() {
+  }
+
+}
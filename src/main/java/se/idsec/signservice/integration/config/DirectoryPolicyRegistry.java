@@ -0,0 +1,336 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import jakarta.annotation.Nonnull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A {@link PolicyRegistry} that loads one policy configuration per file from a directory.
+ * <p>
+ * A reload reads all matching files and builds a complete new {@link PolicySnapshot} that is then published using an
+ * atomic reference swap. Readers never lock, and a reader holding a snapshot keeps a consistent view of the policies.
+ * If a reload fails (a file can not be parsed, or two files define the same policy), the previous snapshot is kept.
+ * </p>
+ * <p>
+ * If {@link #startWatching()} is called, the directory is watched for changes using a {@link WatchService}, and the
+ * registry is reloaded on a background thread when files have been created, modified or deleted. Changes are collected
+ * until the directory has been quiet for the quiet period (see {@link #setQuietPeriod(Duration)}), so that a reload
+ * does not pick up half-written files. The directories of the files that the policy files depend on (see
+ * {@link PolicyConfigurationLoader#getDependencies()}), such as base files in sub directories, are also watched.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@Slf4j
+public class DirectoryPolicyRegistry implements PolicyRegistry, Closeable {
+
+  /** The default file name pattern. */
+  public static final String DEFAULT_GLOB = "*.json";
+
+  /** The default quiet period. */
+  public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofMillis(500);
+
+  /** The directory holding the policy files. */
+  private final Path directory;
+
+  /** The loader for policy files. */
+  private final PolicyConfigurationLoader loader;
+
+  /** The glob pattern for policy files. */
+  private final String glob;
+
+  /** Matches policy file names. */
+  private final PathMatcher matcher;
+
+  /** The current snapshot. */
+  private final AtomicReference<PolicySnapshot> snapshot = new AtomicReference<>();
+
+  /** Listeners invoked when a new snapshot has been published. */
+  private final List<Consumer<PolicySnapshot>> listeners = new CopyOnWriteArrayList<>();
+
+  /** The quiet period. */
+  private volatile Duration quietPeriod = DEFAULT_QUIET_PERIOD;
+
+  /** The watch service (if watching). */
+  private WatchService watchService;
+
+  /** The watcher thread (if watching). */
+  private Thread watcher;
+
+  /** The watch keys for the directories of the dependencies (if watching), keyed by directory. */
+  private final Map<Path, WatchKey> dependencyKeys = new HashMap<>();
+
+  /** The files that the policy files depend on, as reported by the loader on the last successful reload. */
+  private volatile Set<Path> dependencies = Set.of();
+
+  /**
+   * Constructor loading all {@value #DEFAULT_GLOB} files from the given directory.
+   *
+   * @param directory the directory
+   * @param loader the policy file loader
+   * @throws IOException if the initial load fails
+   */
+  public DirectoryPolicyRegistry(@Nonnull final Path directory, @Nonnull final PolicyConfigurationLoader loader)
+      throws IOException {
+    this(directory, loader, DEFAULT_GLOB);
+  }
+
+  /**
+   * Constructor loading all files matching the given glob pattern from the given directory.
+   *
+   * @param directory the directory
+   * @param loader the policy file loader
+   * @param glob the glob pattern for policy file names
+   * @throws IOException if the initial load fails
+   */
+  public DirectoryPolicyRegistry(@Nonnull final Path directory, @Nonnull final PolicyConfigurationLoader loader,
+      @Nonnull final String glob) throws IOException {
+    this.directory = Objects.requireNonNull(directory, "directory must not be null");
+    this.loader = Objects.requireNonNull(loader, "loader must not be null");
+    this.glob = Objects.requireNonNull(glob, "glob must not be null");
+    this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    this.reload();
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public PolicySnapshot getSnapshot() {
+    return this.snapshot.get();
+  }
+
+  /**
+   * Reloads all policy files and publishes a new snapshot. If the reload fails, the current snapshot is kept.
+   *
+   * @return the new snapshot
+   * @throws IOException if a policy file can not be loaded, or if the policy files are inconsistent
+   */
+  @Nonnull
+  public synchronized PolicySnapshot reload() throws IOException {
+    final List<Path> files = new ArrayList<>();
+    try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, this.glob)) {
+      for (final Path file : stream) {
+        if (Files.isRegularFile(file)) {
+          files.add(file);
+        }
+      }
+    }
+    files.sort(null);
+
+    this.loader.startReload();
+    final List<IntegrationServiceDefaultConfiguration> configurations = new ArrayList<>(files.size());
+    for (final Path file : files) {
+      try {
+        configurations.add(this.loader.load(file));
+      }
+      catch (final IOException | RuntimeException e) {
+        throw new IOException("Failed to load policy file %s - %s".formatted(file, e.getMessage()), e);
+      }
+    }
+    final PolicySnapshot current = this.snapshot.get();
+    final PolicySnapshot next;
+    try {
+      next = new PolicySnapshot(configurations, current != null ? current.getVersion() + 1 : 1L);
+    }
+    catch (final IllegalArgumentException e) {
+      throw new IOException("Invalid policy files in %s - %s".formatted(this.directory, e.getMessage()), e);
+    }
+    this.snapshot.set(next);
+    this.dependencies = this.loader.getDependencies();
+    this.watchDependencies();
+    log.info("Loaded {} policies from {} (version {})", next.getPolicyCount(), this.directory, next.getVersion());
+
+    for (final Consumer<PolicySnapshot> listener : this.listeners) {
+      try {
+        listener.accept(next);
+      }
+      catch (final RuntimeException e) {
+        log.warn("Policy registry listener failed - {}", e.getMessage(), e);
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Adds a listener that is invoked (on the reloading thread) each time a new snapshot has been published. This may be
+   * used to evict caches holding data for the previous configurations.
+   *
+   * @param listener the listener
+   */
+  public void addListener(@Nonnull final Consumer<PolicySnapshot> listener) {
+    this.listeners.add(Objects.requireNonNull(listener, "listener must not be null"));
+  }
+
+  /**
+   * Assigns the time the directory must be quiet before a reload is made. The default is 500 ms.
+   *
+   * @param quietPeriod the quiet period
+   */
+  public void setQuietPeriod(@Nonnull final Duration quietPeriod) {
+    this.quietPeriod = Objects.requireNonNull(quietPeriod, "quietPeriod must not be null");
+  }
+
+  /**
+   * Starts watching the directory for changes. Has no effect if the registry is already watching.
+   *
+   * @throws IOException if the directory can not be watched
+   */
+  public synchronized void startWatching() throws IOException {
+    if (this.watcher != null) {
+      return;
+    }
+    this.watchService = this.directory.getFileSystem().newWatchService();
+    this.directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    this.watchDependencies();
+    this.watcher = new Thread(() -> this.watch(this.watchService), "policy-registry-watcher");
+    this.watcher.setDaemon(true);
+    this.watcher.start();
+    log.debug("Watching {} for policy changes", this.directory);
+  }
+
+  /**
+   * Watches the directories of the current dependencies (if watching), and stops watching directories that are no
+   * longer needed. Must be called while holding the registry lock.
+   */
+  private void watchDependencies() {
+    if (this.watchService == null) {
+      return;
+    }
+    final Path top = this.directory.toAbsolutePath().normalize();
+    final Set<Path> directories = new HashSet<>();
+    for (final Path file : this.dependencies) {
+      final Path parent = file.getParent();
+      if (parent != null && !parent.equals(top)) {
+        directories.add(parent);
+      }
+    }
+    this.dependencyKeys.entrySet().removeIf(e -> {
+      if (!directories.contains(e.getKey())) {
+        e.getValue().cancel();
+        return true;
+      }
+      return false;
+    });
+    for (final Path d : directories) {
+      if (!this.dependencyKeys.containsKey(d)) {
+        try {
+          this.dependencyKeys.put(d, d.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+              StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE));
+          log.debug("Watching {} for changes of policy base files", d);
+        }
+        catch (final IOException e) {
+          log.warn("Failed to watch {} - changes of policy base files will not be detected - {}", d, e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops watching the directory.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.watchService != null) {
+      this.watchService.close();
+      this.watchService = null;
+      this.dependencyKeys.clear();
+    }
+    if (this.watcher != null) {
+      this.watcher.interrupt();
+      this.watcher = null;
+    }
+  }
+
+  /**
+   * The watcher loop.
+   *
+   * @param service the watch service
+   */
+  private void watch(final WatchService service) {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        WatchKey key = service.take();
+        boolean changed = false;
+        while (key != null) {
+          changed |= this.isRelevant(key);
+          key.reset();
+          key = service.poll(this.quietPeriod.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (changed) {
+          try {
+            this.reload();
+          }
+          catch (final IOException e) {
+            log.error("Failed to reload policies, keeping current policies - {}", e.getMessage(), e);
+          }
+        }
+      }
+    }
+    catch (final InterruptedException | ClosedWatchServiceException e) {
+      log.debug("Stopped watching {}", this.directory);
+    }
+  }
+
+  /**
+   * Tells whether the events of the key concern policy files or the files they depend on.
+   *
+   * @param key the watch key
+   * @return {@code true} if a reload is needed
+   */
+  private boolean isRelevant(final WatchKey key) {
+    final Path watched = ((Path) key.watchable()).toAbsolutePath().normalize();
+    final boolean policyDirectory = watched.equals(this.directory.toAbsolutePath().normalize());
+    final Set<Path> current = this.dependencies;
+    boolean relevant = false;
+    for (final WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW
+          || event.context() instanceof final Path p && (policyDirectory && this.matcher.matches(p.getFileName())
+          || current.contains(watched.resolve(p)))) {
+        relevant = true;
+      }
+    }
+    return relevant;
+  }
+
+}
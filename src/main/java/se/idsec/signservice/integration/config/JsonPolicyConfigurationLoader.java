@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.Nonnull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A {@link PolicyConfigurationLoader} that reads JSON policy files, where the resources of the policies are shared
+ * using a {@link SharedPolicyResources} pool and where a policy file may name a base configuration file using the
+ * {@value PolicyConfigurationLoader#BASE_PROPERTY} property. See
+ * {@link PolicyConfigurationLoader#json(Class, SharedPolicyResources)}.
+ * <p>
+ * Base files are typically shared by a large number of policy files. Each base file is therefore parsed once per
+ * reload (see {@link #startReload()}), and the base files that were read are reported by {@link #getDependencies()} so
+ * that a {@link DirectoryPolicyRegistry} reloads the policies when a base file is changed.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class JsonPolicyConfigurationLoader implements PolicyConfigurationLoader {
+
+  /** The configuration class. */
+  private final Class<? extends IntegrationServiceDefaultConfiguration> configurationClass;
+
+  /** The pool of shared resources. */
+  private final SharedPolicyResources resources;
+
+  /** The base files read since the last reload was started (merged with their own bases), keyed by absolute path. */
+  private final Map<Path, ObjectNode> baseFiles = new HashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param configurationClass the configuration class
+   * @param resources the pool of shared resources
+   */
+  public JsonPolicyConfigurationLoader(
+      @Nonnull final Class<? extends IntegrationServiceDefaultConfiguration> configurationClass,
+      @Nonnull final SharedPolicyResources resources) {
+    this.configurationClass = Objects.requireNonNull(configurationClass, "configurationClass must not be null");
+    this.resources = Objects.requireNonNull(resources, "resources must not be null");
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public synchronized IntegrationServiceDefaultConfiguration load(@Nonnull final Path file) throws IOException {
+    final Set<Path> visited = new HashSet<>();
+    visited.add(file.toAbsolutePath().normalize());
+    return this.resources.getReader(this.configurationClass).readValue(this.readWithBase(file, visited));
+  }
+
+  /**
+   * Clears the parsed base files, so that base files are read again by the loads of the reload.
+   */
+  @Override
+  public synchronized void startReload() {
+    this.baseFiles.clear();
+  }
+
+  /**
+   * Gets the base files that have been read since the last reload was started.
+   *
+   * @return the absolute paths of the base files
+   */
+  @Nonnull
+  @Override
+  public synchronized Set<Path> getDependencies() {
+    return Set.copyOf(this.baseFiles.keySet());
+  }
+
+  /**
+   * Reads the given JSON file and merges it with its base file (if any).
+   *
+   * @param file the file
+   * @param visited the files visited so far (for detecting cycles)
+   * @return the merged JSON object
+   * @throws IOException if a file can not be read or parsed
+   */
+  private ObjectNode readWithBase(final Path file, final Set<Path> visited) throws IOException {
+    final JsonNode node;
+    try (final InputStream is = Files.newInputStream(file)) {
+      node = this.resources.getObjectMapper().readTree(is);
+    }
+    if (!(node instanceof final ObjectNode object)) {
+      throw new IOException("Expected a JSON object in " + file);
+    }
+    final JsonNode base = object.remove(BASE_PROPERTY);
+    if (base == null) {
+      return object;
+    }
+    if (!base.isTextual()) {
+      throw new IOException("Invalid %s property in %s".formatted(BASE_PROPERTY, file));
+    }
+    final Path baseFile = file.toAbsolutePath().getParent().resolve(base.asText());
+    final ObjectNode merged = this.getBase(baseFile, visited).deepCopy();
+    merged.setAll(object);
+    return merged;
+  }
+
+  /**
+   * Gets a base file (merged with its own base), reading it if it has not been read since the last reload was
+   * started.
+   *
+   * @param file the base file
+   * @param visited the files visited so far (for detecting cycles)
+   * @return the merged JSON object (must not be modified)
+   * @throws IOException if a file can not be read or parsed
+   */
+  private ObjectNode getBase(final Path file, final Set<Path> visited) throws IOException {
+    final Path path = file.toAbsolutePath().normalize();
+    final ObjectNode cached = this.baseFiles.get(path);
+    if (cached != null) {
+      return cached;
+    }
+    if (!visited.add(path)) {
+      throw new IOException("Cyclic %s reference in %s".formatted(BASE_PROPERTY, file));
+    }
+    final ObjectNode base = this.readWithBase(path, visited);
+    this.baseFiles.put(path, base);
+    return base;
+  }
+
+}
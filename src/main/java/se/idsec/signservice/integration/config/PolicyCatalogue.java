@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.core.FileResource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A catalogue of policies that scales to a large number of policies (for example one policy per tenant).
+ * <p>
+ * Lookup by name is O(1). Policy names may be listed page by page (using the last name of a page as the cursor for the
+ * next page) or streamed, optionally restricted to names having a given prefix.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public interface PolicyCatalogue {
+
+  /**
+   * Gets the configuration for the given policy.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @return the policy configuration
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  IntegrationServiceDefaultConfiguration getConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException;
+
+  /**
+   * Gets the lite projection of the configuration for the given policy, where the contents of sign pages and image
+   * templates are replaced by references. See {@link ConfigurationProjection}.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @return the lite policy configuration
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  default IntegrationServiceDefaultConfiguration getLiteConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return ConfigurationProjection.lite(this.getConfiguration(policy));
+  }
+
+  /**
+   * Gets a file resource, referenced from the lite projection of a configuration, holding the resource contents.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @param reference the resource reference
+   * @return the file resource
+   * @throws PolicyNotFoundException if the given policy does not exist
+   * @throws ResourceNotFoundException if the given resource does not exist
+   */
+  @Nonnull
+  default FileResource getConfigurationResource(@Nullable final String policy, @Nonnull final String reference)
+      throws PolicyNotFoundException, ResourceNotFoundException {
+    return ConfigurationProjection.getResource(this.getConfiguration(policy), reference);
+  }
+
+  /**
+   * Gets the ETag for the configuration of the given policy, see {@link ConfigurationETag}.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @return the ETag (without surrounding quotes)
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  default String getETag(@Nullable final String policy) throws PolicyNotFoundException {
+    return ConfigurationETag.calculate(this.getConfiguration(policy));
+  }
+
+  /**
+   * Gets the configuration for the given policy unless it matches the ETag held by the caller. This makes it possible
+   * for a caller to cache a configuration and revalidate it without transferring it again.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @param etag the ETag held by the caller, or the value of an HTTP {@code If-None-Match} header (may be null)
+   * @return a result holding the configuration, or telling that it has not been modified
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  default ConditionalConfiguration getConfigurationIfChanged(@Nullable final String policy, @Nullable final String etag)
+      throws PolicyNotFoundException {
+    final String current = this.getETag(policy);
+    return ConfigurationETag.matches(current, etag)
+        ? ConditionalConfiguration.notModified(current)
+        : ConditionalConfiguration.modified(this.getConfiguration(policy), current);
+  }
+
+  /**
+   * Tells whether the given policy exists.
+   *
+   * @param policy the policy name
+   * @return {@code true} if the policy exists and {@code false} otherwise
+   */
+  boolean containsPolicy(@Nonnull final String policy);
+
+  /**
+   * Gets the number of policies.
+   *
+   * @return the number of policies
+   */
+  int getPolicyCount();
+
+  /**
+   * Lists policy names in sorted order.
+   *
+   * @param prefix only names starting with this prefix are listed ({@code null} or empty means all names)
+   * @param after only names sorted after this name are listed; pass {@link Page#next()} of the previous page to get
+   *     the next page ({@code null} means from the start)
+   * @param limit the maximum number of names to return
+   * @return a page of policy names
+   */
+  @Nonnull
+  Page getPolicies(@Nullable final String prefix, @Nullable final String after, final int limit);
+
+  /**
+   * Streams the policy names in sorted order.
+   *
+   * @param prefix only names starting with this prefix are streamed ({@code null} or empty means all names)
+   * @return a stream of policy names
+   */
+  @Nonnull
+  Stream<String> streamPolicies(@Nullable final String prefix);
+
+  /**
+   * A page of policy names.
+   *
+   * @param policies the policy names of this page
+   * @param next the cursor for the next page (the last name of this page), or {@code null} if this is the last page
+   */
+  record Page(@Nonnull List<String> policies, @Nullable String next) {
+  }
+
+}
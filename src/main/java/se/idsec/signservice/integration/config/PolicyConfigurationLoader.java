@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import jakarta.annotation.Nonnull;
+import se.idsec.signservice.integration.SignServiceIntegrationJackson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Loads a policy configuration from a file. Used by {@link DirectoryPolicyRegistry}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@FunctionalInterface
+public interface PolicyConfigurationLoader {
+
+  /**
+   * The name of the JSON property that, when present in a policy file read by
+   * {@link #json(Class, SharedPolicyResources)}, names a base configuration file (relative to the policy file). The
+   * properties of the base configuration are used for all properties not given by the policy file.
+   */
+  String BASE_PROPERTY = "@base";
+
+  /**
+   * Loads a policy configuration from the given file.
+   *
+   * @param file the file
+   * @return the policy configuration
+   * @throws IOException if the file can not be read or parsed
+   */
+  @Nonnull
+  IntegrationServiceDefaultConfiguration load(@Nonnull final Path file) throws IOException;
+
+  /**
+   * Invoked by {@link DirectoryPolicyRegistry} before the policy files of a reload are loaded. A loader that caches
+   * files shared between policy files (such as base files) clears the cache so that changed files are read again. The
+   * default implementation does nothing.
+   */
+  default void startReload() {
+  }
+
+  /**
+   * Gets the files, other than the policy files themselves, that were read by the loads since the last call to
+   * {@link #startReload()} (for example base files). A watching {@link DirectoryPolicyRegistry} reloads the policies
+   * when any of these files are changed. The default implementation returns an empty set.
+   *
+   * @return the absolute paths of the files
+   */
+  @Nonnull
+  default Set<Path> getDependencies() {
+    return Set.of();
+  }
+
+  /**
+   * Creates a loader that reads JSON files into the given configuration class, using the shared mapper of
+   * {@link SignServiceIntegrationJackson}.
+   *
+   * @param configurationClass the configuration class
+   * @return a loader
+   */
+  @Nonnull
+  static PolicyConfigurationLoader json(
+      @Nonnull final Class<? extends IntegrationServiceDefaultConfiguration> configurationClass) {
+    return file -> {
+      try (final InputStream is = Files.newInputStream(file)) {
+        return SignServiceIntegrationJackson.reader(configurationClass).readValue(is);
+      }
+    };
+  }
+
+  /**
+   * Creates a loader that reads JSON files into the given configuration class, where the resources of the policies
+   * are shared using the given pool.
+   * <p>
+   * A policy file may name a base configuration file using the {@value #BASE_PROPERTY} property. This makes it
+   * possible for a large number of policies to share a common configuration, and only state what differs. Base files
+   * may themselves have a base. Each base file is parsed once per reload, and a {@link DirectoryPolicyRegistry} that
+   * is watching its directory also watches the directories of the base files. Note that base files should not match
+   * the glob pattern of the {@link DirectoryPolicyRegistry} (for example, put them in a sub directory).
+   * </p>
+   *
+   * @param configurationClass the configuration class
+   * @param resources the pool of shared resources
+   * @return a loader
+   */
+  @Nonnull
+  static PolicyConfigurationLoader json(
+      @Nonnull final Class<? extends IntegrationServiceDefaultConfiguration> configurationClass,
+      @Nonnull final SharedPolicyResources resources) {
+    return new JsonPolicyConfigurationLoader(configurationClass, resources);
+  }
+
+}
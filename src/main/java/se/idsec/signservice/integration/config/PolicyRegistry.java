@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.SignServiceIntegrationService;
+import se.idsec.signservice.integration.core.FileResource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A registry holding the policy configurations of a SignService Integration Service. An implementation of
+ * {@link SignServiceIntegrationService#getConfiguration(String)} and
+ * {@link SignServiceIntegrationService#getPolicies()} may delegate to a registry.
+ * <p>
+ * The policies are published as immutable {@link PolicySnapshot}s. A processing step that needs a consistent view of
+ * the policies during a call (for example when a registry is reloaded while a request is processed) should get the
+ * snapshot once, using {@link #getSnapshot()}, and use it throughout the call. The {@link PolicyCatalogue} methods
+ * of a registry delegate to the current snapshot.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public interface PolicyRegistry extends PolicyCatalogue {
+
+  /**
+   * Gets the current snapshot of the policies. This method never blocks.
+   *
+   * @return the current snapshot
+   */
+  @Nonnull
+  PolicySnapshot getSnapshot();
+
+  /**
+   * Gets the configuration for the given policy from the current snapshot.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @return the policy configuration
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  @Override
+  default IntegrationServiceDefaultConfiguration getConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return this.getSnapshot().getConfiguration(policy);
+  }
+
+  /**
+   * Gets the names of the policies of the current snapshot.
+   *
+   * @return a list of policy names
+   */
+  @Nonnull
+  default List<String> getPolicies() {
+    return this.getSnapshot().getPolicies();
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  default IntegrationServiceDefaultConfiguration getLiteConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return this.getSnapshot().getLiteConfiguration(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  default FileResource getConfigurationResource(@Nullable final String policy, @Nonnull final String reference)
+      throws PolicyNotFoundException, ResourceNotFoundException {
+    return this.getSnapshot().getConfigurationResource(policy, reference);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  default String getETag(@Nullable final String policy) throws PolicyNotFoundException {
+    return this.getSnapshot().getETag(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  default ConditionalConfiguration getConfigurationIfChanged(@Nullable final String policy, @Nullable final String etag)
+      throws PolicyNotFoundException {
+    return this.getSnapshot().getConfigurationIfChanged(policy, etag);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  default boolean containsPolicy(@Nonnull final String policy) {
+    return this.getSnapshot().containsPolicy(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  default int getPolicyCount() {
+    return this.getSnapshot().getPolicyCount();
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  default Page getPolicies(@Nullable final String prefix, @Nullable final String after, final int limit) {
+    return this.getSnapshot().getPolicies(prefix, after, limit);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  default Stream<String> streamPolicies(@Nullable final String prefix) {
+    return this.getSnapshot().streamPolicies(prefix);
+  }
+
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.core.FileResource;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * An immutable snapshot of policy configurations, see {@link PolicyRegistry}.
+ * <p>
+ * The configurations are held in a hash map (for O(1) lookup) and the names in a sorted array (for paging and prefix
+ * queries using binary search).
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public final class PolicySnapshot implements PolicyCatalogue {
+
+  /** The configurations, keyed by policy name. */
+  private final Map<String, IntegrationServiceDefaultConfiguration> configurations;
+
+  /** The policy names (sorted). */
+  private final String[] names;
+
+  /** List view of the names. */
+  private final List<String> policies;
+
+  /** The snapshot version. */
+  private final long version;
+
+  /** When the snapshot was created. */
+  private final Instant created;
+
+  /** ETags, calculated on first use, keyed by policy name. */
+  private final Map<String, String> etags = new ConcurrentHashMap<>();
+
+  /** Lite projections, created on first use, keyed by policy name. */
+  private final Map<String, IntegrationServiceDefaultConfiguration> liteConfigurations = new ConcurrentHashMap<>();
+
+  /** Resource indexes (see {@link ConfigurationProjection#index}), created on first use, keyed by policy name. */
+  private final Map<String, Map<String, FileResource>> resourceIndexes = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param configurations the policy configurations
+   * @param version the snapshot version (increased for each published snapshot)
+   * @throws IllegalArgumentException if two configurations have the same policy name
+   */
+  public PolicySnapshot(@Nonnull final Collection<? extends IntegrationServiceDefaultConfiguration> configurations,
+      final long version) throws IllegalArgumentException {
+    final Map<String, IntegrationServiceDefaultConfiguration> map =
+        new HashMap<>(Math.max(16, (int) (configurations.size() / 0.75f) + 1));
+    for (final IntegrationServiceDefaultConfiguration c : configurations) {
+      if (c.getPolicy() == null) {
+        throw new IllegalArgumentException("Policy configuration has no policy name");
+      }
+      if (map.put(c.getPolicy(), c) != null) {
+        throw new IllegalArgumentException("Duplicate policy '%s'".formatted(c.getPolicy()));
+      }
+    }
+    this.configurations = Collections.unmodifiableMap(map);
+    this.names = map.keySet().toArray(new String[0]);
+    Arrays.sort(this.names);
+    this.policies = Collections.unmodifiableList(Arrays.asList(this.names));
+    this.version = version;
+    this.created = Instant.now();
+  }
+
+  /**
+   * Gets the configuration for the given policy.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @return the policy configuration
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  @Override
+  public IntegrationServiceDefaultConfiguration getConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    final String name = policy != null ? policy : IntegrationServiceDefaultConfiguration.DEFAULT_POLICY_NAME;
+    final IntegrationServiceDefaultConfiguration configuration = this.configurations.get(name);
+    if (configuration == null) {
+      throw new PolicyNotFoundException("Policy '%s' does not exist".formatted(name));
+    }
+    return configuration;
+  }
+
+  /**
+   * Gets the ETag for the configuration of the given policy. Since a snapshot is immutable, the ETag is calculated
+   * once per policy.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @return the ETag (without surrounding quotes)
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  @Override
+  public String getETag(@Nullable final String policy) throws PolicyNotFoundException {
+    final IntegrationServiceDefaultConfiguration configuration = this.getConfiguration(policy);
+    return this.etags.computeIfAbsent(configuration.getPolicy(), p -> ConfigurationETag.calculate(configuration));
+  }
+
+  /**
+   * Gets the lite projection of the configuration for the given policy. Since a snapshot is immutable, the projection
+   * is created once per policy.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @return the lite policy configuration
+   * @throws PolicyNotFoundException if the given policy does not exist
+   */
+  @Nonnull
+  @Override
+  public IntegrationServiceDefaultConfiguration getLiteConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    final IntegrationServiceDefaultConfiguration configuration = this.getConfiguration(policy);
+    return this.liteConfigurations.computeIfAbsent(
+        configuration.getPolicy(), p -> ConfigurationProjection.lite(configuration));
+  }
+
+  /**
+   * Gets a file resource, referenced from the lite projection of a configuration, holding the resource contents. Since
+   * a snapshot is immutable, the resources of a policy are indexed by reference once.
+   *
+   * @param policy the policy name (null is interpreted as the default policy)
+   * @param reference the resource reference
+   * @return the file resource
+   * @throws PolicyNotFoundException if the given policy does not exist
+   * @throws ResourceNotFoundException if the given resource does not exist
+   */
+  @Nonnull
+  @Override
+  public FileResource getConfigurationResource(@Nullable final String policy, @Nonnull final String reference)
+      throws PolicyNotFoundException, ResourceNotFoundException {
+    final IntegrationServiceDefaultConfiguration configuration = this.getConfiguration(policy);
+    final FileResource resource = this.resourceIndexes.computeIfAbsent(
+        configuration.getPolicy(), p -> ConfigurationProjection.index(configuration)).get(reference);
+    if (resource == null) {
+      throw new ResourceNotFoundException(
+          "No resource '%s' for policy '%s'".formatted(reference, configuration.getPolicy()));
+    }
+    return resource;
+  }
+
+  /**
+   * Gets the names of all policies (sorted).
+   *
+   * @return an unmodifiable list of policy names
+   */
+  @Nonnull
+  public List<String> getPolicies() {
+    return this.policies;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean containsPolicy(@Nonnull final String policy) {
+    return this.configurations.containsKey(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getPolicyCount() {
+    return this.names.length;
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public Page getPolicies(@Nullable final String prefix, @Nullable final String after, final int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be greater than 0");
+    }
+    final int end = this.prefixEnd(prefix);
+    int start = this.prefixStart(prefix);
+    if (after != null) {
+      final int pos = Arrays.binarySearch(this.names, after);
+      start = Math.max(start, pos >= 0 ? pos + 1 : -(pos + 1));
+    }
+    final int pageEnd = (int) Math.min(end, (long) start + limit);
+    if (start >= pageEnd) {
+      return new Page(List.of(), null);
+    }
+    final List<String> page = this.policies.subList(start, pageEnd);
+    return new Page(page, pageEnd < end ? this.names[pageEnd - 1] : null);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public Stream<String> streamPolicies(@Nullable final String prefix) {
+    final int start = this.prefixStart(prefix);
+    return Arrays.stream(this.names, start, Math.max(start, this.prefixEnd(prefix)));
+  }
+
+  /**
+   * Gets the index of the first name having the given prefix.
+   *
+   * @param prefix the prefix
+   * @return the index
+   */
+  private int prefixStart(final String prefix) {
+    if (prefix == null || prefix.isEmpty()) {
+      return 0;
+    }
+    final int pos = Arrays.binarySearch(this.names, prefix);
+    return pos >= 0 ? pos : -(pos + 1);
+  }
+
+  /**
+   * Gets the index after the last name having the given prefix.
+   *
+   * @param prefix the prefix
+   * @return the index
+   */
+  private int prefixEnd(final String prefix) {
+    if (prefix == null || prefix.isEmpty()) {
+      return this.names.length;
+    }
+    int lo = this.prefixStart(prefix);
+    int hi = this.names.length;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (this.names[mid].startsWith(prefix)) {
+        lo = mid + 1;
+      }
+      else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Gets all configurations, keyed by policy name.
+   *
+   * @return an unmodifiable map of configurations
+   */
+  @Nonnull
+  public Map<String, IntegrationServiceDefaultConfiguration> getConfigurations() {
+    return this.configurations;
+  }
+
+  /**
+   * Gets the snapshot version. Each snapshot published by a registry has a higher version than the previous one.
+   *
+   * @return the version
+   */
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * Gets the time when the snapshot was created.
+   *
+   * @return the creation time
+   */
+  @Nonnull
+  public Instant getCreated() {
+    return this.created;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return "version=%d, created=%s, policies=%d".formatted(this.version, this.created, this.names.length);
+  }
+
+}
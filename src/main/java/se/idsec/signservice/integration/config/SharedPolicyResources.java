@@ -0,0 +1,248 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import jakarta.annotation.Nonnull;
+import se.idsec.signservice.integration.SignServiceIntegrationJackson;
+import se.idsec.signservice.integration.core.FileResource;
+import se.idsec.signservice.integration.document.pdf.PdfSignatureImageTemplate;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePage;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of resources that are shared between policy configurations. When a large number of policies are loaded, most
+ * of them typically refer to the same sign pages, image templates and files. Policy configurations read using
+ * {@link #getReader(Class)} (or loaded using {@link PolicyConfigurationLoader#json(Class, SharedPolicyResources)}) get
+ * one instance per distinct resource, so that memory grows with the number of distinct resources rather than with the
+ * number of policies.
+ * <p>
+ * Resources are considered equal if their JSON representations are equal. By default, {@link FileResource},
+ * {@link PdfSignatureImageTemplate} and {@link PdfSignaturePage} objects are shared. The pool only holds weak
+ * references to the shared instances, so resources that are no longer referenced by any policy are released.
+ * </p>
+ * <p>
+ * Note: Shared instances must be treated as immutable. Updating a shared resource affects all policies referring to
+ * it.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SharedPolicyResources {
+
+  /** The resource types that are shared by default. */
+  public static final Set<Class<?>> DEFAULT_SHARED_TYPES =
+      Set.of(FileResource.class, PdfSignatureImageTemplate.class, PdfSignaturePage.class);
+
+  /** Number of added resources between each purge of cleared references. */
+  private static final int PURGE_INTERVAL = 1024;
+
+  /** The shared resource types. */
+  private final Set<Class<?>> sharedTypes;
+
+  /** The pool, keyed by type and digest of the JSON representation. */
+  private final Map<Key, WeakReference<Object>> pool = new ConcurrentHashMap<>();
+
+  /** The mapper used to read configurations. */
+  private final ObjectMapper mapper;
+
+  /** Readers, per configuration class. */
+  private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+  /** Counter for added resources, used to decide when to purge. */
+  private final AtomicInteger added = new AtomicInteger();
+
+  /**
+   * Constructor sharing {@link #DEFAULT_SHARED_TYPES}.
+   */
+  public SharedPolicyResources() {
+    this(DEFAULT_SHARED_TYPES);
+  }
+
+  /**
+   * Constructor sharing the given resource types. The types must be serializable to, and deserializable from, JSON.
+   *
+   * @param sharedTypes the resource types to share
+   */
+  public SharedPolicyResources(@Nonnull final Set<Class<?>> sharedTypes) {
+    this.sharedTypes = Set.copyOf(Objects.requireNonNull(sharedTypes, "sharedTypes must not be null"));
+    this.mapper = SignServiceIntegrationJackson.newObjectMapper();
+    this.mapper.registerModule(new SimpleModule("SharedPolicyResources").setDeserializerModifier(
+        new BeanDeserializerModifier() {
+          @Override
+          public JsonDeserializer<?> modifyDeserializer(final DeserializationConfig config,
+              final BeanDescription beanDesc, final JsonDeserializer<?> deserializer) {
+            return SharedPolicyResources.this.sharedTypes.contains(beanDesc.getBeanClass())
+                ? new SharingDeserializer(deserializer)
+                : deserializer;
+          }
+        }));
+  }
+
+  /**
+   * Gets a reader for the given configuration class. Shared resources of configurations read using the reader are
+   * pooled.
+   *
+   * @param configurationClass the configuration class
+   * @return a reader
+   */
+  @Nonnull
+  public ObjectReader getReader(
+      @Nonnull final Class<? extends IntegrationServiceDefaultConfiguration> configurationClass) {
+    return this.readers.computeIfAbsent(configurationClass, this.mapper::readerFor);
+  }
+
+  /**
+   * Gets the mapper used to read configurations.
+   *
+   * @return the mapper
+   */
+  @Nonnull
+  public ObjectMapper getObjectMapper() {
+    return this.mapper;
+  }
+
+  /**
+   * Gets the number of distinct resources currently held by the pool.
+   *
+   * @return the number of distinct resources
+   */
+  public int size() {
+    this.purge();
+    return this.pool.size();
+  }
+
+  /**
+   * Returns the pooled instance equal to the given resource, or adds the resource to the pool if no such instance
+   * exists.
+   *
+   * @param key the resource key
+   * @param resource the resource
+   * @return the pooled instance
+   */
+  private Object share(final Key key, final Object resource) {
+    while (true) {
+      final WeakReference<Object> ref = this.pool.putIfAbsent(key, new WeakReference<>(resource));
+      if (ref == null) {
+        if (this.added.incrementAndGet() % PURGE_INTERVAL == 0) {
+          this.purge();
+        }
+        return resource;
+      }
+      final Object shared = ref.get();
+      if (shared != null) {
+        return shared;
+      }
+      this.pool.remove(key, ref);
+    }
+  }
+
+  /**
+   * Removes cleared references from the pool.
+   */
+  private void purge() {
+    this.pool.values().removeIf(r -> r.get() == null);
+  }
+
+  /**
+   * Calculates the key for a resource.
+   *
+   * @param type the resource type
+   * @param node the JSON representation of the resource
+   * @return the key
+   */
+  private static Key toKey(final Class<?> type, final JsonNode node) {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return new Key(type, digest.digest(node.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new SecurityException(e);
+    }
+  }
+
+  /**
+   * Pool key.
+   *
+   * @param type the resource type
+   * @param digest the SHA-256 digest of the JSON representation
+   */
+  private record Key(Class<?> type, byte[] digest) {
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof final Key other && this.type == other.type
+          && MessageDigest.isEqual(this.digest, other.digest);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * this.type.hashCode() + Arrays.hashCode(this.digest);
+    }
+  }
+
+  /**
+   * Deserializer that reads the resource as a tree, deserializes it using the bean deserializer and returns the pooled
+   * instance.
+   */
+  private final class SharingDeserializer extends DelegatingDeserializer {
+
+    private static final long serialVersionUID = 1L;
+
+    SharingDeserializer(final JsonDeserializer<?> delegatee) {
+      super(delegatee);
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(final JsonDeserializer<?> newDelegatee) {
+      return new SharingDeserializer(newDelegatee);
+    }
+
+    @Override
+    public Object deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+      final JsonNode node = ctxt.readTree(p);
+      final Object resource;
+      try (final JsonParser tp = node.traverse(p.getCodec())) {
+        tp.nextToken();
+        resource = this._delegatee.deserialize(tp, ctxt);
+      }
+      return resource != null ? share(toKey(resource.getClass(), node), resource) : null;
+    }
+  }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.core;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.Serial;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * A simple, thread-safe, size bounded cache where each entry has its own expiration time. When the cache is full, the
+ * least recently used entry is evicted.
+ * <p>
+ * The cache may also be bounded by the total weight of its values, for example the number of bytes they hold (see
+ * {@link #ExpiringCache(int, long, ToLongFunction, Clock)}). Least recently used entries are then evicted until the
+ * total weight fits, and a value that is heavier than the maximum total weight is not added.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class ExpiringCache<K, V> {
+
+  /** The cache entries (in access order). */
+  private final LinkedHashMap<K, Entry<V>> entries;
+
+  /** The clock used to check expiration. */
+  private final Clock clock;
+
+  /** The maximum total weight of the values. */
+  private final long maxWeight;
+
+  /** Calculates the weight of a value. */
+  private final ToLongFunction<? super V> weigher;
+
+  /** The total weight of the values (guarded by the entries). */
+  private long weight;
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries the maximum number of entries the cache may hold
+   */
+  public ExpiringCache(final int maxEntries) {
+    this(maxEntries, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries the maximum number of entries the cache may hold
+   * @param clock the clock to use when checking expiration
+   */
+  public ExpiringCache(final int maxEntries, @Nonnull final Clock clock) {
+    this(maxEntries, Long.MAX_VALUE, v -> 0L, clock);
+  }
+
+  /**
+   * Constructor for a cache that is also bounded by the total weight of its values.
+   *
+   * @param maxEntries the maximum number of entries the cache may hold
+   * @param maxWeight the maximum total weight of the values
+   * @param weigher calculates the (non-negative) weight of a value
+   * @param clock the clock to use when checking expiration
+   */
+  public ExpiringCache(final int maxEntries, final long maxWeight, @Nonnull final ToLongFunction<? super V> weigher,
+      @Nonnull final Clock clock) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be greater than 0");
+    }
+    if (maxWeight <= 0) {
+      throw new IllegalArgumentException("maxWeight must be greater than 0");
+    }
+    this.clock = Objects.requireNonNull(clock, "clock must not be null");
+    this.maxWeight = maxWeight;
+    this.weigher = Objects.requireNonNull(weigher, "weigher must not be null");
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+      @Serial
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<K, Entry<V>> eldest) {
+        if (this.size() > maxEntries) {
+          ExpiringCache.this.weight -= eldest.getValue().weight();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets the value for the given key.
+   *
+   * @param key the key
+   * @return the cached value, or {@code null} if no value exists or if it has expired
+   */
+  @Nullable
+  public V get(@Nonnull final K key) {
+    synchronized (this.entries) {
+      final Entry<V> entry = this.entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (!this.clock.instant().isBefore(entry.expires())) {
+        this.removeEntry(key);
+        return null;
+      }
+      return entry.value();
+    }
+  }
+
+  /**
+   * Adds a value to the cache. If the expiration time has already passed, or if the value is heavier than the maximum
+   * total weight, the value is not added (and any previous value is removed).
+   *
+   * @param key the key
+   * @param value the value
+   * @param expires the expiration time for the entry
+   */
+  public void put(@Nonnull final K key, @Nonnull final V value, @Nonnull final Instant expires) {
+    synchronized (this.entries) {
+      final long valueWeight = this.weigher.applyAsLong(value);
+      if (!this.clock.instant().isBefore(expires) || valueWeight > this.maxWeight) {
+        this.removeEntry(key);
+        return;
+      }
+      final Entry<V> previous = this.entries.put(key, new Entry<>(value, expires, valueWeight));
+      this.weight += valueWeight - (previous != null ? previous.weight() : 0);
+      final Iterator<Entry<V>> eldest = this.entries.values().iterator();
+      while (this.weight > this.maxWeight) {
+        this.weight -= eldest.next().weight();
+        eldest.remove();
+      }
+    }
+  }
+
+  /**
+   * Removes the entry for the given key.
+   *
+   * @param key the key
+   */
+  public void remove(@Nonnull final K key) {
+    synchronized (this.entries) {
+      this.removeEntry(key);
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void clear() {
+    synchronized (this.entries) {
+      this.entries.clear();
+      this.weight = 0;
+    }
+  }
+
+  /**
+   * Gets the number of entries in the cache (including entries that have expired but not yet been removed).
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    synchronized (this.entries) {
+      return this.entries.size();
+    }
+  }
+
+  /**
+   * Gets the total weight of the values in the cache (including entries that have expired but not yet been removed).
+   *
+   * @return the total weight
+   */
+  public long weight() {
+    synchronized (this.entries) {
+      return this.weight;
+    }
+  }
+
+  /**
+   * Gets the clock used by the cache.
+   *
+   * @return the clock
+   */
+  @Nonnull
+  public Clock getClock() {
+    return this.clock;
+  }
+
+  /**
+   * Removes an entry. The caller must hold the lock.
+   *
+   * @param key the key
+   */
+  private void removeEntry(final K key) {
+    final Entry<V> entry = this.entries.remove(key);
+    if (entry != null) {
+      this.weight -= entry.weight();
+    }
+  }
+
+  /**
+   * A cache entry.
+   *
+   * @param value the value
+   * @param expires the expiration time
+   * @param weight the weight of the value
+   * @param <V> the value type
+   */
+  private record Entry<V>(V value, Instant expires, long weight) {
+  }
+
+}
@@ -15,20 +15,58 @@
  */
 package se.idsec.signservice.integration.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Represents an extension to a domain object. An extension is a set of name-value pairs.
+ * <p>
+ * Almost all domain objects may carry an extension, and they usually hold zero to a few entries. Therefore, the
+ * entries are stored in a compact array as long as there are at most {@value #MAX_ARRAY_ENTRIES} entries. If more
+ * entries are added, the extension switches to a hash based representation. No storage is allocated for an empty
+ * extension.
+ * </p>
  *
  * @author Martin Lindström (martin@idsec.se)
  * @author Stefan Santesson (stefan@idsec.se)
  */
-public class Extension extends HashMap<String, String> {
+public class Extension extends AbstractMap<String, String> implements Serializable, Cloneable {
 
   @Serial
-  private static final long serialVersionUID = 3763640336680098817L;
+  private static final long serialVersionUID = -6052916408437203453L;
+
+  /** The maximum number of entries that are stored in array form. */
+  static final int MAX_ARRAY_ENTRIES = 4;
+
+  /** The current serialization format version. */
+  private static final int SERIAL_FORMAT_VERSION = 1;
+
+  /** Keys and values stored as {@code key0, value0, key1, value1, ...}. Used for small extensions. */
+  private transient Object[] entries;
+
+  /** The number of entries when in array mode. */
+  private transient int size;
+
+  /** Used when the extension holds more than {@value #MAX_ARRAY_ENTRIES} entries. */
+  private transient HashMap<String, String> map;
+
+  /** The number of structural modifications (array mode). */
+  private transient int modCount;
+
+  /** The entry set view. */
+  private transient Set<Map.Entry<String, String>> entrySet;
 
   /**
    * Default constructor.
@@ -43,7 +81,309 @@ public class Extension extends HashMap<String, String> {
    * @param m the map to initialize the object with
    */
   public Extension(final Map<? extends String, ? extends String> m) {
-    super(m);
+    super();
+    this.putAll(m);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int size() {
+    return this.map != null ? this.map.size() : this.size;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean isEmpty() {
+    return this.size() == 0;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean containsKey(final Object key) {
+    return this.map != null ? this.map.containsKey(key) : this.indexOf(key) >= 0;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String get(final Object key) {
+    if (this.map != null) {
+      return this.map.get(key);
+    }
+    final int index = this.indexOf(key);
+    return index >= 0 ? (String) this.entries[2 * index + 1] : null;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String put(final String key, final String value) {
+    if (this.map != null) {
+      return this.map.put(key, value);
+    }
+    final int index = this.indexOf(key);
+    if (index >= 0) {
+      final String previous = (String) this.entries[2 * index + 1];
+      this.entries[2 * index + 1] = value;
+      return previous;
+    }
+    if (this.size == MAX_ARRAY_ENTRIES) {
+      // Switch to hash mode ...
+      final HashMap<String, String> hashMap = new HashMap<>(2 * MAX_ARRAY_ENTRIES + 2);
+      for (int i = 0; i < this.size; i++) {
+        hashMap.put((String) this.entries[2 * i], (String) this.entries[2 * i + 1]);
+      }
+      hashMap.put(key, value);
+      this.map = hashMap;
+      this.entries = null;
+      this.size = 0;
+      this.modCount++;
+      return null;
+    }
+    if (this.entries == null) {
+      this.entries = new Object[4];
+    }
+    else if (this.entries.length == 2 * this.size) {
+      final Object[] newEntries = new Object[Math.min(2 * this.entries.length, 2 * MAX_ARRAY_ENTRIES)];
+      System.arraycopy(this.entries, 0, newEntries, 0, this.entries.length);
+      this.entries = newEntries;
+    }
+    this.entries[2 * this.size] = key;
+    this.entries[2 * this.size + 1] = value;
+    this.size++;
+    this.modCount++;
+    return null;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String remove(final Object key) {
+    if (this.map != null) {
+      return this.map.remove(key);
+    }
+    final int index = this.indexOf(key);
+    if (index < 0) {
+      return null;
+    }
+    final String previous = (String) this.entries[2 * index + 1];
+    this.removeAt(index);
+    return previous;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void clear() {
+    this.entries = null;
+    this.size = 0;
+    this.map = null;
+    this.modCount++;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+    if (this.entrySet == null) {
+      this.entrySet = new EntrySet();
+    }
+    return this.entrySet;
+  }
+
+  /**
+   * Returns a shallow copy of this extension.
+   */
+  @Override
+  public Extension clone() {
+    return new Extension(this);
+  }
+
+  /**
+   * Finds the index of the given key (array mode).
+   *
+   * @param key the key
+   * @return the entry index, or -1 if not found
+   */
+  private int indexOf(final Object key) {
+    if (key == null) {
+      for (int i = 0; i < this.size; i++) {
+        if (this.entries[2 * i] == null) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    // String caches its hash code, so comparing hash codes first is cheap and avoids most equals calls ...
+    final int hash = key.hashCode();
+    for (int i = 0; i < this.size; i++) {
+      final Object k = this.entries[2 * i];
+      if (k == key || (k != null && k.hashCode() == hash && key.equals(k))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Removes the entry at the given index (array mode).
+   *
+   * @param index the entry index
+   */
+  private void removeAt(final int index) {
+    final int moved = this.size - index - 1;
+    if (moved > 0) {
+      System.arraycopy(this.entries, 2 * (index + 1), this.entries, 2 * index, 2 * moved);
+    }
+    this.size--;
+    this.entries[2 * this.size] = null;
+    this.entries[2 * this.size + 1] = null;
+    if (this.size == 0) {
+      this.entries = null;
+    }
+    this.modCount++;
+  }
+
+  /**
+   * Writes the format version and the number of entries followed by the keys and values.
+   *
+   * @param out the output stream
+   * @throws IOException for write errors
+   */
+  @Serial
+  private void writeObject(final ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    SerializationSupport.writeVersion(out, SERIAL_FORMAT_VERSION);
+    out.writeInt(this.size());
+    for (final Map.Entry<String, String> e : this.entrySet()) {
+      SerializationSupport.writeString(out, e.getKey());
+      SerializationSupport.writeString(out, e.getValue());
+    }
+  }
+
+  /**
+   * Reads the entries written by {@link #writeObject(ObjectOutputStream)}.
+   *
+   * @param in the input stream
+   * @throws IOException for read errors
+   * @throws ClassNotFoundException if a class can not be found
+   */
+  @Serial
+  private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    SerializationSupport.readVersion(in, SERIAL_FORMAT_VERSION, Extension.class);
+    final int n = in.readInt();
+    if (n < 0) {
+      throw new IOException("Invalid number of extension entries: " + n);
+    }
+    for (int i = 0; i < n; i++) {
+      this.put(SerializationSupport.readString(in), SerializationSupport.readString(in));
+    }
+  }
+
+  /**
+   * The entry set view.
+   */
+  private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+      return Extension.this.map != null ? Extension.this.map.entrySet().iterator() : new ArrayIterator();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+      return Extension.this.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+      Extension.this.clear();
+    }
+  }
+
+  /**
+   * Iterator for array mode.
+   */
+  private final class ArrayIterator implements Iterator<Map.Entry<String, String>> {
+
+    /** The next index. */
+    private int next = 0;
+
+    /** The index of the last returned entry. */
+    private int last = -1;
+
+    /** Expected modification count. */
+    private int expectedModCount = Extension.this.modCount;
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+      return this.next < Extension.this.size;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map.Entry<String, String> next() {
+      this.checkForComodification();
+      if (this.next >= Extension.this.size) {
+        throw new NoSuchElementException();
+      }
+      this.last = this.next++;
+      return new ArrayEntry(this.last);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void remove() {
+      if (this.last < 0) {
+        throw new IllegalStateException();
+      }
+      this.checkForComodification();
+      Extension.this.removeAt(this.last);
+      this.next = this.last;
+      this.last = -1;
+      this.expectedModCount = Extension.this.modCount;
+    }
+
+    private void checkForComodification() {
+      if (Extension.this.modCount != this.expectedModCount || Extension.this.map != null) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+
+  /**
+   * An entry in array mode. Writes through to the extension.
+   */
+  private final class ArrayEntry extends AbstractMap.SimpleEntry<String, String> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** The entry index. */
+    private final int index;
+
+    /**
+     * Constructor.
+     *
+     * @param index the entry index
+     */
+    ArrayEntry(final int index) {
+      super((String) Extension.this.entries[2 * index], (String) Extension.this.entries[2 * index + 1]);
+      this.index = index;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String setValue(final String value) {
+      if (Extension.this.map == null && this.index < Extension.this.size
+          && Objects.equals(this.getKey(), Extension.this.entries[2 * this.index])) {
+        Extension.this.entries[2 * this.index + 1] = value;
+      }
+      else {
+        Extension.this.put(this.getKey(), value);
+      }
+      return super.setValue(value);
+    }
   }
 
   /**
@@ -69,6 +69,15 @@ public class FileResource implements Serializable {
   @JsonIgnore
   private boolean eagerlyLoadContents = false;
 
+  /**
+   * A reference to the contents. Set, instead of the contents, in "lite" representations of a configuration where the
+   * contents are obtained separately using the reference.
+   */
+  private String contentsReference;
+
+  /** The Base64-encoded SHA-256 digest of the (decoded) contents. Set along with {@code contentsReference}. */
+  private String contentsDigest;
+
   /**
    * Default constructor.
    */
@@ -85,10 +94,27 @@ public class FileResource implements Serializable {
    */
   public FileResource(
       final String contents, final String description, final String resource, final boolean eagerlyLoadContents) {
+    this(contents, description, resource, eagerlyLoadContents, null, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param contents the base64 encoded contents of the file resource
+   * @param description optional descriptive string for the file resource
+   * @param resource the resource string for the file/resource
+   * @param eagerlyLoadContents whether to load contents directly (see {@link #setEagerlyLoadContents(boolean)})
+   * @param contentsReference reference to the contents (see {@link #getContentsReference()})
+   * @param contentsDigest the Base64-encoded SHA-256 digest of the contents
+   */
+  public FileResource(final String contents, final String description, final String resource,
+      final boolean eagerlyLoadContents, final String contentsReference, final String contentsDigest) {
     this.contents = contents;
     this.description = description;
     this.resource = resource;
     this.eagerlyLoadContents = eagerlyLoadContents;
+    this.contentsReference = contentsReference;
+    this.contentsDigest = contentsDigest;
   }
 
   /**
@@ -183,9 +209,50 @@ public class FileResource implements Serializable {
     this.eagerlyLoadContents = eagerlyLoadContents;
   }
 
+  /**
+   * Gets the reference to the contents. A reference is set, instead of the contents, in "lite" representations of a
+   * configuration. The contents may then be obtained using
+   * {@link se.idsec.signservice.integration.SignServiceIntegrationService#getConfigurationResource(String, String)
+   * SignServiceIntegrationService#getConfigurationResource}.
+   *
+   * @return the contents reference, or null if not set
+   */
+  public String getContentsReference() {
+    return this.contentsReference;
+  }
+
+  /**
+   * Assigns the reference to the contents.
+   *
+   * @param contentsReference the contents reference
+   */
+  public void setContentsReference(final String contentsReference) {
+    this.contentsReference = contentsReference;
+  }
+
+  /**
+   * Gets the Base64-encoded SHA-256 digest of the (decoded) contents. Set along with the
+   * {@link #getContentsReference()} so that a client can tell whether it already has the contents.
+   *
+   * @return the contents digest, or null if not set
+   */
+  public String getContentsDigest() {
+    return this.contentsDigest;
+  }
+
+  /**
+   * Assigns the Base64-encoded SHA-256 digest of the contents.
+   *
+   * @param contentsDigest the contents digest
+   */
+  public void setContentsDigest(final String contentsDigest) {
+    this.contentsDigest = contentsDigest;
+  }
+
   /**
    * Checks that the file resource is correctly initialized, and if {@code eagerlyLoadContents} is {@code true} it also
-   * loads the contents (if necessary).
+   * loads the contents (if necessary). A resource from a "lite" representation, having only a
+   * {@link #getContentsReference() contents reference}, is accepted.
    *
    * <p>
    * Note: If executing in a Spring Framework environment this method is automatically invoked after all properties have
@@ -196,8 +263,8 @@ public class FileResource implements Serializable {
    */
   @PostConstruct
   public void afterPropertiesSet() throws Exception {
-    if (this.contents == null && this.resource == null) {
-      throw new Exception("Either contents or resource must be set");
+    if (this.contents == null && this.resource == null && this.contentsReference == null) {
+      throw new Exception("Either contents, resource or contentsReference must be set");
     }
     if (this.contents != null && this.resource != null) {
       // Both contents and resource has been set for DefaultFileResource, resource string will be ignored
@@ -246,6 +313,9 @@ public class FileResource implements Serializable {
     if (this.resource != null) {
       builder.append(",resource=\"").append(this.resource).append("\"");
     }
+    if (this.contentsReference != null) {
+      builder.append(",contentsReference=\"").append(this.contentsReference).append("\"");
+    }
     builder.append(",eagerlyLoadContents=").append(this.eagerlyLoadContents);
     return builder.toString();
   }
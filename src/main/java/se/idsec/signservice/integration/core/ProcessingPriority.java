@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.core;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * A hint telling how a call should be prioritized by a service that schedules its work, for example using the
+ * {@link se.idsec.signservice.integration.admission.AdmissionController AdmissionController}.
+ * <p>
+ * The priority is carried as the extension value {@value #EXTENSION_NAME} of the input object, see for example
+ * {@link se.idsec.signservice.integration.SignRequestInput#getProcessingPriority()}.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public enum ProcessingPriority {
+
+  /** Work that a user is waiting for, for example a browser waiting for the SignRequest redirect. */
+  INTERACTIVE,
+
+  /** Background or bulk work. */
+  BATCH;
+
+  /** The name of the extension holding the priority. */
+  public static final String EXTENSION_NAME = "processingPriority";
+
+  /**
+   * Gets the priority from the extension of the supplied object.
+   *
+   * @param object the object
+   * @return the priority, or {@code null} if not set (or if the value is not recognized)
+   */
+  @Nullable
+  public static ProcessingPriority fromExtension(@Nullable final Extensible object) {
+    final String value = object != null ? object.getExtensionValue(EXTENSION_NAME) : null;
+    if (value == null) {
+      return null;
+    }
+    for (final ProcessingPriority p : values()) {
+      if (p.name().equalsIgnoreCase(value.trim())) {
+        return p;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Assigns the priority to the extension of the supplied object.
+   *
+   * @param object the object
+   * @param priority the priority ({@code null} removes the priority, and the extension if no other values remain)
+   */
+  public static void toExtension(@Nonnull final Extensible object, @Nullable final ProcessingPriority priority) {
+    if (priority != null) {
+      object.addExtensionValue(EXTENSION_NAME, priority.name());
+    }
+    else if (object.getExtension() != null) {
+      object.getExtension().remove(EXTENSION_NAME);
+      if (object.getExtension().isEmpty()) {
+        object.setExtension(null);
+      }
+    }
+  }
+
+  /**
+   * Returns a copy of the supplied extension with the priority assigned. This is used by the builders of the input
+   * objects, which must not modify an extension that was given to them.
+   *
+   * @param extension the extension (may be null)
+   * @param priority the priority ({@code null} removes the priority)
+   * @return the updated copy, or {@code null} if no values remain
+   */
+  @Nullable
+  public static Extension withPriority(
+      @Nullable final Extension extension, @Nullable final ProcessingPriority priority) {
+    final Extension copy = extension != null ? new Extension(extension) : new Extension();
+    if (priority != null) {
+      copy.put(EXTENSION_NAME, priority.name());
+    }
+    else {
+      copy.remove(EXTENSION_NAME);
+    }
+    return copy.isEmpty() ? null : copy;
+  }
+
+}
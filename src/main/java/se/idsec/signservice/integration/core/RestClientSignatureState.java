@@ -18,6 +18,10 @@ package se.idsec.signservice.integration.core;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.LinkedHashMap;
@@ -25,16 +29,23 @@ import java.util.LinkedHashMap;
 /**
  * When the Sign Service Integration service is running as a REST service the clients need to have a concrete class so
  * that JSON deserialization will work. This class provides this.
+ * <p>
+ * Since signature states are usually stored in (replicated) HTTP sessions, the class is {@link Externalizable} and uses
+ * a compact and versioned serialized form (see {@link SerializationSupport}).
+ * </p>
  *
  * @author Martin Lindström (martin@idsec.se)
  * @author Stefan Santesson (stefan@idsec.se)
  */
 @JsonInclude(Include.NON_NULL)
-public class RestClientSignatureState implements SignatureState {
+public class RestClientSignatureState implements SignatureState, Externalizable {
 
   @Serial
   private static final long serialVersionUID = 5286564715474770105L;
 
+  /** The current serialization format version. */
+  private static final int SERIAL_FORMAT_VERSION = 1;
+
   /** The signature operation ID. */
   private String id;
 
@@ -77,4 +88,23 @@ public class RestClientSignatureState implements SignatureState {
     this.state = state;
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void writeExternal(final ObjectOutput out) throws IOException {
+    SerializationSupport.writeVersion(out, SERIAL_FORMAT_VERSION);
+    SerializationSupport.writeString(out, this.id);
+    out.writeBoolean(this.state != null);
+    if (this.state != null) {
+      SerializationSupport.writeMap(out, this.state);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+    SerializationSupport.readVersion(in, SERIAL_FORMAT_VERSION, RestClientSignatureState.class);
+    this.id = SerializationSupport.readString(in);
+    this.state = in.readBoolean() ? SerializationSupport.readMap(in) : null;
+  }
+
 }
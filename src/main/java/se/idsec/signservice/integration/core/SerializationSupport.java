@@ -0,0 +1,337 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.core;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helper methods for the compact serialized forms used by the classes that are typically stored in (replicated) HTTP
+ * sessions, such as {@link se.idsec.signservice.integration.SignRequestData SignRequestData} and
+ * {@link RestClientSignatureState}.
+ * <p>
+ * Each serialized form starts with a format version byte, see {@link #writeVersion(DataOutput, int)} and
+ * {@link #readVersion(DataInput, int, Class)}.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public final class SerializationSupport {
+
+  // Value tags used by writeValue/readValue
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_STRING = 1;
+  private static final byte TAG_INTEGER = 2;
+  private static final byte TAG_LONG = 3;
+  private static final byte TAG_BOOLEAN = 4;
+  private static final byte TAG_DOUBLE = 5;
+  private static final byte TAG_BIG_INTEGER = 6;
+  private static final byte TAG_BIG_DECIMAL = 7;
+  private static final byte TAG_MAP = 8;
+  private static final byte TAG_LIST = 9;
+  private static final byte TAG_OBJECT = 10;
+
+  /**
+   * Writes the format version.
+   *
+   * @param out the output
+   * @param version the format version
+   * @throws IOException for write errors
+   */
+  public static void writeVersion(@Nonnull final DataOutput out, final int version) throws IOException {
+    out.writeByte(version);
+  }
+
+  /**
+   * Reads the format version and checks that it is supported.
+   *
+   * @param in the input
+   * @param maxVersion the highest format version supported by the reader
+   * @param clazz the class being read (for error reporting)
+   * @return the format version
+   * @throws IOException for read errors, or if the version is not supported
+   */
+  public static int readVersion(@Nonnull final DataInput in, final int maxVersion, @Nonnull final Class<?> clazz)
+      throws IOException {
+    final int version = in.readUnsignedByte();
+    if (version < 1 || version > maxVersion) {
+      throw new InvalidObjectException(
+          "Unsupported serialization format version %d for %s".formatted(version, clazz.getName()));
+    }
+    return version;
+  }
+
+  /**
+   * Writes a string (that may be {@code null}). Unlike {@link DataOutput#writeUTF(String)}, there is no limit on the
+   * length of the string.
+   *
+   * @param out the output
+   * @param value the string to write
+   * @throws IOException for write errors
+   */
+  public static void writeString(@Nonnull final DataOutput out, @Nullable final String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutput, String)}.
+   *
+   * @param in the input
+   * @return the string, or {@code null}
+   * @throws IOException for read errors
+   */
+  @Nullable
+  public static String readString(@Nonnull final DataInput in) throws IOException {
+    final int length = in.readInt();
+    if (length == -1) {
+      return null;
+    }
+    if (length < 0) {
+      throw new StreamCorruptedException("Invalid string length: " + length);
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes an {@link Extension} (that may be {@code null}).
+   *
+   * @param out the output
+   * @param extension the extension to write
+   * @throws IOException for write errors
+   */
+  public static void writeExtension(@Nonnull final DataOutput out, @Nullable final Extension extension)
+      throws IOException {
+    if (extension == null) {
+      out.writeInt(-1);
+      return;
+    }
+    out.writeInt(extension.size());
+    for (final Map.Entry<String, String> e : extension.entrySet()) {
+      writeString(out, e.getKey());
+      writeString(out, e.getValue());
+    }
+  }
+
+  /**
+   * Reads an {@link Extension} written by {@link #writeExtension(DataOutput, Extension)}.
+   *
+   * @param in the input
+   * @return the extension, or {@code null}
+   * @throws IOException for read errors
+   */
+  @Nullable
+  public static Extension readExtension(@Nonnull final DataInput in) throws IOException {
+    final int size = in.readInt();
+    if (size == -1) {
+      return null;
+    }
+    if (size < 0) {
+      throw new StreamCorruptedException("Invalid number of extension entries: " + size);
+    }
+    final Extension extension = new Extension();
+    for (int i = 0; i < size; i++) {
+      extension.put(readString(in), readString(in));
+    }
+    return extension;
+  }
+
+  /**
+   * Writes a value using a compact tagged format. Strings, numbers, booleans, maps with string keys and lists (i.e.,
+   * what a JSON deserializer produces) are written in compact form. Other values are written using
+   * {@link ObjectOutput#writeObject(Object)}.
+   *
+   * @param out the output
+   * @param value the value to write
+   * @throws IOException for write errors
+   */
+  public static void writeValue(@Nonnull final ObjectOutput out, @Nullable final Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(TAG_NULL);
+    }
+    else if (value instanceof final String s) {
+      out.writeByte(TAG_STRING);
+      writeString(out, s);
+    }
+    else if (value instanceof final Integer i) {
+      out.writeByte(TAG_INTEGER);
+      out.writeInt(i);
+    }
+    else if (value instanceof final Long l) {
+      out.writeByte(TAG_LONG);
+      out.writeLong(l);
+    }
+    else if (value instanceof final Boolean b) {
+      out.writeByte(TAG_BOOLEAN);
+      out.writeBoolean(b);
+    }
+    else if (value instanceof final Double d) {
+      out.writeByte(TAG_DOUBLE);
+      out.writeDouble(d);
+    }
+    else if (value instanceof final BigInteger bi) {
+      out.writeByte(TAG_BIG_INTEGER);
+      writeString(out, bi.toString());
+    }
+    else if (value instanceof final BigDecimal bd) {
+      out.writeByte(TAG_BIG_DECIMAL);
+      writeString(out, bd.toString());
+    }
+    else if (value instanceof final LinkedHashMap<?, ?> map && isStringKeyed(map)) {
+      out.writeByte(TAG_MAP);
+      writeMap(out, map);
+    }
+    else if (value instanceof final ArrayList<?> list) {
+      out.writeByte(TAG_LIST);
+      out.writeInt(list.size());
+      for (final Object o : list) {
+        writeValue(out, o);
+      }
+    }
+    else {
+      out.writeByte(TAG_OBJECT);
+      out.writeObject(value);
+    }
+  }
+
+  /**
+   * Reads a value written by {@link #writeValue(ObjectOutput, Object)}. Maps are returned as {@link LinkedHashMap}
+   * and lists as {@link ArrayList}.
+   *
+   * @param in the input
+   * @return the value
+   * @throws IOException for read errors
+   * @throws ClassNotFoundException if the class of a value written using {@link ObjectOutput#writeObject(Object)}
+   *     can not be found
+   */
+  @Nullable
+  public static Object readValue(@Nonnull final ObjectInput in) throws IOException, ClassNotFoundException {
+    final byte tag = in.readByte();
+    return switch (tag) {
+      case TAG_NULL -> null;
+      case TAG_STRING -> readString(in);
+      case TAG_INTEGER -> in.readInt();
+      case TAG_LONG -> in.readLong();
+      case TAG_BOOLEAN -> in.readBoolean();
+      case TAG_DOUBLE -> in.readDouble();
+      case TAG_BIG_INTEGER -> new BigInteger(readString(in));
+      case TAG_BIG_DECIMAL -> new BigDecimal(readString(in));
+      case TAG_MAP -> readMap(in);
+      case TAG_LIST -> {
+        final int size = readSize(in);
+        final List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(in));
+        }
+        yield list;
+      }
+      case TAG_OBJECT -> in.readObject();
+      default -> throw new StreamCorruptedException("Unknown value tag: " + tag);
+    };
+  }
+
+  /**
+   * Writes a map having string keys. The values are written using {@link #writeValue(ObjectOutput, Object)}.
+   *
+   * @param out the output
+   * @param map the map to write
+   * @throws IOException for write errors
+   */
+  public static void writeMap(@Nonnull final ObjectOutput out, @Nonnull final Map<?, ?> map) throws IOException {
+    out.writeInt(map.size());
+    for (final Map.Entry<?, ?> e : map.entrySet()) {
+      writeString(out, (String) e.getKey());
+      writeValue(out, e.getValue());
+    }
+  }
+
+  /**
+   * Reads a map written by {@link #writeMap(ObjectOutput, Map)}.
+   *
+   * @param in the input
+   * @return the map
+   * @throws IOException for read errors
+   * @throws ClassNotFoundException if the class of a value can not be found
+   */
+  @Nonnull
+  public static LinkedHashMap<String, Object> readMap(@Nonnull final ObjectInput in)
+      throws IOException, ClassNotFoundException {
+    final int size = readSize(in);
+    final LinkedHashMap<String, Object> map = new LinkedHashMap<>(Math.max(4, (int) (size / 0.75f) + 1));
+    for (int i = 0; i < size; i++) {
+      map.put(readString(in), readValue(in));
+    }
+    return map;
+  }
+
+  /**
+   * Reads a non-negative size.
+   *
+   * @param in the input
+   * @return the size
+   * @throws IOException for read errors
+   */
+  private static int readSize(final DataInput in) throws IOException {
+    final int size = in.readInt();
+    if (size < 0) {
+      throw new StreamCorruptedException("Invalid size: " + size);
+    }
+    return size;
+  }
+
+  /**
+   * Predicate that tells whether all keys of the supplied map are strings.
+   *
+   * @param map the map
+   * @return {@code true} if all keys are strings, and {@code false} otherwise
+   */
+  private static boolean isStringKeyed(final Map<?, ?> map) {
+    for (final Object key : map.keySet()) {
+      if (!(key instanceof String)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Hidden constructor
+  private SerializationSupport() {
+  }
+
+}
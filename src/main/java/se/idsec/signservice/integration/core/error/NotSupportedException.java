@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.core.error;
+
+import java.io.Serial;
+
+/**
+ * Exception class to report that an operation is not supported by the service, for example an operation that is only
+ * available when the service is running in stateful mode. The HTTP status is 501 (Not Implemented).
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class NotSupportedException extends SignServiceIntegrationException {
+
+  @Serial
+  private static final long serialVersionUID = 2815939217846305119L;
+
+  /** The error code for this type of error. */
+  public static final ErrorCode ERROR_CODE = new ErrorCode("internal", "not-supported");
+
+  /**
+   * Constructor assigning the error message.
+   *
+   * @param message the error message
+   */
+  public NotSupportedException(final String message) {
+    super(ERROR_CODE, message);
+  }
+
+  /**
+   * Constructor assigning the error message and the cause of the error.
+   *
+   * @param message the error message
+   * @param cause the cause of the error
+   */
+  public NotSupportedException(final String message, final Throwable cause) {
+    super(ERROR_CODE, message, cause);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getHttpStatus() {
+    return 501;
+  }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * A byte range, with inclusive first and last positions, of a document. Byte ranges are used when signed documents are
+ * downloaded in parts (see {@link SignedDocumentStore}).
+ *
+ * @param first the position of the first byte
+ * @param last the position of the last byte
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public record ByteRange(long first, long last) {
+
+  /** The unit for byte ranges. */
+  private static final String BYTES_UNIT = "bytes=";
+
+  /**
+   * Constructor.
+   *
+   * @param first the position of the first byte
+   * @param last the position of the last byte
+   */
+  public ByteRange {
+    if (first < 0 || last < first) {
+      throw new IllegalArgumentException("Invalid byte range %d-%d".formatted(first, last));
+    }
+  }
+
+  /**
+   * Gets the number of bytes in the range.
+   *
+   * @return the length of the range
+   */
+  public long length() {
+    return this.last - this.first + 1;
+  }
+
+  /**
+   * Gets the range as a HTTP {@code Content-Range} header value.
+   *
+   * @param totalLength the total length of the document
+   * @return the {@code Content-Range} value
+   */
+  @Nonnull
+  public String toContentRange(final long totalLength) {
+    return "bytes %d-%d/%d".formatted(this.first, this.last, totalLength);
+  }
+
+  /**
+   * Parses a HTTP {@code Range} header value ({@code bytes=first-last}, {@code bytes=first-} or
+   * {@code bytes=-suffixLength}) for a document of the given length. Only single ranges are supported. A value that
+   * can not be parsed (including multiple ranges and ranges whose last position is before the first position) is
+   * ignored, meaning that the entire document is returned, and a last position beyond the end of the document is
+   * adjusted to the last byte of the document.
+   *
+   * @param range the {@code Range} header value (may be null)
+   * @param totalLength the total length of the document
+   * @return the byte range, or {@code null} if the entire document should be returned
+   * @throws RangeNotSatisfiableException if the range does not overlap the document
+   */
+  @Nullable
+  public static ByteRange parse(@Nullable final String range, final long totalLength)
+      throws RangeNotSatisfiableException {
+    if (range == null || !range.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+      return null;
+    }
+    final String spec = range.substring(BYTES_UNIT.length()).trim();
+    final int dash = spec.indexOf('-');
+    if (dash < 0 || spec.indexOf(',') >= 0) {
+      return null;
+    }
+    final long first;
+    final long last;
+    try {
+      if (dash == 0) {
+        final long suffixLength = Long.parseLong(spec.substring(1));
+        if (suffixLength == 0) {
+          throw new RangeNotSatisfiableException("Empty suffix range requested");
+        }
+        first = Math.max(0, totalLength - suffixLength);
+        last = totalLength - 1;
+      }
+      else {
+        first = Long.parseLong(spec.substring(0, dash));
+        if (dash == spec.length() - 1) {
+          last = totalLength - 1;
+        }
+        else {
+          final long requestedLast = Long.parseLong(spec.substring(dash + 1));
+          if (requestedLast < first) {
+            // Invalid syntax, regardless of the document length
+            return null;
+          }
+          last = Math.min(requestedLast, totalLength - 1);
+        }
+      }
+    }
+    catch (final NumberFormatException e) {
+      return null;
+    }
+    if (first < 0) {
+      return null;
+    }
+    if (first >= totalLength) {
+      throw new RangeNotSatisfiableException("Range %s is not satisfiable for a document of %d bytes"
+          .formatted(range, totalLength));
+    }
+    return new ByteRange(first, last);
+  }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import se.idsec.signservice.integration.core.Extensible;
+import se.idsec.signservice.integration.core.Extension;
+import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.core.SerializationSupport;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serial;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A precomputed digest of a document that is to be signed. A {@link TbsDocument} holding a document digest, instead
+ * of the document content, is signed in "digest-only" mode. The document never leaves the caller, and the result is a
+ * detached signature (see {@link SignedDocument#getDetachedSignature()}) that the caller assembles with the document.
+ * <p>
+ * Digest-only mode is supported for XML signatures, where the signature holds a {@code ds:Reference} to the document
+ * given by {@link #getReferenceUri()}, and for CMS signatures, where the result is a detached CMS SignedData. PDF
+ * documents can not be signed in digest-only mode since the signature is embedded in the document.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(Include.NON_NULL)
+public class DocumentDigest implements Extensible, Externalizable {
+
+  @Serial
+  private static final long serialVersionUID = 5183540712830356195L;
+
+  /** The current serialization format version. */
+  private static final int SERIAL_FORMAT_VERSION = 1;
+
+  /** The maximum number of transforms accepted when reading the serialized form. */
+  private static final int MAX_SERIALIZED_TRANSFORMS = 64;
+
+  /** The URI for the SHA-256 digest algorithm. */
+  public static final String SHA256 = "http://www.w3.org/2001/04/xmlenc#sha256";
+
+  /** The digest algorithm URI. */
+  private String digestAlgorithm;
+
+  /** The Base64-encoded digest value. */
+  private String digestValue;
+
+  /** The length of the document, in bytes. */
+  private Long length;
+
+  /** For XML signatures, the URI that the signature reference points at. */
+  private String referenceUri;
+
+  /** For XML signatures, the transform algorithm URIs applied to the document before it was digested (in order). */
+  private List<String> transforms;
+
+  /** For CMS signatures, the OID of the content type of the document. */
+  private String contentType;
+
+  /** Extensions for the object. */
+  private Extension extension;
+
+  /**
+   * Gets the digest algorithm URI, for example {@value #SHA256}.
+   *
+   * @return the digest algorithm URI
+   */
+  public String getDigestAlgorithm() {
+    return this.digestAlgorithm;
+  }
+
+  /**
+   * Assigns the digest algorithm URI. The algorithm must be allowed by the signature policy.
+   *
+   * @param digestAlgorithm the digest algorithm URI
+   */
+  public void setDigestAlgorithm(final String digestAlgorithm) {
+    this.digestAlgorithm = digestAlgorithm;
+  }
+
+  /**
+   * Gets the Base64-encoded digest value.
+   *
+   * @return the digest value
+   */
+  public String getDigestValue() {
+    return this.digestValue;
+  }
+
+  /**
+   * Assigns the Base64-encoded digest value.
+   *
+   * @param digestValue the digest value
+   */
+  public void setDigestValue(final String digestValue) {
+    this.digestValue = digestValue;
+  }
+
+  /**
+   * Gets the length of the document, in bytes. The length is optional and only informational (it may be used in logs
+   * and audit records).
+   *
+   * @return the document length, or {@code null}
+   */
+  public Long getLength() {
+    return this.length;
+  }
+
+  /**
+   * Assigns the length of the document, in bytes.
+   *
+   * @param length the document length
+   */
+  public void setLength(final Long length) {
+    this.length = length;
+  }
+
+  /**
+   * For XML signatures, gets the URI that the {@code ds:Reference} of the signature points at, for example the file
+   * name of the document. If not set, an empty URI is used.
+   *
+   * @return the reference URI, or {@code null}
+   */
+  public String getReferenceUri() {
+    return this.referenceUri;
+  }
+
+  /**
+   * For XML signatures, assigns the URI that the {@code ds:Reference} of the signature points at.
+   *
+   * @param referenceUri the reference URI
+   */
+  public void setReferenceUri(final String referenceUri) {
+    this.referenceUri = referenceUri;
+  }
+
+  /**
+   * For XML signatures, gets the transform algorithm URIs (in order) that were applied to the document before it was
+   * digested. If not set, no transforms are included in the {@code ds:Reference}, meaning that the digest was
+   * calculated over the document bytes.
+   *
+   * @return the transform algorithm URIs, or {@code null}
+   */
+  public List<String> getTransforms() {
+    return this.transforms;
+  }
+
+  /**
+   * For XML signatures, assigns the transform algorithm URIs (in order) that were applied to the document before it
+   * was digested.
+   *
+   * @param transforms the transform algorithm URIs
+   */
+  public void setTransforms(final List<String> transforms) {
+    this.transforms = transforms;
+  }
+
+  /**
+   * For CMS signatures, gets the OID of the content type of the document. If not set, {@code id-data}
+   * (1.2.840.113549.1.7.1) is assumed.
+   *
+   * @return the content type OID, or {@code null}
+   */
+  public String getContentType() {
+    return this.contentType;
+  }
+
+  /**
+   * For CMS signatures, assigns the OID of the content type of the document.
+   *
+   * @param contentType the content type OID
+   */
+  public void setContentType(final String contentType) {
+    this.contentType = contentType;
+  }
+
+  /**
+   * Gets the decoded digest value.
+   *
+   * @return the digest value bytes, or {@code null} if no digest value is set
+   * @throws IllegalArgumentException if the digest value is not valid Base64
+   */
+  @JsonIgnore
+  public byte[] getDigestValueBytes() throws IllegalArgumentException {
+    return this.digestValue != null ? Base64.getDecoder().decode(this.digestValue) : null;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Extension getExtension() {
+    return this.extension;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void setExtension(final Extension extension) {
+    this.extension = extension;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void writeExternal(final ObjectOutput out) throws IOException {
+    SerializationSupport.writeVersion(out, SERIAL_FORMAT_VERSION);
+    SerializationSupport.writeString(out, this.digestAlgorithm);
+    SerializationSupport.writeString(out, this.digestValue);
+    out.writeLong(this.length != null ? this.length : -1L);
+    SerializationSupport.writeString(out, this.referenceUri);
+    if (this.transforms == null) {
+      out.writeInt(-1);
+    }
+    else {
+      out.writeInt(this.transforms.size());
+      for (final String transform : this.transforms) {
+        SerializationSupport.writeString(out, transform);
+      }
+    }
+    SerializationSupport.writeString(out, this.contentType);
+    SerializationSupport.writeExtension(out, this.extension);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+    SerializationSupport.readVersion(in, SERIAL_FORMAT_VERSION, DocumentDigest.class);
+    this.digestAlgorithm = SerializationSupport.readString(in);
+    this.digestValue = SerializationSupport.readString(in);
+    final long len = in.readLong();
+    this.length = len >= 0 ? len : null;
+    this.referenceUri = SerializationSupport.readString(in);
+    final int size = in.readInt();
+    if (size < -1 || size > MAX_SERIALIZED_TRANSFORMS) {
+      throw new StreamCorruptedException("Invalid number of transforms: " + size);
+    }
+    this.transforms = size >= 0 ? new ArrayList<>(size) : null;
+    for (int i = 0; i < size; i++) {
+      this.transforms.add(SerializationSupport.readString(in));
+    }
+    this.contentType = SerializationSupport.readString(in);
+    this.extension = SerializationSupport.readExtension(in);
+  }
+
+  /**
+   * Builder for {@code DocumentDigest} objects.
+   */
+  public static class DocumentDigestBuilder implements ObjectBuilder<DocumentDigest> {
+    // Lombok
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document;
+
+import se.idsec.signservice.integration.core.error.BadRequestException;
+import se.idsec.signservice.integration.core.error.ErrorCode;
+
+import java.io.Serial;
+
+/**
+ * Exception class for references to a signed document that does not exist (or is no longer available).
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class DocumentNotFoundException extends BadRequestException {
+
+  @Serial
+  private static final long serialVersionUID = 3470166158296512906L;
+
+  /** The error code for the error. */
+  public static final ErrorCode.Code DOCUMENT_NOT_FOUND_CODE = new ErrorCode.Code("missing-document");
+
+  /**
+   * Constructor.
+   *
+   * @param message the error message
+   */
+  public DocumentNotFoundException(final String message) {
+    super(DOCUMENT_NOT_FOUND_CODE, message);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param message the error message
+   * @param cause the cause of the error
+   */
+  public DocumentNotFoundException(final String message, final Throwable cause) {
+    super(DOCUMENT_NOT_FOUND_CODE, message, cause);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getHttpStatus() {
+    return 404;
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document;
+
+import se.idsec.signservice.integration.core.error.BadRequestException;
+import se.idsec.signservice.integration.core.error.ErrorCode;
+
+import java.io.Serial;
+
+/**
+ * Exception class for a byte range of a signed document that cannot be satisfied.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class RangeNotSatisfiableException extends BadRequestException {
+
+  @Serial
+  private static final long serialVersionUID = -2748593147260318806L;
+
+  /** The error code for the error. */
+  public static final ErrorCode.Code RANGE_NOT_SATISFIABLE_CODE = new ErrorCode.Code("range-not-satisfiable");
+
+  /**
+   * Constructor.
+   *
+   * @param message the error message
+   */
+  public RangeNotSatisfiableException(final String message) {
+    super(RANGE_NOT_SATISFIABLE_CODE, message);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param message the error message
+   * @param cause the cause of the error
+   */
+  public RangeNotSatisfiableException(final String message, final Throwable cause) {
+    super(RANGE_NOT_SATISFIABLE_CODE, message, cause);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getHttpStatus() {
+    return 416;
+  }
+
+}
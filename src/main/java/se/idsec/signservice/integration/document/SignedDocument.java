@@ -24,6 +24,7 @@ import lombok.ToString;
 import se.idsec.signservice.integration.core.Extensible;
 import se.idsec.signservice.integration.core.Extension;
 import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.document.pdf.PdfIncrementalUpdate;
 
 import java.io.Serial;
 
@@ -50,12 +51,34 @@ public class SignedDocument implements Extensible {
   /** The signed document as a Base64-encoded byte string. */
   private String signedContent;
 
+  /** A reference to the signed document, used instead of the signed content when returned by reference. */
+  private String signedContentReference;
+
+  /** The Base64-encoded detached signature, returned instead of the signed content in digest-only mode. */
+  private String detachedSignature;
+
+  /** For PDF documents, the incremental update returned instead of the signed content. */
+  private PdfIncrementalUpdate pdfIncrementalUpdate;
+
   /** The MIME type of the signed document. See {@link DocumentType} for the supported types. */
   private String mimeType;
 
   /** Extensions for the object. */
   private Extension extension;
 
+  /**
+   * Constructor.
+   *
+   * @param id the unique ID for this document
+   * @param signedContent the signed document content (Base64-encoded)
+   * @param mimeType the MIME type of the signed document
+   * @param extension extensions for the object
+   */
+  public SignedDocument(final String id, final String signedContent, final String mimeType,
+      final Extension extension) {
+    this(id, signedContent, null, null, null, mimeType, extension);
+  }
+
   /**
    * Gets the unique ID for this document (within the current operation).
    *
@@ -92,6 +115,74 @@ public class SignedDocument implements Extensible {
     this.signedContent = signedContent;
   }
 
+  /**
+   * Gets the reference to the signed document. If the SignResponse was processed with the
+   * {@code returnDocumentReferences} parameter set (see
+   * {@link se.idsec.signservice.integration.SignResponseProcessingParameters#getReturnDocumentReferences()}), the
+   * signed content is not included, and the document is instead downloaded using this reference.
+   *
+   * @return the document reference, or {@code null} if the signed content is included
+   */
+  public String getSignedContentReference() {
+    return this.signedContentReference;
+  }
+
+  /**
+   * Assigns the reference to the signed document.
+   *
+   * @param signedContentReference the document reference
+   */
+  public void setSignedContentReference(final String signedContentReference) {
+    this.signedContentReference = signedContentReference;
+  }
+
+  /**
+   * Gets the detached signature. If the document was signed in "digest-only" mode (see
+   * {@link TbsDocument#getDocumentDigest()}), the signed content is not available, and the result instead holds the
+   * signature data that the caller assembles with its copy of the document:
+   * <ul>
+   * <li>For XML signatures, the {@code ds:Signature} element whose {@code ds:Reference} points at the document (using
+   * {@link DocumentDigest#getReferenceUri()}).</li>
+   * <li>For CMS signatures, a DER-encoded CMS SignedData structure without encapsulated content.</li>
+   * </ul>
+   *
+   * @return the Base64-encoded detached signature, or {@code null} if the signed content is returned
+   */
+  public String getDetachedSignature() {
+    return this.detachedSignature;
+  }
+
+  /**
+   * Assigns the Base64-encoded detached signature.
+   *
+   * @param detachedSignature the detached signature
+   */
+  public void setDetachedSignature(final String detachedSignature) {
+    this.detachedSignature = detachedSignature;
+  }
+
+  /**
+   * Gets the PDF incremental update. If the SignResponse was processed with the {@code returnPdfIncrementalUpdates}
+   * parameter set (see
+   * {@link se.idsec.signservice.integration.SignResponseProcessingParameters#getReturnPdfIncrementalUpdates()}), the
+   * signed content of a PDF document is not included. Instead, the caller obtains the signed PDF by appending the
+   * update to the document that was sent for signing (see {@link PdfIncrementalUpdate#apply(byte[])}).
+   *
+   * @return the PDF incremental update, or {@code null} if the signed content is returned
+   */
+  public PdfIncrementalUpdate getPdfIncrementalUpdate() {
+    return this.pdfIncrementalUpdate;
+  }
+
+  /**
+   * Assigns the PDF incremental update.
+   *
+   * @param pdfIncrementalUpdate the PDF incremental update
+   */
+  public void setPdfIncrementalUpdate(final PdfIncrementalUpdate pdfIncrementalUpdate) {
+    this.pdfIncrementalUpdate = pdfIncrementalUpdate;
+  }
+
   /**
    * Gets the MIME type of the signed document. See {@link DocumentType} for the supported types.
    *
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * The (possibly partial) content of a signed document that was returned by reference (see
+ * {@link SignedDocument#getSignedContentReference()}). The content is delivered as a stream, so that it may be written
+ * directly to a response or to disk.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignedDocumentContent {
+
+  /** The document bytes. */
+  private final byte[] content;
+
+  /** The MIME type of the document. */
+  private final String mimeType;
+
+  /** The requested range (null for the entire document). */
+  private final ByteRange range;
+
+  /**
+   * Constructor. The object takes ownership of the given array, which must not be modified afterwards.
+   *
+   * @param content the document bytes
+   * @param mimeType the MIME type of the document
+   * @param range the requested range (null for the entire document)
+   * @throws IllegalArgumentException if the range is not within the document
+   */
+  public SignedDocumentContent(@Nonnull final byte[] content, @Nullable final String mimeType,
+      @Nullable final ByteRange range) throws IllegalArgumentException {
+    this.content = Objects.requireNonNull(content, "content must not be null");
+    if (range != null && range.last() >= content.length) {
+      throw new IllegalArgumentException("Range %d-%d is not within the document of %d bytes"
+          .formatted(range.first(), range.last(), content.length));
+    }
+    this.mimeType = mimeType;
+    this.range = range;
+  }
+
+  /**
+   * Gets the MIME type of the document.
+   *
+   * @return the MIME type
+   */
+  @Nullable
+  public String getMimeType() {
+    return this.mimeType;
+  }
+
+  /**
+   * Gets the total length of the document.
+   *
+   * @return the total length in bytes
+   */
+  public long getTotalLength() {
+    return this.content.length;
+  }
+
+  /**
+   * Gets the number of bytes delivered by this object.
+   *
+   * @return the content length in bytes
+   */
+  public long getContentLength() {
+    return this.range != null ? this.range.length() : this.content.length;
+  }
+
+  /**
+   * Gets the requested range.
+   *
+   * @return the range, or {@code null} if the entire document is delivered
+   */
+  @Nullable
+  public ByteRange getRange() {
+    return this.range;
+  }
+
+  /**
+   * Gets the HTTP {@code Content-Range} header value for a partial response.
+   *
+   * @return the {@code Content-Range} value, or {@code null} if the entire document is delivered
+   */
+  @Nullable
+  public String getContentRange() {
+    return this.range != null ? this.range.toContentRange(this.content.length) : null;
+  }
+
+  /**
+   * Gets a stream for reading the content.
+   *
+   * @return an input stream
+   */
+  @Nonnull
+  public InputStream getInputStream() {
+    return this.range != null
+        ? new ByteArrayInputStream(this.content, (int) this.range.first(), (int) this.range.length())
+        : new ByteArrayInputStream(this.content);
+  }
+
+  /**
+   * Writes the content to the given stream.
+   *
+   * @param out the stream to write to
+   * @return the number of bytes written
+   * @throws IOException for write errors
+   */
+  public long transferTo(@Nonnull final OutputStream out) throws IOException {
+    final int offset = this.range != null ? (int) this.range.first() : 0;
+    final int length = (int) this.getContentLength();
+    out.write(this.content, offset, length);
+    return length;
+  }
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignatureResult;
+import se.idsec.signservice.integration.core.ExpiringCache;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * A server-side store for signed documents, for use by services running in stateful mode that support returning
+ * signed documents by reference (see {@link SignResponseProcessingParameters#getReturnDocumentReferences()}). After a
+ * SignResponse has been processed, {@link #apply(SignatureResult, SignResponseProcessingParameters, String)} moves the
+ * signed contents of the result into the store, and the documents may later be downloaded, in full or by byte range,
+ * using {@link #getDocument(String, ByteRange, String)}.
+ * <p>
+ * A document may only be obtained by the caller that processed the response. Documents are kept for a limited time,
+ * and both the number of stored documents and their total size are bounded. When a new document does not fit, the
+ * least recently used documents are evicted. A document that is larger than the maximum total size is never stored;
+ * {@link #apply(SignatureResult, SignResponseProcessingParameters, String)} then leaves it in the result.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignedDocumentStore {
+
+  /** The default maximum number of stored documents. */
+  public static final int DEFAULT_MAX_ENTRIES = 1_000;
+
+  /** The default maximum total size (in bytes) of the stored documents. */
+  public static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024;
+
+  /** The default time a document is stored. */
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(15);
+
+  /** Source for document references. */
+  private static final SecureRandom random = new SecureRandom();
+
+  /** The stored documents, keyed by reference. */
+  private final ExpiringCache<String, Entry> documents;
+
+  /** The time a document is stored. */
+  private final Duration ttl;
+
+  /** The maximum total size of the stored documents. */
+  private final long maxBytes;
+
+  /**
+   * Constructor using {@link #DEFAULT_MAX_ENTRIES}, {@link #DEFAULT_MAX_BYTES} and {@link #DEFAULT_TTL}.
+   */
+  public SignedDocumentStore() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, DEFAULT_TTL, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor using {@link #DEFAULT_MAX_BYTES}.
+   *
+   * @param maxEntries the maximum number of stored documents
+   * @param ttl the time a document is stored
+   * @param clock the clock
+   */
+  public SignedDocumentStore(final int maxEntries, @Nonnull final Duration ttl, @Nonnull final Clock clock) {
+    this(maxEntries, DEFAULT_MAX_BYTES, ttl, clock);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries the maximum number of stored documents
+   * @param maxBytes the maximum total size (in bytes) of the stored documents
+   * @param ttl the time a document is stored
+   * @param clock the clock
+   */
+  public SignedDocumentStore(final int maxEntries, final long maxBytes, @Nonnull final Duration ttl,
+      @Nonnull final Clock clock) {
+    this.documents = new ExpiringCache<>(maxEntries, maxBytes, e -> e.content().length, clock);
+    this.ttl = Objects.requireNonNull(ttl, "ttl must not be null");
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * If the given parameters tell that signed documents should be returned by reference, the signed contents of the
+   * result are stored, and replaced by references (see {@link SignedDocument#getSignedContentReference()}).
+   *
+   * @param result the signature result
+   * @param parameters the processing parameters (may be null)
+   * @param callerId the identity of the calling entity (may be null)
+   * @return the result
+   */
+  @Nonnull
+  public SignatureResult apply(@Nonnull final SignatureResult result,
+      @Nullable final SignResponseProcessingParameters parameters, @Nullable final String callerId) {
+    if (parameters == null || !Boolean.TRUE.equals(parameters.getReturnDocumentReferences())
+        || result.getSignedDocuments() == null) {
+      return result;
+    }
+    for (final SignedDocument document : result.getSignedDocuments()) {
+      if (document.getSignedContent() == null) {
+        continue;
+      }
+      final byte[] content = Base64.getDecoder().decode(document.getSignedContent());
+      if (content.length > this.maxBytes) {
+        continue;
+      }
+      final String reference = this.add(content, document.getMimeType(), callerId);
+      document.setSignedContentReference(reference);
+      document.setSignedContent(null);
+    }
+    return result;
+  }
+
+  /**
+   * Stores a signed document. The store keeps a copy of the given bytes.
+   *
+   * @param content the document bytes
+   * @param mimeType the MIME type of the document
+   * @param callerId the identity of the calling entity (may be null)
+   * @return the document reference
+   * @throws IllegalArgumentException if the document is larger than the maximum total size
+   */
+  @Nonnull
+  public String store(@Nonnull final byte[] content, @Nullable final String mimeType, @Nullable final String callerId)
+      throws IllegalArgumentException {
+    if (content.length > this.maxBytes) {
+      throw new IllegalArgumentException("Document exceeds the maximum store size");
+    }
+    return this.add(content.clone(), mimeType, callerId);
+  }
+
+  /**
+   * Adds a document to the store. The store takes ownership of the given array.
+   *
+   * @param content the document bytes
+   * @param mimeType the MIME type of the document
+   * @param callerId the identity of the calling entity (may be null)
+   * @return the document reference
+   */
+  private String add(final byte[] content, final String mimeType, final String callerId) {
+    final byte[] bytes = new byte[16];
+    random.nextBytes(bytes);
+    final String reference = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    this.documents.put(reference, new Entry(content, mimeType, callerId),
+        this.documents.getClock().instant().plus(this.ttl));
+    return reference;
+  }
+
+  /**
+   * Gets a stored document, or a byte range of it.
+   *
+   * @param reference the document reference (see {@link SignedDocument#getSignedContentReference()})
+   * @param range the byte range (null for the entire document), see {@link ByteRange#parse(String, long)}
+   * @param callerId the identity of the calling entity (may be null)
+   * @return the document content
+   * @throws DocumentNotFoundException if no document is stored for the reference and caller
+   * @throws RangeNotSatisfiableException if the range is beyond the end of the document
+   */
+  @Nonnull
+  public SignedDocumentContent getDocument(@Nonnull final String reference, @Nullable final ByteRange range,
+      @Nullable final String callerId) throws DocumentNotFoundException, RangeNotSatisfiableException {
+    final Entry entry = this.getEntry(reference, callerId);
+    if (range == null) {
+      return new SignedDocumentContent(entry.content(), entry.mimeType(), null);
+    }
+    if (range.first() >= entry.content().length) {
+      throw new RangeNotSatisfiableException(range.toContentRange(entry.content().length) + " is not satisfiable");
+    }
+    final ByteRange adjusted = range.last() < entry.content().length
+        ? range
+        : new ByteRange(range.first(), entry.content().length - 1);
+    return new SignedDocumentContent(entry.content(), entry.mimeType(), adjusted);
+  }
+
+  /**
+   * Gets a stored document, or a byte range of it, where the range is given as a HTTP {@code Range} header value.
+   *
+   * @param reference the document reference (see {@link SignedDocument#getSignedContentReference()})
+   * @param range the {@code Range} header value (may be null)
+   * @param callerId the identity of the calling entity (may be null)
+   * @return the document content
+   * @throws DocumentNotFoundException if no document is stored for the reference and caller
+   * @throws RangeNotSatisfiableException if the range is beyond the end of the document
+   */
+  @Nonnull
+  public SignedDocumentContent getDocumentForRange(@Nonnull final String reference, @Nullable final String range,
+      @Nullable final String callerId) throws DocumentNotFoundException, RangeNotSatisfiableException {
+    final Entry entry = this.getEntry(reference, callerId);
+    return new SignedDocumentContent(entry.content(), entry.mimeType(),
+        ByteRange.parse(range, entry.content().length));
+  }
+
+  /**
+   * Removes a stored document. Callers that have downloaded a document may remove it to release memory.
+   *
+   * @param reference the document reference
+   * @param callerId the identity of the calling entity (may be null)
+   */
+  public void remove(@Nonnull final String reference, @Nullable final String callerId) {
+    final Entry entry = this.documents.get(reference);
+    if (entry != null && Objects.equals(entry.callerId(), callerId)) {
+      this.documents.remove(reference);
+    }
+  }
+
+  /**
+   * Gets the number of stored documents.
+   *
+   * @return the number of stored documents
+   */
+  public int size() {
+    return this.documents.size();
+  }
+
+  /**
+   * Gets the total size (in bytes) of the stored documents.
+   *
+   * @return the number of stored bytes
+   */
+  public long getStoredBytes() {
+    return this.documents.weight();
+  }
+
+  /**
+   * Gets the entry for a document.
+   *
+   * @param reference the document reference
+   * @param callerId the identity of the calling entity
+   * @return the entry
+   * @throws DocumentNotFoundException if no document is stored for the reference and caller
+   */
+  private Entry getEntry(final String reference, final String callerId) throws DocumentNotFoundException {
+    final Entry entry = this.documents.get(reference);
+    if (entry == null || !Objects.equals(entry.callerId(), callerId)) {
+      throw new DocumentNotFoundException("No signed document available for '%s'".formatted(reference));
+    }
+    return entry;
+  }
+
+  /**
+   * A stored document.
+   *
+   * @param content the document bytes
+   * @param mimeType the MIME type
+   * @param callerId the caller that processed the response
+   */
+  private record Entry(byte[] content, String mimeType, String callerId) {
+  }
+
+}
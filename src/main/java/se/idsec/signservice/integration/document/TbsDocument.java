@@ -15,6 +15,7 @@
  */
 package se.idsec.signservice.integration.document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import lombok.AllArgsConstructor;
@@ -24,13 +25,22 @@ import lombok.ToString;
 import se.idsec.signservice.integration.core.Extensible;
 import se.idsec.signservice.integration.core.Extension;
 import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.core.SerializationSupport;
 import se.idsec.signservice.integration.document.pdf.VisiblePdfSignatureRequirement;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.io.Serial;
-import java.io.Serializable;
 
 /**
  * Represents a document that is to be signed along with the per-document requirements and parameters.
+ * <p>
+ * Documents are often kept in the signature state, and the class is therefore {@link Externalizable} using a compact
+ * and versioned serialized form.
+ * </p>
  *
  * @author Martin Lindström (martin@idsec.se)
  * @author Stefan Santesson (stefan@idsec.se)
@@ -40,11 +50,14 @@ import java.io.Serializable;
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(Include.NON_NULL)
-public class TbsDocument implements Extensible, Serializable {
+public class TbsDocument implements Extensible, Externalizable {
 
   @Serial
   private static final long serialVersionUID = 3224804407700034526L;
 
+  /** The current serialization format version. */
+  private static final int SERIAL_FORMAT_VERSION = 2;
+
   /** The unique ID for this document (within the current request). */
   private String id;
 
@@ -54,6 +67,9 @@ public class TbsDocument implements Extensible, Serializable {
   /** A content reference may be used instead of supplying the actual content. */
   private String contentReference;
 
+  /** A precomputed digest of the document, used instead of the content in digest-only mode. */
+  private DocumentDigest documentDigest;
+
   /** The MIME type of the document that is to be signed. */
   private String mimeType;
 
@@ -72,6 +88,25 @@ public class TbsDocument implements Extensible, Serializable {
   /** Extensions for the object. */
   private Extension extension;
 
+  /**
+   * Constructor.
+   *
+   * @param id the unique ID for this document
+   * @param content the document content (Base64-encoded)
+   * @param contentReference the content reference
+   * @param mimeType the MIME type of the document
+   * @param processingRules optional processing rules
+   * @param adesRequirement the AdES requirement
+   * @param visiblePdfSignatureRequirement the visible PDF signature requirement
+   * @param extension extensions for the object
+   */
+  public TbsDocument(final String id, final String content, final String contentReference, final String mimeType,
+      final String processingRules, final EtsiAdesRequirement adesRequirement,
+      final VisiblePdfSignatureRequirement visiblePdfSignatureRequirement, final Extension extension) {
+    this(id, content, contentReference, null, mimeType, processingRules, adesRequirement,
+        visiblePdfSignatureRequirement, extension);
+  }
+
   /**
    * Gets the unique ID for this document (within the current request).
    *
@@ -136,6 +171,38 @@ public class TbsDocument implements Extensible, Serializable {
     this.contentReference = contentReference;
   }
 
+  /**
+   * Gets the precomputed digest of the document. If set, the document is signed in "digest-only" mode, meaning that
+   * neither the content nor a content reference is given, and that the signed document of the result holds a detached
+   * signature (see {@link SignedDocument#getDetachedSignature()}) instead of the signed content.
+   *
+   * @return the document digest, or {@code null}
+   */
+  public DocumentDigest getDocumentDigest() {
+    return this.documentDigest;
+  }
+
+  /**
+   * Assigns a precomputed digest of the document, to be used instead of supplying the actual content
+   * ({@link #setContent(String)}). This avoids sending large documents to the SignService Integration Service, and
+   * back, when only a detached signature is needed. Digest-only mode can not be used for PDF documents.
+   *
+   * @param documentDigest the document digest
+   */
+  public void setDocumentDigest(final DocumentDigest documentDigest) {
+    this.documentDigest = documentDigest;
+  }
+
+  /**
+   * Tells whether this document is to be signed in "digest-only" mode (see {@link #getDocumentDigest()}).
+   *
+   * @return {@code true} if a document digest is given and {@code false} otherwise
+   */
+  @JsonIgnore
+  public boolean isDigestOnly() {
+    return this.documentDigest != null;
+  }
+
   /**
    * Gets the MIME type of the document that is to be signed. See {@link DocumentType} for the supported types.
    *
@@ -244,6 +311,38 @@ public class TbsDocument implements Extensible, Serializable {
     this.extension = extension;
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void writeExternal(final ObjectOutput out) throws IOException {
+    SerializationSupport.writeVersion(out, SERIAL_FORMAT_VERSION);
+    SerializationSupport.writeString(out, this.id);
+    SerializationSupport.writeString(out, this.content);
+    SerializationSupport.writeString(out, this.contentReference);
+    SerializationSupport.writeString(out, this.mimeType);
+    SerializationSupport.writeString(out, this.processingRules);
+    out.writeObject(this.adesRequirement);
+    out.writeObject(this.visiblePdfSignatureRequirement);
+    SerializationSupport.writeExtension(out, this.extension);
+    out.writeObject(this.documentDigest);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+    final int version = SerializationSupport.readVersion(in, SERIAL_FORMAT_VERSION, TbsDocument.class);
+    this.id = SerializationSupport.readString(in);
+    this.content = SerializationSupport.readString(in);
+    this.contentReference = SerializationSupport.readString(in);
+    this.mimeType = SerializationSupport.readString(in);
+    this.processingRules = SerializationSupport.readString(in);
+    this.adesRequirement = (EtsiAdesRequirement) in.readObject();
+    this.visiblePdfSignatureRequirement = (VisiblePdfSignatureRequirement) in.readObject();
+    this.extension = SerializationSupport.readExtension(in);
+    if (version >= 2) {
+      this.documentDigest = (DocumentDigest) in.readObject();
+    }
+  }
+
   /**
    * Builder for {@code TbsDocument} objects.
    */
@@ -281,12 +380,15 @@ public class TbsDocument implements Extensible, Serializable {
   @NoArgsConstructor
   @AllArgsConstructor
   @Builder
-  public static class EtsiAdesRequirement implements Extensible, Serializable {
+  public static class EtsiAdesRequirement implements Extensible, Externalizable {
 
     /** For serialization. */
     @Serial
     private static final long serialVersionUID = 3139149873709105674L;
 
+    /** The current serialization format version. */
+    private static final int SERIAL_FORMAT_VERSION = 1;
+
     /** The ETSI AdES type. */
     private AdesType adesFormat;
 
@@ -396,6 +498,32 @@ public class TbsDocument implements Extensible, Serializable {
       this.extension = extension;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+      SerializationSupport.writeVersion(out, SERIAL_FORMAT_VERSION);
+      SerializationSupport.writeString(out, this.adesFormat != null ? this.adesFormat.name() : null);
+      SerializationSupport.writeString(out, this.signaturePolicy);
+      SerializationSupport.writeString(out, this.adesObject);
+      SerializationSupport.writeExtension(out, this.extension);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+      SerializationSupport.readVersion(in, SERIAL_FORMAT_VERSION, EtsiAdesRequirement.class);
+      final String format = SerializationSupport.readString(in);
+      try {
+        this.adesFormat = format != null ? AdesType.valueOf(format) : null;
+      }
+      catch (final IllegalArgumentException e) {
+        throw new InvalidObjectException("Unknown AdES type: " + format);
+      }
+      this.signaturePolicy = SerializationSupport.readString(in);
+      this.adesObject = SerializationSupport.readString(in);
+      this.extension = SerializationSupport.readExtension(in);
+    }
+
     /**
      * Builder for {@link EtsiAdesRequirement}.
      */
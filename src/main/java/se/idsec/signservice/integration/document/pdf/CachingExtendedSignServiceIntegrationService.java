@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.pdf;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.ExtendedSignServiceIntegrationService;
+import se.idsec.signservice.integration.SignRequestData;
+import se.idsec.signservice.integration.SignRequestInput;
+import se.idsec.signservice.integration.SignResponseCancelStatusException;
+import se.idsec.signservice.integration.SignResponseErrorStatusException;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignatureResult;
+import se.idsec.signservice.integration.authentication.AssertionNotFoundException;
+import se.idsec.signservice.integration.config.ConditionalConfiguration;
+import se.idsec.signservice.integration.config.DirectoryPolicyRegistry;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+import se.idsec.signservice.integration.config.PolicyNotFoundException;
+import se.idsec.signservice.integration.config.ResourceNotFoundException;
+import se.idsec.signservice.integration.core.FileResource;
+import se.idsec.signservice.integration.core.SignatureState;
+import se.idsec.signservice.integration.core.error.InputValidationException;
+import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
+import se.idsec.signservice.integration.document.DocumentNotFoundException;
+import se.idsec.signservice.integration.document.RangeNotSatisfiableException;
+import se.idsec.signservice.integration.document.SignedDocumentContent;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An {@link ExtendedSignServiceIntegrationService} decorator that caches the results of {@code preparePdfDocument}
+ * calls in a {@link PreparedPdfDocumentCache}. All other calls are passed on to the decorated service.
+ * <p>
+ * The decorator should be the outermost one, so that repeated calls for the same input get the cached result without
+ * being subject to, for example, admission control. A cached result reflects the policy configuration in effect when
+ * it was prepared, so if policies are loaded from a {@link DirectoryPolicyRegistry}, the registry should be given to
+ * the constructor. The cache is then cleared each time the registry publishes a new snapshot.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class CachingExtendedSignServiceIntegrationService implements ExtendedSignServiceIntegrationService {
+
+  /** The decorated service. */
+  private final ExtendedSignServiceIntegrationService delegate;
+
+  /** The cache for prepared PDF documents. */
+  private final PreparedPdfDocumentCache cache;
+
+  /**
+   * Constructor for a service whose policies do not change.
+   *
+   * @param delegate the service to decorate
+   * @param cache the cache for prepared PDF documents
+   */
+  public CachingExtendedSignServiceIntegrationService(@Nonnull final ExtendedSignServiceIntegrationService delegate,
+      @Nonnull final PreparedPdfDocumentCache cache) {
+    this(delegate, cache, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param delegate the service to decorate
+   * @param cache the cache for prepared PDF documents
+   * @param registry the registry from which the policies of the decorated service are loaded (may be null). The
+   *     cache is cleared each time the registry publishes a new snapshot
+   */
+  public CachingExtendedSignServiceIntegrationService(@Nonnull final ExtendedSignServiceIntegrationService delegate,
+      @Nonnull final PreparedPdfDocumentCache cache, @Nullable final DirectoryPolicyRegistry registry) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+    this.cache = Objects.requireNonNull(cache, "cache must not be null");
+    if (registry != null) {
+      registry.addListener(snapshot -> this.cache.clear());
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public PreparedPdfDocument preparePdfDocument(@Nullable final String policy, @Nonnull final byte[] pdfDocument,
+      @Nullable final PdfSignaturePagePreferences signaturePagePreferences,
+      @Nullable final Boolean returnDocumentReference, @Nullable final String callerId)
+      throws InputValidationException, PdfSignaturePageFullException, PdfAConsistencyCheckException,
+      PdfContainsAcroformException, PdfContainsEncryptionDictionaryException, SignServiceIntegrationException {
+    return this.cache.prepare(policy, pdfDocument, signaturePagePreferences, returnDocumentReference, callerId,
+        () -> this.delegate.preparePdfDocument(
+            policy, pdfDocument, signaturePagePreferences, returnDocumentReference, callerId));
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public PdfProbeReport probePdfDocument(@Nonnull final byte[] pdfDocument, @Nullable final String callerId)
+      throws InputValidationException, SignServiceIntegrationException {
+    return this.delegate.probePdfDocument(pdfDocument, callerId);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public String getSignerAssertion(@Nonnull final String assertionReference, @Nullable final String callerId)
+      throws AssertionNotFoundException, SignServiceIntegrationException {
+    return this.delegate.getSignerAssertion(assertionReference, callerId);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public SignedDocumentContent getSignedDocument(@Nonnull final String documentReference,
+      @Nullable final String range, @Nullable final String callerId)
+      throws DocumentNotFoundException, RangeNotSatisfiableException, SignServiceIntegrationException {
+    return this.delegate.getSignedDocument(documentReference, range, callerId);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public SignRequestData createSignRequest(
+      @Nonnull final SignRequestInput signRequestInput, @Nullable final String callerId)
+      throws InputValidationException, SignServiceIntegrationException {
+    return this.delegate.createSignRequest(signRequestInput, callerId);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public SignatureResult processSignResponse(@Nonnull final String signResponse, @Nonnull final String relayState,
+      @Nonnull final SignatureState state, @Nullable final SignResponseProcessingParameters parameters,
+      @Nullable final String callerId)
+      throws SignResponseCancelStatusException, SignResponseErrorStatusException, SignServiceIntegrationException {
+    return this.delegate.processSignResponse(signResponse, relayState, state, parameters, callerId);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public IntegrationServiceDefaultConfiguration getConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return this.delegate.getConfiguration(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public ConditionalConfiguration getConfigurationIfChanged(@Nullable final String policy, @Nullable final String etag)
+      throws PolicyNotFoundException {
+    return this.delegate.getConfigurationIfChanged(policy, etag);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public IntegrationServiceDefaultConfiguration getLiteConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return this.delegate.getLiteConfiguration(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public FileResource getConfigurationResource(@Nullable final String policy, @Nonnull final String reference)
+      throws PolicyNotFoundException, ResourceNotFoundException {
+    return this.delegate.getConfigurationResource(policy, reference);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public List<String> getPolicies() {
+    return this.delegate.getPolicies();
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public String getVersion() {
+    return this.delegate.getVersion();
+  }
+
+  /**
+   * Gets the cache for prepared PDF documents.
+   *
+   * @return the cache
+   */
+  @Nonnull
+  public PreparedPdfDocumentCache getCache() {
+    return this.cache;
+  }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.pdf;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import se.idsec.signservice.integration.core.Extensible;
+import se.idsec.signservice.integration.core.Extension;
+import se.idsec.signservice.integration.core.ObjectBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * A PDF signature is added to a document as an incremental update, i.e., the signed PDF is the document that was sent
+ * for signing followed by the appended update. Instead of the entire signed PDF, a caller that holds the original
+ * document may ask for the update only (see
+ * {@link se.idsec.signservice.integration.SignResponseProcessingParameters#getReturnPdfIncrementalUpdates()}). The
+ * signed PDF is then obtained by appending the update to the original, see {@link #apply(byte[])}.
+ * <p>
+ * The original document is identified by its length and SHA-256 digest, so that an update is never appended to the
+ * wrong document.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@ToString(exclude = "update")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(Include.NON_NULL)
+public class PdfIncrementalUpdate implements Extensible {
+
+  @Serial
+  private static final long serialVersionUID = -3186092538146127040L;
+
+  /** The length, in bytes, of the original document. */
+  private Long originalLength;
+
+  /** The Base64-encoded SHA-256 digest of the original document. */
+  private String originalDigest;
+
+  /** The Base64-encoded incremental update, i.e., the bytes that are appended to the original document. */
+  private String update;
+
+  /** Extensions for the object. */
+  private Extension extension;
+
+  /**
+   * Gets the length, in bytes, of the original document.
+   *
+   * @return the length of the original document
+   */
+  public Long getOriginalLength() {
+    return this.originalLength;
+  }
+
+  /**
+   * Assigns the length, in bytes, of the original document.
+   *
+   * @param originalLength the length of the original document
+   */
+  public void setOriginalLength(final Long originalLength) {
+    this.originalLength = originalLength;
+  }
+
+  /**
+   * Gets the Base64-encoded SHA-256 digest of the original document.
+   *
+   * @return the digest of the original document
+   */
+  public String getOriginalDigest() {
+    return this.originalDigest;
+  }
+
+  /**
+   * Assigns the Base64-encoded SHA-256 digest of the original document.
+   *
+   * @param originalDigest the digest of the original document
+   */
+  public void setOriginalDigest(final String originalDigest) {
+    this.originalDigest = originalDigest;
+  }
+
+  /**
+   * Gets the Base64-encoded incremental update, i.e., the bytes that are appended to the original document.
+   *
+   * @return the incremental update
+   */
+  public String getUpdate() {
+    return this.update;
+  }
+
+  /**
+   * Assigns the Base64-encoded incremental update.
+   *
+   * @param update the incremental update
+   */
+  public void setUpdate(final String update) {
+    this.update = update;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Extension getExtension() {
+    return this.extension;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void setExtension(final Extension extension) {
+    this.extension = extension;
+  }
+
+  /**
+   * Creates an incremental update given the original document and the signed document.
+   *
+   * @param original the original document (the document that was sent for signing)
+   * @param signed the signed document
+   * @return the incremental update, or {@code null} if the signed document does not start with the original document
+   *     (in which case the entire signed document has to be returned)
+   */
+  @Nullable
+  public static PdfIncrementalUpdate create(@Nonnull final byte[] original, @Nonnull final byte[] signed) {
+    if (signed.length < original.length
+        || !Arrays.equals(signed, 0, original.length, original, 0, original.length)) {
+      return null;
+    }
+    return PdfIncrementalUpdate.builder()
+        .originalLength((long) original.length)
+        .originalDigest(Base64.getEncoder().encodeToString(sha256(original)))
+        .update(Base64.getEncoder().encodeToString(Arrays.copyOfRange(signed, original.length, signed.length)))
+        .build();
+  }
+
+  /**
+   * Checks whether the given document is the original document of this update.
+   *
+   * @param original the document to check
+   * @return {@code true} if the document has the length and digest of the original document, and {@code false}
+   *     otherwise
+   */
+  public boolean isOriginal(@Nonnull final byte[] original) {
+    return this.originalLength != null && this.originalLength == original.length && this.originalDigest != null
+        && MessageDigest.isEqual(Base64.getDecoder().decode(this.originalDigest), sha256(original));
+  }
+
+  /**
+   * Appends the incremental update to the original document, giving the signed document.
+   *
+   * @param original the original document
+   * @return the signed document
+   * @throws IllegalArgumentException if the given document is not the original document of this update
+   */
+  @Nonnull
+  public byte[] apply(@Nonnull final byte[] original) throws IllegalArgumentException {
+    this.checkOriginal(original);
+    final byte[] updateBytes = Base64.getDecoder().decode(this.update);
+    final byte[] signed = Arrays.copyOf(original, original.length + updateBytes.length);
+    System.arraycopy(updateBytes, 0, signed, original.length, updateBytes.length);
+    return signed;
+  }
+
+  /**
+   * Writes the signed document, i.e., the original document followed by the incremental update, to the given stream.
+   * This avoids holding two copies of a large document in memory.
+   *
+   * @param original the original document
+   * @param out the stream to write to
+   * @throws IllegalArgumentException if the given document is not the original document of this update
+   * @throws IOException for write errors
+   */
+  public void writeTo(@Nonnull final byte[] original, @Nonnull final OutputStream out)
+      throws IllegalArgumentException, IOException {
+    this.checkOriginal(original);
+    out.write(original);
+    out.write(Base64.getDecoder().decode(this.update));
+  }
+
+  /**
+   * Checks that the given document is the original document of this update.
+   *
+   * @param original the document to check
+   * @throws IllegalArgumentException if the given document is not the original document of this update
+   */
+  private void checkOriginal(final byte[] original) throws IllegalArgumentException {
+    if (this.update == null) {
+      throw new IllegalArgumentException("No incremental update available");
+    }
+    if (!this.isOriginal(original)) {
+      throw new IllegalArgumentException("The supplied document is not the original document of the update");
+    }
+  }
+
+  /**
+   * Calculates the SHA-256 digest of the given bytes.
+   *
+   * @param bytes the bytes to digest
+   * @return the digest
+   */
+  private static byte[] sha256(final byte[] bytes) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(bytes);
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported", e);
+    }
+  }
+
+  /**
+   * Builder for {@code PdfIncrementalUpdate} objects.
+   */
+  public static class PdfIncrementalUpdateBuilder implements ObjectBuilder<PdfIncrementalUpdate> {
+    // Lombok
+  }
+
+}
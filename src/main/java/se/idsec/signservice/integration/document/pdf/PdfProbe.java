@@ -0,0 +1,595 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.pdf;
+
+import jakarta.annotation.Nonnull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A lightweight probe of PDF documents (see {@link PdfProbeReport}).
+ * <p>
+ * The probe makes one pass over the document bytes without building an object model. The data of all streams except
+ * object streams and metadata streams is skipped (using the {@code /Length} of the stream when it is given directly),
+ * so page content and images are never decoded. Object streams (FlateDecode) are inflated and scanned, since the
+ * document catalog and signature dictionaries may be stored in them. The probe is a best-effort examination, and a
+ * full prepare operation may still find issues with a document.
+ * </p>
+ * <p>
+ * The number of revisions is the number of {@code startxref} sections (each revision ends with one), not counting the
+ * first-page section of a linearized document. Signatures are counted as distinct objects having a {@code /ByteRange},
+ * where the last definition of an object (in a later revision) replaces earlier definitions.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class PdfProbe {
+
+  /** The maximum number of bytes an object or metadata stream may inflate to. */
+  private static final int MAX_INFLATED_SIZE = 16 * 1024 * 1024;
+
+  /** How far into the document the header is searched for. */
+  private static final int HEADER_SEARCH_LIMIT = 1024;
+
+  private static final byte[] HEADER = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] EOF_MARKER = "%%EOF".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] STREAM = "stream".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] ENDSTREAM = "endstream".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] OBJ = "obj".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] STARTXREF = "startxref".getBytes(StandardCharsets.US_ASCII);
+
+  private static final Pattern LENGTH_PATTERN = Pattern.compile("/Length\\s+(\\d+)(\\s+\\d+\\s+R)?");
+  private static final Pattern OBJSTM_PATTERN = Pattern.compile("/Type\\s*/ObjStm\\b");
+  private static final Pattern FIRST_PATTERN = Pattern.compile("/First\\s+(\\d+)");
+  private static final Pattern METADATA_PATTERN = Pattern.compile("/Type\\s*/Metadata\\b");
+  private static final Pattern FILTER_PATTERN = Pattern.compile("/Filter\\s*(\\[\\s*)?/(\\w+)(\\s*\\])?");
+  private static final Pattern PDFA_PART_PATTERN =
+      Pattern.compile("pdfaid:part(?:\\s*=\\s*[\"'](\\d+)[\"']|\\s*>\\s*(\\d+)\\s*<)");
+  private static final Pattern PDFA_CONFORMANCE_PATTERN =
+      Pattern.compile("pdfaid:conformance(?:\\s*=\\s*[\"'](\\w)[\"']|\\s*>\\s*(\\w)\\s*<)");
+
+  /**
+   * Probes a PDF document.
+   *
+   * @param pdfDocument the PDF document
+   * @return the probe report
+   * @throws IllegalArgumentException if the bytes do not hold a PDF document
+   */
+  @Nonnull
+  public static PdfProbeReport probe(@Nonnull final byte[] pdfDocument) throws IllegalArgumentException {
+    final int header = indexOf(pdfDocument, HEADER, 0, Math.min(pdfDocument.length, HEADER_SEARCH_LIMIT));
+    if (header < 0 || header + HEADER.length + 3 > pdfDocument.length) {
+      throw new IllegalArgumentException("The document is not a PDF document");
+    }
+    final State state = new State();
+    state.report.setPdfVersion(
+        new String(pdfDocument, header + HEADER.length, 3, StandardCharsets.US_ASCII).trim());
+    scan(pdfDocument, 0, pdfDocument.length, state, true);
+    state.report.setRevisions(Math.max(1, state.revisions()));
+    state.report.setSignatureCount(state.signatureObjects.size() + state.unknownSignatureObjects);
+    if (!state.warnings.isEmpty()) {
+      state.report.setWarnings(List.copyOf(state.warnings));
+    }
+    return state.report;
+  }
+
+  /**
+   * Scans a region of bytes.
+   *
+   * @param bytes the bytes
+   * @param from the start of the region
+   * @param to the end of the region
+   * @param state the probe state
+   * @param topLevel whether the region is the document itself (and not an object stream)
+   */
+  private static void scan(final byte[] bytes, final int from, final int to, final State state,
+      final boolean topLevel) {
+    int lastObj = from;
+    int i = from;
+    while (i < to) {
+      final byte b = bytes[i];
+      if (b == '/') {
+        int end = i + 1;
+        while (end < to && !isDelimiter(bytes[end])) {
+          end++;
+        }
+        state.name(bytes, i + 1, end);
+        i = end;
+      }
+      else if (b == '(') {
+        i = skipString(bytes, i, to);
+      }
+      else if (b == '%') {
+        if (topLevel && regionMatches(bytes, i, EOF_MARKER, to)) {
+          state.eofMarkers++;
+        }
+        while (i < to && bytes[i] != '\n' && bytes[i] != '\r') {
+          i++;
+        }
+      }
+      else if (topLevel && b == 'o' && isKeyword(bytes, i, OBJ, from, to)) {
+        state.object(objectNumber(bytes, i, from));
+        lastObj = i + OBJ.length;
+        i = lastObj;
+      }
+      else if (topLevel && b == 's' && isKeyword(bytes, i, STARTXREF, from, to)) {
+        state.startxref();
+        i += STARTXREF.length;
+      }
+      else if (topLevel && b == 's' && isKeyword(bytes, i, STREAM, from, to)) {
+        i = stream(bytes, lastObj, i, to, state);
+        lastObj = i;
+      }
+      else {
+        i++;
+      }
+    }
+  }
+
+  /**
+   * Skips a literal string (which may contain any characters, including {@code %}).
+   *
+   * @param bytes the bytes
+   * @param pos the position of the opening parenthesis
+   * @param to the end of the region
+   * @return the position following the closing parenthesis
+   */
+  private static int skipString(final byte[] bytes, final int pos, final int to) {
+    int depth = 0;
+    int i = pos;
+    while (i < to) {
+      final byte b = bytes[i++];
+      if (b == '\\') {
+        i++;
+      }
+      else if (b == '(') {
+        depth++;
+      }
+      else if (b == ')' && --depth == 0) {
+        break;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Handles a stream. Object streams and metadata streams are examined, and the data of other streams is skipped.
+   *
+   * @param bytes the document bytes
+   * @param dictStart the start of the stream dictionary (the end of the {@code obj} keyword)
+   * @param keyword the position of the {@code stream} keyword
+   * @param to the end of the document
+   * @param state the probe state
+   * @return the position following the stream data
+   */
+  private static int stream(final byte[] bytes, final int dictStart, final int keyword, final int to,
+      final State state) {
+    int start = keyword + STREAM.length;
+    if (start < to && bytes[start] == '\r') {
+      start++;
+    }
+    if (start < to && bytes[start] == '\n') {
+      start++;
+    }
+    final String dict = new String(bytes, dictStart, keyword - dictStart, StandardCharsets.ISO_8859_1);
+
+    int end = -1;
+    final Matcher length = LENGTH_PATTERN.matcher(dict);
+    if (length.find() && length.group(2) == null) {
+      try {
+        // Computed as a long, since a bogus length could otherwise overflow
+        final long candidate = start + Long.parseLong(length.group(1));
+        if (candidate >= start && candidate <= to) {
+          int p = (int) candidate;
+          while (p < to && isWhitespace(bytes[p])) {
+            p++;
+          }
+          if (regionMatches(bytes, p, ENDSTREAM, to)) {
+            end = (int) candidate;
+          }
+        }
+      }
+      catch (final NumberFormatException ignored) {
+      }
+    }
+    if (end < 0) {
+      end = indexOf(bytes, ENDSTREAM, start, to);
+      if (end < 0) {
+        end = to;
+      }
+    }
+
+    final boolean objectStream = OBJSTM_PATTERN.matcher(dict).find();
+    final boolean metadata = !objectStream && METADATA_PATTERN.matcher(dict).find();
+    if (objectStream || metadata) {
+      final byte[] data = decode(bytes, start, end, dict);
+      if (data == null) {
+        state.warn(PdfProbeReport.ProbeWarnings.PARTIAL_SCAN);
+      }
+      else if (objectStream) {
+        objectStream(data, dict, state);
+      }
+      else {
+        state.metadata(new String(data, StandardCharsets.UTF_8));
+      }
+    }
+    return end;
+  }
+
+  /**
+   * Scans the objects of a decoded object stream. The header of the stream gives the number and offset of each object,
+   * so that names are attributed to the correct object. If the header can not be parsed, the whole stream is scanned
+   * without object numbers.
+   *
+   * @param data the decoded stream data
+   * @param dict the stream dictionary
+   * @param state the probe state
+   */
+  private static void objectStream(final byte[] data, final String dict, final State state) {
+    final int[] starts = objectOffsets(data, dict);
+    if (starts == null) {
+      state.object(-1);
+      scan(data, 0, data.length, state, false);
+    }
+    else {
+      for (int k = 0; k < starts.length / 2; k++) {
+        state.object(starts[2 * k]);
+        scan(data, starts[2 * k + 1], k + 1 < starts.length / 2 ? starts[2 * k + 3] : data.length, state, false);
+      }
+    }
+    state.object(-1);
+  }
+
+  /**
+   * Parses the header of a decoded object stream.
+   *
+   * @param data the decoded stream data
+   * @param dict the stream dictionary
+   * @return pairs of object number and start position of the object, or {@code null} if the header is invalid
+   */
+  private static int[] objectOffsets(final byte[] data, final String dict) {
+    final Matcher first = FIRST_PATTERN.matcher(dict);
+    final int offset = first.find() ? parseInt(first.group(1)) : -1;
+    if (offset < 0 || offset > data.length) {
+      return null;
+    }
+    final String header = new String(data, 0, offset, StandardCharsets.ISO_8859_1).trim();
+    final String[] values = header.isEmpty() ? new String[0] : header.split("\\s+");
+    if (values.length == 0 || values.length % 2 != 0) {
+      return null;
+    }
+    final int[] result = new int[values.length];
+    for (int k = 0; k < values.length; k += 2) {
+      result[k] = parseInt(values[k]);
+      final int relative = parseInt(values[k + 1]);
+      result[k + 1] = offset + relative;
+      if (result[k] < 0 || relative < 0 || result[k + 1] > data.length || k > 0 && result[k + 1] < result[k - 1]) {
+        return null;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the object number of an indirect object definition ({@code N G obj}).
+   *
+   * @param bytes the bytes
+   * @param obj the position of the {@code obj} keyword
+   * @param from the start of the region
+   * @return the object number, or -1 if it can not be parsed
+   */
+  private static int objectNumber(final byte[] bytes, final int obj, final int from) {
+    final int generationEnd = skipBack(bytes, obj, from, true);
+    final int generationStart = skipBack(bytes, generationEnd, from, false);
+    final int numberEnd = skipBack(bytes, generationStart, from, true);
+    final int numberStart = skipBack(bytes, numberEnd, from, false);
+    if (generationStart == generationEnd || numberEnd == generationStart || numberStart == numberEnd) {
+      return -1;
+    }
+    return parseInt(new String(bytes, numberStart, numberEnd - numberStart, StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Moves backwards over whitespace or digits.
+   *
+   * @param bytes the bytes
+   * @param pos the position to move backwards from
+   * @param from the start of the region
+   * @param whitespace {@code true} to skip whitespace and {@code false} to skip digits
+   * @return the new position
+   */
+  private static int skipBack(final byte[] bytes, final int pos, final int from, final boolean whitespace) {
+    int i = pos;
+    while (i > from && (whitespace ? isWhitespace(bytes[i - 1]) : bytes[i - 1] >= '0' && bytes[i - 1] <= '9')) {
+      i--;
+    }
+    return i;
+  }
+
+  /**
+   * Parses a non-negative integer.
+   *
+   * @param s the string
+   * @return the integer, or -1 if the string is not a non-negative integer
+   */
+  private static int parseInt(final String s) {
+    try {
+      return Integer.parseInt(s);
+    }
+    catch (final NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Decodes stream data. Only unfiltered data and FlateDecode (without predictors) are supported.
+   *
+   * @param bytes the document bytes
+   * @param start the start of the stream data
+   * @param end the end of the stream data
+   * @param dict the stream dictionary
+   * @return the decoded data, or {@code null} if the data can not be decoded
+   */
+  private static byte[] decode(final byte[] bytes, final int start, final int end, final String dict) {
+    final Matcher filter = FILTER_PATTERN.matcher(dict);
+    if (!filter.find()) {
+      final byte[] data = new byte[end - start];
+      System.arraycopy(bytes, start, data, 0, data.length);
+      return data;
+    }
+    if (!"FlateDecode".equals(filter.group(2)) || dict.contains("/Predictor") || filter.find()) {
+      return null;
+    }
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes, start, end - start);
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(
+          (int) Math.min(MAX_INFLATED_SIZE, Math.max(64L, (end - start) * 4L)));
+      final byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        final int n = inflater.inflate(buffer);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        out.write(buffer, 0, n);
+        if (out.size() > MAX_INFLATED_SIZE) {
+          return null;
+        }
+      }
+      return out.toByteArray();
+    }
+    catch (final DataFormatException e) {
+      return null;
+    }
+    finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Tells whether a keyword, delimited on both sides, starts at the given position.
+   *
+   * @param bytes the bytes
+   * @param pos the position
+   * @param keyword the keyword
+   * @param from the start of the region
+   * @param to the end of the region
+   * @return {@code true} if the keyword starts at the position
+   */
+  private static boolean isKeyword(final byte[] bytes, final int pos, final byte[] keyword, final int from,
+      final int to) {
+    return (pos == from || isDelimiter(bytes[pos - 1])) && regionMatches(bytes, pos, keyword, to)
+        && (pos + keyword.length == to || isDelimiter(bytes[pos + keyword.length]));
+  }
+
+  /**
+   * Tells whether the bytes at the given position equals the given pattern.
+   *
+   * @param bytes the bytes
+   * @param pos the position
+   * @param pattern the pattern
+   * @param to the end of the region
+   * @return {@code true} if the bytes match
+   */
+  private static boolean regionMatches(final byte[] bytes, final int pos, final byte[] pattern, final int to) {
+    if (pos + pattern.length > to) {
+      return false;
+    }
+    for (int i = 0; i < pattern.length; i++) {
+      if (bytes[pos + i] != pattern[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the first occurrence of a pattern.
+   *
+   * @param bytes the bytes
+   * @param pattern the pattern
+   * @param from the start of the region
+   * @param to the end of the region
+   * @return the position of the pattern, or -1
+   */
+  private static int indexOf(final byte[] bytes, final byte[] pattern, final int from, final int to) {
+    final byte first = pattern[0];
+    for (int i = from; i <= to - pattern.length; i++) {
+      if (bytes[i] == first && regionMatches(bytes, i, pattern, to)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Tells whether a byte is a PDF whitespace character.
+   *
+   * @param b the byte
+   * @return {@code true} for whitespace
+   */
+  private static boolean isWhitespace(final byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0;
+  }
+
+  /**
+   * Tells whether a byte is a PDF whitespace or delimiter character.
+   *
+   * @param b the byte
+   * @return {@code true} for whitespace and delimiters
+   */
+  private static boolean isDelimiter(final byte b) {
+    return isWhitespace(b) || b == '/' || b == '<' || b == '>' || b == '[' || b == ']' || b == '(' || b == ')'
+        || b == '{' || b == '}' || b == '%';
+  }
+
+  /**
+   * The state of a probe.
+   */
+  private static class State {
+
+    private static final byte[] ENCRYPT = "Encrypt".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ACROFORM = "AcroForm".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BYTERANGE = "ByteRange".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINEARIZED = "Linearized".getBytes(StandardCharsets.US_ASCII);
+
+    final PdfProbeReport report = new PdfProbeReport();
+    final List<PdfProbeReport.ProbeWarnings> warnings = new ArrayList<>(1);
+
+    /** The numbers of the objects (in their last definition) having a /ByteRange. */
+    final Set<Integer> signatureObjects = new HashSet<>();
+
+    /** The number of /ByteRange names found outside an object having a known number. */
+    int unknownSignatureObjects;
+
+    /** The number of the object being scanned (-1 if not known). */
+    int currentObject = -1;
+
+    /** The number of %%EOF markers (used if the document has no startxref). */
+    int eofMarkers;
+
+    /** The number of startxref sections. */
+    int startxrefs;
+
+    /** Whether a /Linearized name has been seen before the first startxref. */
+    boolean linearized;
+
+    /** Whether the first startxref belongs to the first-page section of a linearized document. */
+    boolean linearizedFirstPage;
+
+    /**
+     * Invoked when the definition of an object starts. A later definition of an object replaces the earlier one.
+     *
+     * @param number the object number (-1 if not known)
+     */
+    void object(final int number) {
+      this.currentObject = number;
+      if (number >= 0) {
+        this.signatureObjects.remove(number);
+      }
+    }
+
+    /**
+     * Invoked for each {@code startxref} keyword.
+     */
+    void startxref() {
+      if (this.startxrefs++ == 0 && this.linearized) {
+        this.linearizedFirstPage = true;
+      }
+    }
+
+    /**
+     * Gets the number of revisions.
+     *
+     * @return the number of revisions
+     */
+    int revisions() {
+      final int sections = this.startxrefs > 0 ? this.startxrefs : this.eofMarkers;
+      return this.linearizedFirstPage ? sections - 1 : sections;
+    }
+
+    /**
+     * Invoked for each name.
+     *
+     * @param bytes the bytes
+     * @param from the start of the name (following the slash)
+     * @param to the end of the name
+     */
+    void name(final byte[] bytes, final int from, final int to) {
+      final int length = to - from;
+      if (length == ENCRYPT.length && regionMatches(bytes, from, ENCRYPT, to)) {
+        this.report.setEncrypted(true);
+      }
+      else if (length == ACROFORM.length && regionMatches(bytes, from, ACROFORM, to)) {
+        this.report.setAcroForm(true);
+      }
+      else if (length == BYTERANGE.length && regionMatches(bytes, from, BYTERANGE, to)) {
+        if (this.currentObject >= 0) {
+          this.signatureObjects.add(this.currentObject);
+        }
+        else {
+          this.unknownSignatureObjects++;
+        }
+      }
+      else if (length == LINEARIZED.length && regionMatches(bytes, from, LINEARIZED, to) && this.startxrefs == 0) {
+        this.linearized = true;
+      }
+    }
+
+    /**
+     * Adds a warning (unless already added).
+     *
+     * @param warning the warning
+     */
+    void warn(final PdfProbeReport.ProbeWarnings warning) {
+      if (!this.warnings.contains(warning)) {
+        this.warnings.add(warning);
+      }
+    }
+
+    /**
+     * Invoked for each metadata stream. The last metadata stream claiming PDF/A conformance wins (an incremental
+     * update may replace the metadata).
+     *
+     * @param xmp the XMP metadata
+     */
+    void metadata(final String xmp) {
+      final Matcher part = PDFA_PART_PATTERN.matcher(xmp);
+      if (part.find()) {
+        this.report.setPdfaPart(Integer.valueOf(part.group(1) != null ? part.group(1) : part.group(2)));
+        final Matcher conformance = PDFA_CONFORMANCE_PATTERN.matcher(xmp);
+        this.report.setPdfaConformance(conformance.find()
+            ? conformance.group(1) != null ? conformance.group(1) : conformance.group(2)
+            : null);
+      }
+    }
+  }
+
+  // Hidden constructor
+  private PdfProbe() {
+  }
+
+}
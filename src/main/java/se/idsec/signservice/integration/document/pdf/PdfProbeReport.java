@@ -0,0 +1,286 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.pdf;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import se.idsec.signservice.integration.core.ObjectBuilder;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The result of probing a PDF document (see
+ * {@link se.idsec.signservice.integration.ExtendedSignServiceIntegrationService#probePdfDocument(byte[], String)}).
+ * The report tells the conditions that a full prepare operation checks, so that a caller may decide whether a
+ * document needs to be prepared:
+ * <ul>
+ * <li>whether the document has an AcroForm (see {@link PdfContainsAcroformException}),</li>
+ * <li>whether the document has an encryption dictionary (see {@link PdfContainsEncryptionDictionaryException}),</li>
+ * <li>whether the document claims PDF/A conformance (see {@link PdfAConsistencyCheckException}), and,</li>
+ * <li>the number of signatures of the document (see {@link PdfSignaturePageFullException}).</li>
+ * </ul>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PdfProbeReport implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = -1375622209187620532L;
+
+  /** The PDF version given in the document header. */
+  private String pdfVersion;
+
+  /** The number of revisions of the document. */
+  private int revisions;
+
+  /** Whether the document has an encryption dictionary. */
+  private boolean encrypted;
+
+  /** Whether the document has an AcroForm. */
+  private boolean acroForm;
+
+  /** The PDF/A part claimed by the document's metadata. */
+  private Integer pdfaPart;
+
+  /** The PDF/A conformance level claimed by the document's metadata. */
+  private String pdfaConformance;
+
+  /** The number of signatures (including document timestamps) of the document. */
+  private int signatureCount;
+
+  /** The warnings detected during the probe. */
+  private List<ProbeWarnings> warnings;
+
+  /**
+   * Gets the PDF version given in the document header, for example "1.7".
+   *
+   * @return the PDF version
+   */
+  @Nullable
+  public String getPdfVersion() {
+    return this.pdfVersion;
+  }
+
+  /**
+   * Assigns the PDF version.
+   *
+   * @param pdfVersion the PDF version
+   */
+  public void setPdfVersion(@Nullable final String pdfVersion) {
+    this.pdfVersion = pdfVersion;
+  }
+
+  /**
+   * Gets the number of revisions of the document, i.e., the original document plus the number of incremental updates.
+   *
+   * @return the number of revisions
+   */
+  public int getRevisions() {
+    return this.revisions;
+  }
+
+  /**
+   * Assigns the number of revisions of the document.
+   *
+   * @param revisions the number of revisions
+   */
+  public void setRevisions(final int revisions) {
+    this.revisions = revisions;
+  }
+
+  /**
+   * Tells whether the document has an encryption dictionary.
+   *
+   * @return {@code true} if the document has an encryption dictionary
+   */
+  public boolean isEncrypted() {
+    return this.encrypted;
+  }
+
+  /**
+   * Assigns whether the document has an encryption dictionary.
+   *
+   * @param encrypted whether the document has an encryption dictionary
+   */
+  public void setEncrypted(final boolean encrypted) {
+    this.encrypted = encrypted;
+  }
+
+  /**
+   * Tells whether the document has an AcroForm.
+   *
+   * @return {@code true} if the document has an AcroForm
+   */
+  public boolean isAcroForm() {
+    return this.acroForm;
+  }
+
+  /**
+   * Assigns whether the document has an AcroForm.
+   *
+   * @param acroForm whether the document has an AcroForm
+   */
+  public void setAcroForm(final boolean acroForm) {
+    this.acroForm = acroForm;
+  }
+
+  /**
+   * Gets the PDF/A part (for example 2 for PDF/A-2) claimed by the document's metadata.
+   *
+   * @return the PDF/A part, or {@code null} if the document does not claim PDF/A conformance
+   */
+  @Nullable
+  public Integer getPdfaPart() {
+    return this.pdfaPart;
+  }
+
+  /**
+   * Assigns the PDF/A part claimed by the document's metadata.
+   *
+   * @param pdfaPart the PDF/A part
+   */
+  public void setPdfaPart(@Nullable final Integer pdfaPart) {
+    this.pdfaPart = pdfaPart;
+  }
+
+  /**
+   * Gets the PDF/A conformance level (for example "B") claimed by the document's metadata.
+   *
+   * @return the PDF/A conformance level, or {@code null}
+   */
+  @Nullable
+  public String getPdfaConformance() {
+    return this.pdfaConformance;
+  }
+
+  /**
+   * Assigns the PDF/A conformance level claimed by the document's metadata.
+   *
+   * @param pdfaConformance the PDF/A conformance level
+   */
+  public void setPdfaConformance(@Nullable final String pdfaConformance) {
+    this.pdfaConformance = pdfaConformance;
+  }
+
+  /**
+   * Gets the number of signatures, including document timestamps, of the document.
+   *
+   * @return the number of signatures
+   */
+  public int getSignatureCount() {
+    return this.signatureCount;
+  }
+
+  /**
+   * Assigns the number of signatures of the document.
+   *
+   * @param signatureCount the number of signatures
+   */
+  public void setSignatureCount(final int signatureCount) {
+    this.signatureCount = signatureCount;
+  }
+
+  /**
+   * Gets the warnings detected during the probe.
+   *
+   * @return a list of warnings
+   */
+  @Nullable
+  public List<ProbeWarnings> getWarnings() {
+    return this.warnings;
+  }
+
+  /**
+   * Assigns the warnings detected during the probe.
+   *
+   * @param warnings a list of warnings
+   */
+  public void setWarnings(@Nonnull final List<ProbeWarnings> warnings) {
+    this.warnings = warnings;
+  }
+
+  /**
+   * Enumeration of warnings found during the probe.
+   */
+  public enum ProbeWarnings {
+
+    /**
+     * Parts of the document (object or metadata streams with unsupported filters) could not be examined. The report
+     * may therefore be incomplete.
+     */
+    PARTIAL_SCAN("partial-scan");
+
+    private final String value;
+
+    ProbeWarnings(final String value) {
+      this.value = value;
+    }
+
+    /**
+     * Gets the string value.
+     *
+     * @return the string value
+     */
+    @JsonValue
+    public String getValue() {
+      return this.value;
+    }
+
+    /**
+     * Creates a {@link ProbeWarnings} from its string value.
+     *
+     * @param value the string value
+     * @return a {@link ProbeWarnings}
+     */
+    @JsonCreator
+    public static ProbeWarnings fromValue(final String value) {
+      for (final ProbeWarnings warning : ProbeWarnings.values()) {
+        if (warning.getValue().equals(value)) {
+          return warning;
+        }
+      }
+      throw new IllegalArgumentException("Unknown value: " + value);
+    }
+
+    @Override
+    public String toString() {
+      return this.value;
+    }
+  }
+
+  /**
+   * Builder for {@link PdfProbeReport} objects.
+   */
+  public static class PdfProbeReportBuilder implements ObjectBuilder<PdfProbeReport> {
+    // Lombok
+  }
+
+}
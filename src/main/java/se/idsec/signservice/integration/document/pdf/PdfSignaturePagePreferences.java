@@ -15,6 +15,7 @@
  */
 package se.idsec.signservice.integration.document.pdf;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import lombok.AllArgsConstructor;
@@ -25,6 +26,7 @@ import se.idsec.signservice.integration.ExtendedSignServiceIntegrationService;
 import se.idsec.signservice.integration.core.Extensible;
 import se.idsec.signservice.integration.core.Extension;
 import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.core.ProcessingPriority;
 
 import java.io.Serial;
 
@@ -291,6 +293,28 @@ public class PdfSignaturePagePreferences implements Extensible {
     this.returnDocumentReference = returnDocumentReference;
   }
 
+  /**
+   * Gets the processing priority hint for the preparePdfDocument call. The hint is stored as the
+   * {@value ProcessingPriority#EXTENSION_NAME} extension value.
+   *
+   * @return the processing priority, or {@code null} if not set
+   */
+  @JsonIgnore
+  public ProcessingPriority getProcessingPriority() {
+    return ProcessingPriority.fromExtension(this);
+  }
+
+  /**
+   * Assigns the processing priority hint for the preparePdfDocument call. The hint is stored as the
+   * {@value ProcessingPriority#EXTENSION_NAME} extension value.
+   *
+   * @param processingPriority the processing priority ({@code null} removes the hint)
+   */
+  @JsonIgnore
+  public void setProcessingPriority(final ProcessingPriority processingPriority) {
+    ProcessingPriority.toExtension(this, processingPriority);
+  }
+
   /** {@inheritDoc} */
   @Override
   public Extension getExtension() {
@@ -310,6 +334,17 @@ public class PdfSignaturePagePreferences implements Extensible {
     @SuppressWarnings("unused")
     private boolean failWhenSignPageFull = true;
 
+    /**
+     * Assigns the processing priority hint (stored as an extension value).
+     *
+     * @param processingPriority the processing priority
+     * @return the builder
+     */
+    public PdfSignaturePagePreferencesBuilder processingPriority(final ProcessingPriority processingPriority) {
+      this.extension = ProcessingPriority.withPriority(this.extension, processingPriority);
+      return this;
+    }
+
     // Lombok
   }
 
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.pdf;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import se.idsec.signservice.integration.SignServiceIntegrationJackson;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+import se.idsec.signservice.integration.core.ExpiringCache;
+import se.idsec.signservice.integration.core.ProcessingPriority;
+import se.idsec.signservice.integration.core.error.InputValidationException;
+import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache for the results of {@code preparePdfDocument} calls. Case handling applications tend to prepare the same
+ * document several times (on preview, retry and re-sign), and each call parses and rewrites the PDF document. The
+ * result of a successful call is cached, keyed by the SHA-256 digest of the document, the policy, a digest of the
+ * canonical JSON representation of the {@link PdfSignaturePagePreferences} (properties and map entries sorted by
+ * name, and without the processing priority hint), the {@code returnDocumentReference} flag and the caller identity.
+ * <p>
+ * Results are cached in their serialized (JSON) form, and each call gets its own deserialized copy. A caller may
+ * therefore modify a returned result, for example assign field values of the
+ * {@link PreparedPdfDocument#getVisiblePdfSignatureRequirement()}, without affecting other callers. Both the number of
+ * cached results and their total size are bounded, and least recently used results are evicted to make room. Failures
+ * are not cached.
+ * </p>
+ * <p>
+ * A cached result reflects the policy configuration in effect when it was prepared, so the cache must be cleared (see
+ * {@link #clear()}) when the policies are changed. A result that was being prepared when the cache was cleared is not
+ * cached. The cache is normally used through a {@link CachingExtendedSignServiceIntegrationService}.
+ * </p>
+ * <p>
+ * A result holding a document reference (see {@link PreparedPdfDocument#getPdfDocumentReference()}) is only usable as
+ * long as the service keeps the referenced document. Such results are therefore only cached if a reference
+ * time-to-live has been given, and this must not be longer than the time the service keeps prepared documents.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@Slf4j
+public class PreparedPdfDocumentCache {
+
+  /** The default maximum number of cached results. */
+  public static final int DEFAULT_MAX_ENTRIES = 1_000;
+
+  /** The default time a result is cached. */
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+  /** The default maximum total size (in bytes) of the cached (serialized) results. */
+  public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+  /** Mapper producing the canonical JSON representation of the preferences. */
+  private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+      .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+      .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+      .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+      .build();
+
+  /** Reader for cached results. */
+  private static final ObjectReader READER = SignServiceIntegrationJackson.reader(PreparedPdfDocument.class);
+
+  /** Writer for cached results. */
+  private static final ObjectWriter WRITER = SignServiceIntegrationJackson.writer(PreparedPdfDocument.class);
+
+  /** The cached results, in serialized form. */
+  private final ExpiringCache<String, byte[]> results;
+
+  /** The time a result is cached. */
+  private final Duration ttl;
+
+  /** The time a result holding a document reference is cached. */
+  private final Duration referenceTtl;
+
+  /** Incremented each time the cache is cleared. */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Constructor using {@link #DEFAULT_MAX_ENTRIES}, {@link #DEFAULT_MAX_BYTES} and {@link #DEFAULT_TTL}. Results
+   * holding document references are not cached.
+   */
+  public PreparedPdfDocumentCache() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, DEFAULT_TTL, Duration.ZERO, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries the maximum number of cached results
+   * @param maxBytes the maximum total size (in bytes) of the cached (serialized) results
+   * @param ttl the time a result is cached
+   * @param referenceTtl the time a result holding a document reference is cached (at most the given {@code ttl}).
+   *     This must not be longer than the time the service keeps prepared documents, and {@link Duration#ZERO} means
+   *     that such results are not cached
+   * @param clock the clock
+   */
+  public PreparedPdfDocumentCache(final int maxEntries, final long maxBytes, @Nonnull final Duration ttl,
+      @Nonnull final Duration referenceTtl, @Nonnull final Clock clock) {
+    this.results = new ExpiringCache<>(maxEntries, maxBytes, v -> v.length, clock);
+    this.ttl = Objects.requireNonNull(ttl, "ttl must not be null");
+    final Duration refTtl = Objects.requireNonNull(referenceTtl, "referenceTtl must not be null");
+    this.referenceTtl = refTtl.compareTo(ttl) < 0 ? refTtl : ttl;
+  }
+
+  /**
+   * Prepares a PDF document using the given preparer, unless the result for the same input is cached.
+   *
+   * @param policy the policy (null is interpreted as the default policy)
+   * @param pdfDocument the contents of the PDF document
+   * @param signaturePagePreferences the PDF signature page preferences (may be null)
+   * @param returnDocumentReference whether to use document references (may be null)
+   * @param callerId the identity of the calling entity (may be null)
+   * @param preparer the preparer that prepares the document
+   * @return the prepared document
+   * @throws InputValidationException for input validation errors
+   * @throws PdfSignaturePageFullException if the PDF document contains more signatures than there is room for
+   * @throws PdfAConsistencyCheckException for PDF/A consistency errors
+   * @throws PdfContainsAcroformException if the PDF document contains an AcroForm
+   * @throws PdfContainsEncryptionDictionaryException if the PDF document contains an encryption dictionary
+   * @throws SignServiceIntegrationException for other processing errors
+   */
+  public PreparedPdfDocument prepare(@Nullable final String policy, @Nonnull final byte[] pdfDocument,
+      @Nullable final PdfSignaturePagePreferences signaturePagePreferences,
+      @Nullable final Boolean returnDocumentReference, @Nullable final String callerId,
+      @Nonnull final Preparer preparer)
+      throws InputValidationException, PdfSignaturePageFullException, PdfAConsistencyCheckException,
+      PdfContainsAcroformException, PdfContainsEncryptionDictionaryException, SignServiceIntegrationException {
+
+    final String key = toKey(policy, pdfDocument, signaturePagePreferences, returnDocumentReference, callerId);
+    final byte[] cached = this.results.get(key);
+    if (cached != null) {
+      try {
+        final PreparedPdfDocument result = READER.readValue(cached);
+        log.debug("Returning cached result for preparePdfDocument [policy: '{}']", result.getPolicy());
+        return result;
+      }
+      catch (final IOException e) {
+        log.warn("Failed to read cached result for preparePdfDocument - {}", e.getMessage());
+        this.results.remove(key);
+      }
+    }
+    final long preparedGeneration = this.generation.get();
+    final PreparedPdfDocument result = preparer.prepare();
+    if (result != null && preparedGeneration == this.generation.get()) {
+      final Duration resultTtl = result.getPdfDocumentReference() != null ? this.referenceTtl : this.ttl;
+      if (!resultTtl.isZero() && !resultTtl.isNegative()) {
+        try {
+          this.results.put(key, WRITER.writeValueAsBytes(result), this.results.getClock().instant().plus(resultTtl));
+        }
+        catch (final JsonProcessingException e) {
+          log.warn("Failed to cache result for preparePdfDocument - {}", e.getMessage());
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the number of cached results.
+   *
+   * @return the number of cached results
+   */
+  public int size() {
+    return this.results.size();
+  }
+
+  /**
+   * Gets the total size (in bytes) of the cached (serialized) results.
+   *
+   * @return the number of cached bytes
+   */
+  public long getCachedBytes() {
+    return this.results.weight();
+  }
+
+  /**
+   * Clears the cache.
+   */
+  public void clear() {
+    this.generation.incrementAndGet();
+    this.results.clear();
+  }
+
+  /**
+   * Calculates the cache key for a call.
+   *
+   * @param policy the policy
+   * @param pdfDocument the PDF document
+   * @param signaturePagePreferences the preferences
+   * @param returnDocumentReference the document reference flag
+   * @param callerId the caller identity
+   * @return the key
+   */
+  private static String toKey(final String policy, final byte[] pdfDocument,
+      final PdfSignaturePagePreferences signaturePagePreferences, final Boolean returnDocumentReference,
+      final String callerId) {
+    try {
+      final Base64.Encoder encoder = Base64.getEncoder();
+      final StringBuilder sb = new StringBuilder(160)
+          .append(encoder.encodeToString(MessageDigest.getInstance("SHA-256").digest(pdfDocument)))
+          .append(':')
+          .append(policy != null ? policy : IntegrationServiceDefaultConfiguration.DEFAULT_POLICY_NAME)
+          .append(':');
+      if (signaturePagePreferences != null) {
+        final JsonNode preferences = CANONICAL_MAPPER.valueToTree(signaturePagePreferences);
+        if (preferences.get("extension") instanceof final ObjectNode extension) {
+          // The processing priority is a hint that does not affect the result
+          extension.remove(ProcessingPriority.EXTENSION_NAME);
+          if (extension.isEmpty()) {
+            ((ObjectNode) preferences).remove("extension");
+          }
+        }
+        sb.append(encoder.encodeToString(MessageDigest.getInstance("SHA-256")
+            .digest(CANONICAL_MAPPER.writeValueAsBytes(preferences))));
+      }
+      return sb.append(':').append(returnDocumentReference)
+          .append(':').append(callerId != null ? callerId.length() + ":" + callerId : "")
+          .toString();
+    }
+    catch (final JsonProcessingException e) {
+      throw new IllegalArgumentException("Failed to serialize signature page preferences", e);
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new SecurityException(e);
+    }
+  }
+
+  /**
+   * Prepares a PDF document.
+   */
+  @FunctionalInterface
+  public interface Preparer {
+
+    /**
+     * Prepares the PDF document.
+     *
+     * @return the prepared document
+     * @throws InputValidationException for input validation errors
+     * @throws PdfSignaturePageFullException if the PDF document contains more signatures than there is room for
+     * @throws PdfAConsistencyCheckException for PDF/A consistency errors
+     * @throws PdfContainsAcroformException if the PDF document contains an AcroForm
+     * @throws PdfContainsEncryptionDictionaryException if the PDF document contains an encryption dictionary
+     * @throws SignServiceIntegrationException for other processing errors
+     */
+    PreparedPdfDocument prepare()
+        throws InputValidationException, PdfSignaturePageFullException, PdfAConsistencyCheckException,
+        PdfContainsAcroformException, PdfContainsEncryptionDictionaryException, SignServiceIntegrationException;
+  }
+
+}
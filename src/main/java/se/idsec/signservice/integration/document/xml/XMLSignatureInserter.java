@@ -0,0 +1,610 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.xml;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+import se.idsec.signservice.integration.document.xml.XMLSignatureLocation.ChildPosition;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inserts a {@code ds:Signature} element into an XML document at the location given by an
+ * {@link XMLSignatureLocation}.
+ * <p>
+ * The common locations, i.e., the document root element and simple absolute element paths, are handled by a streaming
+ * (StAX) pipeline, so that the memory needed does not depend on the size of the document. An element path consists of
+ * steps on the form {@code *}, {@code name} (an element without namespace), or {@code *[local-name()='name']},
+ * optionally followed by a position predicate, for example {@code /*[1]/*[local-name()='Body']} or
+ * {@code /*[1]/Body[2]}. As for the XPath evaluation, the first matching element in document order is selected.
+ * Other XPath expressions are evaluated on a DOM of the document, using an {@link XPathCache}.
+ * </p>
+ * <p>
+ * Documents with a document type declaration are not accepted. The streaming pipeline may change the serialization
+ * details of the document (for example, how empty elements are written), but not its canonical form, which is what
+ * the signature covers. Therefore, TAB, LF and CR characters in attribute values and text are written as character
+ * references, since a parser would otherwise normalize them (attribute values) or turn CR into LF (text).
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class XMLSignatureInserter {
+
+  /** Pattern for a location path step that can be streamed. */
+  private static final Pattern STEP_PATTERN = Pattern.compile(
+      "(\\*|[A-Za-z_][\\w.\\-]*)(?:\\[\\s*local-name\\(\\)\\s*=\\s*(['\"])([A-Za-z_][\\w.\\-]*)\\2\\s*\\])?"
+          + "(?:\\[\\s*(\\d+)\\s*\\])?");
+
+  /** The path selecting the document root element. */
+  private static final Step[] ROOT_PATH = { new Step(null, false, null) };
+
+  /** The XPath cache used for expressions that are evaluated on a DOM. */
+  private final XPathCache xPathCache;
+
+  /** The StAX input factory (thread-safe once configured). */
+  private final XMLInputFactory inputFactory;
+
+  /** The DOM factory (guarded by itself). */
+  private final DocumentBuilderFactory documentBuilderFactory;
+
+  /** The transformer factory (guarded by itself). */
+  private final TransformerFactory transformerFactory;
+
+  /**
+   * Constructor using {@link XPathCache#getDefault()}.
+   */
+  public XMLSignatureInserter() {
+    this(XPathCache.getDefault());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param xPathCache the XPath cache used for expressions that are evaluated on a DOM
+   */
+  public XMLSignatureInserter(@Nonnull final XPathCache xPathCache) {
+    this.xPathCache = xPathCache;
+
+    this.inputFactory = XMLInputFactory.newInstance();
+    this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    this.inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+
+    try {
+      this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
+      this.documentBuilderFactory.setNamespaceAware(true);
+      this.documentBuilderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+      this.documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      this.documentBuilderFactory.setXIncludeAware(false);
+      this.documentBuilderFactory.setExpandEntityReferences(false);
+
+      this.transformerFactory = TransformerFactory.newInstance();
+      this.transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      this.transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+      this.transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+    }
+    catch (final ParserConfigurationException | TransformerException e) {
+      throw new IllegalStateException("Failed to configure XML processing", e);
+    }
+  }
+
+  /**
+   * Tells whether the signature for the given location can be inserted using the streaming pipeline.
+   *
+   * @param location the signature location (null means the default location)
+   * @return {@code true} if the location can be streamed, and {@code false} if a DOM is needed
+   */
+  public static boolean isStreamable(@Nullable final XMLSignatureLocation location) {
+    return location == null || location.getxPath() == null || parsePath(location.getxPath()) != null;
+  }
+
+  /**
+   * Inserts a signature into a document. The document is streamed if the location permits it (see
+   * {@link #isStreamable(XMLSignatureLocation)}). If the method fails, the output may be incomplete.
+   *
+   * @param document the document
+   * @param signature the encoding of the {@code ds:Signature} element
+   * @param location the signature location (null means the last child of the document root element)
+   * @param out the stream to write the signed document to
+   * @return the processing mode that was used
+   * @throws IOException for parse and write errors, and if the location does not select an element
+   */
+  @Nonnull
+  public Mode insert(@Nonnull final InputStream document, @Nonnull final byte[] signature,
+      @Nullable final XMLSignatureLocation location, @Nonnull final OutputStream out) throws IOException {
+    final ChildPosition position = location != null && location.getChildPosition() != null
+        ? ChildPosition.fromPosition(location.getChildPosition())
+        : ChildPosition.LAST;
+    final String xPath = location != null ? location.getxPath() : null;
+    final Step[] path = xPath != null ? parsePath(xPath) : ROOT_PATH;
+    if (path != null) {
+      this.insertStreaming(document, signature, path, position, out);
+      return Mode.STREAMING;
+    }
+    this.insertDom(document, signature, xPath, position, out);
+    return Mode.DOM;
+  }
+
+  /**
+   * Inserts the signature using a StAX pipeline.
+   *
+   * @param document the document
+   * @param signature the signature element encoding
+   * @param path the element path
+   * @param position the child position
+   * @param out the output stream
+   * @throws IOException for processing errors
+   */
+  private void insertStreaming(final InputStream document, final byte[] signature, final Step[] path,
+      final ChildPosition position, final OutputStream out) throws IOException {
+    XMLStreamReader reader = null;
+    try {
+      reader = this.inputFactory.createXMLStreamReader(document);
+      final String encoding = reader.getCharacterEncodingScheme() != null
+          ? reader.getCharacterEncodingScheme()
+          : StandardCharsets.UTF_8.name();
+      final EscapingWriter writer = new EscapingWriter(out, Charset.forName(encoding));
+      writer.write("<?xml version=\"" + (reader.getVersion() != null ? reader.getVersion() : "1.0")
+          + "\" encoding=\"" + encoding + "\"?>");
+
+      // The number of elements on the current path, and how many of these that match the leading steps.
+      int depth = 0;
+      int matched = 0;
+      // For each step, the number of elements at that level that matched the name test of the step.
+      final int[] counters = new int[path.length];
+      int targetDepth = -1;
+      boolean inserted = false;
+
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.DTD) {
+          throw new IOException("Documents with a DTD are not supported");
+        }
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          if (!inserted && matched == depth - 1 && depth <= path.length) {
+            final Step step = path[depth - 1];
+            if (step.matches(reader.getLocalName(), reader.getNamespaceURI())) {
+              final int count = ++counters[depth - 1];
+              if (step.position() == null || step.position() == count) {
+                matched = depth;
+                if (depth == path.length) {
+                  targetDepth = depth;
+                }
+                else {
+                  counters[depth] = 0;
+                }
+              }
+            }
+          }
+          copyEvent(event, reader, writer);
+          if (!inserted && targetDepth == depth && position == ChildPosition.FIRST) {
+            this.writeSignature(signature, writer);
+            inserted = true;
+          }
+        }
+        else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (!inserted && targetDepth == depth) {
+            this.writeSignature(signature, writer);
+            inserted = true;
+          }
+          copyEvent(event, reader, writer);
+          if (matched == depth) {
+            matched--;
+          }
+          depth--;
+        }
+        else if (event != XMLStreamConstants.END_DOCUMENT) {
+          copyEvent(event, reader, writer);
+        }
+      }
+      if (!inserted) {
+        throw new IOException("The signature location did not select an element");
+      }
+      writer.flush();
+    }
+    catch (final XMLStreamException | IllegalArgumentException e) {
+      throw new IOException("Failed to insert signature - " + e.getMessage(), e);
+    }
+    finally {
+      close(reader);
+    }
+  }
+
+  /**
+   * Writes the signature element.
+   *
+   * @param signature the signature element encoding
+   * @param writer the writer
+   * @throws XMLStreamException for parse errors
+   * @throws IOException for write errors
+   */
+  private void writeSignature(final byte[] signature, final EscapingWriter writer)
+      throws XMLStreamException, IOException {
+    final XMLStreamReader reader = this.inputFactory.createXMLStreamReader(new ByteArrayInputStream(signature));
+    try {
+      int depth = 0;
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+        }
+        if (depth > 0) {
+          copyEvent(event, reader, writer);
+        }
+        if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Copies the current event of the reader to the writer. Document start and end events are not handled.
+   *
+   * @param event the event type
+   * @param reader the reader
+   * @param writer the writer
+   * @throws IOException for write errors
+   */
+  private static void copyEvent(final int event, final XMLStreamReader reader, final EscapingWriter writer)
+      throws IOException {
+    switch (event) {
+      case XMLStreamConstants.START_ELEMENT -> {
+        writer.write('<');
+        writeName(reader.getPrefix(), reader.getLocalName(), writer);
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+          final String prefix = reader.getNamespacePrefix(i);
+          writer.write(prefix == null || prefix.isEmpty() ? " xmlns" : " xmlns:" + prefix);
+          writer.writeAttributeValue(nullToEmpty(reader.getNamespaceURI(i)));
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+          writer.write(' ');
+          writeName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i), writer);
+          writer.writeAttributeValue(reader.getAttributeValue(i));
+        }
+        writer.write('>');
+      }
+      case XMLStreamConstants.END_ELEMENT -> {
+        writer.write("</");
+        writeName(reader.getPrefix(), reader.getLocalName(), writer);
+        writer.write('>');
+      }
+      case XMLStreamConstants.CHARACTERS, XMLStreamConstants.SPACE ->
+          writer.writeText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+      case XMLStreamConstants.CDATA -> writer.write("<![CDATA[" + reader.getText() + "]]>");
+      case XMLStreamConstants.COMMENT -> writer.write("<!--" + reader.getText() + "-->");
+      case XMLStreamConstants.PROCESSING_INSTRUCTION -> writer.write("<?" + reader.getPITarget()
+          + (reader.getPIData() != null && !reader.getPIData().isEmpty() ? " " + reader.getPIData() : "") + "?>");
+      case XMLStreamConstants.ENTITY_REFERENCE -> writer.write("&" + reader.getLocalName() + ";");
+      default -> {
+      }
+    }
+  }
+
+  /**
+   * Writes a qualified name.
+   *
+   * @param prefix the prefix (may be null or empty)
+   * @param localName the local name
+   * @param writer the writer
+   * @throws IOException for write errors
+   */
+  private static void writeName(final String prefix, final String localName, final EscapingWriter writer)
+      throws IOException {
+    if (prefix != null && !prefix.isEmpty()) {
+      writer.write(prefix);
+      writer.write(':');
+    }
+    writer.write(localName);
+  }
+
+  /**
+   * Closes the reader, ignoring errors.
+   *
+   * @param reader the reader (may be null)
+   */
+  private static void close(final XMLStreamReader reader) {
+    try {
+      if (reader != null) {
+        reader.close();
+      }
+    }
+    catch (final XMLStreamException ignored) {
+    }
+  }
+
+  /**
+   * Maps {@code null} to the empty string.
+   *
+   * @param value the value
+   * @return the value, or the empty string
+   */
+  private static String nullToEmpty(final String value) {
+    return value != null ? value : "";
+  }
+
+  /**
+   * Inserts the signature using a DOM.
+   *
+   * @param document the document
+   * @param signature the signature element encoding
+   * @param xPath the XPath expression selecting the parent element
+   * @param position the child position
+   * @param out the output stream
+   * @throws IOException for processing errors
+   */
+  private void insertDom(final InputStream document, final byte[] signature, final String xPath,
+      final ChildPosition position, final OutputStream out) throws IOException {
+    try {
+      final DocumentBuilder builder;
+      synchronized (this.documentBuilderFactory) {
+        builder = this.documentBuilderFactory.newDocumentBuilder();
+      }
+      builder.setErrorHandler(new DefaultHandler());
+      final Document doc = builder.parse(document);
+      final Object node = this.xPathCache.evaluate(xPath, null, doc, XPathConstants.NODE);
+      if (!(node instanceof final Element parent)) {
+        throw new IOException("The signature location did not select an element");
+      }
+      final Node signatureElement =
+          doc.importNode(builder.parse(new ByteArrayInputStream(signature)).getDocumentElement(), true);
+      if (position == ChildPosition.FIRST) {
+        parent.insertBefore(signatureElement, parent.getFirstChild());
+      }
+      else {
+        parent.appendChild(signatureElement);
+      }
+
+      final Transformer transformer;
+      synchronized (this.transformerFactory) {
+        transformer = this.transformerFactory.newTransformer();
+      }
+      if (doc.getXmlEncoding() != null) {
+        transformer.setOutputProperty(OutputKeys.ENCODING, doc.getXmlEncoding());
+      }
+      transformer.transform(new DOMSource(doc), new StreamResult(out));
+    }
+    catch (final ParserConfigurationException | SAXException | XPathExpressionException | TransformerException e) {
+      throw new IOException("Failed to insert signature - " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Parses an XPath expression into streamable steps.
+   *
+   * @param xPath the XPath expression
+   * @return the steps, or {@code null} if the expression can not be streamed
+   */
+  @Nullable
+  static Step[] parsePath(@Nonnull final String xPath) {
+    final String path = xPath.trim();
+    if (!path.startsWith("/") || path.length() == 1 || path.contains("//")) {
+      return null;
+    }
+    final String[] parts = path.substring(1).split("/");
+    final Step[] steps = new Step[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      final Matcher matcher = STEP_PATTERN.matcher(parts[i].trim());
+      if (!matcher.matches()) {
+        return null;
+      }
+      final boolean wildcard = "*".equals(matcher.group(1));
+      if (!wildcard && matcher.group(3) != null) {
+        return null;
+      }
+      final Integer position = matcher.group(4) != null ? Integer.valueOf(matcher.group(4)) : null;
+      if (position != null && position < 1) {
+        return null;
+      }
+      steps[i] = wildcard
+          ? new Step(matcher.group(3), false, position)
+          : new Step(matcher.group(1), true, position);
+    }
+    return steps;
+  }
+
+  /**
+   * A writer for the streaming pipeline that escapes attribute values and text. Besides the markup characters, TAB, LF
+   * and CR are written as character references, so that a parser reading the output gets the same values as the one
+   * that read the input (see the class documentation). Characters that can not be represented in the output encoding
+   * are also written as character references.
+   */
+  private static final class EscapingWriter {
+
+    /** The underlying writer. */
+    private final Writer writer;
+
+    /** Encoder used to find characters that can not be represented (null for Unicode encodings). */
+    private final CharsetEncoder encoder;
+
+    /**
+     * Constructor.
+     *
+     * @param out the output stream
+     * @param charset the output encoding
+     */
+    EscapingWriter(final OutputStream out, final Charset charset) {
+      this.writer = new BufferedWriter(new OutputStreamWriter(out, charset));
+      this.encoder = charset.name().startsWith("UTF") ? null : charset.newEncoder();
+    }
+
+    /**
+     * Writes a markup character.
+     *
+     * @param c the character
+     * @throws IOException for write errors
+     */
+    void write(final char c) throws IOException {
+      this.writer.write(c);
+    }
+
+    /**
+     * Writes markup (or other contents that is not escaped).
+     *
+     * @param markup the markup
+     * @throws IOException for write errors
+     */
+    void write(final String markup) throws IOException {
+      this.writer.write(markup);
+    }
+
+    /**
+     * Writes an attribute value, including the equals sign and the quotes.
+     *
+     * @param value the attribute value
+     * @throws IOException for write errors
+     */
+    void writeAttributeValue(final String value) throws IOException {
+      this.writer.write("=\"");
+      this.escape(value.toCharArray(), 0, value.length(), true);
+      this.writer.write('"');
+    }
+
+    /**
+     * Writes text content.
+     *
+     * @param text the characters
+     * @param start the start offset
+     * @param length the number of characters
+     * @throws IOException for write errors
+     */
+    void writeText(final char[] text, final int start, final int length) throws IOException {
+      this.escape(text, start, length, false);
+    }
+
+    /**
+     * Flushes the writer (the output stream is not closed).
+     *
+     * @throws IOException for write errors
+     */
+    void flush() throws IOException {
+      this.writer.flush();
+    }
+
+    /**
+     * Writes characters, escaping where needed. Runs of characters that need no escaping are written as is.
+     *
+     * @param chars the characters
+     * @param start the start offset
+     * @param length the number of characters
+     * @param attribute whether the characters are an attribute value
+     * @throws IOException for write errors
+     */
+    private void escape(final char[] chars, final int start, final int length, final boolean attribute)
+        throws IOException {
+      final int end = start + length;
+      int run = start;
+      for (int i = start; i < end; i++) {
+        final char c = chars[i];
+        final String replacement = switch (c) {
+          case '&' -> "&amp;";
+          case '<' -> "&lt;";
+          case '>' -> "&gt;";
+          case '"' -> attribute ? "&quot;" : null;
+          case '\t' -> "&#9;";
+          case '\n' -> "&#10;";
+          case '\r' -> "&#13;";
+          default -> null;
+        };
+        if (replacement != null) {
+          this.writer.write(chars, run, i - run);
+          this.writer.write(replacement);
+          run = i + 1;
+        }
+        else if (c >= 0x80 && this.encoder != null && !this.encoder.canEncode(c)) {
+          this.writer.write(chars, run, i - run);
+          final int codePoint = Character.codePointAt(chars, i, end);
+          this.writer.write("&#" + codePoint + ";");
+          i += Character.charCount(codePoint) - 1;
+          run = i + 1;
+        }
+      }
+      this.writer.write(chars, run, end - run);
+    }
+  }
+
+  /**
+   * The processing mode used when inserting a signature.
+   */
+  public enum Mode {
+
+    /** The document was streamed. */
+    STREAMING,
+
+    /** A DOM of the document was built. */
+    DOM
+  }
+
+  /**
+   * A streamable location path step.
+   *
+   * @param localName the local name to match (null matches any element)
+   * @param noNamespace whether the element must be without namespace
+   * @param position the position among the matching siblings (null matches all)
+   */
+  record Step(String localName, boolean noNamespace, Integer position) {
+
+    /**
+     * Tells whether an element matches the name test of this step.
+     *
+     * @param localName the local name of the element
+     * @param namespace the namespace URI of the element (may be null)
+     * @return {@code true} if the element matches and {@code false} otherwise
+     */
+    boolean matches(final String localName, final String namespace) {
+      return (this.localName == null || this.localName.equals(localName))
+          && (!this.noNamespace || namespace == null || namespace.isEmpty());
+    }
+  }
+
+}
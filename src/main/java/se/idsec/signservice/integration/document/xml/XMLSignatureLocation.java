@@ -17,12 +17,15 @@ package se.idsec.signservice.integration.document.xml;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import jakarta.annotation.Nonnull;
 import lombok.Builder;
 import lombok.ToString;
 import se.idsec.signservice.integration.core.Extensible;
 import se.idsec.signservice.integration.core.Extension;
 import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.core.error.InputValidationException;
 
+import javax.xml.xpath.XPathExpressionException;
 import java.io.Serial;
 
 /**
@@ -120,6 +123,38 @@ public class XMLSignatureLocation implements Extensible {
     this.xPath = xPath;
   }
 
+  /**
+   * Validates the location, i.e., checks that the child position is valid, and that the XPath expression (if set)
+   * compiles. The expression is compiled using {@link XPathCache#getDefault()}, so that an implementation evaluating it
+   * using the same cache does not have to compile it again.
+   * <p>
+   * Implementations should invoke this method when the input is validated, so that an invalid location is reported as
+   * a validation error and not as an error when the signature is inserted.
+   * </p>
+   *
+   * @param objectName the name of the object being validated (used in error messages)
+   * @throws InputValidationException if the location is invalid
+   */
+  public void validate(@Nonnull final String objectName) throws InputValidationException {
+    if (this.childPosition != null) {
+      try {
+        ChildPosition.fromPosition(this.childPosition);
+      }
+      catch (final IllegalArgumentException e) {
+        throw new InputValidationException(objectName + ".childPosition", e.getMessage(), e);
+      }
+    }
+    if (this.xPath != null) {
+      try {
+        XPathCache.getDefault().validate(this.xPath, null);
+      }
+      catch (final XPathExpressionException e) {
+        throw new InputValidationException(objectName + ".xPath",
+            "Invalid XPath expression '%s' - %s".formatted(this.xPath, e.getMessage()), e);
+      }
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public Extension getExtension() {
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.xml;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.core.ExpiringCache;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFactoryConfigurationException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A cache of compiled XPath expressions, keyed by expression and namespace bindings. It is used for the XPath
+ * expressions of {@link XMLSignatureLocation}s, which are typically the same for many requests.
+ * <p>
+ * A compiled {@link XPathExpression} may not be used by several threads at the same time. Instead of keeping an
+ * expression per thread (which leaks when used with many, short-lived, virtual threads), the cache keeps a small pool
+ * of compiled instances per key. A caller borrows an instance for the duration of an evaluation, and a new instance is
+ * compiled only if all pooled instances are in use.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class XPathCache {
+
+  /** The default maximum number of cached expressions. */
+  public static final int DEFAULT_MAX_EXPRESSIONS = 256;
+
+  /** The default maximum number of pooled instances per expression. */
+  public static final int DEFAULT_MAX_POOLED = 8;
+
+  /** The default instance. */
+  private static final XPathCache defaultInstance = new XPathCache();
+
+  /** The XPath factory (not thread-safe, guarded by itself). */
+  private final XPathFactory factory;
+
+  /** The pools of compiled expressions. */
+  private final ExpiringCache<Key, ArrayBlockingQueue<XPathExpression>> pools;
+
+  /** The maximum number of pooled instances per expression. */
+  private final int maxPooled;
+
+  /**
+   * Constructor using {@link #DEFAULT_MAX_EXPRESSIONS} and {@link #DEFAULT_MAX_POOLED}.
+   */
+  public XPathCache() {
+    this(DEFAULT_MAX_EXPRESSIONS, DEFAULT_MAX_POOLED);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxExpressions the maximum number of cached expressions
+   * @param maxPooled the maximum number of pooled instances per expression
+   */
+  public XPathCache(final int maxExpressions, final int maxPooled) {
+    if (maxPooled <= 0) {
+      throw new IllegalArgumentException("maxPooled must be greater than 0");
+    }
+    this.pools = new ExpiringCache<>(maxExpressions);
+    this.maxPooled = maxPooled;
+    this.factory = XPathFactory.newInstance();
+    try {
+      this.factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    }
+    catch (final XPathFactoryConfigurationException e) {
+      throw new IllegalStateException("Failed to configure XPath factory", e);
+    }
+  }
+
+  /**
+   * Gets the default (shared) instance.
+   *
+   * @return the default cache
+   */
+  @Nonnull
+  public static XPathCache getDefault() {
+    return defaultInstance;
+  }
+
+  /**
+   * Checks that the given expression compiles. A compiled expression is kept in the cache, so validating an expression
+   * when the input is validated means that it does not have to be compiled again when it is evaluated.
+   *
+   * @param expression the XPath expression
+   * @param namespaces namespace bindings (prefix to namespace URI), may be null
+   * @throws XPathExpressionException if the expression is invalid
+   */
+  public void validate(@Nonnull final String expression, @Nullable final Map<String, String> namespaces)
+      throws XPathExpressionException {
+    final Key key = new Key(expression, namespaces);
+    final ArrayBlockingQueue<XPathExpression> pool = this.pools.get(key);
+    if (pool == null || pool.isEmpty()) {
+      final XPathExpression compiled = this.compile(key);
+      this.getPool(key).offer(compiled);
+    }
+  }
+
+  /**
+   * Evaluates an expression.
+   *
+   * @param expression the XPath expression
+   * @param namespaces namespace bindings (prefix to namespace URI), may be null
+   * @param item the item to evaluate the expression on (for example a DOM node)
+   * @param returnType the return type (see {@link javax.xml.xpath.XPathConstants})
+   * @return the result of the evaluation
+   * @throws XPathExpressionException if the expression is invalid, or if the evaluation fails
+   */
+  @Nullable
+  public Object evaluate(@Nonnull final String expression, @Nullable final Map<String, String> namespaces,
+      @Nullable final Object item, @Nonnull final QName returnType) throws XPathExpressionException {
+    final Key key = new Key(expression, namespaces);
+    ArrayBlockingQueue<XPathExpression> pool = this.pools.get(key);
+    XPathExpression compiled = pool != null ? pool.poll() : null;
+    if (compiled == null) {
+      compiled = this.compile(key);
+      if (pool == null) {
+        pool = this.getPool(key);
+      }
+    }
+    try {
+      return compiled.evaluate(item, returnType);
+    }
+    finally {
+      pool.offer(compiled);
+    }
+  }
+
+  /**
+   * Gets the number of cached expressions.
+   *
+   * @return the number of cached expressions
+   */
+  public int size() {
+    return this.pools.size();
+  }
+
+  /**
+   * Gets the pool for the given key, creating it if needed. Only invoked after the expression has been compiled, so
+   * that invalid expressions never occupy a cache slot.
+   *
+   * @param key the key
+   * @return the pool
+   */
+  private ArrayBlockingQueue<XPathExpression> getPool(final Key key) {
+    ArrayBlockingQueue<XPathExpression> pool = this.pools.get(key);
+    if (pool == null) {
+      synchronized (this.pools) {
+        pool = this.pools.get(key);
+        if (pool == null) {
+          pool = new ArrayBlockingQueue<>(this.maxPooled);
+          this.pools.put(key, pool, Instant.MAX);
+        }
+      }
+    }
+    return pool;
+  }
+
+  /**
+   * Compiles an expression.
+   *
+   * @param key the expression and namespace bindings
+   * @return the compiled expression
+   * @throws XPathExpressionException if the expression is invalid
+   */
+  private XPathExpression compile(final Key key) throws XPathExpressionException {
+    final XPath xpath;
+    synchronized (this.factory) {
+      xpath = this.factory.newXPath();
+    }
+    if (!key.namespaces().isEmpty()) {
+      xpath.setNamespaceContext(new MapNamespaceContext(key.namespaces()));
+    }
+    return xpath.compile(key.expression());
+  }
+
+  /**
+   * Cache key.
+   *
+   * @param expression the XPath expression
+   * @param namespaces the namespace bindings
+   */
+  private record Key(String expression, Map<String, String> namespaces) {
+
+    Key {
+      Objects.requireNonNull(expression, "expression must not be null");
+      namespaces = namespaces != null ? Map.copyOf(namespaces) : Collections.emptyMap();
+    }
+  }
+
+  /**
+   * A {@link NamespaceContext} backed by a map.
+   *
+   * @param namespaces prefix to namespace URI bindings
+   */
+  private record MapNamespaceContext(Map<String, String> namespaces) implements NamespaceContext {
+
+    /** {@inheritDoc} */
+    @Override
+    public String getNamespaceURI(final String prefix) {
+      return this.namespaces.getOrDefault(prefix, XMLConstants.NULL_NS_URI);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getPrefix(final String namespaceURI) {
+      return this.namespaces.entrySet().stream()
+          .filter(e -> e.getValue().equals(namespaceURI))
+          .map(Map.Entry::getKey)
+          .findFirst()
+          .orElse(null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<String> getPrefixes(final String namespaceURI) {
+      return this.namespaces.entrySet().stream()
+          .filter(e -> e.getValue().equals(namespaceURI))
+          .map(Map.Entry::getKey)
+          .iterator();
+    }
+  }
+
+}
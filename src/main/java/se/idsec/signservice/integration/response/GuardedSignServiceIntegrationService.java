@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.response;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.SignRequestData;
+import se.idsec.signservice.integration.SignRequestInput;
+import se.idsec.signservice.integration.SignResponseCancelStatusException;
+import se.idsec.signservice.integration.SignResponseErrorStatusException;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignServiceIntegrationService;
+import se.idsec.signservice.integration.SignatureResult;
+import se.idsec.signservice.integration.config.ConditionalConfiguration;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+import se.idsec.signservice.integration.config.PolicyNotFoundException;
+import se.idsec.signservice.integration.config.ResourceNotFoundException;
+import se.idsec.signservice.integration.core.FileResource;
+import se.idsec.signservice.integration.core.SignatureState;
+import se.idsec.signservice.integration.core.error.InputValidationException;
+import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link SignServiceIntegrationService} decorator that guards the {@code processSignResponse} calls. Before a
+ * SignResponse is passed to the decorated service it is checked by a {@link SignResponsePreValidator}, so that bogus
+ * and misdirected responses are rejected before any XML DOM building or cryptographic operations.
+ * <p>
+ * If a {@link SignResponseReplayCache} is installed (see {@link #setReplayCache(SignResponseReplayCache)}), duplicate
+ * SignResponse messages get the outcome of the first processing of the response.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class GuardedSignServiceIntegrationService implements SignServiceIntegrationService {
+
+  /** The decorated service. */
+  private final SignServiceIntegrationService delegate;
+
+  /** The pre-validator. */
+  private final SignResponsePreValidator preValidator;
+
+  /** The replay cache (may be null). */
+  private SignResponseReplayCache replayCache;
+
+  /**
+   * Constructor.
+   *
+   * @param delegate the service to decorate
+   * @param preValidator the pre-validator for SignResponse messages
+   */
+  public GuardedSignServiceIntegrationService(
+      @Nonnull final SignServiceIntegrationService delegate, @Nonnull final SignResponsePreValidator preValidator) {
+    this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+    this.preValidator = Objects.requireNonNull(preValidator, "preValidator must not be null");
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public SignRequestData createSignRequest(
+      @Nonnull final SignRequestInput signRequestInput, @Nullable final String callerId)
+      throws InputValidationException, SignServiceIntegrationException {
+    return this.delegate.createSignRequest(signRequestInput, callerId);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public SignatureResult processSignResponse(@Nonnull final String signResponse, @Nonnull final String relayState,
+      @Nonnull final SignatureState state, @Nullable final SignResponseProcessingParameters parameters,
+      @Nullable final String callerId)
+      throws SignResponseCancelStatusException, SignResponseErrorStatusException, SignServiceIntegrationException {
+    this.preValidator.validate(signResponse, relayState, state);
+    if (this.replayCache == null) {
+      return this.delegate.processSignResponse(signResponse, relayState, state, parameters, callerId);
+    }
+    return this.replayCache.process(signResponse, state, parameters, callerId,
+        () -> this.delegate.processSignResponse(signResponse, relayState, state, parameters, callerId));
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public IntegrationServiceDefaultConfiguration getConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return this.delegate.getConfiguration(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public ConditionalConfiguration getConfigurationIfChanged(@Nullable final String policy, @Nullable final String etag)
+      throws PolicyNotFoundException {
+    return this.delegate.getConfigurationIfChanged(policy, etag);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public IntegrationServiceDefaultConfiguration getLiteConfiguration(@Nullable final String policy)
+      throws PolicyNotFoundException {
+    return this.delegate.getLiteConfiguration(policy);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public FileResource getConfigurationResource(@Nullable final String policy, @Nonnull final String reference)
+      throws PolicyNotFoundException, ResourceNotFoundException {
+    return this.delegate.getConfigurationResource(policy, reference);
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public List<String> getPolicies() {
+    return this.delegate.getPolicies();
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public String getVersion() {
+    return this.delegate.getVersion();
+  }
+
+  /**
+   * Installs a replay cache that makes the processing of SignResponse messages idempotent.
+   *
+   * @param replayCache the replay cache, or {@code null} for no replay cache
+   */
+  public void setReplayCache(@Nullable final SignResponseReplayCache replayCache) {
+    this.replayCache = replayCache;
+  }
+
+  /**
+   * Gets the decorated service.
+   *
+   * @return the decorated service
+   */
+  @Nonnull
+  protected SignServiceIntegrationService getDelegate() {
+    return this.delegate;
+  }
+
+  /**
+   * Gets the pre-validator.
+   *
+   * @return the pre-validator
+   */
+  @Nonnull
+  public SignResponsePreValidator getPreValidator() {
+    return this.preValidator;
+  }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.response;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.Builder;
+import lombok.ToString;
+import se.idsec.signservice.integration.core.ObjectBuilder;
+import se.idsec.signservice.integration.core.SignatureState;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Cheap checks of a SignResponse that are performed before the response is fully processed. The purpose is to reject
+ * bogus, stale or misdirected responses without building a DOM or performing any cryptographic operations.
+ * <p>
+ * The following checks are performed (in order):
+ * </p>
+ * <ol>
+ * <li>The size of the (Base64-encoded) SignResponse must not exceed {@link #getMaxSize()}.</li>
+ * <li>The relay state must be equal to the ID of the signature state ({@link SignatureState#getId()}).</li>
+ * <li>If a maximum state age and a resolver for the state creation time are installed, the signature operation must
+ * not have expired.</li>
+ * <li>The start of the SignResponse is decoded and parsed using a streaming parser. The root element must be a
+ * {@code dss:SignResponse} element, and its {@code RequestID} attribute must equal the ID of the SignRequest, as given
+ * by the request ID resolver. Only the root element is read.</li>
+ * </ol>
+ * <p>
+ * By default, the request ID resolver returns {@link SignatureState#getId()}. Installations where the RequestID of
+ * the SignRequest is not the same as the state ID should install another resolver (a resolver returning {@code null}
+ * disables the check).
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@ToString
+@Builder
+public class SignResponsePreValidator {
+
+  /** The default maximum size (in characters) of a Base64-encoded SignResponse. */
+  public static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+
+  /** The DSS core namespace. */
+  public static final String DSS_NAMESPACE = "urn:oasis:names:tc:dss:1.0:core:schema";
+
+  /** The factory for streaming parsers. */
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  /** The maximum size (in characters) of a Base64-encoded SignResponse. */
+  @Builder.Default
+  private final int maxSize = DEFAULT_MAX_SIZE;
+
+  /** The maximum age of a signature state. If {@code null}, expiry is not checked. */
+  private final Duration maxStateAge;
+
+  /** Resolves the creation time of a signature operation from its state. */
+  @ToString.Exclude
+  private final Function<SignatureState, Instant> stateCreationTimeResolver;
+
+  /** Resolves the RequestID of the SignRequest from the signature state. */
+  @ToString.Exclude
+  @Builder.Default
+  private final Function<SignatureState, String> requestIdResolver = SignatureState::getId;
+
+  /** The clock. */
+  @ToString.Exclude
+  @Builder.Default
+  private final Clock clock = Clock.systemUTC();
+
+  /**
+   * Performs the pre-validation of the given SignResponse.
+   *
+   * @param signResponse the Base64-encoded SignResponse message
+   * @param relayState the relay state
+   * @param state the signature state
+   * @return the RequestID of the SignResponse
+   * @throws SignResponseRejectedException if the SignResponse is rejected
+   */
+  @Nonnull
+  public String validate(
+      @Nonnull final String signResponse, @Nonnull final String relayState, @Nonnull final SignatureState state)
+      throws SignResponseRejectedException {
+
+    if (signResponse.length() > this.maxSize) {
+      throw new SignResponseRejectedException(SignResponseRejectedException.INVALID_RESPONSE,
+          "SignResponse exceeds maximum size (%d > %d)".formatted(signResponse.length(), this.maxSize));
+    }
+    if (!relayState.equals(state.getId())) {
+      throw new SignResponseRejectedException(SignResponseRejectedException.STATE_ERROR,
+          "RelayState '%s' does not match state ID '%s'".formatted(relayState, state.getId()));
+    }
+    if (this.maxStateAge != null && this.stateCreationTimeResolver != null) {
+      final Instant created = this.stateCreationTimeResolver.apply(state);
+      if (created != null && this.clock.instant().isAfter(created.plus(this.maxStateAge))) {
+        throw new SignResponseRejectedException(SignResponseRejectedException.EXPIRED_RESPONSE,
+            "Signature operation '%s' has expired".formatted(state.getId()));
+      }
+    }
+    final String requestId = peekRequestId(signResponse);
+    final String expectedRequestId = this.requestIdResolver.apply(state);
+    if (expectedRequestId != null && !expectedRequestId.equals(requestId)) {
+      throw new SignResponseRejectedException(SignResponseRejectedException.MISMATCH_ID,
+          "SignResponse RequestID '%s' does not match '%s'".formatted(requestId, expectedRequestId));
+    }
+    return requestId;
+  }
+
+  /**
+   * Reads the RequestID attribute of the root element of the given SignResponse. Only the start of the message is
+   * decoded and parsed.
+   *
+   * @param signResponse the Base64-encoded SignResponse message
+   * @return the RequestID
+   * @throws SignResponseRejectedException if the message is not a SignResponse, or has no RequestID
+   */
+  @Nonnull
+  public static String peekRequestId(@Nonnull final String signResponse) throws SignResponseRejectedException {
+    XMLStreamReader reader = null;
+    try (final InputStream is = Base64.getMimeDecoder().wrap(new CharSequenceInputStream(signResponse))) {
+      reader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+      int event = reader.getEventType();
+      while (event != XMLStreamConstants.START_ELEMENT && reader.hasNext()) {
+        event = reader.next();
+      }
+      if (event != XMLStreamConstants.START_ELEMENT
+          || !DSS_NAMESPACE.equals(reader.getNamespaceURI()) || !"SignResponse".equals(reader.getLocalName())) {
+        throw new SignResponseRejectedException(
+            SignResponseRejectedException.INVALID_RESPONSE, "Message is not a SignResponse");
+      }
+      final String requestId = reader.getAttributeValue(null, "RequestID");
+      if (requestId == null) {
+        throw new SignResponseRejectedException(
+            SignResponseRejectedException.INVALID_RESPONSE, "SignResponse has no RequestID");
+      }
+      return requestId;
+    }
+    catch (final XMLStreamException | IOException | IllegalArgumentException e) {
+      throw new SignResponseRejectedException(
+          SignResponseRejectedException.INVALID_RESPONSE, "Failed to parse SignResponse - " + e.getMessage(), e);
+    }
+    finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        }
+        catch (final XMLStreamException ignored) {
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the maximum size (in characters) of a Base64-encoded SignResponse. The default is
+   * {@value #DEFAULT_MAX_SIZE}.
+   *
+   * @return the maximum size
+   */
+  public int getMaxSize() {
+    return this.maxSize;
+  }
+
+  /**
+   * Gets the maximum age of a signature state.
+   *
+   * @return the maximum age, or {@code null} if expiry is not checked
+   */
+  @Nullable
+  public Duration getMaxStateAge() {
+    return this.maxStateAge;
+  }
+
+  /**
+   * Creates a factory for streaming parsers that does not process DTDs or external entities.
+   *
+   * @return a factory
+   */
+  private static XMLInputFactory createXmlInputFactory() {
+    final XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    return factory;
+  }
+
+  /**
+   * An input stream reading the (ASCII) characters of a string without copying it.
+   */
+  private static final class CharSequenceInputStream extends InputStream {
+
+    private final CharSequence chars;
+
+    private int pos;
+
+    CharSequenceInputStream(final CharSequence chars) {
+      this.chars = chars;
+    }
+
+    @Override
+    public int read() {
+      return this.pos < this.chars.length() ? this.chars.charAt(this.pos++) & 0xff : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      final int n = Math.min(len, this.chars.length() - this.pos);
+      if (n <= 0) {
+        return -1;
+      }
+      for (int i = 0; i < n; i++) {
+        b[off + i] = (byte) this.chars.charAt(this.pos++);
+      }
+      return n;
+    }
+  }
+
+  /**
+   * Builder for {@link SignResponsePreValidator}.
+   */
+  public static class SignResponsePreValidatorBuilder implements ObjectBuilder<SignResponsePreValidator> {
+    // Lombok
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.response;
+
+import se.idsec.signservice.integration.core.error.ErrorCode;
+import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
+
+import java.io.Serial;
+
+/**
+ * Exception for SignResponse messages that are rejected by the {@link SignResponsePreValidator} before they are
+ * processed.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignResponseRejectedException extends SignServiceIntegrationException {
+
+  @Serial
+  private static final long serialVersionUID = -2209136612453839925L;
+
+  /** Error code for a SignResponse that is too large or malformed. */
+  public static final ErrorCode INVALID_RESPONSE = new ErrorCode("signresponse", "invalid-response");
+
+  /** Error code for a SignResponse that is not a response to the request of the signature operation. */
+  public static final ErrorCode MISMATCH_ID = new ErrorCode("signresponse", "mismatch-id");
+
+  /** Error code for a SignResponse that is received after the signature operation has expired. */
+  public static final ErrorCode EXPIRED_RESPONSE = new ErrorCode("signresponse", "expired-response");
+
+  /** Error code for a SignResponse whose relay state does not match the signature state. */
+  public static final ErrorCode STATE_ERROR = new ErrorCode("signresponse", "state-error");
+
+  /**
+   * Constructor.
+   *
+   * @param errorCode the error code
+   * @param message the error message
+   */
+  public SignResponseRejectedException(final ErrorCode errorCode, final String message) {
+    super(errorCode, message);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param errorCode the error code
+   * @param message the error message
+   * @param cause the cause of the error
+   */
+  public SignResponseRejectedException(final ErrorCode errorCode, final String message, final Throwable cause) {
+    super(errorCode, message, cause);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getHttpStatus() {
+    return 400;
+  }
+
+}
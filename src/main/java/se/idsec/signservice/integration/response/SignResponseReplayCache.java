@@ -0,0 +1,346 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import se.idsec.signservice.integration.SignResponseCancelStatusException;
+import se.idsec.signservice.integration.SignResponseErrorStatusException;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignServiceIntegrationJackson;
+import se.idsec.signservice.integration.SignatureResult;
+import se.idsec.signservice.integration.admission.AdmissionRejectedException;
+import se.idsec.signservice.integration.core.ExpiringCache;
+import se.idsec.signservice.integration.core.SignatureState;
+import se.idsec.signservice.integration.core.error.SignServiceIntegrationException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A cache that makes the processing of SignResponse messages idempotent. Users tend to refresh the page that receives
+ * the SignResponse, so the same response is often posted more than once. The outcome of processing a response (the
+ * {@link SignatureResult} or the failure) is cached, keyed by the signature state ID, a digest of the response, the
+ * caller identity and a digest of the canonical JSON representation of the processing parameters, and returned for
+ * duplicates. A duplicate posted by another caller, or with other processing parameters, is therefore processed by the
+ * service (which then applies its own checks). Duplicates that are received while the original response is processed
+ * wait for, and share, the outcome of the ongoing processing. A duplicate that has waited longer than the maximum wait
+ * time is rejected with {@link AdmissionRejectedException#WAIT_TIMEOUT}.
+ * <p>
+ * Results are cached in their serialized (JSON) form, and each duplicate gets its own deserialized copy, so a caller
+ * may modify a returned result without affecting other callers. Both the number of cached outcomes and their total
+ * size are bounded, and least recently used outcomes are evicted to make room.
+ * </p>
+ * <p>
+ * Failures reported as {@link SignResponseErrorStatusException}, {@link SignResponseCancelStatusException} or
+ * {@link SignServiceIntegrationException} are cached, except for integration exceptions that indicate a transient
+ * condition (HTTP status 429 or 5xx) that may be resolved by retrying. Such failures, and unexpected exceptions, are
+ * passed to concurrent duplicates, but are not cached.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@Slf4j
+public class SignResponseReplayCache {
+
+  /** The default maximum number of cached outcomes. */
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  /** The default time an outcome is cached. */
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+  /** The default maximum total size (in bytes) of the cached (serialized) results. */
+  public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+  /** The default maximum time a duplicate waits for the ongoing processing of the same response. */
+  public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+
+  /** The weight (in bytes) of a cached failure. */
+  private static final long FAILURE_WEIGHT = 1024;
+
+  /** Reader for cached results. */
+  private static final ObjectReader READER = SignServiceIntegrationJackson.reader(SignatureResult.class);
+
+  /** Writer for cached results. */
+  private static final ObjectWriter WRITER = SignServiceIntegrationJackson.writer(SignatureResult.class);
+
+  /** Writer producing the canonical JSON representation of the processing parameters. */
+  private static final ObjectWriter CANONICAL_WRITER = JsonMapper.builder()
+      .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+      .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+      .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+      .build()
+      .writerFor(SignResponseProcessingParameters.class);
+
+  /** The cached outcomes. */
+  private final ExpiringCache<String, Outcome> outcomes;
+
+  /** Ongoing processing, keyed as the outcomes. */
+  private final Map<String, CompletableFuture<Outcome>> inFlight = new ConcurrentHashMap<>();
+
+  /** The time an outcome is cached. */
+  private final Duration ttl;
+
+  /** The maximum time a duplicate waits for the ongoing processing of the same response. */
+  private final Duration maxWait;
+
+  /**
+   * Constructor using {@link #DEFAULT_MAX_ENTRIES}, {@link #DEFAULT_MAX_BYTES}, {@link #DEFAULT_TTL} and
+   * {@link #DEFAULT_MAX_WAIT}.
+   */
+  public SignResponseReplayCache() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, DEFAULT_TTL, DEFAULT_MAX_WAIT, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries the maximum number of cached outcomes
+   * @param maxBytes the maximum total size (in bytes) of the cached (serialized) results
+   * @param ttl the time an outcome is cached
+   * @param maxWait the maximum time a duplicate waits for the ongoing processing of the same response
+   * @param clock the clock
+   */
+  public SignResponseReplayCache(final int maxEntries, final long maxBytes, @Nonnull final Duration ttl,
+      @Nonnull final Duration maxWait, @Nonnull final Clock clock) {
+    this.outcomes = new ExpiringCache<>(maxEntries, maxBytes, Outcome::weight, clock);
+    this.ttl = Objects.requireNonNull(ttl, "ttl must not be null");
+    this.maxWait = Objects.requireNonNull(maxWait, "maxWait must not be null");
+  }
+
+  /**
+   * Processes a SignResponse using the given processor, unless the outcome for the response is cached or the same
+   * response is being processed by another thread.
+   *
+   * @param signResponse the Base64-encoded SignResponse message
+   * @param state the signature state
+   * @param parameters the processing parameters (may be null)
+   * @param callerId the identity of the calling entity (may be null)
+   * @param processor the processor that processes the response
+   * @return the signature result
+   * @throws SignResponseCancelStatusException the sign service reported that the user cancelled the operation
+   * @throws SignResponseErrorStatusException the sign service reported an error
+   * @throws SignServiceIntegrationException for validation and processing errors
+   */
+  @Nonnull
+  public SignatureResult process(@Nonnull final String signResponse, @Nonnull final SignatureState state,
+      @Nullable final SignResponseProcessingParameters parameters, @Nullable final String callerId,
+      @Nonnull final Processor processor)
+      throws SignResponseCancelStatusException, SignResponseErrorStatusException, SignServiceIntegrationException {
+
+    final String key = toKey(signResponse, state, parameters, callerId);
+    final Outcome cached = this.outcomes.get(key);
+    if (cached != null) {
+      log.debug("Returning cached outcome for duplicate SignResponse [state-id: '{}']", state.getId());
+      return cached.get();
+    }
+    final CompletableFuture<Outcome> future = new CompletableFuture<>();
+    final CompletableFuture<Outcome> ongoing = this.inFlight.putIfAbsent(key, future);
+    if (ongoing != null) {
+      log.debug("Waiting for ongoing processing of duplicate SignResponse [state-id: '{}']", state.getId());
+      return this.await(ongoing, state).get();
+    }
+    Outcome outcome = null;
+    SignatureResult result = null;
+    try {
+      // The outcome may have been cached after we checked, but before we registered as in-flight
+      outcome = this.outcomes.get(key);
+      if (outcome == null) {
+        try {
+          result = processor.process();
+          outcome = Outcome.of(result);
+        }
+        catch (final SignResponseErrorStatusException | SignServiceIntegrationException | RuntimeException e) {
+          outcome = new Outcome(null, e);
+        }
+        if (outcome.isCacheable()) {
+          this.outcomes.put(key, outcome, this.outcomes.getClock().instant().plus(this.ttl));
+        }
+      }
+    }
+    finally {
+      future.complete(outcome != null ? outcome : new Outcome(null, new IllegalStateException("Processing failed")));
+      this.inFlight.remove(key, future);
+    }
+    // The caller that processed the response gets the result itself, and all others get copies
+    return result != null ? result : outcome.get();
+  }
+
+  /**
+   * Waits for the outcome of the ongoing processing of a response.
+   *
+   * @param ongoing the ongoing processing
+   * @param state the signature state
+   * @return the outcome
+   * @throws AdmissionRejectedException if the outcome is not available within the maximum wait time
+   */
+  private Outcome await(final CompletableFuture<Outcome> ongoing, final SignatureState state)
+      throws AdmissionRejectedException {
+    try {
+      return ongoing.get(this.maxWait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    catch (final TimeoutException e) {
+      throw new AdmissionRejectedException(AdmissionRejectedException.WAIT_TIMEOUT,
+          "SignResponse for state '%s' is still being processed".formatted(state.getId()));
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AdmissionRejectedException(AdmissionRejectedException.WAIT_TIMEOUT,
+          "Interrupted while waiting for SignResponse processing");
+    }
+    catch (final ExecutionException e) {
+      // The future is always completed normally
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Gets the number of cached outcomes.
+   *
+   * @return the number of cached outcomes
+   */
+  public int size() {
+    return this.outcomes.size();
+  }
+
+  /**
+   * Clears the cache.
+   */
+  public void clear() {
+    this.outcomes.clear();
+  }
+
+  /**
+   * Calculates the cache key for a response.
+   *
+   * @param signResponse the SignResponse
+   * @param state the signature state
+   * @param parameters the processing parameters
+   * @param callerId the caller identity
+   * @return the key
+   */
+  private static String toKey(final String signResponse, final SignatureState state,
+      final SignResponseProcessingParameters parameters, final String callerId) {
+    try {
+      final Base64.Encoder encoder = Base64.getEncoder();
+      final StringBuilder sb = new StringBuilder(160)
+          .append(state.getId().length()).append(':').append(state.getId())
+          .append(':').append(encoder.encodeToString(
+              MessageDigest.getInstance("SHA-256").digest(signResponse.getBytes(StandardCharsets.US_ASCII))))
+          .append(':');
+      if (parameters != null) {
+        sb.append(encoder.encodeToString(
+            MessageDigest.getInstance("SHA-256").digest(CANONICAL_WRITER.writeValueAsBytes(parameters))));
+      }
+      return sb.append(':').append(callerId != null ? callerId.length() + ":" + callerId : "").toString();
+    }
+    catch (final JsonProcessingException e) {
+      throw new IllegalArgumentException("Failed to serialize processing parameters", e);
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new SecurityException(e);
+    }
+  }
+
+  /**
+   * Processes a SignResponse.
+   */
+  @FunctionalInterface
+  public interface Processor {
+
+    /**
+     * Processes the SignResponse.
+     *
+     * @return the signature result
+     * @throws SignResponseCancelStatusException the sign service reported that the user cancelled the operation
+     * @throws SignResponseErrorStatusException the sign service reported an error
+     * @throws SignServiceIntegrationException for validation and processing errors
+     */
+    @Nonnull
+    SignatureResult process()
+        throws SignResponseCancelStatusException, SignResponseErrorStatusException, SignServiceIntegrationException;
+  }
+
+  /**
+   * The outcome of processing a response.
+   *
+   * @param result the serialized result (if successful)
+   * @param failure the failure (if not successful)
+   */
+  private record Outcome(byte[] result, Exception failure) {
+
+    static Outcome of(final SignatureResult result) {
+      try {
+        return new Outcome(WRITER.writeValueAsBytes(result), null);
+      }
+      catch (final JsonProcessingException e) {
+        log.warn("Failed to serialize signature result - {}", e.getMessage());
+        return new Outcome(null, new IllegalStateException("Failed to serialize signature result", e));
+      }
+    }
+
+    long weight() {
+      return this.result != null ? this.result.length : FAILURE_WEIGHT;
+    }
+
+    boolean isCacheable() {
+      if (this.failure instanceof final SignServiceIntegrationException e) {
+        return e.getHttpStatus() != 429 && e.getHttpStatus() < 500;
+      }
+      return !(this.failure instanceof RuntimeException);
+    }
+
+    SignatureResult get()
+        throws SignResponseCancelStatusException, SignResponseErrorStatusException, SignServiceIntegrationException {
+      if (this.failure instanceof final SignResponseErrorStatusException e) {
+        throw e;
+      }
+      if (this.failure instanceof final SignServiceIntegrationException e) {
+        throw e;
+      }
+      if (this.failure instanceof final RuntimeException e) {
+        throw e;
+      }
+      try {
+        return READER.readValue(this.result);
+      }
+      catch (final IOException e) {
+        throw new IllegalStateException("Failed to read cached signature result", e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import jakarta.annotation.Nonnull;
+import se.idsec.signservice.integration.core.ExpiringCache;
+
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A {@link CertificateChainValidator} decorator that caches successful validation results.
+ * <p>
+ * In practice, a small number of SignService CA chains account for almost all signatures. This class remembers that a
+ * chain, identified by the fingerprints of its certificates and the policy, has been successfully validated. An entry
+ * is kept for at most the configured time-to-live, and never beyond the end of the validity period of any of the
+ * certificates in the chain. Failed validations are never cached.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class CachingCertificateChainValidator implements CertificateChainValidator {
+
+  /** The underlying validator. */
+  private final CertificateChainValidator validator;
+
+  /** The maximum time a validation result is cached. */
+  private final Duration timeToLive;
+
+  /** The cache of successfully validated chains. */
+  private final ExpiringCache<Key, Boolean> cache;
+
+  /**
+   * Constructor.
+   *
+   * @param validator the underlying validator
+   * @param timeToLive the maximum time a validation result is cached
+   * @param maxEntries the maximum number of entries to cache
+   */
+  public CachingCertificateChainValidator(
+      @Nonnull final CertificateChainValidator validator, @Nonnull final Duration timeToLive, final int maxEntries) {
+    this(validator, timeToLive, maxEntries, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param validator the underlying validator
+   * @param timeToLive the maximum time a validation result is cached
+   * @param maxEntries the maximum number of entries to cache
+   * @param clock the clock to use
+   */
+  public CachingCertificateChainValidator(@Nonnull final CertificateChainValidator validator,
+      @Nonnull final Duration timeToLive, final int maxEntries, @Nonnull final Clock clock) {
+    this.validator = Objects.requireNonNull(validator, "validator must not be null");
+    this.timeToLive = Objects.requireNonNull(timeToLive, "timeToLive must not be null");
+    this.cache = new ExpiringCache<>(maxEntries, clock);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void validate(@Nonnull final List<X509Certificate> chain,
+      @Nonnull final PolicyCertificates policyCertificates) throws CertPathValidatorException {
+
+    final Key key = createKey(chain, policyCertificates);
+    if (this.cache.get(key) != null) {
+      return;
+    }
+    this.validator.validate(chain, policyCertificates);
+
+    final Instant now = this.cache.getClock().instant();
+    Instant expires = now.plus(this.timeToLive);
+    for (final X509Certificate c : chain) {
+      if (c.getNotBefore().toInstant().isAfter(now)) {
+        // Not yet valid, don't cache ...
+        return;
+      }
+      if (c.getNotAfter().toInstant().isBefore(expires)) {
+        expires = c.getNotAfter().toInstant();
+      }
+    }
+    this.cache.put(key, Boolean.TRUE, expires);
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  public void clear() {
+    this.cache.clear();
+  }
+
+  /**
+   * Creates the cache key for the chain.
+   *
+   * @param chain the certificate chain
+   * @param policyCertificates the policy certificates
+   * @return a cache key
+   * @throws CertPathValidatorException if the certificates can not be encoded
+   */
+  private static Key createKey(final List<X509Certificate> chain, final PolicyCertificates policyCertificates)
+      throws CertPathValidatorException {
+    final List<String> fingerprints = new ArrayList<>(chain.size());
+    try {
+      for (final X509Certificate c : chain) {
+        fingerprints.add(HexFormat.of().formatHex(PolicyCertificates.fingerprint(c)));
+      }
+    }
+    catch (final CertificateEncodingException e) {
+      throw new CertPathValidatorException("Failed to encode certificate", e);
+    }
+    // The trust anchors are part of the key, since a reloaded policy configuration may have other trust anchors ...
+    return new Key(policyCertificates.getPolicy(), policyCertificates.getTrustAnchorFingerprints(), fingerprints);
+  }
+
+  /**
+   * Cache key.
+   *
+   * @param policy the policy name
+   * @param trustAnchors the fingerprints of the policy trust anchors
+   * @param fingerprints the fingerprints of the chain
+   */
+  private record Key(String policy, Set<String> trustAnchors, List<String> fingerprints) {
+  }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.core.ExpiringCache;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * A {@link RevocationDataProvider} decorator that caches the revocation data obtained from the underlying provider.
+ * An entry is cached until the revocation data's {@code nextUpdate} time, but never longer than the configured
+ * time-to-live.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class CachingRevocationDataProvider implements RevocationDataProvider {
+
+  /** The underlying provider. */
+  private final RevocationDataProvider provider;
+
+  /** The maximum time an entry is cached. */
+  private final Duration timeToLive;
+
+  /** The cache. */
+  private final ExpiringCache<Key, RevocationData> cache;
+
+  /**
+   * Constructor.
+   *
+   * @param provider the underlying provider
+   * @param timeToLive the maximum time an entry is cached
+   * @param maxEntries the maximum number of entries to cache
+   */
+  public CachingRevocationDataProvider(
+      @Nonnull final RevocationDataProvider provider, @Nonnull final Duration timeToLive, final int maxEntries) {
+    this(provider, timeToLive, maxEntries, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param provider the underlying provider
+   * @param timeToLive the maximum time an entry is cached
+   * @param maxEntries the maximum number of entries to cache
+   * @param clock the clock to use
+   */
+  public CachingRevocationDataProvider(@Nonnull final RevocationDataProvider provider,
+      @Nonnull final Duration timeToLive, final int maxEntries, @Nonnull final Clock clock) {
+    this.provider = Objects.requireNonNull(provider, "provider must not be null");
+    this.timeToLive = Objects.requireNonNull(timeToLive, "timeToLive must not be null");
+    this.cache = new ExpiringCache<>(maxEntries, clock);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  @Nullable
+  public RevocationData getRevocationData(@Nonnull final X509Certificate certificate,
+      @Nonnull final X509Certificate issuer) throws IOException {
+
+    final Key key;
+    try {
+      key = new Key(HexFormat.of().formatHex(PolicyCertificates.fingerprint(issuer)), certificate.getSerialNumber());
+    }
+    catch (final CertificateEncodingException e) {
+      throw new IOException("Failed to encode issuer certificate", e);
+    }
+    final RevocationData cached = this.cache.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    final RevocationData data = this.provider.getRevocationData(certificate, issuer);
+    if (data != null) {
+      Instant expires = this.cache.getClock().instant().plus(this.timeToLive);
+      if (data.getNextUpdate() != null && data.getNextUpdate().isBefore(expires)) {
+        expires = data.getNextUpdate();
+      }
+      this.cache.put(key, data, expires);
+    }
+    return data;
+  }
+
+  /**
+   * Removes all cached entries.
+   */
+  public void clear() {
+    this.cache.clear();
+  }
+
+  /**
+   * Cache key.
+   *
+   * @param issuerFingerprint the hex-encoded SHA-256 fingerprint of the issuer certificate
+   * @param serialNumber the serial number of the certificate
+   */
+  private record Key(String issuerFingerprint, BigInteger serialNumber) {
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import jakarta.annotation.Nonnull;
+
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+/**
+ * Interface for validating the certificate chain of a signer certificate against the trust anchors of a policy.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ * @see PkixCertificateChainValidator
+ * @see CachingCertificateChainValidator
+ */
+@FunctionalInterface
+public interface CertificateChainValidator {
+
+  /**
+   * Validates the supplied certificate chain.
+   *
+   * @param chain the chain to validate, starting with the end-entity certificate
+   * @param policyCertificates the certificates of the policy under which the validation is performed
+   * @throws CertPathValidatorException if the chain is not valid
+   */
+  void validate(@Nonnull final List<X509Certificate> chain, @Nonnull final PolicyCertificates policyCertificates)
+      throws CertPathValidatorException;
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertStore;
+import java.security.cert.CertificateExpiredException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CertificateNotYetValidException;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.PKIXParameters;
+import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A {@link CertificateChainValidator} that uses PKIX path validation against the policy trust anchors.
+ * <p>
+ * If the policy has no trust anchors ("trust any"), the last certificate of the supplied chain is used as trust
+ * anchor. If a {@link RevocationDataProvider} is installed, revocation checking is performed using the OCSP responses
+ * and CRLs delivered by the provider. Otherwise no revocation checking is performed.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class PkixCertificateChainValidator implements CertificateChainValidator {
+
+  /** Optional revocation data provider. */
+  private final RevocationDataProvider revocationDataProvider;
+
+  /** The clock used to get the validation time. */
+  private final Clock clock;
+
+  /**
+   * Constructor creating a validator that does not perform revocation checking.
+   */
+  public PkixCertificateChainValidator() {
+    this(null, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param revocationDataProvider provider for revocation data (if {@code null}, no revocation checking is done)
+   * @param clock the clock used to get the validation time
+   */
+  public PkixCertificateChainValidator(
+      @Nullable final RevocationDataProvider revocationDataProvider, @Nonnull final Clock clock) {
+    this.revocationDataProvider = revocationDataProvider;
+    this.clock = Objects.requireNonNull(clock, "clock must not be null");
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void validate(@Nonnull final List<X509Certificate> chain,
+      @Nonnull final PolicyCertificates policyCertificates) throws CertPathValidatorException {
+
+    if (chain.isEmpty()) {
+      throw new CertPathValidatorException("Empty certificate chain");
+    }
+    final Date validationTime = Date.from(this.clock.instant());
+
+    final List<X509Certificate> path = new ArrayList<>(chain);
+    final List<X509Certificate> anchorCertificates;
+    if (policyCertificates.getTrustAnchors().isEmpty()) {
+      anchorCertificates = List.of(path.remove(path.size() - 1));
+    }
+    else {
+      anchorCertificates = policyCertificates.getTrustAnchors();
+      while (!path.isEmpty() && policyCertificates.isTrustAnchor(path.get(path.size() - 1))) {
+        path.remove(path.size() - 1);
+      }
+    }
+    if (path.isEmpty()) {
+      // The chain consists of the trust anchor only ...
+      checkValidity(chain.get(0), validationTime);
+      return;
+    }
+
+    try {
+      final CertificateFactory factory = CertificateFactory.getInstance("X.509");
+      final CertPath certPath = factory.generateCertPath(path);
+      final Set<TrustAnchor> anchors = policyCertificates.getTrustAnchors().isEmpty()
+          ? Set.of(new TrustAnchor(anchorCertificates.get(0), null))
+          : policyCertificates.getPkixTrustAnchors();
+
+      final PKIXParameters parameters = new PKIXParameters(anchors);
+      parameters.setDate(validationTime);
+      final CertPathValidator validator = CertPathValidator.getInstance("PKIX");
+
+      if (this.revocationDataProvider == null) {
+        parameters.setRevocationEnabled(false);
+      }
+      else {
+        final Map<X509Certificate, byte[]> ocspResponses = new HashMap<>();
+        final List<X509CRL> crls = new ArrayList<>();
+        for (int i = 0; i < path.size(); i++) {
+          final X509Certificate certificate = path.get(i);
+          final X509Certificate issuer = i + 1 < path.size()
+              ? path.get(i + 1)
+              : findIssuer(certificate, anchorCertificates);
+          if (issuer == null) {
+            continue;
+          }
+          final RevocationData data = this.revocationDataProvider.getRevocationData(certificate, issuer);
+          if (data == null) {
+            continue;
+          }
+          if (data.getType() == RevocationData.Type.OCSP) {
+            ocspResponses.put(certificate, data.getEncoding());
+          }
+          else {
+            crls.add((X509CRL) factory.generateCRL(new ByteArrayInputStream(data.getEncoding())));
+          }
+        }
+        final PKIXRevocationChecker checker = (PKIXRevocationChecker) validator.getRevocationChecker();
+        checker.setOcspResponses(ocspResponses);
+        if (!crls.isEmpty()) {
+          parameters.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(crls)));
+          if (ocspResponses.isEmpty()) {
+            checker.setOptions(EnumSet.of(PKIXRevocationChecker.Option.PREFER_CRLS));
+          }
+        }
+        parameters.addCertPathChecker(checker);
+      }
+
+      validator.validate(certPath, parameters);
+    }
+    catch (final CertPathValidatorException e) {
+      throw e;
+    }
+    catch (final IOException | GeneralSecurityException e) {
+      throw new CertPathValidatorException("Failed to validate certificate chain - " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Finds the issuer of the certificate among the supplied certificates.
+   *
+   * @param certificate the certificate
+   * @param candidates the candidate issuers
+   * @return the issuer, or {@code null} if not found
+   */
+  private static X509Certificate findIssuer(final X509Certificate certificate,
+      final List<X509Certificate> candidates) {
+    return candidates.stream()
+        .filter(c -> c.getSubjectX500Principal().equals(certificate.getIssuerX500Principal()))
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * Checks the validity period of the certificate.
+   *
+   * @param certificate the certificate
+   * @param validationTime the validation time
+   * @throws CertPathValidatorException if the certificate is not valid
+   */
+  private static void checkValidity(final X509Certificate certificate, final Date validationTime)
+      throws CertPathValidatorException {
+    try {
+      certificate.checkValidity(validationTime);
+    }
+    catch (final CertificateExpiredException | CertificateNotYetValidException e) {
+      throw new CertPathValidatorException(e.getMessage(), e);
+    }
+  }
+
+}
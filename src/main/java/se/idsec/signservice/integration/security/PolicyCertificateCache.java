@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import jakarta.annotation.Nonnull;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+
+import java.security.cert.CertificateException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache holding the decoded certificates ({@link PolicyCertificates}) of each policy.
+ * <p>
+ * The certificates of a policy are decoded the first time they are requested, and are decoded again only if the
+ * configuration object for the policy is replaced or if its certificate settings change. This means that a service
+ * that publishes a new configuration snapshot automatically gets its certificates reloaded.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class PolicyCertificateCache {
+
+  /** The cached certificates indexed by policy name. */
+  private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Gets the decoded certificates for the given policy configuration.
+   *
+   * @param configuration the policy configuration
+   * @return the decoded certificates
+   * @throws CertificateException if any of the configured certificates can not be decoded
+   */
+  @Nonnull
+  public PolicyCertificates getCertificates(@Nonnull final IntegrationServiceDefaultConfiguration configuration)
+      throws CertificateException {
+    final String policy = Objects.requireNonNull(configuration, "configuration must not be null").getPolicy();
+    final Entry entry = this.cache.get(policy);
+    if (entry != null && entry.isFor(configuration)) {
+      return entry.certificates();
+    }
+    final Entry newEntry = new Entry(configuration, configuration.getSignatureCertificate(),
+        configuration.getSignServiceCertificates(), configuration.getTrustAnchors(),
+        new PolicyCertificates(configuration));
+    this.cache.put(policy, newEntry);
+    return newEntry.certificates();
+  }
+
+  /**
+   * Removes the cached certificates for the given policy.
+   *
+   * @param policy the policy name
+   */
+  public void evict(@Nonnull final String policy) {
+    this.cache.remove(policy);
+  }
+
+  /**
+   * Removes all cached certificates.
+   */
+  public void clear() {
+    this.cache.clear();
+  }
+
+  /**
+   * A cache entry holding the decoded certificates along with the configuration values they were decoded from.
+   *
+   * @param configuration the configuration
+   * @param signatureCertificate the encoded signature certificate
+   * @param signServiceCertificates the encoded SignService certificates
+   * @param trustAnchors the encoded trust anchors
+   * @param certificates the decoded certificates
+   */
+  private record Entry(IntegrationServiceDefaultConfiguration configuration, String signatureCertificate,
+      List<String> signServiceCertificates, List<String> trustAnchors, PolicyCertificates certificates) {
+
+    boolean isFor(final IntegrationServiceDefaultConfiguration configuration) {
+      return this.configuration == configuration
+          && Objects.equals(this.signatureCertificate, configuration.getSignatureCertificate())
+          && Objects.equals(this.signServiceCertificates, configuration.getSignServiceCertificates())
+          && Objects.equals(this.trustAnchors, configuration.getTrustAnchors());
+    }
+  }
+
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+
+import javax.security.auth.x500.X500Principal;
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The certificates of a policy configuration ({@link IntegrationServiceDefaultConfiguration}) decoded into
+ * {@link X509Certificate} objects and indexed by subject key identifier, issuer and serial number, and SHA-256
+ * fingerprint.
+ * <p>
+ * Instances are immutable and are normally obtained from a {@link PolicyCertificateCache}.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public final class PolicyCertificates {
+
+  /** The OID for the SubjectKeyIdentifier extension. */
+  private static final String SUBJECT_KEY_IDENTIFIER_OID = "2.5.29.14";
+
+  /** The policy name. */
+  private final String policy;
+
+  /** The SignService Integration Service signature certificate. */
+  private final X509Certificate signatureCertificate;
+
+  /** The SignService signing certificates. */
+  private final List<X509Certificate> signServiceCertificates;
+
+  /** The trust anchors. */
+  private final List<X509Certificate> trustAnchors;
+
+  /** The trust anchors in PKIX form. */
+  private final Set<TrustAnchor> pkixTrustAnchors;
+
+  /** The hex-encoded SHA-256 fingerprints of the trust anchors. */
+  private final Set<String> trustAnchorFingerprints;
+
+  /** Certificates indexed by hex-encoded subject key identifier. */
+  private final Map<String, X509Certificate> bySubjectKeyIdentifier;
+
+  /** Certificates indexed by issuer and serial number. */
+  private final Map<IssuerSerial, X509Certificate> byIssuerSerial;
+
+  /** Certificates indexed by hex-encoded SHA-256 fingerprint. */
+  private final Map<String, X509Certificate> byFingerprint;
+
+  /**
+   * Constructor decoding the certificates of the supplied configuration.
+   *
+   * @param configuration the policy configuration
+   * @throws CertificateException if any of the certificates can not be decoded
+   */
+  public PolicyCertificates(@Nonnull final IntegrationServiceDefaultConfiguration configuration)
+      throws CertificateException {
+    this.policy = configuration.getPolicy();
+    this.signatureCertificate = configuration.getSignatureCertificate() != null
+        ? decodeCertificate(configuration.getSignatureCertificate())
+        : null;
+    this.signServiceCertificates = decodeCertificates(configuration.getSignServiceCertificates());
+    this.trustAnchors = decodeCertificates(configuration.getTrustAnchors());
+
+    final Set<TrustAnchor> anchors = new HashSet<>();
+    this.trustAnchors.forEach(c -> anchors.add(new TrustAnchor(c, null)));
+    this.pkixTrustAnchors = Collections.unmodifiableSet(anchors);
+    final Set<String> anchorFingerprints = new HashSet<>();
+    for (final X509Certificate c : this.trustAnchors) {
+      anchorFingerprints.add(HexFormat.of().formatHex(fingerprint(c)));
+    }
+    this.trustAnchorFingerprints = Collections.unmodifiableSet(anchorFingerprints);
+
+    final Map<String, X509Certificate> skiMap = new HashMap<>();
+    final Map<IssuerSerial, X509Certificate> issuerSerialMap = new HashMap<>();
+    final Map<String, X509Certificate> fingerprintMap = new HashMap<>();
+    final List<X509Certificate> all = new ArrayList<>(this.signServiceCertificates);
+    all.addAll(this.trustAnchors);
+    if (this.signatureCertificate != null) {
+      all.add(this.signatureCertificate);
+    }
+    for (final X509Certificate c : all) {
+      final byte[] ski = getSubjectKeyIdentifier(c);
+      if (ski != null) {
+        skiMap.putIfAbsent(HexFormat.of().formatHex(ski), c);
+      }
+      issuerSerialMap.putIfAbsent(new IssuerSerial(c.getIssuerX500Principal(), c.getSerialNumber()), c);
+      fingerprintMap.putIfAbsent(HexFormat.of().formatHex(fingerprint(c)), c);
+    }
+    this.bySubjectKeyIdentifier = Collections.unmodifiableMap(skiMap);
+    this.byIssuerSerial = Collections.unmodifiableMap(issuerSerialMap);
+    this.byFingerprint = Collections.unmodifiableMap(fingerprintMap);
+  }
+
+  /**
+   * Gets the policy name.
+   *
+   * @return the policy name
+   */
+  @Nonnull
+  public String getPolicy() {
+    return this.policy;
+  }
+
+  /**
+   * Gets the signing certificate that the SignService Integration Service uses to sign SignRequest messages.
+   *
+   * @return the signature certificate
+   * @see IntegrationServiceDefaultConfiguration#getSignatureCertificate()
+   */
+  @Nullable
+  public X509Certificate getSignatureCertificate() {
+    return this.signatureCertificate;
+  }
+
+  /**
+   * Gets the signature service signing certificate(s) used by the signature service to sign {@code SignResponse}
+   * messages.
+   *
+   * @return an unmodifiable list of certificates
+   * @see IntegrationServiceDefaultConfiguration#getSignServiceCertificates()
+   */
+  @Nonnull
+  public List<X509Certificate> getSignServiceCertificates() {
+    return this.signServiceCertificates;
+  }
+
+  /**
+   * Gets the trust anchor certificate(s) of the SignService CA.
+   *
+   * @return an unmodifiable list of certificates
+   * @see IntegrationServiceDefaultConfiguration#getTrustAnchors()
+   */
+  @Nonnull
+  public List<X509Certificate> getTrustAnchors() {
+    return this.trustAnchors;
+  }
+
+  /**
+   * Gets the trust anchors in a form suitable for PKIX path validation. An empty set means that any root is trusted.
+   *
+   * @return an unmodifiable set of trust anchors
+   */
+  @Nonnull
+  public Set<TrustAnchor> getPkixTrustAnchors() {
+    return this.pkixTrustAnchors;
+  }
+
+  /**
+   * Gets the hex-encoded SHA-256 fingerprints of the trust anchors.
+   *
+   * @return an unmodifiable set of fingerprints
+   */
+  @Nonnull
+  public Set<String> getTrustAnchorFingerprints() {
+    return this.trustAnchorFingerprints;
+  }
+
+  /**
+   * Finds a policy certificate given its subject key identifier.
+   *
+   * @param subjectKeyIdentifier the key identifier
+   * @return the certificate or {@code null} if no match is found
+   */
+  @Nullable
+  public X509Certificate getBySubjectKeyIdentifier(@Nonnull final byte[] subjectKeyIdentifier) {
+    return this.bySubjectKeyIdentifier.get(HexFormat.of().formatHex(subjectKeyIdentifier));
+  }
+
+  /**
+   * Finds a policy certificate given its issuer and serial number.
+   *
+   * @param issuer the issuer
+   * @param serialNumber the serial number
+   * @return the certificate or {@code null} if no match is found
+   */
+  @Nullable
+  public X509Certificate getByIssuerAndSerialNumber(
+      @Nonnull final X500Principal issuer, @Nonnull final BigInteger serialNumber) {
+    return this.byIssuerSerial.get(new IssuerSerial(issuer, serialNumber));
+  }
+
+  /**
+   * Finds a policy certificate given its SHA-256 fingerprint.
+   *
+   * @param fingerprint the SHA-256 digest of the certificate encoding
+   * @return the certificate or {@code null} if no match is found
+   */
+  @Nullable
+  public X509Certificate getByFingerprint(@Nonnull final byte[] fingerprint) {
+    return this.byFingerprint.get(HexFormat.of().formatHex(fingerprint));
+  }
+
+  /**
+   * Tells whether the supplied certificate is one of the configured SignService certificates.
+   *
+   * @param certificate the certificate to check
+   * @return {@code true} if the certificate is a SignService certificate and {@code false} otherwise
+   */
+  public boolean isSignServiceCertificate(@Nonnull final X509Certificate certificate) {
+    final X509Certificate c = this.byIssuerSerial.get(
+        new IssuerSerial(certificate.getIssuerX500Principal(), certificate.getSerialNumber()));
+    return c != null && c.equals(certificate) && this.signServiceCertificates.contains(c);
+  }
+
+  /**
+   * Tells whether the supplied certificate is one of the configured trust anchors.
+   *
+   * @param certificate the certificate to check
+   * @return {@code true} if the certificate is a trust anchor and {@code false} otherwise
+   */
+  public boolean isTrustAnchor(@Nonnull final X509Certificate certificate) {
+    final X509Certificate c = this.byIssuerSerial.get(
+        new IssuerSerial(certificate.getIssuerX500Principal(), certificate.getSerialNumber()));
+    return c != null && c.equals(certificate) && this.trustAnchors.contains(c);
+  }
+
+  /**
+   * Calculates the SHA-256 fingerprint of the supplied certificate.
+   *
+   * @param certificate the certificate
+   * @return the SHA-256 digest of the certificate encoding
+   * @throws CertificateEncodingException if the certificate can not be encoded
+   */
+  @Nonnull
+  public static byte[] fingerprint(@Nonnull final X509Certificate certificate) throws CertificateEncodingException {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded());
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new SecurityException("SHA-256 is not supported", e);
+    }
+  }
+
+  /**
+   * Gets the subject key identifier of the supplied certificate.
+   *
+   * @param certificate the certificate
+   * @return the key identifier or {@code null} if the certificate does not have a SubjectKeyIdentifier extension
+   */
+  @Nullable
+  public static byte[] getSubjectKeyIdentifier(@Nonnull final X509Certificate certificate) {
+    // The extension value is an OCTET STRING wrapping the DER-encoded KeyIdentifier (which is an OCTET STRING) ...
+    final byte[] value = certificate.getExtensionValue(SUBJECT_KEY_IDENTIFIER_OID);
+    if (value == null) {
+      return null;
+    }
+    final byte[] inner = unwrapOctetString(value);
+    return inner != null ? unwrapOctetString(inner) : null;
+  }
+
+  /**
+   * Decodes a certificate given in Base64-encoded DER or PEM format.
+   *
+   * @param encoding the encoding
+   * @return an X509Certificate
+   * @throws CertificateException for decoding errors
+   */
+  @Nonnull
+  public static X509Certificate decodeCertificate(@Nonnull final String encoding) throws CertificateException {
+    final String trimmed = encoding.trim();
+    final byte[] bytes;
+    if (trimmed.startsWith("-----BEGIN")) {
+      bytes = trimmed.getBytes(StandardCharsets.US_ASCII);
+    }
+    else {
+      try {
+        bytes = Base64.getMimeDecoder().decode(trimmed);
+      }
+      catch (final IllegalArgumentException e) {
+        throw new CertificateException("Invalid Base64 encoding of certificate", e);
+      }
+    }
+    return (X509Certificate) CertificateFactory.getInstance("X.509")
+        .generateCertificate(new ByteArrayInputStream(bytes));
+  }
+
+  /**
+   * Decodes a list of certificates.
+   *
+   * @param encodings the encodings (may be {@code null})
+   * @return an unmodifiable list of certificates
+   * @throws CertificateException for decoding errors
+   */
+  private static List<X509Certificate> decodeCertificates(final List<String> encodings) throws CertificateException {
+    if (encodings == null || encodings.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<X509Certificate> certificates = new ArrayList<>(encodings.size());
+    for (final String e : encodings) {
+      certificates.add(decodeCertificate(e));
+    }
+    return Collections.unmodifiableList(certificates);
+  }
+
+  /**
+   * Returns the contents of a DER-encoded OCTET STRING.
+   *
+   * @param der the encoding
+   * @return the contents, or {@code null} if the encoding is not a valid OCTET STRING
+   */
+  private static byte[] unwrapOctetString(final byte[] der) {
+    if (der.length < 2 || der[0] != 0x04) {
+      return null;
+    }
+    int length = der[1] & 0xff;
+    int offset = 2;
+    if (length > 0x7f) {
+      final int lengthBytes = length & 0x7f;
+      if (lengthBytes > 3 || der.length < 2 + lengthBytes) {
+        return null;
+      }
+      length = 0;
+      for (int i = 0; i < lengthBytes; i++) {
+        length = (length << 8) | (der[offset++] & 0xff);
+      }
+    }
+    return offset + length <= der.length ? Arrays.copyOfRange(der, offset, offset + length) : null;
+  }
+
+  /**
+   * Index key for issuer and serial number.
+   *
+   * @param issuer the issuer
+   * @param serialNumber the serial number
+   */
+  private record IssuerSerial(X500Principal issuer, BigInteger serialNumber) {
+  }
+
+}
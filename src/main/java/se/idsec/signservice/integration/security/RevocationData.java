@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Revocation data, an OCSP response or a CRL, for a certificate.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@ToString(exclude = "encoding")
+public final class RevocationData {
+
+  /**
+   * The type of revocation data.
+   */
+  public enum Type {
+    /** A DER-encoded OCSP response. */
+    OCSP,
+
+    /** A DER-encoded CRL. */
+    CRL
+  }
+
+  /** The type of revocation data. */
+  private final Type type;
+
+  /** The DER encoding. */
+  private final byte[] encoding;
+
+  /** The time when the data was produced. */
+  private final Instant thisUpdate;
+
+  /** The time when newer data will be available. */
+  private final Instant nextUpdate;
+
+  /**
+   * Constructor.
+   *
+   * @param type the type of revocation data
+   * @param encoding the DER encoding of the OCSP response or CRL
+   * @param thisUpdate the time when the data was produced
+   * @param nextUpdate the time when newer data will be available (may be {@code null})
+   */
+  public RevocationData(@Nonnull final Type type, @Nonnull final byte[] encoding, @Nonnull final Instant thisUpdate,
+      @Nullable final Instant nextUpdate) {
+    this.type = Objects.requireNonNull(type, "type must not be null");
+    this.encoding = Objects.requireNonNull(encoding, "encoding must not be null").clone();
+    this.thisUpdate = Objects.requireNonNull(thisUpdate, "thisUpdate must not be null");
+    this.nextUpdate = nextUpdate;
+  }
+
+  /**
+   * Gets the type of revocation data.
+   *
+   * @return the type
+   */
+  @Nonnull
+  public Type getType() {
+    return this.type;
+  }
+
+  /**
+   * Gets the DER encoding of the OCSP response or CRL.
+   *
+   * @return the encoding
+   */
+  @Nonnull
+  public byte[] getEncoding() {
+    return this.encoding.clone();
+  }
+
+  /**
+   * Gets the time when the data was produced.
+   *
+   * @return the time when the data was produced
+   */
+  @Nonnull
+  public Instant getThisUpdate() {
+    return this.thisUpdate;
+  }
+
+  /**
+   * Gets the time when newer data will be available.
+   *
+   * @return the time when newer data will be available, or {@code null} if not known
+   */
+  @Nullable
+  public Instant getNextUpdate() {
+    return this.nextUpdate;
+  }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+
+/**
+ * SPI for obtaining revocation data (OCSP responses or CRLs) for certificates. Implementations may fetch the data from
+ * a remote responder, or from a local stand-in. See {@link CachingRevocationDataProvider} for a caching decorator.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@FunctionalInterface
+public interface RevocationDataProvider {
+
+  /**
+   * Gets revocation data for the given certificate.
+   *
+   * @param certificate the certificate whose revocation status is to be checked
+   * @param issuer the issuer of the certificate
+   * @return revocation data, or {@code null} if no data is available
+   * @throws IOException if the data can not be obtained
+   */
+  @Nullable
+  RevocationData getRevocationData(@Nonnull final X509Certificate certificate, @Nonnull final X509Certificate issuer)
+      throws IOException;
+
+}
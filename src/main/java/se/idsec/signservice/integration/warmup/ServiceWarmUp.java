@@ -0,0 +1,282 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.warmup;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import se.idsec.signservice.integration.ProcessSignResponseInput;
+import se.idsec.signservice.integration.SignRequestData;
+import se.idsec.signservice.integration.SignRequestInput;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignServiceIntegrationJackson;
+import se.idsec.signservice.integration.SignServiceIntegrationService;
+import se.idsec.signservice.integration.SignatureResult;
+import se.idsec.signservice.integration.certificate.CertificateAttributeMappingCompiler;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+import se.idsec.signservice.integration.core.FileResource;
+import se.idsec.signservice.integration.core.RestClientSignatureState;
+import se.idsec.signservice.integration.document.pdf.PdfSignatureImageTemplate;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePage;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePagePreferences;
+import se.idsec.signservice.integration.document.pdf.PreparedPdfDocument;
+import se.idsec.signservice.integration.security.PolicyCertificateCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Warms up a {@link SignServiceIntegrationService}. The warm-up:
+ * <ol>
+ * <li>Gets the configuration of every policy and loads the contents of all sign pages and image templates.</li>
+ * <li>Loads the decoded certificates of every policy into the {@link PolicyCertificateCache} (if installed) and
+ * compiles the attribute mappings of every policy (if a {@link CertificateAttributeMappingCompiler} is installed).
+ * </li>
+ * <li>Primes the JSON serializers of the API model classes (and of the configurations) of
+ * {@link SignServiceIntegrationJackson}.</li>
+ * <li>Runs a number of synthetic createSignRequest/processSignResponse cycles (if a {@link SyntheticCycle} is
+ * installed), so that the code paths are compiled by the JIT before real requests arrive. A synthetic cycle is
+ * typically run against a local stand-in for the signature service.</li>
+ * </ol>
+ * <p>
+ * The service is reported as ready only after a warm-up without failures.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@Slf4j
+public class ServiceWarmUp implements Warmable {
+
+  /** The default number of synthetic cycles. */
+  public static final int DEFAULT_SYNTHETIC_CYCLES = 200;
+
+  /** The API model types whose serializers are primed. */
+  private static final List<Class<?>> MODEL_TYPES = List.of(SignRequestInput.class, SignRequestData.class,
+      RestClientSignatureState.class, ProcessSignResponseInput.class, SignResponseProcessingParameters.class,
+      SignatureResult.class, PdfSignaturePagePreferences.class, PreparedPdfDocument.class);
+
+  /** The service to warm up. */
+  private final SignServiceIntegrationService service;
+
+  /** Optional certificate cache. */
+  private PolicyCertificateCache certificateCache;
+
+  /** Optional attribute mapping compiler. */
+  private CertificateAttributeMappingCompiler attributeMappingCompiler;
+
+  /** Optional synthetic cycle. */
+  private SyntheticCycle syntheticCycle;
+
+  /** The number of synthetic cycles to run. */
+  private int syntheticCycles = DEFAULT_SYNTHETIC_CYCLES;
+
+  /** Whether the service is ready. */
+  private volatile boolean ready = false;
+
+  /**
+   * Constructor.
+   *
+   * @param service the service to warm up
+   */
+  public ServiceWarmUp(@Nonnull final SignServiceIntegrationService service) {
+    this.service = Objects.requireNonNull(service, "service must not be null");
+  }
+
+  /** {@inheritDoc} */
+  @Nonnull
+  @Override
+  public synchronized WarmUpReport warmUp() {
+    final long start = System.nanoTime();
+    final List<String> failures = new ArrayList<>();
+    int policies = 0;
+    int resources = 0;
+    int certificates = 0;
+    final List<IntegrationServiceDefaultConfiguration> configurations = new ArrayList<>();
+
+    for (final String policy : this.service.getPolicies()) {
+      try {
+        final IntegrationServiceDefaultConfiguration configuration = this.service.getConfiguration(policy);
+        configurations.add(configuration);
+        policies++;
+        for (final FileResource resource : getResources(configuration)) {
+          try {
+            if (resource.getContents() != null) {
+              resources++;
+            }
+          }
+          catch (final RuntimeException e) {
+            failures.add("Policy '%s': failed to load resource %s - %s".formatted(policy, resource, e.getMessage()));
+          }
+        }
+        if (this.certificateCache != null) {
+          this.certificateCache.getCertificates(configuration);
+          certificates++;
+        }
+        if (this.attributeMappingCompiler != null) {
+          this.attributeMappingCompiler.getPlan(configuration);
+        }
+      }
+      catch (final Exception e) {
+        failures.add("Policy '%s': %s".formatted(policy, e.getMessage()));
+      }
+    }
+
+    final int serializers = this.primeSerializers(configurations, failures);
+
+    int cycles = 0;
+    if (this.syntheticCycle != null) {
+      for (int i = 0; i < this.syntheticCycles; i++) {
+        try {
+          this.syntheticCycle.run(this.service);
+          cycles++;
+        }
+        catch (final Exception e) {
+          failures.add("Synthetic cycle failed - " + e.getMessage());
+          break;
+        }
+      }
+    }
+
+    this.ready = failures.isEmpty();
+    final WarmUpReport report = new WarmUpReport(policies, resources, certificates, serializers, cycles,
+        Duration.ofNanos(System.nanoTime() - start), List.copyOf(failures));
+    if (this.ready) {
+      log.info("Warm-up completed: {}", report);
+    }
+    else {
+      log.warn("Warm-up completed with failures: {}", report);
+    }
+    return report;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean isReady() {
+    return this.ready;
+  }
+
+  /**
+   * Installs the certificate cache whose entries are loaded during warm-up.
+   *
+   * @param certificateCache the certificate cache
+   */
+  public void setCertificateCache(@Nullable final PolicyCertificateCache certificateCache) {
+    this.certificateCache = certificateCache;
+  }
+
+  /**
+   * Installs the attribute mapping compiler whose plans are compiled during warm-up.
+   *
+   * @param attributeMappingCompiler the attribute mapping compiler
+   */
+  public void setAttributeMappingCompiler(
+      @Nullable final CertificateAttributeMappingCompiler attributeMappingCompiler) {
+    this.attributeMappingCompiler = attributeMappingCompiler;
+  }
+
+  /**
+   * Installs a synthetic createSignRequest/processSignResponse cycle that is run during warm-up.
+   *
+   * @param syntheticCycle the synthetic cycle
+   */
+  public void setSyntheticCycle(@Nullable final SyntheticCycle syntheticCycle) {
+    this.syntheticCycle = syntheticCycle;
+  }
+
+  /**
+   * Assigns the number of synthetic cycles to run. The default is {@value #DEFAULT_SYNTHETIC_CYCLES}.
+   *
+   * @param syntheticCycles the number of synthetic cycles
+   */
+  public void setSyntheticCycles(final int syntheticCycles) {
+    if (syntheticCycles < 0) {
+      throw new IllegalArgumentException("syntheticCycles must not be negative");
+    }
+    this.syntheticCycles = syntheticCycles;
+  }
+
+  /**
+   * Primes the JSON serializers (and deserializers) of the API model types, and the serializers of the given
+   * configurations.
+   *
+   * @param configurations the configurations
+   * @param failures for reporting failures
+   * @return the number of primed types
+   */
+  private int primeSerializers(
+      final List<IntegrationServiceDefaultConfiguration> configurations, final List<String> failures) {
+    int primed = 0;
+    for (final Class<?> type : MODEL_TYPES) {
+      try {
+        final byte[] json = SignServiceIntegrationJackson.writer(type)
+            .writeValueAsBytes(type.getDeclaredConstructor().newInstance());
+        SignServiceIntegrationJackson.reader(type).readValue(json);
+        primed++;
+      }
+      catch (final Exception e) {
+        failures.add("Failed to prime serializer for %s - %s".formatted(type.getSimpleName(), e.getMessage()));
+      }
+    }
+    for (final IntegrationServiceDefaultConfiguration configuration : configurations) {
+      try {
+        SignServiceIntegrationJackson.writer().writeValueAsBytes(configuration);
+      }
+      catch (final Exception e) {
+        failures.add("Failed to serialize configuration for policy '%s' - %s"
+            .formatted(configuration.getPolicy(), e.getMessage()));
+      }
+    }
+    return primed + (int) configurations.stream().map(Object::getClass).distinct().count();
+  }
+
+  /**
+   * Gets the file resources of the sign pages and image templates of a configuration.
+   *
+   * @param configuration the configuration
+   * @return a list of file resources
+   */
+  private static List<FileResource> getResources(final IntegrationServiceDefaultConfiguration configuration) {
+    final Stream<FileResource> templates = configuration.getPdfSignatureImageTemplates() != null
+        ? configuration.getPdfSignatureImageTemplates().stream().map(PdfSignatureImageTemplate::getSvgImageFile)
+        : Stream.empty();
+    final Stream<FileResource> pages = configuration.getPdfSignaturePages() != null
+        ? configuration.getPdfSignaturePages().stream().map(PdfSignaturePage::getPdfDocument)
+        : Stream.empty();
+    return Stream.concat(templates, pages).filter(Objects::nonNull).toList();
+  }
+
+  /**
+   * A synthetic createSignRequest/processSignResponse cycle that is run during warm-up. An implementation typically
+   * creates a SignRequest for a test document, has it signed by a local stand-in for the signature service, and
+   * processes the resulting SignResponse.
+   */
+  @FunctionalInterface
+  public interface SyntheticCycle {
+
+    /**
+     * Runs one cycle.
+     *
+     * @param service the service being warmed up
+     * @throws Exception for errors
+     */
+    void run(@Nonnull final SignServiceIntegrationService service) throws Exception;
+  }
+
+}
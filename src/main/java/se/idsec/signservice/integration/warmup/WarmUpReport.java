@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.warmup;
+
+import jakarta.annotation.Nonnull;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A report of a warm-up, see {@link Warmable#warmUp()}.
+ *
+ * @param policies the number of policies that were warmed up
+ * @param resources the number of file resources (sign pages and image templates) that were loaded
+ * @param certificates the number of policies whose certificates were loaded into the certificate cache (0 if no
+ *     cache is installed)
+ * @param serializers the number of types whose JSON serializers were primed
+ * @param syntheticCycles the number of synthetic createSignRequest/processSignResponse cycles that were run
+ * @param duration the duration of the warm-up
+ * @param failures descriptions of the failures that occurred (empty if the warm-up was successful)
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public record WarmUpReport(int policies, int resources, int certificates, int serializers, int syntheticCycles,
+    @Nonnull Duration duration, @Nonnull List<String> failures) {
+
+  /**
+   * Tells whether the warm-up was successful.
+   *
+   * @return {@code true} if no failures occurred and {@code false} otherwise
+   */
+  public boolean isSuccessful() {
+    return this.failures.isEmpty();
+  }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.warmup;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Interface for components that can be warmed up before they serve requests. A service should not report readiness
+ * (for example to a load balancer or a Kubernetes readiness probe) until {@link #warmUp()} has completed and
+ * {@link #isReady()} returns {@code true}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public interface Warmable {
+
+  /**
+   * Warms up the component. The method blocks until the warm-up is complete. Failures are reported in the returned
+   * report, and are not thrown.
+   *
+   * @return a report of the warm-up
+   */
+  @Nonnull
+  WarmUpReport warmUp();
+
+  /**
+   * Tells whether the component has been successfully warmed up.
+   *
+   * @return {@code true} if the component is ready and {@code false} otherwise
+   */
+  boolean isReady();
+
+}
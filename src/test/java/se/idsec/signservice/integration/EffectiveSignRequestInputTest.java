@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.authentication.AuthnRequirements;
+import se.idsec.signservice.integration.config.TestConfiguration;
+import se.idsec.signservice.integration.document.TbsDocument;
+import se.idsec.signservice.integration.document.pdf.VisiblePdfSignatureRequirement;
+
+import java.util.List;
+
+/**
+ * Test cases for {@code EffectiveSignRequestInput}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class EffectiveSignRequestInputTest {
+
+  private static final VisiblePdfSignatureRequirement DEFAULT_VISIBLE = VisiblePdfSignatureRequirement.builder()
+      .templateImageRef("default")
+      .build();
+
+  private static final TestConfiguration CONFIG = TestConfiguration.builder()
+      .defaultSignRequesterID("https://requester.example.com")
+      .defaultReturnUrl("https://requester.example.com/return")
+      .defaultDestinationUrl("https://sign.example.com/request")
+      .defaultSignatureAlgorithm("http://www.w3.org/2001/04/xmldsig-more#rsa-sha256")
+      .defaultAuthnServiceID("https://idp.example.com")
+      .defaultAuthnContextRef("http://id.elegnamnden.se/loa/1.0/loa3")
+      .defaultVisiblePdfSignatureRequirement(DEFAULT_VISIBLE)
+      .build();
+
+  @Test
+  public void testDefaults() {
+    final TbsDocument pdf = TbsDocument.builder().id("1").mimeType("application/pdf").content("AA==").build();
+    final TbsDocument xml = TbsDocument.builder().id("2").mimeType("application/xml").content("AA==").build();
+    final SignRequestInput input = SignRequestInput.builder()
+        .returnUrl("https://other.example.com/return")
+        .tbsDocument(pdf)
+        .tbsDocument(xml)
+        .build();
+
+    final EffectiveSignRequestInput effective = EffectiveSignRequestInput.of(input, CONFIG);
+    Assertions.assertEquals("default", effective.getPolicy());
+    Assertions.assertEquals("https://requester.example.com", effective.getSignRequesterID());
+    Assertions.assertEquals("https://other.example.com/return", effective.getReturnUrl());
+    Assertions.assertEquals("https://idp.example.com", effective.getAuthnServiceID());
+    Assertions.assertEquals(List.of("http://id.elegnamnden.se/loa/1.0/loa3"), effective.getAuthnContextClassRefs());
+    Assertions.assertSame(DEFAULT_VISIBLE, effective.getVisiblePdfSignatureRequirement(pdf));
+    Assertions.assertNull(effective.getVisiblePdfSignatureRequirement(xml));
+
+    final SignRequestInput merged = effective.toSignRequestInput();
+    Assertions.assertNotSame(input, merged);
+    Assertions.assertNull(input.getSignRequesterID());
+    Assertions.assertNull(input.getAuthnRequirements());
+    Assertions.assertNull(pdf.getVisiblePdfSignatureRequirement());
+    Assertions.assertEquals("https://requester.example.com", merged.getSignRequesterID());
+    Assertions.assertEquals("https://idp.example.com", merged.getAuthnRequirements().getAuthnServiceID());
+    Assertions.assertSame(DEFAULT_VISIBLE, merged.getTbsDocuments().get(0).getVisiblePdfSignatureRequirement());
+    Assertions.assertSame(xml, merged.getTbsDocuments().get(1));
+  }
+
+  @Test
+  public void testNoCopyWhenComplete() {
+    final TbsDocument pdf = TbsDocument.builder()
+        .id("1")
+        .mimeType("application/pdf")
+        .content("AA==")
+        .visiblePdfSignatureRequirement(VisiblePdfSignatureRequirement.createNullVisiblePdfSignatureRequirement())
+        .build();
+    final SignRequestInput input = SignRequestInput.builder()
+        .policy("default")
+        .signRequesterID("https://requester.example.com")
+        .returnUrl("https://requester.example.com/return")
+        .destinationUrl("https://sign.example.com/request")
+        .signatureAlgorithm("http://www.w3.org/2001/04/xmldsig-more#rsa-sha256")
+        .authnRequirements(AuthnRequirements.builder()
+            .authnServiceID("https://other-idp.example.com")
+            .authnContextClassRef("http://id.elegnamnden.se/loa/1.0/loa4")
+            .build())
+        .tbsDocument(pdf)
+        .build();
+
+    final EffectiveSignRequestInput effective = EffectiveSignRequestInput.of(input, CONFIG);
+    Assertions.assertNull(effective.getVisiblePdfSignatureRequirement(pdf));
+    Assertions.assertEquals("https://other-idp.example.com", effective.getAuthnServiceID());
+    Assertions.assertSame(input, effective.toSignRequestInput());
+  }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import se.idsec.signservice.integration.core.Extension;
+import se.idsec.signservice.integration.core.RestClientSignatureState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the compact serialized form of {@link SignRequestData} with default Java serialization of
+ * an object having the same fields. The payload resembles a stateless-mode session entry: a signed SignRequest, and a
+ * state holding the sign request input with two documents. Not run as part of the build; run the
+ * {@link #main(String[])} method (with the test classpath) to execute it.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignRequestDataSerializationBenchmark {
+
+  private SignRequestData data;
+
+  private DefaultSignRequestData defaultData;
+
+  private byte[] serialized;
+
+  private byte[] defaultSerialized;
+
+  @Setup
+  public void setup() throws IOException {
+    final Random random = new Random(4711);
+    final String id = UUID.randomUUID().toString();
+    final LinkedHashMap<String, Object> state = createState(id, random);
+    final String signRequest = randomBase64(random, 9000);
+
+    final RestClientSignatureState signatureState = new RestClientSignatureState();
+    signatureState.setId(id);
+    signatureState.setState(state);
+    final Extension extension = new Extension();
+    extension.put("ui-locale", "sv");
+    this.data = SignRequestData.builder()
+        .state(signatureState)
+        .signRequest(signRequest)
+        .relayState(id)
+        .destinationUrl("https://sig.example.com/signrequest")
+        .extension(extension)
+        .build();
+
+    this.defaultData = new DefaultSignRequestData();
+    this.defaultData.state = new DefaultSignatureState();
+    this.defaultData.state.id = id;
+    this.defaultData.state.state = state;
+    this.defaultData.signRequest = signRequest;
+    this.defaultData.relayState = id;
+    this.defaultData.binding = SignRequestData.DEFAULT_BINDING;
+    this.defaultData.destinationUrl = "https://sig.example.com/signrequest";
+    this.defaultData.extension = new HashMap<>(extension);
+
+    this.serialized = serialize(this.data);
+    this.defaultSerialized = serialize(this.defaultData);
+  }
+
+  @Benchmark
+  public byte[] compactWrite() throws IOException {
+    return serialize(this.data);
+  }
+
+  @Benchmark
+  public Object compactRead() throws Exception {
+    return deserialize(this.serialized);
+  }
+
+  @Benchmark
+  public byte[] defaultWrite() throws IOException {
+    return serialize(this.defaultData);
+  }
+
+  @Benchmark
+  public Object defaultRead() throws Exception {
+    return deserialize(this.defaultSerialized);
+  }
+
+  private static LinkedHashMap<String, Object> createState(final String id, final Random random) {
+    final List<Object> documents = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      final LinkedHashMap<String, Object> document = new LinkedHashMap<>();
+      document.put("id", "doc-" + i);
+      document.put("content", randomBase64(random, 6000));
+      document.put("mimeType", "application/pdf");
+      documents.add(document);
+    }
+    final LinkedHashMap<String, Object> authn = new LinkedHashMap<>();
+    authn.put("authnServiceID", "https://idp.example.com");
+    authn.put("authnContextClassRefs", new ArrayList<>(List.of("http://id.elegnamnden.se/loa/1.0/loa3")));
+    final LinkedHashMap<String, Object> input = new LinkedHashMap<>();
+    input.put("correlationId", id);
+    input.put("policy", "default");
+    input.put("signRequesterID", "https://requester.example.com");
+    input.put("returnUrl", "https://requester.example.com/sign/response");
+    input.put("authnRequirements", authn);
+    input.put("tbsDocuments", documents);
+    final LinkedHashMap<String, Object> state = new LinkedHashMap<>();
+    state.put("id", id);
+    state.put("signRequestInput", input);
+    state.put("expirationTime", System.currentTimeMillis() + 300_000L);
+    return state;
+  }
+
+  private static String randomBase64(final Random random, final int size) {
+    final byte[] bytes = new byte[size];
+    random.nextBytes(bytes);
+    return Base64.getEncoder().encodeToString(bytes);
+  }
+
+  private static byte[] serialize(final Object object) throws IOException {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream(32768);
+    try (final ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(object);
+    }
+    return bos.toByteArray();
+  }
+
+  private static Object deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+    try (final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return ois.readObject();
+    }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final SignRequestDataSerializationBenchmark benchmark = new SignRequestDataSerializationBenchmark();
+    benchmark.setup();
+    System.out.printf("Serialized size: compact=%d bytes, default=%d bytes%n",
+        benchmark.serialized.length, benchmark.defaultSerialized.length);
+
+    new Runner(new OptionsBuilder().include(SignRequestDataSerializationBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+
+  /**
+   * Default serialized counterpart of {@link SignRequestData}.
+   */
+  public static class DefaultSignRequestData implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private DefaultSignatureState state;
+    private String signRequest;
+    private String relayState;
+    private String binding;
+    private String destinationUrl;
+    private HashMap<String, String> extension;
+  }
+
+  /**
+   * Default serialized counterpart of {@link RestClientSignatureState}.
+   */
+  public static class DefaultSignatureState implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private String id;
+    private LinkedHashMap<String, ?> state;
+  }
+
+}
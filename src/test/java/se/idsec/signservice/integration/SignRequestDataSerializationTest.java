@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.core.Extension;
+import se.idsec.signservice.integration.core.RestClientSignatureState;
+import se.idsec.signservice.integration.document.DocumentDigest;
+import se.idsec.signservice.integration.document.TbsDocument;
+import se.idsec.signservice.integration.document.pdf.VisiblePdfSignatureRequirement;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Test cases for the serialized forms of {@code SignRequestData}, {@code RestClientSignatureState} and
+ * {@code TbsDocument}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignRequestDataSerializationTest {
+
+  @Test
+  public void testSignRequestData() throws Exception {
+    final LinkedHashMap<String, Object> document = new LinkedHashMap<>();
+    document.put("id", "doc-1");
+    document.put("size", 4711);
+    document.put("serial", new BigInteger("123456789012345678901234567890"));
+    document.put("signed", Boolean.FALSE);
+    document.put("ref", null);
+    final LinkedHashMap<String, Object> stateMap = new LinkedHashMap<>();
+    stateMap.put("expires", 1700000000000L);
+    stateMap.put("documents", new ArrayList<>(List.of(document, "text")));
+    stateMap.put("other", new StringBuilder("custom"));
+
+    final RestClientSignatureState state = new RestClientSignatureState();
+    state.setId("7b2d1e4a");
+    state.setState(stateMap);
+
+    final Extension extension = new Extension();
+    extension.put("a", "åäö");
+
+    final SignRequestData data = SignRequestData.builder()
+        .state(state)
+        .signRequest("x".repeat(70000))
+        .relayState("7b2d1e4a")
+        .destinationUrl("https://sign.example.com/request")
+        .extension(extension)
+        .build();
+
+    final SignRequestData copy = roundTrip(data);
+    Assertions.assertEquals(data.getSignRequest(), copy.getSignRequest());
+    Assertions.assertEquals("7b2d1e4a", copy.getRelayState());
+    Assertions.assertEquals(SignRequestData.DEFAULT_BINDING, copy.getBinding());
+    Assertions.assertEquals(data.getDestinationUrl(), copy.getDestinationUrl());
+    Assertions.assertEquals(extension, copy.getExtension());
+    Assertions.assertEquals("7b2d1e4a", copy.getState().getId());
+
+    final LinkedHashMap<?, ?> copyState = (LinkedHashMap<?, ?>) copy.getState().getState();
+    Assertions.assertEquals(List.of("expires", "documents", "other"), new ArrayList<>(copyState.keySet()));
+    Assertions.assertEquals(1700000000000L, copyState.get("expires"));
+    Assertions.assertEquals(stateMap.get("documents"), copyState.get("documents"));
+    Assertions.assertEquals("custom", copyState.get("other").toString());
+  }
+
+  @Test
+  public void testTbsDocument() throws Exception {
+    final TbsDocument document = TbsDocument.builder()
+        .id("doc-1")
+        .content("AAAA")
+        .mimeType("application/pdf")
+        .adesRequirement(TbsDocument.EtsiAdesRequirement.builder()
+            .adesFormat(TbsDocument.AdesType.EPES)
+            .signaturePolicy("1.2.3")
+            .build())
+        .visiblePdfSignatureRequirement(VisiblePdfSignatureRequirement.createNullVisiblePdfSignatureRequirement())
+        .build();
+
+    final TbsDocument copy = roundTrip(document);
+    Assertions.assertEquals(document.toString(), copy.toString());
+    Assertions.assertNull(copy.getContentReference());
+    Assertions.assertEquals(TbsDocument.AdesType.EPES, copy.getAdesRequirement().getAdesFormat());
+  }
+
+  @Test
+  public void testDigestOnlyTbsDocument() throws Exception {
+    final TbsDocument document = TbsDocument.builder()
+        .id("doc-1")
+        .mimeType("application/xml")
+        .documentDigest(DocumentDigest.builder()
+            .digestAlgorithm(DocumentDigest.SHA256)
+            .digestValue("4W+l2bUZKHVduFuRfwKXurryLHpH6X2SEq2rVuYboE4=")
+            .length(73400320L)
+            .referenceUri("contract.xml")
+            .build())
+        .build();
+
+    final TbsDocument copy = roundTrip(document);
+    Assertions.assertEquals(document.toString(), copy.toString());
+    Assertions.assertTrue(copy.isDigestOnly());
+    Assertions.assertNull(copy.getContent());
+    Assertions.assertEquals(73400320L, copy.getDocumentDigest().getLength());
+    Assertions.assertEquals(32, copy.getDocumentDigest().getDigestValueBytes().length);
+  }
+
+  @Test
+  public void testDigestTransforms() throws Exception {
+    final List<String> transforms = List.of(
+        "http://www.w3.org/2000/09/xmldsig#enveloped-signature", "http://www.w3.org/2001/10/xml-exc-c14n#");
+    final TbsDocument document = TbsDocument.builder()
+        .id("doc-1")
+        .mimeType("application/xml")
+        .documentDigest(DocumentDigest.builder()
+            .digestAlgorithm(DocumentDigest.SHA256)
+            .digestValue("4W+l2bUZKHVduFuRfwKXurryLHpH6X2SEq2rVuYboE4=")
+            .referenceUri("contract.xml")
+            .transforms(transforms)
+            .build())
+        .build();
+    Assertions.assertEquals(transforms, roundTrip(document).getDocumentDigest().getTransforms());
+
+    // An unreasonable number of transforms is rejected when read
+    document.getDocumentDigest().setTransforms(Collections.nCopies(1000, transforms.get(0)));
+    Assertions.assertThrows(StreamCorruptedException.class, () -> roundTrip(document));
+  }
+
+  @Test
+  public void testReadVersion1() throws Exception {
+    // Written before the document digest was added to TbsDocument
+    final TbsDocument document = (TbsDocument) deserialize(readResource("/serialized/TbsDocument-v1.ser"));
+    Assertions.assertEquals("doc-1", document.getId());
+    Assertions.assertEquals("AAAA", document.getContent());
+    Assertions.assertEquals("application/pdf", document.getMimeType());
+    Assertions.assertEquals(TbsDocument.AdesType.EPES, document.getAdesRequirement().getAdesFormat());
+    Assertions.assertNotNull(document.getVisiblePdfSignatureRequirement());
+    Assertions.assertNull(document.getDocumentDigest());
+    Assertions.assertFalse(document.isDigestOnly());
+  }
+
+  @Test
+  public void testUnsupportedVersion() throws Exception {
+    final RestClientSignatureState state = new RestClientSignatureState();
+    state.setId("abc");
+    final byte[] bytes = serialize(state);
+
+    // The external data starts with the format version (1) followed by the length-prefixed id
+    final byte[] header = { 1, 0, 0, 0, 3, 'a', 'b', 'c' };
+    int pos = -1;
+    for (int i = 0; pos == -1 && i <= bytes.length - header.length; i++) {
+      if (Arrays.equals(bytes, i, i + header.length, header, 0, header.length)) {
+        pos = i;
+      }
+    }
+    Assertions.assertTrue(pos > 0);
+    bytes[pos] = 99;
+    Assertions.assertThrows(InvalidObjectException.class, () -> deserialize(bytes));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T roundTrip(final T object) throws IOException, ClassNotFoundException {
+    return (T) deserialize(serialize(object));
+  }
+
+  private static byte[] serialize(final Object object) throws IOException {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (final ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(object);
+    }
+    return bos.toByteArray();
+  }
+
+  private static byte[] readResource(final String name) throws IOException {
+    try (final InputStream is = SignRequestDataSerializationTest.class.getResourceAsStream(name)) {
+      Assertions.assertNotNull(is, name);
+      return is.readAllBytes();
+    }
+  }
+
+  private static Object deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+    try (final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return ois.readObject();
+    }
+  }
+
+}
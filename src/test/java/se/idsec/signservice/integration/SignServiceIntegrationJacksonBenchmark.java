@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import se.idsec.signservice.integration.authentication.AuthnRequirements;
+import se.idsec.signservice.integration.authentication.SignerIdentityAttributeValue;
+import se.idsec.signservice.integration.document.TbsDocument;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing JSON processing of {@link SignRequestInput} using {@link SignServiceIntegrationJackson}
+ * with a default {@link ObjectMapper}, and with a mapper that is created per call. Not run as part of the build; run
+ * the {@link #main(String[])} method (with the test classpath) to execute it. The allocation rates are reported by the
+ * GC profiler.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignServiceIntegrationJacksonBenchmark {
+
+  private SignRequestInput input;
+
+  private String json;
+
+  private ObjectMapper defaultMapper;
+
+  private ObjectReader reader;
+
+  private ObjectWriter writer;
+
+  @Setup
+  public void setup() throws Exception {
+    final SignRequestInput.SignRequestInputBuilder builder = SignRequestInput.builder()
+        .correlationId("b7a1c6b2-51f2-4c2a-9d1b-3c8d7f0e9a11")
+        .policy("default")
+        .signRequesterID("https://requester.example.com")
+        .returnUrl("https://requester.example.com/sign/response")
+        .authnRequirements(AuthnRequirements.builder()
+            .authnServiceID("https://idp.example.com")
+            .authnContextClassRef("http://id.elegnamnden.se/loa/1.0/loa3")
+            .requestedSignerAttribute(SignerIdentityAttributeValue.builder()
+                .name("urn:oid:1.2.752.29.4.13")
+                .value("196911292032")
+                .build())
+            .build());
+    for (int i = 0; i < 3; i++) {
+      builder.tbsDocument(TbsDocument.builder()
+          .id("doc-" + i)
+          .mimeType("application/xml")
+          .content("PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz48ZG9jLz4=")
+          .build());
+    }
+    this.input = builder.build();
+    this.defaultMapper = new ObjectMapper();
+    this.reader = SignServiceIntegrationJackson.reader(SignRequestInput.class);
+    this.writer = SignServiceIntegrationJackson.writer(SignRequestInput.class);
+    this.json = this.writer.writeValueAsString(this.input);
+  }
+
+  @Benchmark
+  public SignRequestInput readShared() throws Exception {
+    return this.reader.readValue(this.json);
+  }
+
+  @Benchmark
+  public SignRequestInput readDefault() throws Exception {
+    return this.defaultMapper.readValue(this.json, SignRequestInput.class);
+  }
+
+  @Benchmark
+  public SignRequestInput readNewMapper() throws Exception {
+    return new ObjectMapper().readValue(this.json, SignRequestInput.class);
+  }
+
+  @Benchmark
+  public String writeShared() throws Exception {
+    return this.writer.writeValueAsString(this.input);
+  }
+
+  @Benchmark
+  public String writeDefault() throws Exception {
+    return this.defaultMapper.writeValueAsString(this.input);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+        .include(SignServiceIntegrationJacksonBenchmark.class.getSimpleName())
+        .addProfiler("gc")
+        .build()).run();
+  }
+
+}
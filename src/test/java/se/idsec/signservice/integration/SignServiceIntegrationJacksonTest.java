@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.authentication.AuthnRequirements;
+import se.idsec.signservice.integration.core.RestClientSignatureState;
+import se.idsec.signservice.integration.document.TbsDocument;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Test cases for {@code SignServiceIntegrationJackson}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignServiceIntegrationJacksonTest {
+
+  @Test
+  public void testSharedInstances() {
+    Assertions.assertSame(SignServiceIntegrationJackson.reader(SignRequestInput.class),
+        SignServiceIntegrationJackson.reader(SignRequestInput.class));
+    Assertions.assertSame(SignServiceIntegrationJackson.writer(SignRequestInput.class),
+        SignServiceIntegrationJackson.writer(SignRequestInput.class));
+    Assertions.assertNotSame(SignServiceIntegrationJackson.getObjectMapper(),
+        SignServiceIntegrationJackson.newObjectMapper());
+    Assertions.assertTrue(SignServiceIntegrationJackson.isBlackbirdEnabled());
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    final SignRequestInput input = SignRequestInput.builder()
+        .policy("default")
+        .authnRequirements(AuthnRequirements.builder().authnServiceID("https://idp.example.com").build())
+        .tbsDocument(TbsDocument.builder().id("1").mimeType("application/pdf").content("AA==").build())
+        .build();
+
+    final String json = SignServiceIntegrationJackson.writer(SignRequestInput.class).writeValueAsString(input);
+    final SignRequestInput input2 = SignServiceIntegrationJackson.reader(SignRequestInput.class).readValue(json);
+    Assertions.assertEquals(input.toString(), input2.toString());
+  }
+
+  @Test
+  public void testSignatureStateAndUnknownProperties() throws Exception {
+    final RestClientSignatureState state = new RestClientSignatureState();
+    state.setId("abc");
+    final LinkedHashMap<String, Object> stateMap = new LinkedHashMap<>();
+    stateMap.put("key", "value");
+    state.setState(stateMap);
+    final SignRequestData data = SignRequestData.builder().state(state).relayState("abc").build();
+
+    final Map<String, Object> tree = SignServiceIntegrationJackson.getObjectMapper().convertValue(data,
+        SignServiceIntegrationJackson.getObjectMapper().getTypeFactory()
+            .constructMapType(LinkedHashMap.class, String.class, Object.class));
+    tree.put("addedInLaterVersion", true);
+    final String json = SignServiceIntegrationJackson.writer().writeValueAsString(tree);
+
+    final SignRequestData data2 = SignServiceIntegrationJackson.reader(SignRequestData.class).readValue(json);
+    Assertions.assertTrue(data2.getState() instanceof RestClientSignatureState);
+    Assertions.assertEquals("abc", data2.getState().getId());
+    Assertions.assertEquals(stateMap, data2.getState().getState());
+  }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.admission;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.core.ProcessingPriority;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Test cases for {@code AdmissionController}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class AdmissionControllerTest {
+
+  @Test
+  public void testAdmitAndRelease() throws Exception {
+    final AdmissionController controller = new AdmissionController(AdmissionControlSettings.builder().build());
+    try (final AdmissionController.Permit permit = controller.acquire("default", "caller")) {
+      Assertions.assertEquals(1, controller.getPolicyStatistics().get("default").active());
+      Assertions.assertEquals(1, controller.getCallerStatistics().get("caller").active());
+    }
+    final AdmissionStatistics stats = controller.getPolicyStatistics().get("default");
+    Assertions.assertEquals(0, stats.active());
+    Assertions.assertEquals(1, stats.admitted());
+
+    controller.acquire(null, null).close();
+    Assertions.assertEquals(1,
+        controller.getPolicyStatistics().get(AdmissionController.UNSPECIFIED_POLICY).admitted());
+    Assertions.assertEquals(1, controller.getCallerStatistics().get(AdmissionController.ANONYMOUS_CALLER).admitted());
+  }
+
+  @Test
+  public void testIdleBulkheadsEvicted() throws Exception {
+    final AdmissionController controller = new AdmissionController(AdmissionControlSettings.builder()
+        .maxBulkheads(2)
+        .build());
+    try (final AdmissionController.Permit permit = controller.acquire("busy", "busy-caller")) {
+      for (int i = 0; i < 100; i++) {
+        controller.acquire("policy-" + i, "caller-" + i).close();
+      }
+      Assertions.assertEquals(2, controller.getPolicyStatistics().size());
+      Assertions.assertEquals(2, controller.getCallerStatistics().size());
+
+      // Bulkheads in use are never evicted
+      Assertions.assertEquals(1, controller.getPolicyStatistics().get("busy").active());
+      Assertions.assertEquals(1, controller.getCallerStatistics().get("busy-caller").active());
+      Assertions.assertNotNull(controller.getPolicyStatistics().get("policy-99"));
+    }
+    controller.acquire("busy", "busy-caller").close();
+    Assertions.assertEquals(2, controller.getPolicyStatistics().get("busy").admitted());
+  }
+
+  @Test
+  public void testQueueFull() throws Exception {
+    final AdmissionController controller = new AdmissionController(AdmissionControlSettings.builder()
+        .policyLimit("bulk", new AdmissionControlSettings.Limits(1, 0))
+        .build());
+    try (final AdmissionController.Permit permit = controller.acquire("bulk", "caller")) {
+      final AdmissionRejectedException e =
+          Assertions.assertThrows(AdmissionRejectedException.class, () -> controller.acquire("bulk", "other"));
+      Assertions.assertEquals(AdmissionRejectedException.QUEUE_FULL.getErrorCode(), e.getErrorCode().getErrorCode());
+      Assertions.assertEquals(429, e.getHttpStatus());
+
+      // Other policies are not affected
+      controller.acquire("interactive", "other").close();
+    }
+    Assertions.assertEquals(1, controller.getPolicyStatistics().get("bulk").rejected());
+  }
+
+  @Test
+  public void testWaitTimeout() throws Exception {
+    final AdmissionController controller = new AdmissionController(AdmissionControlSettings.builder()
+        .defaultCallerLimits(new AdmissionControlSettings.Limits(1, 1))
+        .maxWait(Duration.ofMillis(50))
+        .build());
+    try (final AdmissionController.Permit permit = controller.acquire("default", "caller")) {
+      final AdmissionRejectedException e =
+          Assertions.assertThrows(AdmissionRejectedException.class, () -> controller.acquire("other", "caller"));
+      Assertions.assertEquals(AdmissionRejectedException.WAIT_TIMEOUT.getErrorCode(), e.getErrorCode().getErrorCode());
+    }
+    Assertions.assertEquals(1, controller.getCallerStatistics().get("caller").timedOut());
+    Assertions.assertEquals(0, controller.getCallerStatistics().get("caller").queued());
+  }
+
+  @Test
+  public void testFairShare() throws Exception {
+    final AdmissionController controller = new AdmissionController(AdmissionControlSettings.builder()
+        .defaultPolicyLimits(new AdmissionControlSettings.Limits(1, 10))
+        .build());
+    final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    final List<Thread> threads = new ArrayList<>();
+
+    final AdmissionController.Permit first = controller.acquire("default", "bulk");
+    for (final String call : List.of("bulk-1", "bulk-2", "bulk-3", "interactive-1")) {
+      final String caller = call.substring(0, call.indexOf('-'));
+      final int expectedQueued = threads.size() + 1;
+      final Thread thread = new Thread(() -> {
+        try (final AdmissionController.Permit permit = controller.acquire("default", caller)) {
+          order.add(call);
+        }
+        catch (final AdmissionRejectedException e) {
+          order.add(e.getMessage());
+        }
+      });
+      thread.start();
+      threads.add(thread);
+      waitFor(() -> controller.getPolicyStatistics().get("default").queued() == expectedQueued);
+    }
+    first.close();
+    for (final Thread thread : threads) {
+      thread.join(5000);
+    }
+    Assertions.assertEquals(List.of("bulk-1", "interactive-1", "bulk-2", "bulk-3"), order);
+    Assertions.assertEquals(5, controller.getPolicyStatistics().get("default").admitted());
+  }
+
+  @Test
+  public void testInteractiveFirst() throws Exception {
+    final AdmissionController controller = new AdmissionController(AdmissionControlSettings.builder()
+        .defaultPolicyLimits(new AdmissionControlSettings.Limits(1, 10))
+        .build());
+    final AdmissionController.Permit first = controller.acquire("default", "bulk", ProcessingPriority.BATCH);
+    final List<String> order = runQueued(controller, List.of("bulk-1", "bulk-2", "user-1"), first);
+    Assertions.assertEquals(List.of("user-1", "bulk-1", "bulk-2"), order);
+  }
+
+  @Test
+  public void testBatchPromotion() throws Exception {
+    final AdmissionController controller = new AdmissionController(AdmissionControlSettings.builder()
+        .defaultPolicyLimits(new AdmissionControlSettings.Limits(1, 10))
+        .batchPromotionAge(Duration.ofMillis(100))
+        .build());
+    final AdmissionController.Permit first = controller.acquire("default", "user");
+    final List<String> order = runQueued(controller, List.of("bulk-1", "sleep", "user-1", "user-2"), first);
+    Assertions.assertEquals(List.of("bulk-1", "user-1", "user-2"), order);
+  }
+
+  @Test
+  public void testBatchConcurrencyShare() throws Exception {
+    final AdmissionController controller = new AdmissionController(AdmissionControlSettings.builder()
+        .defaultPolicyLimits(new AdmissionControlSettings.Limits(4, 10))
+        .batchConcurrencyShare(0.5)
+        .maxWait(Duration.ofMillis(50))
+        .build());
+    try (final AdmissionController.Permit p1 = controller.acquire("default", "bulk", ProcessingPriority.BATCH);
+        final AdmissionController.Permit p2 = controller.acquire("default", "bulk", ProcessingPriority.BATCH)) {
+      Assertions.assertEquals(2, controller.getPolicyStatistics().get("default").activeBatch());
+      Assertions.assertThrows(AdmissionRejectedException.class,
+          () -> controller.acquire("default", "bulk", ProcessingPriority.BATCH));
+      try (final AdmissionController.Permit p3 = controller.acquire("default", "user", ProcessingPriority.INTERACTIVE);
+          final AdmissionController.Permit p4 = controller.acquire("default", "user")) {
+        Assertions.assertEquals(ProcessingPriority.INTERACTIVE, p4.getPriority());
+      }
+    }
+  }
+
+  /**
+   * Queues the given calls ("bulk-*" are batch calls, "sleep" waits 150 ms), releases the first permit, and returns
+   * the order in which the calls were admitted.
+   */
+  private static List<String> runQueued(final AdmissionController controller, final List<String> calls,
+      final AdmissionController.Permit first) throws Exception {
+    final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    final List<Thread> threads = new ArrayList<>();
+    for (final String call : calls) {
+      if ("sleep".equals(call)) {
+        Thread.sleep(150);
+        continue;
+      }
+      final String caller = call.substring(0, call.indexOf('-'));
+      final ProcessingPriority priority = "bulk".equals(caller) ? ProcessingPriority.BATCH : null;
+      final int expectedQueued = threads.size() + 1;
+      final Thread thread = new Thread(() -> {
+        try (final AdmissionController.Permit permit = controller.acquire("default", caller, priority)) {
+          order.add(call);
+        }
+        catch (final AdmissionRejectedException e) {
+          order.add(e.getMessage());
+        }
+      });
+      thread.start();
+      threads.add(thread);
+      waitFor(() -> controller.getPolicyStatistics().get("default").queued() == expectedQueued);
+    }
+    first.close();
+    for (final Thread thread : threads) {
+      thread.join(5000);
+    }
+    return order;
+  }
+
+  private static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+    final long end = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > end) {
+        Assertions.fail("Condition not met");
+      }
+      Thread.sleep(5);
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.admission;
+
+import se.idsec.signservice.integration.core.ProcessingPriority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Load benchmark showing that the wait time for interactive calls stays flat when the policy is saturated by batch
+ * calls. Each phase runs an interactive client (5 ms calls) while a number of batch clients (20 ms calls) are looping.
+ * With priorities, the interactive p99 wait should stay below the duration of a batch call.
+ * <p>
+ * The figures depend on the load of the machine, so the benchmark is not run as part of the build; run the
+ * {@link #main(String[])} method (with the test classpath) to execute it.
+ * </p>
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class AdmissionPriorityLoadBenchmark {
+
+  private static final long PHASE_MILLIS = 1500;
+
+  private static final int MAX_CONCURRENT = 8;
+
+  public static void main(final String[] args) throws Exception {
+    final double baseline = runPhase(0, ProcessingPriority.BATCH);
+    final double saturated = runPhase(3 * MAX_CONCURRENT, ProcessingPriority.BATCH);
+    final double saturatedWithoutHints = runPhase(3 * MAX_CONCURRENT, null);
+
+    System.out.printf(
+        "Interactive p99 wait: idle=%.2f ms, batch saturation=%.2f ms, saturation without hints=%.2f ms%n",
+        baseline, saturated, saturatedWithoutHints);
+  }
+
+  /**
+   * Runs a phase and returns the interactive p99 wait time in millis.
+   */
+  private static double runPhase(final int batchClients, final ProcessingPriority batchPriority) throws Exception {
+    final AdmissionController controller = new AdmissionController(AdmissionControlSettings.builder()
+        .defaultPolicyLimits(new AdmissionControlSettings.Limits(MAX_CONCURRENT, 1000))
+        .defaultCallerLimits(AdmissionControlSettings.Limits.unlimited())
+        .build());
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < batchClients; i++) {
+      threads.add(new Thread(() -> {
+        while (running.get()) {
+          try (final AdmissionController.Permit permit = controller.acquire("default", "bulk", batchPriority)) {
+            Thread.sleep(20);
+          }
+          catch (final AdmissionRejectedException | InterruptedException e) {
+            return;
+          }
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    Thread.sleep(100);
+
+    final List<Long> waits = new ArrayList<>();
+    final long end = System.currentTimeMillis() + PHASE_MILLIS;
+    while (System.currentTimeMillis() < end) {
+      final long start = System.nanoTime();
+      try (final AdmissionController.Permit permit =
+          controller.acquire("default", "user", ProcessingPriority.INTERACTIVE)) {
+        waits.add(System.nanoTime() - start);
+        Thread.sleep(5);
+      }
+      Thread.sleep(5);
+    }
+    running.set(false);
+    for (final Thread thread : threads) {
+      thread.join(5000);
+    }
+
+    Collections.sort(waits);
+    final long p99 = waits.get((int) Math.ceil(waits.size() * 0.99) - 1);
+    return p99 / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.authentication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Test cases for {@code SignerAssertionInformation}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignerAssertionInformationTest {
+
+  private static final String PNR = "urn:oid:1.2.752.29.4.13";
+  private static final String MAIL = "urn:oid:0.9.2342.19200300.100.1.3";
+
+  @Test
+  public void testAttributeLookup() {
+    final SignerAssertionInformation info = SignerAssertionInformation.builder()
+        .signerAttribute(SignerIdentityAttributeValue.builder().name(PNR).value("196911292032").build())
+        .signerAttribute(SignerIdentityAttributeValue.builder().name(MAIL).value("a@example.com").build())
+        .signerAttribute(SignerIdentityAttributeValue.builder()
+            .type(SignerIdentityAttribute.SAML_TYPE).name(MAIL).value("b@example.com").build())
+        .build();
+
+    Assertions.assertEquals("196911292032", info.getAttributeValue(PNR));
+    Assertions.assertEquals("a@example.com", info.getAttributeValue(MAIL));
+    Assertions.assertEquals(List.of("a@example.com", "b@example.com"), info.getAttributeValues(MAIL));
+    Assertions.assertNull(info.getAttributeValue("urn:oid:2.5.4.42"));
+    Assertions.assertTrue(info.getAttributeValues("urn:oid:2.5.4.42").isEmpty());
+
+    Assertions.assertEquals(2, info.getSignerAttributes(null, MAIL).size());
+    Assertions.assertEquals(2, info.getSignerAttributes("SAML", MAIL).size());
+    Assertions.assertTrue(info.getSignerAttributes("oidc", MAIL).isEmpty());
+
+    // Replacing the list should rebuild the index
+    info.setSignerAttributes(List.of(SignerIdentityAttributeValue.builder().name(PNR).value("197705232382").build()));
+    Assertions.assertEquals("197705232382", info.getAttributeValue(PNR));
+    Assertions.assertNull(info.getAttributeValue(MAIL));
+  }
+
+  @Test
+  public void testNoAttributes() {
+    final SignerAssertionInformation info = new SignerAssertionInformation();
+    Assertions.assertNull(info.getAttributeValue(PNR));
+    Assertions.assertTrue(info.getAttributeValues(PNR).isEmpty());
+  }
+
+  @Test
+  public void testJson() throws Exception {
+    final SignerAssertionInformation info = SignerAssertionInformation.builder()
+        .signerAttribute(SignerIdentityAttributeValue.builder().name(PNR).value("196911292032").build())
+        .authnInstant(System.currentTimeMillis())
+        .build();
+    Assertions.assertEquals("196911292032", info.getAttributeValue(PNR));
+
+    final ObjectMapper mapper = new ObjectMapper();
+    final String json = mapper.writeValueAsString(info);
+    Assertions.assertFalse(json.contains("attributeIndex"));
+
+    final SignerAssertionInformation info2 = mapper.readValue(json, SignerAssertionInformation.class);
+    Assertions.assertEquals("196911292032", info2.getAttributeValue(PNR));
+  }
+
+}
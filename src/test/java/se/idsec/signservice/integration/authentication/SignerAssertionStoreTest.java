@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.authentication;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignatureResult;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Test cases for {@link SignerAssertionStore}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignerAssertionStoreTest {
+
+  @Test
+  public void testInclude() throws Exception {
+    final SignerAssertionStore store = new SignerAssertionStore();
+    Assertions.assertEquals("ASSERTION", store.apply(result(), null, "caller").getSignerAssertionInformation()
+        .getAssertion());
+    Assertions.assertEquals("ASSERTION", store.apply(result(), parameters(SignerAssertionDelivery.INCLUDE), "caller")
+        .getSignerAssertionInformation().getAssertion());
+    Assertions.assertEquals(0, store.size());
+  }
+
+  @Test
+  public void testOmit() throws Exception {
+    final SignerAssertionStore store = new SignerAssertionStore();
+    final SignatureResult result = store.apply(result(), parameters(SignerAssertionDelivery.OMIT), "caller");
+    Assertions.assertNull(result.getSignerAssertionInformation().getAssertion());
+    Assertions.assertEquals("REF", result.getSignerAssertionInformation().getAssertionReference());
+    Assertions.assertEquals(0, store.size());
+    Assertions.assertThrows(AssertionNotFoundException.class, () -> store.getAssertion("REF", "caller"));
+  }
+
+  @Test
+  public void testReference() throws Exception {
+    final Instant now = Instant.parse("2025-01-01T00:00:00Z");
+    final SignerAssertionStore store =
+        new SignerAssertionStore(10, Duration.ofMinutes(1), Clock.fixed(now, ZoneOffset.UTC));
+    final SignatureResult result = store.apply(result(), parameters(SignerAssertionDelivery.REFERENCE), "caller");
+    Assertions.assertNull(result.getSignerAssertionInformation().getAssertion());
+    Assertions.assertEquals("REF", result.getSignerAssertionInformation().getAssertionReference());
+    final String reference = result.getSignerAssertionInformation().getStoredAssertionReference();
+    Assertions.assertNotNull(reference);
+    Assertions.assertEquals(1, store.size());
+    Assertions.assertEquals("ASSERTION", store.getAssertion(reference, "caller"));
+    Assertions.assertThrows(AssertionNotFoundException.class, () -> store.getAssertion(reference, "other"));
+    Assertions.assertThrows(AssertionNotFoundException.class, () -> store.getAssertion("REF", "caller"));
+
+    final SignerAssertionStore expired =
+        new SignerAssertionStore(10, Duration.ZERO, Clock.fixed(now, ZoneOffset.UTC));
+    final String expiredReference = expired.apply(result(), parameters(SignerAssertionDelivery.REFERENCE), "caller")
+        .getSignerAssertionInformation().getStoredAssertionReference();
+    Assertions.assertThrows(AssertionNotFoundException.class, () -> expired.getAssertion(expiredReference, "caller"));
+  }
+
+  @Test
+  public void testSameAssertionSeveralCallers() throws Exception {
+    final SignerAssertionStore store = new SignerAssertionStore();
+    final String first = store.apply(result(), parameters(SignerAssertionDelivery.REFERENCE), "caller")
+        .getSignerAssertionInformation().getStoredAssertionReference();
+    final String second = store.apply(result(), parameters(SignerAssertionDelivery.REFERENCE), "other")
+        .getSignerAssertionInformation().getStoredAssertionReference();
+    Assertions.assertNotEquals(first, second);
+    Assertions.assertEquals(2, store.size());
+    Assertions.assertEquals("ASSERTION", store.getAssertion(first, "caller"));
+    Assertions.assertEquals("ASSERTION", store.getAssertion(second, "other"));
+    Assertions.assertThrows(AssertionNotFoundException.class, () -> store.getAssertion(first, "other"));
+  }
+
+  private static SignatureResult result() {
+    final SignerAssertionInformation info = new SignerAssertionInformation();
+    info.setAssertionReference("REF");
+    info.setAssertion("ASSERTION");
+    return SignatureResult.builder().signerAssertionInformation(info).build();
+  }
+
+  private static SignResponseProcessingParameters parameters(final SignerAssertionDelivery delivery) {
+    final SignResponseProcessingParameters parameters = new SignResponseProcessingParameters();
+    parameters.setSignerAssertionDelivery(delivery);
+    return parameters;
+  }
+
+}
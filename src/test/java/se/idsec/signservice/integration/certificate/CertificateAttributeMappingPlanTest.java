@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.certificate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.authentication.AuthnRequirements;
+import se.idsec.signservice.integration.authentication.SignerIdentityAttribute;
+import se.idsec.signservice.integration.authentication.SignerIdentityAttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Test cases for {@code CertificateAttributeMappingPlan}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class CertificateAttributeMappingPlanTest {
+
+  private static final String PNR = "urn:oid:1.2.752.29.4.13";
+  private static final String PRID = "urn:oid:1.2.752.201.3.4";
+  private static final String GN = "urn:oid:2.5.4.42";
+  private static final String C = "urn:oid:2.5.4.6";
+
+  private static final SigningCertificateRequirements REQUIREMENTS = SigningCertificateRequirements.builder()
+      .certificateType(CertificateType.PKC)
+      .attributeMapping(CertificateAttributeMapping.builder()
+          .source(SignerIdentityAttribute.createBuilder().name(PNR).build())
+          .source(SignerIdentityAttribute.createBuilder().name(PRID).build())
+          .destination(RequestedCertificateAttribute.builder()
+              .type(RequestedCertificateAttributeType.RDN).name("2.5.4.5").required(true).build())
+          .build())
+      .attributeMapping(CertificateAttributeMapping.builder()
+          .source(SignerIdentityAttribute.createBuilder().name(GN).build())
+          .source(SignerIdentityAttribute.createBuilder().type("saml").name(PNR).build())
+          .destination(RequestedCertificateAttribute.builder()
+              .type(RequestedCertificateAttributeType.RDN).name("2.5.4.42").build())
+          .build())
+      .attributeMapping(CertificateAttributeMapping.builder()
+          .destination(RequestedCertificateAttribute.builder()
+              .type(RequestedCertificateAttributeType.RDN).name("2.5.4.6").defaultValue("SE").required(true).build())
+          .build())
+      .build();
+
+  @Test
+  public void testCompile() {
+    final CertificateAttributeMappingPlan plan = CertificateAttributeMappingPlan.compile(REQUIREMENTS,
+        AuthnRequirements.builder()
+            .requestedSignerAttribute(SignerIdentityAttributeValue.builder().name(C).value("SE").build())
+            .build());
+
+    Assertions.assertEquals(3, plan.getMappings().size());
+    Assertions.assertEquals(3, plan.getSourceAttributes().size());
+    Assertions.assertEquals(Set.of(PNR, PRID, GN, C), plan.getSignerAttributeNames());
+    Assertions.assertEquals(1, plan.getRequestedSignerAttributes().size());
+    Assertions.assertEquals(RequestedCertificateAttributeType.RDN, plan.getMappings().get(0).getDestinationType());
+
+    // Only the first mapping is mandatory (the third has a default value)
+    Assertions.assertEquals(1, plan.getRequiredMappings().size());
+    Assertions.assertEquals("2.5.4.5", plan.getRequiredMappings().get(0).getDestinationName());
+  }
+
+  @Test
+  public void testResolve() {
+    final CertificateAttributeMappingPlan plan = CertificateAttributeMappingPlan.compile(REQUIREMENTS, null);
+
+    final Map<String, String> attributes = Map.of(PRID, "abc123", GN, "Kalle");
+    Assertions.assertTrue(plan.getUnfulfilledMappings(attributes::get).isEmpty());
+    Assertions.assertEquals("abc123", plan.getMappings().get(0).resolve(attributes::get));
+    Assertions.assertEquals("SE", plan.getMappings().get(2).resolve(attributes::get));
+
+    final List<CertificateAttributeMappingPlan.CompiledMapping> unfulfilled =
+        plan.getUnfulfilledMappings(Map.of(GN, "Kalle")::get);
+    Assertions.assertEquals(1, unfulfilled.size());
+    Assertions.assertEquals("2.5.4.5", unfulfilled.get(0).getDestinationName());
+  }
+
+  @Test
+  public void testEmpty() {
+    final CertificateAttributeMappingPlan plan = CertificateAttributeMappingPlan.compile(null, null);
+    Assertions.assertTrue(plan.getMappings().isEmpty());
+    Assertions.assertTrue(plan.getSignerAttributeNames().isEmpty());
+  }
+
+  @Test
+  public void testMissingDestination() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> CertificateAttributeMappingPlan.compile(
+        SigningCertificateRequirements.builder()
+            .attributeMapping(CertificateAttributeMapping.builder()
+                .source(SignerIdentityAttribute.createBuilder().name(PNR).build())
+                .build())
+            .build(), null));
+  }
+
+}
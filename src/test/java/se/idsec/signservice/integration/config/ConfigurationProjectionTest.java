@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.SignServiceIntegrationJackson;
+import se.idsec.signservice.integration.core.FileResource;
+import se.idsec.signservice.integration.document.pdf.PdfSignatureImageTemplate;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test cases for {@code ConfigurationProjection}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class ConfigurationProjectionTest {
+
+  @Test
+  public void testLite() throws Exception {
+    final FileResource pdf = FileResource.builder().contents("JVBERi0xLjQ=").description("Sign page").build();
+    final TestConfiguration configuration = TestConfiguration.builder()
+        .policy("default")
+        .defaultReturnUrl("https://example.com")
+        .pdfSignaturePages(List.of(PdfSignaturePage.builder().id("page").pdfDocument(pdf).columns(2).build()))
+        .pdfSignatureImageTemplates(List.of(PdfSignatureImageTemplate.builder()
+            .reference("template")
+            .svgImageFile(FileResource.builder().contents("PHN2Zz48L3N2Zz4=").build())
+            .width(300)
+            .height(100)
+            .fields(Map.of("reason", "Reason"))
+            .build()))
+        .build();
+
+    final IntegrationServiceDefaultConfiguration lite = ConfigurationProjection.lite(configuration);
+    Assertions.assertEquals("https://example.com", lite.getDefaultReturnUrl());
+    Assertions.assertSame(lite, ConfigurationProjection.lite(lite));
+
+    final JsonNode json = SignServiceIntegrationJackson.getObjectMapper().valueToTree(lite);
+    final JsonNode page = json.get("pdfSignaturePages").get(0);
+    Assertions.assertEquals(2, page.get("columns").asInt());
+    Assertions.assertFalse(page.get("pdfDocument").has("contents"));
+    Assertions.assertEquals("Sign page", page.get("pdfDocument").get("description").asText());
+    final JsonNode template = json.get("pdfSignatureImageTemplates").get(0);
+    Assertions.assertEquals(300, template.get("width").asInt());
+    Assertions.assertEquals("Reason", template.get("fields").get("reason").asText());
+    Assertions.assertTrue(template.get("svgImageFile").has("contentsDigest"));
+
+    final String reference = page.get("pdfDocument").get("contentsReference").asText();
+    Assertions.assertSame(pdf, ConfigurationProjection.getResource(configuration, reference));
+    Assertions.assertThrows(ResourceNotFoundException.class,
+        () -> ConfigurationProjection.getResource(configuration, "unknown"));
+
+    // The original configuration is not changed
+    Assertions.assertEquals("JVBERi0xLjQ=", configuration.getPdfSignaturePages().get(0).getPdfDocument().getContents());
+
+    final PolicySnapshot snapshot = new PolicySnapshot(List.of(configuration), 1);
+    Assertions.assertSame(snapshot.getLiteConfiguration(null), snapshot.getLiteConfiguration("default"));
+    Assertions.assertSame(pdf, snapshot.getConfigurationResource(null, reference));
+    Assertions.assertThrows(ResourceNotFoundException.class,
+        () -> snapshot.getConfigurationResource("default", "unknown"));
+    final FileResource svg = configuration.getPdfSignatureImageTemplates().get(0).getSvgImageFile();
+    Assertions.assertEquals(Map.of(reference, pdf, ConfigurationProjection.toReference(svg), svg),
+        ConfigurationProjection.index(configuration));
+
+    // A resource of a lite projection only holds a reference, and is valid
+    final FileResource litePdf = snapshot.getLiteConfiguration(null).getPdfSignaturePages().get(0).getPdfDocument();
+    Assertions.assertEquals(reference, litePdf.getContentsReference());
+    Assertions.assertDoesNotThrow(litePdf::afterPropertiesSet);
+  }
+
+}
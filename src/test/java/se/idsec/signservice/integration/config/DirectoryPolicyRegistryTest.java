@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test cases for {@code DirectoryPolicyRegistry}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class DirectoryPolicyRegistryTest {
+
+  private static final PolicyConfigurationLoader LOADER = PolicyConfigurationLoader.json(TestConfiguration.class);
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testReload() throws Exception {
+    write("default.json", "default", "https://example.com/1");
+    write("other.json", "other", "https://example.com/2");
+    Files.writeString(this.dir.resolve("README.txt"), "not a policy");
+
+    try (final DirectoryPolicyRegistry registry = new DirectoryPolicyRegistry(this.dir, LOADER)) {
+      final PolicySnapshot first = registry.getSnapshot();
+      Assertions.assertEquals(List.of("default", "other"), registry.getPolicies());
+      Assertions.assertTrue(first.toString().endsWith("policies=2"));
+      Assertions.assertEquals("https://example.com/1", registry.getConfiguration(null).getDefaultReturnUrl());
+      Assertions.assertThrows(PolicyNotFoundException.class, () -> registry.getConfiguration("unknown"));
+
+      write("other.json", "other", "https://example.com/3");
+      final PolicySnapshot second = registry.reload();
+      Assertions.assertEquals(first.getVersion() + 1, second.getVersion());
+      Assertions.assertEquals("https://example.com/3", registry.getConfiguration("other").getDefaultReturnUrl());
+
+      // The first snapshot is unchanged
+      Assertions.assertEquals("https://example.com/2", first.getConfiguration("other").getDefaultReturnUrl());
+
+      // Invalid configurations do not replace the current snapshot
+      write("duplicate.json", "other", "https://example.com/4");
+      Assertions.assertThrows(IOException.class, registry::reload);
+      Files.writeString(this.dir.resolve("broken.json"), "{ \"policy\": ");
+      Files.delete(this.dir.resolve("duplicate.json"));
+      Assertions.assertThrows(IOException.class, registry::reload);
+      Assertions.assertSame(second, registry.getSnapshot());
+    }
+  }
+
+  @Test
+  public void testWatch() throws Exception {
+    write("default.json", "default", "https://example.com/1");
+    try (final DirectoryPolicyRegistry registry = new DirectoryPolicyRegistry(this.dir, LOADER)) {
+      registry.setQuietPeriod(Duration.ofMillis(50));
+      final List<PolicySnapshot> published = new CopyOnWriteArrayList<>();
+      registry.addListener(published::add);
+      registry.startWatching();
+
+      write("added.json", "added", "https://example.com/2");
+
+      final long end = System.currentTimeMillis() + 10000;
+      while (!registry.getPolicies().contains("added") && System.currentTimeMillis() < end) {
+        Thread.sleep(20);
+      }
+      Assertions.assertEquals(List.of("added", "default"), registry.getPolicies());
+      Assertions.assertFalse(published.isEmpty());
+    }
+  }
+
+  @Test
+  public void testWatchBaseFile() throws Exception {
+    Files.createDirectory(this.dir.resolve("base"));
+    Files.writeString(this.dir.resolve("base/common.json"), "{ \"defaultReturnUrl\": \"https://example.com/1\" }");
+    Files.writeString(this.dir.resolve("a.json"), "{ \"@base\": \"base/common.json\", \"policy\": \"a\" }");
+    Files.writeString(this.dir.resolve("b.json"), "{ \"@base\": \"base/common.json\", \"policy\": \"b\" }");
+
+    final PolicyConfigurationLoader loader =
+        PolicyConfigurationLoader.json(TestConfiguration.class, new SharedPolicyResources());
+    try (final DirectoryPolicyRegistry registry = new DirectoryPolicyRegistry(this.dir, loader)) {
+      Assertions.assertEquals(Set.of(this.dir.resolve("base/common.json").toAbsolutePath().normalize()),
+          loader.getDependencies());
+      registry.setQuietPeriod(Duration.ofMillis(50));
+      registry.startWatching();
+
+      Files.writeString(this.dir.resolve("base/common.json"), "{ \"defaultReturnUrl\": \"https://example.com/2\" }");
+
+      final long end = System.currentTimeMillis() + 10000;
+      while (!"https://example.com/2".equals(registry.getConfiguration("b").getDefaultReturnUrl())
+          && System.currentTimeMillis() < end) {
+        Thread.sleep(20);
+      }
+      Assertions.assertEquals("https://example.com/2", registry.getConfiguration("a").getDefaultReturnUrl());
+      Assertions.assertEquals("https://example.com/2", registry.getConfiguration("b").getDefaultReturnUrl());
+    }
+  }
+
+  private void write(final String file, final String policy, final String returnUrl) throws IOException {
+    Files.writeString(this.dir.resolve(file),
+        "{ \"policy\": \"%s\", \"defaultReturnUrl\": \"%s\" }".formatted(policy, returnUrl));
+  }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.idsec.signservice.integration.document.pdf.PdfSignatureImageTemplate;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Test cases for {@code PolicyCatalogue}, {@code PolicySnapshot} and {@code SharedPolicyResources}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class PolicyCatalogueTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testPaging() throws Exception {
+    final List<TestConfiguration> configurations = IntStream.range(0, 250)
+        .mapToObj(i -> TestConfiguration.builder().policy("tenant-%03d".formatted(i)).build())
+        .collect(Collectors.toList());
+    configurations.add(TestConfiguration.builder().policy("default").build());
+    final PolicyCatalogue catalogue = new PolicySnapshot(configurations, 1);
+
+    Assertions.assertEquals(251, catalogue.getPolicyCount());
+    Assertions.assertTrue(catalogue.containsPolicy("tenant-042"));
+    Assertions.assertFalse(catalogue.containsPolicy("tenant-999"));
+    Assertions.assertEquals("tenant-042", catalogue.getConfiguration("tenant-042").getPolicy());
+
+    final List<String> listed = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      final PolicyCatalogue.Page page = catalogue.getPolicies("tenant-", cursor, 100);
+      listed.addAll(page.policies());
+      cursor = page.next();
+      pages++;
+    }
+    while (cursor != null);
+    Assertions.assertEquals(3, pages);
+    Assertions.assertEquals(catalogue.streamPolicies("tenant-").toList(), listed);
+    Assertions.assertEquals(250, listed.size());
+
+    Assertions.assertEquals(List.of("tenant-010", "tenant-011"), catalogue.getPolicies("tenant-01", "tenant-009", 2)
+        .policies());
+    Assertions.assertEquals(10, catalogue.streamPolicies("tenant-01").count());
+    Assertions.assertEquals(0, catalogue.streamPolicies("x").count());
+    Assertions.assertEquals(new PolicyCatalogue.Page(List.of(), null), catalogue.getPolicies("x", null, 10));
+    Assertions.assertEquals(List.of("default"), catalogue.getPolicies(null, null, 1).policies());
+  }
+
+  @Test
+  public void testConditionalGet() throws Exception {
+    final PolicySnapshot snapshot = new PolicySnapshot(List.of(
+        TestConfiguration.builder().policy("default").defaultReturnUrl("https://example.com/1").build()), 1);
+
+    final ConditionalConfiguration first = snapshot.getConfigurationIfChanged(null, null);
+    Assertions.assertTrue(first.isModified());
+    Assertions.assertSame(snapshot.getConfiguration(null), first.getConfiguration());
+
+    final ConditionalConfiguration second = snapshot.getConfigurationIfChanged(null, first.getETag());
+    Assertions.assertFalse(second.isModified());
+    Assertions.assertNull(second.getConfiguration());
+    Assertions.assertFalse(snapshot.getConfigurationIfChanged(null, "W/\"x\", \"%s\"".formatted(first.getETag()))
+        .isModified());
+
+    // Equal contents give equal ETags, changed contents do not
+    final PolicySnapshot reloaded = new PolicySnapshot(List.of(
+        TestConfiguration.builder().policy("default").defaultReturnUrl("https://example.com/1").build()), 2);
+    Assertions.assertEquals(first.getETag(), reloaded.getETag("default"));
+    final PolicySnapshot changed = new PolicySnapshot(List.of(
+        TestConfiguration.builder().policy("default").defaultReturnUrl("https://example.com/2").build()), 3);
+    Assertions.assertTrue(changed.getConfigurationIfChanged(null, first.getETag()).isModified());
+
+    Assertions.assertThrows(PolicyNotFoundException.class, () -> snapshot.getConfigurationIfChanged("other", null));
+  }
+
+  @Test
+  public void testSharedResources() throws Exception {
+    final String page = """
+        { "id": "page", "pdfDocument": { "contents": "JVBERi0xLjQ=" }, "rows": 1, "columns": 1 }""";
+    Files.createDirectory(this.dir.resolve("base"));
+    Files.writeString(this.dir.resolve("base/common.json"), """
+        { "defaultReturnUrl": "https://example.com/common", "pdfSignaturePages": [ %s ] }""".formatted(page));
+    Files.writeString(this.dir.resolve("a.json"), """
+        { "@base": "base/common.json", "policy": "a" }""");
+    Files.writeString(this.dir.resolve("b.json"), """
+        { "@base": "base/common.json", "policy": "b", "defaultReturnUrl": "https://example.com/b" }""");
+    Files.writeString(this.dir.resolve("c.json"), """
+        { "policy": "c", "pdfSignaturePages": [ %s ],
+          "pdfSignatureImageTemplates": [ { "reference": "t", "svgImageFile": { "contents": "JVBERi0xLjQ=" } } ] }"""
+        .formatted(page));
+
+    final SharedPolicyResources resources = new SharedPolicyResources();
+    try (final DirectoryPolicyRegistry registry = new DirectoryPolicyRegistry(
+        this.dir, PolicyConfigurationLoader.json(TestConfiguration.class, resources))) {
+
+      Assertions.assertEquals(List.of("a", "b", "c"), registry.getPolicies());
+      Assertions.assertEquals("https://example.com/common", registry.getConfiguration("a").getDefaultReturnUrl());
+      Assertions.assertEquals("https://example.com/b", registry.getConfiguration("b").getDefaultReturnUrl());
+
+      final PdfSignaturePage pageA = registry.getConfiguration("a").getPdfSignaturePages().get(0);
+      Assertions.assertSame(pageA, registry.getConfiguration("b").getPdfSignaturePages().get(0));
+      Assertions.assertSame(pageA, registry.getConfiguration("c").getPdfSignaturePages().get(0));
+
+      // The file resource of the template is the same as the one of the sign page
+      final PdfSignatureImageTemplate template = registry.getConfiguration("c").getPdfSignatureImageTemplates().get(0);
+      Assertions.assertSame(pageA.getPdfDocument(), template.getSvgImageFile());
+
+      // One file resource, one page and one template
+      Assertions.assertEquals(3, resources.size());
+    }
+  }
+
+  @Test
+  public void testCyclicBase() throws Exception {
+    Files.writeString(this.dir.resolve("a.json"), "{ \"@base\": \"b.json\", \"policy\": \"a\" }");
+    Files.writeString(this.dir.resolve("b.json"), "{ \"@base\": \"a.json\", \"policy\": \"b\" }");
+    Assertions.assertThrows(IOException.class, () -> PolicyConfigurationLoader.json(
+        TestConfiguration.class, new SharedPolicyResources()).load(this.dir.resolve("a.json")));
+  }
+
+}
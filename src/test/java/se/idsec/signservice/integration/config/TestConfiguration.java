@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import se.idsec.signservice.integration.certificate.SigningCertificateRequirements;
+import se.idsec.signservice.integration.core.Extension;
+import se.idsec.signservice.integration.document.pdf.PdfPrepareSettings;
+import se.idsec.signservice.integration.document.pdf.PdfSignatureImageTemplate;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePage;
+import se.idsec.signservice.integration.document.pdf.VisiblePdfSignatureRequirement;
+import se.idsec.signservice.integration.security.EncryptionParameters;
+
+import java.io.Serial;
+import java.util.List;
+
+/**
+ * Simple implementation of {@link IntegrationServiceDefaultConfiguration} for use in tests.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestConfiguration implements IntegrationServiceDefaultConfiguration {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  @Builder.Default
+  private String policy = DEFAULT_POLICY_NAME;
+  private String defaultSignRequesterID;
+  private String defaultReturnUrl;
+  private String defaultSignatureAlgorithm;
+  private String signServiceID;
+  private String defaultDestinationUrl;
+  private String defaultAuthnServiceID;
+  private String defaultAuthnContextRef;
+  private SigningCertificateRequirements defaultCertificateRequirements;
+  private VisiblePdfSignatureRequirement defaultVisiblePdfSignatureRequirement;
+  private List<PdfSignatureImageTemplate> pdfSignatureImageTemplates;
+  private List<PdfSignaturePage> pdfSignaturePages;
+  @Builder.Default
+  private PdfPrepareSettings pdfPrepareSettings = PdfPrepareSettings.DEFAULT;
+  private boolean stateless;
+  private EncryptionParameters defaultEncryptionParameters;
+  private String signatureCertificate;
+  @Builder.Default
+  private List<String> signServiceCertificates = List.of();
+  @Builder.Default
+  private List<String> trustAnchors = List.of();
+  private Extension extension;
+
+}
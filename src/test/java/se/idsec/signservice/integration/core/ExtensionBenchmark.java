@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing lookups in {@link Extension} with lookups in a {@link HashMap}. Not run as part of the
+ * build; run the {@link #main(String[])} method (with the test classpath) to execute it.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtensionBenchmark {
+
+  @Param({ "1", "3", "4", "16" })
+  private int entries;
+
+  private Extension extension;
+
+  private Map<String, String> hashMap;
+
+  private String hitKey;
+
+  private String missKey;
+
+  @Setup
+  public void setup() {
+    this.extension = new Extension();
+    this.hashMap = new HashMap<>();
+    for (int i = 0; i < this.entries; i++) {
+      // Use new String instances so that lookups can't rely on reference equality
+      this.extension.put(new String("extension-key-" + i), "value" + i);
+      this.hashMap.put(new String("extension-key-" + i), "value" + i);
+    }
+    this.hitKey = new String("extension-key-" + (this.entries - 1));
+    this.missKey = "no-such-key";
+  }
+
+  @Benchmark
+  public String extensionHit() {
+    return this.extension.get(this.hitKey);
+  }
+
+  @Benchmark
+  public String extensionMiss() {
+    return this.extension.get(this.missKey);
+  }
+
+  @Benchmark
+  public String hashMapHit() {
+    return this.hashMap.get(this.hitKey);
+  }
+
+  @Benchmark
+  public String hashMapMiss() {
+    return this.hashMap.get(this.missKey);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(ExtensionBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
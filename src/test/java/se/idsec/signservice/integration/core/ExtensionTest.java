@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Test cases for {@code Extension}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class ExtensionTest {
+
+  @Test
+  public void testMapContract() {
+    final Extension ext = new Extension();
+    final Map<String, String> expected = new HashMap<>();
+    Assertions.assertTrue(ext.isEmpty());
+
+    // Grow past the array threshold and shrink again, comparing against a HashMap
+    for (int i = 0; i < 2 * Extension.MAX_ARRAY_ENTRIES; i++) {
+      Assertions.assertEquals(expected.put("key" + i, "value" + i), ext.put("key" + i, "value" + i));
+      Assertions.assertEquals(expected, ext);
+      Assertions.assertEquals(expected.hashCode(), ext.hashCode());
+    }
+    Assertions.assertEquals("value3", ext.put("key3", "new"));
+    Assertions.assertEquals("new", ext.get("key3"));
+    Assertions.assertNull(ext.get("no-such-key"));
+    Assertions.assertEquals("new", ext.remove("key3"));
+    Assertions.assertFalse(ext.containsKey("key3"));
+
+    ext.clear();
+    Assertions.assertTrue(ext.isEmpty());
+
+    // Null keys and values are allowed (as for HashMap)
+    ext.put(null, "a");
+    ext.put("b", null);
+    Assertions.assertEquals("a", ext.get(null));
+    Assertions.assertTrue(ext.containsKey("b"));
+    Assertions.assertEquals(2, ext.size());
+  }
+
+  @Test
+  public void testIterator() {
+    final Extension ext = Extension.builder().add("a", "1").add("b", "2").add("c", "3").build();
+    final Iterator<Map.Entry<String, String>> it = ext.entrySet().iterator();
+    while (it.hasNext()) {
+      final Map.Entry<String, String> e = it.next();
+      if ("b".equals(e.getKey())) {
+        it.remove();
+      }
+      else {
+        e.setValue(e.getValue() + "x");
+      }
+    }
+    Assertions.assertEquals(Map.of("a", "1x", "c", "3x"), ext);
+  }
+
+  @Test
+  public void testJson() throws Exception {
+    final ObjectMapper mapper = new ObjectMapper();
+    final Extension ext = Extension.builder().add("a", "1").add("b", "2").build();
+    final String json = mapper.writeValueAsString(ext);
+    Assertions.assertEquals("{\"a\":\"1\",\"b\":\"2\"}", json);
+    final Extension ext2 = mapper.readValue(json, Extension.class);
+    Assertions.assertEquals(ext, ext2);
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    final Extension ext = new Extension();
+    for (int i = 0; i < 20; i++) {
+      ext.put("key" + i, "value" + i);
+    }
+    final Extension small = Extension.builder().add("a", "1").build();
+    Assertions.assertEquals(ext, serializeAndDeserialize(ext));
+    Assertions.assertEquals(small, serializeAndDeserialize(small));
+    Assertions.assertEquals(new Extension(), serializeAndDeserialize(new Extension()));
+  }
+
+  @Test
+  public void testFootprint() {
+    final long emptySize = GraphLayout.parseInstance(new Extension()).totalSize();
+    final long emptyHashMapSize = GraphLayout.parseInstance(new HashMap<String, String>()).totalSize();
+    Assertions.assertTrue(emptySize <= emptyHashMapSize,
+        "Empty Extension: %d bytes, empty HashMap: %d bytes".formatted(emptySize, emptyHashMapSize));
+
+    // Compare the size of the container (not counting the keys and values)
+    for (int n = 1; n <= 3; n++) {
+      final Extension ext = new Extension();
+      final HashMap<String, String> hashMap = new HashMap<>();
+      for (int i = 0; i < n; i++) {
+        ext.put("key" + i, "value" + i);
+        hashMap.put("key" + i, "value" + i);
+      }
+      final long extSize = GraphLayout.parseInstance(ext).totalSize()
+          - GraphLayout.parseInstance(ext.keySet().toArray(), ext.values().toArray()).totalSize();
+      final long hashMapSize = GraphLayout.parseInstance(hashMap).totalSize()
+          - GraphLayout.parseInstance(hashMap.keySet().toArray(), hashMap.values().toArray()).totalSize();
+      Assertions.assertTrue(extSize < hashMapSize,
+          "Extension(%d): %d bytes, HashMap(%d): %d bytes".formatted(n, extSize, n, hashMapSize));
+    }
+  }
+
+  private static Extension serializeAndDeserialize(final Extension ext) throws Exception {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (final ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(ext);
+    }
+    try (final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      return (Extension) ois.readObject();
+    }
+  }
+
+}
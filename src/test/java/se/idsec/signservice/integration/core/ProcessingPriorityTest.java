@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.SignRequestInput;
+import se.idsec.signservice.integration.SignServiceIntegrationJackson;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePagePreferences;
+
+/**
+ * Test cases for {@code ProcessingPriority} and the typed accessors.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class ProcessingPriorityTest {
+
+  @Test
+  public void testSignRequestInput() throws Exception {
+    final Extension extension = new Extension();
+    extension.put("other", "value");
+    final SignRequestInput input = SignRequestInput.builder()
+        .policy("default")
+        .extension(extension)
+        .processingPriority(ProcessingPriority.BATCH)
+        .build();
+    Assertions.assertEquals(ProcessingPriority.BATCH, input.getProcessingPriority());
+    Assertions.assertFalse(extension.containsKey(ProcessingPriority.EXTENSION_NAME));
+
+    final String json = SignServiceIntegrationJackson.writer(SignRequestInput.class).writeValueAsString(input);
+    final JsonNode tree = SignServiceIntegrationJackson.getObjectMapper().readTree(json);
+    Assertions.assertFalse(tree.has(ProcessingPriority.EXTENSION_NAME));
+    Assertions.assertEquals("BATCH", tree.get("extension").get(ProcessingPriority.EXTENSION_NAME).asText());
+    final SignRequestInput input2 = SignServiceIntegrationJackson.reader(SignRequestInput.class).readValue(json);
+    Assertions.assertEquals(ProcessingPriority.BATCH, input2.getProcessingPriority());
+    Assertions.assertEquals("value", input2.getExtensionValue("other"));
+
+    input2.setProcessingPriority(null);
+    Assertions.assertNull(input2.getProcessingPriority());
+    Assertions.assertEquals("value", input2.getExtensionValue("other"));
+    input2.addExtensionValue(ProcessingPriority.EXTENSION_NAME, "interactive");
+    Assertions.assertEquals(ProcessingPriority.INTERACTIVE, input2.getProcessingPriority());
+    input2.addExtensionValue(ProcessingPriority.EXTENSION_NAME, "unknown");
+    Assertions.assertNull(input2.getProcessingPriority());
+  }
+
+  @Test
+  public void testNoEmptyExtension() throws Exception {
+    final SignRequestInput input = SignRequestInput.builder()
+        .processingPriority(ProcessingPriority.BATCH)
+        .processingPriority(null)
+        .build();
+    Assertions.assertNull(input.getExtension());
+    Assertions.assertNull(PdfSignaturePagePreferences.builder().processingPriority(null).build().getExtension());
+
+    final SignRequestInput input2 = SignRequestInput.builder().processingPriority(ProcessingPriority.BATCH).build();
+    input2.setProcessingPriority(null);
+    Assertions.assertNull(input2.getExtension());
+    Assertions.assertFalse(SignServiceIntegrationJackson.writer(SignRequestInput.class).writeValueAsString(input2)
+        .contains("extension"));
+  }
+
+}
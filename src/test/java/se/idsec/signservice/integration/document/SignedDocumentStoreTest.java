@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignatureResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Test cases for {@link SignedDocumentStore} and {@link ByteRange}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignedDocumentStoreTest {
+
+  private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+  @Test
+  public void testInline() {
+    final SignedDocumentStore store = new SignedDocumentStore();
+    final SignatureResult result = store.apply(result(), new SignResponseProcessingParameters(), "caller");
+    Assertions.assertNotNull(result.getSignedDocuments().get(0).getSignedContent());
+    Assertions.assertNull(result.getSignedDocuments().get(0).getSignedContentReference());
+    Assertions.assertEquals(0, store.size());
+  }
+
+  @Test
+  public void testReference() throws Exception {
+    final SignedDocumentStore store = new SignedDocumentStore();
+    final SignResponseProcessingParameters parameters = SignResponseProcessingParameters.builder()
+        .returnDocumentReferences(true)
+        .build();
+    final SignedDocument document = store.apply(result(), parameters, "caller").getSignedDocuments().get(0);
+    Assertions.assertNull(document.getSignedContent());
+    Assertions.assertNotNull(document.getSignedContentReference());
+
+    final SignedDocumentContent content = store.getDocument(document.getSignedContentReference(), null, "caller");
+    Assertions.assertEquals("application/pdf", content.getMimeType());
+    Assertions.assertArrayEquals(CONTENT, content.getInputStream().readAllBytes());
+    Assertions.assertNull(content.getContentRange());
+
+    final SignedDocumentContent part =
+        store.getDocumentForRange(document.getSignedContentReference(), "bytes=4-", "caller");
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Assertions.assertEquals(6, part.transferTo(out));
+    Assertions.assertEquals("456789", out.toString(StandardCharsets.US_ASCII));
+    Assertions.assertEquals("bytes 4-9/10", part.getContentRange());
+
+    Assertions.assertThrows(DocumentNotFoundException.class,
+        () -> store.getDocument(document.getSignedContentReference(), null, "other"));
+    Assertions.assertThrows(RangeNotSatisfiableException.class,
+        () -> store.getDocumentForRange(document.getSignedContentReference(), "bytes=10-", "caller"));
+
+    store.remove(document.getSignedContentReference(), "caller");
+    Assertions.assertEquals(0, store.size());
+  }
+
+  @Test
+  public void testMaxBytes() throws Exception {
+    final SignedDocumentStore store = new SignedDocumentStore(100, 25, Duration.ofMinutes(1), Clock.systemUTC());
+    final String first = store.store(CONTENT, null, "caller");
+    final String second = store.store(CONTENT, null, "caller");
+    store.getDocument(first, null, "caller");
+    Assertions.assertEquals(20, store.getStoredBytes());
+
+    // The least recently used document is evicted to make room
+    final String third = store.store(CONTENT, null, "caller");
+    Assertions.assertEquals(2, store.size());
+    Assertions.assertEquals(20, store.getStoredBytes());
+    Assertions.assertThrows(DocumentNotFoundException.class, () -> store.getDocument(second, null, "caller"));
+    store.getDocument(first, null, "caller");
+    store.getDocument(third, null, "caller");
+
+    // A document larger than the store is left in the result
+    Assertions.assertThrows(IllegalArgumentException.class, () -> store.store(new byte[26], null, "caller"));
+    final SignedDocumentStore small = new SignedDocumentStore(100, 5, Duration.ofMinutes(1), Clock.systemUTC());
+    final SignedDocument document = small.apply(result(),
+        SignResponseProcessingParameters.builder().returnDocumentReferences(true).build(), "caller")
+        .getSignedDocuments().get(0);
+    Assertions.assertNotNull(document.getSignedContent());
+    Assertions.assertNull(document.getSignedContentReference());
+    Assertions.assertEquals(0, small.getStoredBytes());
+
+    store.remove(first, "caller");
+    Assertions.assertEquals(10, store.getStoredBytes());
+  }
+
+  @Test
+  public void testStoreCopiesContent() throws Exception {
+    final SignedDocumentStore store = new SignedDocumentStore();
+    final byte[] bytes = CONTENT.clone();
+    final String reference = store.store(bytes, null, "caller");
+    bytes[0] = 'X';
+    Assertions.assertArrayEquals(CONTENT, store.getDocument(reference, null, "caller").getInputStream().readAllBytes());
+  }
+
+  @Test
+  public void testContentConstructor() throws Exception {
+    final SignedDocumentContent content = new SignedDocumentContent(CONTENT, "text/plain", new ByteRange(2, 4));
+    Assertions.assertEquals(3, content.getContentLength());
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new SignedDocumentContent(CONTENT, null, new ByteRange(5, 10)));
+  }
+
+  @Test
+  public void testParseRange() throws Exception {
+    Assertions.assertNull(ByteRange.parse(null, 10));
+    Assertions.assertNull(ByteRange.parse("items=0-1", 10));
+    Assertions.assertNull(ByteRange.parse("bytes=0-1,4-5", 10));
+    Assertions.assertNull(ByteRange.parse("bytes=5-2", 10));
+    Assertions.assertNull(ByteRange.parse("bytes=100-50", 10));
+    Assertions.assertNull(ByteRange.parse("bytes=x-", 10));
+    Assertions.assertEquals(new ByteRange(0, 4), ByteRange.parse("bytes=0-4", 10));
+    Assertions.assertEquals(new ByteRange(2, 9), ByteRange.parse("bytes=2-100", 10));
+    Assertions.assertEquals(new ByteRange(7, 9), ByteRange.parse("bytes=-3", 10));
+    Assertions.assertEquals(new ByteRange(0, 9), ByteRange.parse("bytes=-30", 10));
+    Assertions.assertThrows(RangeNotSatisfiableException.class, () -> ByteRange.parse("bytes=10-20", 10));
+    Assertions.assertThrows(RangeNotSatisfiableException.class, () -> ByteRange.parse("bytes=-0", 10));
+  }
+
+  private static SignatureResult result() {
+    return SignatureResult.builder()
+        .signedDocuments(List.of(SignedDocument.builder()
+            .id("doc-1")
+            .signedContent(Base64.getEncoder().encodeToString(CONTENT))
+            .mimeType("application/pdf")
+            .build()))
+        .build();
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.pdf;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test cases for {@link PdfIncrementalUpdate}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class PdfIncrementalUpdateTest {
+
+  private static final byte[] ORIGINAL = "%PDF-1.7 original %%EOF\n".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] SIGNED = "%PDF-1.7 original %%EOF\nsignature %%EOF\n".getBytes(StandardCharsets.US_ASCII);
+
+  @Test
+  public void testCreateAndApply() throws Exception {
+    final PdfIncrementalUpdate update = PdfIncrementalUpdate.create(ORIGINAL, SIGNED);
+    Assertions.assertNotNull(update);
+    Assertions.assertEquals(ORIGINAL.length, update.getOriginalLength());
+    Assertions.assertTrue(update.isOriginal(ORIGINAL));
+    Assertions.assertArrayEquals(SIGNED, update.apply(ORIGINAL));
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    update.writeTo(ORIGINAL, out);
+    Assertions.assertArrayEquals(SIGNED, out.toByteArray());
+  }
+
+  @Test
+  public void testWrongOriginal() {
+    final PdfIncrementalUpdate update = PdfIncrementalUpdate.create(ORIGINAL, SIGNED);
+    Assertions.assertNotNull(update);
+    final byte[] other = ORIGINAL.clone();
+    other[2] = 'X';
+    Assertions.assertFalse(update.isOriginal(other));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> update.apply(other));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> update.apply(SIGNED));
+  }
+
+  @Test
+  public void testNotAnIncrementalUpdate() {
+    Assertions.assertNull(PdfIncrementalUpdate.create(SIGNED, ORIGINAL));
+    final byte[] rewritten = SIGNED.clone();
+    rewritten[0] = ' ';
+    Assertions.assertNull(PdfIncrementalUpdate.create(ORIGINAL, rewritten));
+  }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.pdf;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Test cases for {@link PdfProbe}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class PdfProbeTest {
+
+  private static final String XMP = "<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"><rdf:Description "
+      + "xmlns:pdfaid=\"http://www.aiim.org/pdfa/ns/id/\" pdfaid:part=\"2\" pdfaid:conformance=\"B\"/></x:xmpmeta>";
+
+  @Test
+  public void testPlainDocument() {
+    final PdfProbeReport report = PdfProbe.probe(bytes("""
+        %PDF-1.4
+        1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj
+        3 0 obj << /Length 26 >>
+        stream
+        (/AcroForm /Encrypt) Tj ET
+        endstream
+        endobj
+        4 0 obj << /Title (A /ByteRange in a string) >> endobj
+        trailer << /Root 1 0 R >>
+        %%EOF
+        """));
+    Assertions.assertEquals("1.4", report.getPdfVersion());
+    Assertions.assertEquals(1, report.getRevisions());
+    Assertions.assertFalse(report.isEncrypted());
+    Assertions.assertFalse(report.isAcroForm());
+    Assertions.assertNull(report.getPdfaPart());
+    Assertions.assertEquals(0, report.getSignatureCount());
+    Assertions.assertNull(report.getWarnings());
+  }
+
+  @Test
+  public void testSignedPdfADocument() {
+    final PdfProbeReport report = PdfProbe.probe(bytes("""
+        %%PDF-1.7
+        1 0 obj << /Type /Catalog /Metadata 2 0 R /AcroForm << /Fields [3 0 R] >> >> endobj
+        2 0 obj << /Type /Metadata /Subtype /XML /Length %d >>
+        stream
+        %s
+        endstream
+        endobj
+        trailer << /Root 1 0 R >>
+        %%%%EOF
+        3 0 obj << /Type /Sig /ByteRange [0 10 20 30] /Contents <00> >> endobj
+        trailer << /Root 1 0 R /Prev 9 >>
+        %%%%EOF
+        """.formatted(XMP.length(), XMP)));
+    Assertions.assertEquals(2, report.getRevisions());
+    Assertions.assertTrue(report.isAcroForm());
+    Assertions.assertEquals(2, report.getPdfaPart());
+    Assertions.assertEquals("B", report.getPdfaConformance());
+    Assertions.assertEquals(1, report.getSignatureCount());
+  }
+
+  @Test
+  public void testObjectStream() throws Exception {
+    final byte[] objects = deflate(bytes("1 0 << /Type /Catalog /AcroForm 5 0 R >>"));
+    final ByteArrayOutputStream doc = new ByteArrayOutputStream();
+    doc.writeBytes(bytes("%PDF-1.5\n7 0 obj << /Type /ObjStm /N 1 /First 4 /Filter /FlateDecode /Length "
+        + objects.length + " >>\nstream\n"));
+    doc.writeBytes(objects);
+    doc.writeBytes(bytes("\nendstream\nendobj\ntrailer << /Root 1 0 R /Encrypt 8 0 R >>\n%%EOF\n"));
+
+    final PdfProbeReport report = PdfProbe.probe(doc.toByteArray());
+    Assertions.assertTrue(report.isAcroForm());
+    Assertions.assertTrue(report.isEncrypted());
+    Assertions.assertNull(report.getWarnings());
+  }
+
+  @Test
+  public void testLinearizedDocument() {
+    final String linearized = """
+        %PDF-1.7
+        1 0 obj << /Linearized 1 /L 1000 /O 3 /E 500 /N 1 /T 900 /H [ 100 50 ] >> endobj
+        xref
+        1 2
+        0000000009 00000 n
+        0000000100 00000 n
+        trailer << /Size 5 /Root 2 0 R /Prev 800 >>
+        startxref
+        0
+        %%EOF
+        2 0 obj << /Type /Catalog /Pages 4 0 R >> endobj
+        3 0 obj << /Type /Page /Parent 4 0 R >> endobj
+        4 0 obj << /Type /Pages /Kids [3 0 R] /Count 1 >> endobj
+        xref
+        0 1
+        0000000000 65535 f
+        trailer << /Size 5 >>
+        startxref
+        800
+        %%EOF
+        """;
+    Assertions.assertEquals(1, PdfProbe.probe(bytes(linearized)).getRevisions());
+
+    final PdfProbeReport updated = PdfProbe.probe(bytes(linearized + """
+        5 0 obj << /Type /Sig /ByteRange [0 10 20 30] /Contents <00> >> endobj
+        xref
+        5 1
+        0000000950 00000 n
+        trailer << /Size 6 /Root 2 0 R /Prev 800 >>
+        startxref
+        1000
+        %%EOF
+        """));
+    Assertions.assertEquals(2, updated.getRevisions());
+    Assertions.assertEquals(1, updated.getSignatureCount());
+  }
+
+  @Test
+  public void testSignatureObjects() {
+    final PdfProbeReport report = PdfProbe.probe(bytes("""
+        %PDF-1.7
+        1 0 obj << /Type /Catalog /AcroForm << /Fields [3 0 R 4 0 R] >> >> endobj
+        3 0 obj << /Type /Sig /ByteRange [0 10 20 30] /Contents <00> >> endobj
+        startxref
+        100
+        %%EOF
+        3 0 obj << /Type /Sig /ByteRange [0 10 20 40] /Contents <00> >> endobj
+        4 0 obj << /FT /Sig /V << /Type /Sig /ByteRange [0 10 20 50] /Contents <00> >> >> endobj
+        startxref
+        200
+        %%EOF
+        """));
+    // Object 3 is defined twice, and object 4 holds its signature dictionary directly
+    Assertions.assertEquals(2, report.getRevisions());
+    Assertions.assertEquals(2, report.getSignatureCount());
+  }
+
+  @Test
+  public void testSignatureInObjectStream() {
+    final String objects = "5 0 6 56 << /Type /Sig /ByteRange [0 10 20 30] /Contents <00> >> << /Type /Annot >>";
+    final byte[] doc = bytes(("""
+        %%PDF-1.5
+        7 0 obj << /Type /ObjStm /N 2 /First 9 /Length %d >>
+        stream
+        %s
+        endstream
+        endobj
+        5 0 obj << /Type /Sig /ByteRange [0 10 20 30] /Contents <00> >> endobj
+        6 0 obj << /Type /Annot >> endobj
+        startxref
+        300
+        %%%%EOF
+        """).formatted(objects.length(), objects));
+    Assertions.assertEquals(1, PdfProbe.probe(doc).getSignatureCount());
+  }
+
+  @Test
+  public void testUndecodableObjectStream() {
+    final PdfProbeReport report = PdfProbe.probe(bytes("""
+        %PDF-1.5
+        7 0 obj << /Type /ObjStm /Filter /LZWDecode /Length 4 >>
+        stream
+        ABCD
+        endstream
+        endobj
+        %%EOF
+        """));
+    Assertions.assertEquals(List.of(PdfProbeReport.ProbeWarnings.PARTIAL_SCAN), report.getWarnings());
+  }
+
+  @Test
+  public void testBogusStreamLength() {
+    for (final String length : List.of("2147483647", "4294967296", "99999999999999999999")) {
+      final PdfProbeReport report = PdfProbe.probe(bytes("""
+          %PDF-1.4
+          3 0 obj << /Length LENGTH >>
+          stream
+          (/AcroForm) Tj
+          endstream
+          endobj
+          4 0 obj << /Type /Catalog /AcroForm 5 0 R >> endobj
+          %%EOF
+          """.replace("LENGTH", length)));
+      Assertions.assertTrue(report.isAcroForm());
+    }
+  }
+
+  @Test
+  public void testNotPdf() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> PdfProbe.probe(bytes("<html></html>")));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> PdfProbe.probe(new byte[0]));
+  }
+
+  private static byte[] bytes(final String s) {
+    return s.getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  private static byte[] deflate(final byte[] data) {
+    final Deflater deflater = new Deflater();
+    deflater.setInput(data);
+    deflater.finish();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[1024];
+    while (!deflater.finished()) {
+      out.write(buffer, 0, deflater.deflate(buffer));
+    }
+    deflater.end();
+    return out.toByteArray();
+  }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.pdf;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.core.ProcessingPriority;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test cases for {@link PreparedPdfDocumentCache}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class PreparedPdfDocumentCacheTest {
+
+  private static final byte[] PDF = "%PDF-1.7 document %%EOF".getBytes(StandardCharsets.US_ASCII);
+
+  @Test
+  public void testCachedResult() throws Exception {
+    final PreparedPdfDocumentCache cache = new PreparedPdfDocumentCache();
+    final AtomicInteger calls = new AtomicInteger();
+    final PreparedPdfDocumentCache.Preparer preparer = () -> {
+      calls.incrementAndGet();
+      return prepared();
+    };
+
+    final PreparedPdfDocument first = cache.prepare(null, PDF, preferences(null), false, "caller", preparer);
+    final PreparedPdfDocument second =
+        cache.prepare("default", PDF.clone(), preferences(ProcessingPriority.BATCH), false, "caller", preparer);
+    Assertions.assertEquals(1, calls.get());
+    Assertions.assertEquals("JVBERi0xLjc=", second.getUpdatedPdfDocument());
+    Assertions.assertEquals("Lisa", second.getVisiblePdfSignatureRequirement().getFieldValues().get("name"));
+
+    // Changes to a returned result do not affect the cached result, or other returned results
+    first.getVisiblePdfSignatureRequirement().getFieldValues().put("name", "Kalle");
+    second.getVisiblePdfSignatureRequirement().getFieldValues().put("name", "Olle");
+    second.setUpdatedPdfDocument("other");
+    final PreparedPdfDocument third = cache.prepare(null, PDF, preferences(null), false, "caller", preparer);
+    Assertions.assertEquals("JVBERi0xLjc=", third.getUpdatedPdfDocument());
+    Assertions.assertEquals("Lisa", third.getVisiblePdfSignatureRequirement().getFieldValues().get("name"));
+    Assertions.assertEquals("Kalle", first.getVisiblePdfSignatureRequirement().getFieldValues().get("name"));
+    Assertions.assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testDocumentReferences() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    final PreparedPdfDocumentCache.Preparer preparer = () -> {
+      calls.incrementAndGet();
+      return PreparedPdfDocument.builder().policy("default").pdfDocumentReference("ref").build();
+    };
+
+    // By default, results holding references are not cached
+    final PreparedPdfDocumentCache cache = new PreparedPdfDocumentCache();
+    cache.prepare(null, PDF, null, true, "caller", preparer);
+    cache.prepare(null, PDF, null, true, "caller", preparer);
+    Assertions.assertEquals(2, calls.get());
+    Assertions.assertEquals(0, cache.size());
+
+    final PreparedPdfDocumentCache referenceCache = new PreparedPdfDocumentCache(10, 1024, Duration.ofMinutes(10),
+        Duration.ofMinutes(1), Clock.systemUTC());
+    referenceCache.prepare(null, PDF, null, true, "caller", preparer);
+    Assertions.assertEquals("ref",
+        referenceCache.prepare(null, PDF, null, true, "caller", preparer).getPdfDocumentReference());
+    Assertions.assertEquals(3, calls.get());
+  }
+
+  @Test
+  public void testDifferentInput() throws Exception {
+    final PreparedPdfDocumentCache cache = new PreparedPdfDocumentCache();
+    final AtomicInteger calls = new AtomicInteger();
+    final PreparedPdfDocumentCache.Preparer preparer = () -> {
+      calls.incrementAndGet();
+      return prepared();
+    };
+
+    cache.prepare(null, PDF, preferences(null), true, "caller", preparer);
+    cache.prepare(null, "%PDF-1.7 other %%EOF".getBytes(StandardCharsets.US_ASCII), preferences(null), true,
+        "caller", preparer);
+    cache.prepare("other-policy", PDF, preferences(null), true, "caller", preparer);
+    cache.prepare(null, PDF, PdfSignaturePagePreferences.builder().insertPageAt(1).build(), true, "caller", preparer);
+    cache.prepare(null, PDF, null, true, "caller", preparer);
+    cache.prepare(null, PDF, preferences(null), false, "caller", preparer);
+    cache.prepare(null, PDF, preferences(null), true, "other-caller", preparer);
+    Assertions.assertEquals(7, calls.get());
+    Assertions.assertEquals(7, cache.size());
+  }
+
+  @Test
+  public void testNotCached() throws Exception {
+    final PreparedPdfDocumentCache expired =
+        new PreparedPdfDocumentCache(10, 1024, Duration.ZERO, Duration.ZERO, Clock.systemUTC());
+    expired.prepare(null, PDF, null, null, null, PreparedPdfDocumentCacheTest::prepared);
+    Assertions.assertEquals(0, expired.size());
+
+    final PreparedPdfDocumentCache sized =
+        new PreparedPdfDocumentCache(10, 64, Duration.ofMinutes(1), Duration.ZERO, Clock.systemUTC());
+    sized.prepare(null, PDF, null, null, null, PreparedPdfDocumentCacheTest::prepared);
+    Assertions.assertEquals(0, sized.size());
+    Assertions.assertEquals(0, sized.getCachedBytes());
+
+    Assertions.assertThrows(PdfContainsAcroformException.class, () -> sized.prepare(null, PDF, null, null, null,
+        () -> {
+          throw new PdfContainsAcroformException("AcroForm");
+        }));
+    Assertions.assertEquals(0, sized.size());
+  }
+
+  @Test
+  public void testClear() throws Exception {
+    final PreparedPdfDocumentCache cache = new PreparedPdfDocumentCache();
+    cache.prepare(null, PDF, null, null, null, PreparedPdfDocumentCacheTest::prepared);
+    Assertions.assertEquals(1, cache.size());
+    cache.clear();
+    Assertions.assertEquals(0, cache.size());
+
+    // A result prepared using the previous policies is not cached
+    cache.prepare(null, PDF, null, null, null, () -> {
+      cache.clear();
+      return prepared();
+    });
+    Assertions.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testMaxBytes() throws Exception {
+    final PreparedPdfDocumentCache cache =
+        new PreparedPdfDocumentCache(10, 1024, Duration.ofMinutes(1), Duration.ZERO, Clock.systemUTC());
+    for (int i = 0; i < 10; i++) {
+      cache.prepare(null, PDF, null, null, "caller-" + i, PreparedPdfDocumentCacheTest::prepared);
+      Assertions.assertTrue(cache.getCachedBytes() <= 1024);
+    }
+    Assertions.assertTrue(cache.size() < 10);
+  }
+
+  private static PreparedPdfDocument prepared() {
+    return PreparedPdfDocument.builder()
+        .policy("default")
+        .updatedPdfDocument("JVBERi0xLjc=")
+        .visiblePdfSignatureRequirement(VisiblePdfSignatureRequirement.builder()
+            .fieldValue("name", "Lisa")
+            .page(1)
+            .build())
+        .build();
+  }
+
+  private static PdfSignaturePagePreferences preferences(final ProcessingPriority priority) {
+    return PdfSignaturePagePreferences.builder()
+        .signaturePageReference("page")
+        .failWhenSignPageFull(false)
+        .processingPriority(priority)
+        .build();
+  }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.xml;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing streaming (StAX) and DOM signature insertion (see {@link XMLSignatureInserter}) for
+ * documents of different sizes. The benchmark is run with the GC profiler ({@code gc.alloc.rate.norm} tells the number
+ * of bytes allocated per insertion). Before the benchmark is run, the peak heap used by a single insertion is reported
+ * for each size; for the DOM path it grows with the document size, while the streaming path only needs its buffers.
+ * Not run as part of the build; run the {@link #main(String[])} method (with the test classpath) to execute it.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class XMLSignatureInserterBenchmark {
+
+  private static final byte[] SIGNATURE = ("<ds:Signature xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">"
+      + "<ds:SignatureValue>AAAA</ds:SignatureValue></ds:Signature>").getBytes(StandardCharsets.UTF_8);
+
+  /** The document size in megabytes. */
+  @Param({ "1", "10", "50" })
+  private int sizeMb;
+
+  private final XMLSignatureInserter inserter = new XMLSignatureInserter();
+
+  private final XMLSignatureLocation streamingLocation =
+      XMLSignatureLocation.builder().xPath("/*/*[local-name()='Body']").build();
+
+  private final XMLSignatureLocation domLocation =
+      XMLSignatureLocation.builder().xPath("(/*/*[local-name()='Body'])[1]").build();
+
+  private byte[] document;
+
+  @Setup
+  public void setup() throws IOException {
+    this.document = createDocument(this.sizeMb * 1024L * 1024L);
+  }
+
+  @Benchmark
+  public XMLSignatureInserter.Mode streaming() throws IOException {
+    return this.inserter.insert(
+        new ByteArrayInputStream(this.document), SIGNATURE, this.streamingLocation, OutputStream.nullOutputStream());
+  }
+
+  @Benchmark
+  public XMLSignatureInserter.Mode dom() throws IOException {
+    return this.inserter.insert(
+        new ByteArrayInputStream(this.document), SIGNATURE, this.domLocation, OutputStream.nullOutputStream());
+  }
+
+  private static byte[] createDocument(final long size) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream((int) size + 1024);
+    out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Archive xmlns=\"urn:archive\">\n<Body>\n"
+        .getBytes(StandardCharsets.UTF_8));
+    int i = 0;
+    while (out.size() < size) {
+      out.write(("  <Record Id=\"r%d\"><Name>Record %d</Name><Value>%s</Value></Record>\n"
+          .formatted(i, i, Integer.toHexString(i * 31 + 17).repeat(8))).getBytes(StandardCharsets.UTF_8));
+      i++;
+    }
+    out.write("</Body>\n</Archive>\n".getBytes(StandardCharsets.UTF_8));
+    return out.toByteArray();
+  }
+
+  private static long peakHeapUsed(final XMLSignatureInserter inserter, final byte[] document,
+      final XMLSignatureLocation location) throws IOException {
+    final List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(p -> p.getType() == MemoryType.HEAP)
+        .toList();
+    System.gc();
+    final long before = pools.stream().mapToLong(p -> p.getUsage().getUsed()).sum();
+    pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    inserter.insert(new ByteArrayInputStream(document), SIGNATURE, location, OutputStream.nullOutputStream());
+    return pools.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum() - before;
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final XMLSignatureInserterBenchmark benchmark = new XMLSignatureInserterBenchmark();
+    for (final int size : new int[] { 1, 10, 50 }) {
+      final byte[] document = createDocument(size * 1024L * 1024L);
+      System.out.printf("%d MB document: peak heap streaming=%d MB, dom=%d MB%n", size,
+          peakHeapUsed(benchmark.inserter, document, benchmark.streamingLocation) / (1024 * 1024),
+          peakHeapUsed(benchmark.inserter, document, benchmark.domLocation) / (1024 * 1024));
+    }
+
+    new Runner(new OptionsBuilder()
+        .include(XMLSignatureInserterBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build())
+        .run();
+  }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.xml;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import se.idsec.signservice.integration.document.xml.XMLSignatureLocation.ChildPosition;
+
+import javax.xml.crypto.OctetStreamData;
+import javax.xml.crypto.dsig.CanonicalizationMethod;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test cases for {@link XMLSignatureInserter}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class XMLSignatureInserterTest {
+
+  private static final String DSIG_NS = "http://www.w3.org/2000/09/xmldsig#";
+
+  private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+      + "<a:Root xmlns:a=\"urn:a\" Id=\"r\">\n"
+      + "  <a:Header/>\n"
+      + "  <Body>\n"
+      + "    <Item>1 &amp; 2</Item>\n"
+      + "    <Item><![CDATA[<x>]]></Item>\n"
+      + "  </Body>\n"
+      + "  <Body/>\n"
+      + "</a:Root>";
+
+  private static final String SIGNATURE = "<?xml version=\"1.0\"?>"
+      + "<ds:Signature xmlns:ds=\"" + DSIG_NS + "\"><ds:SignatureValue>AAAA</ds:SignatureValue></ds:Signature>";
+
+  private final XMLSignatureInserter inserter = new XMLSignatureInserter();
+
+  @Test
+  public void testDefaultLocation() throws Exception {
+    final Document result = this.insertAndCompare(null, null, null);
+    final Element signature = getSignature(result);
+    Assertions.assertEquals("Root", signature.getParentNode().getLocalName());
+    Assertions.assertNull(signature.getNextSibling());
+  }
+
+  @Test
+  public void testRootFirst() throws Exception {
+    final Document result = this.insertAndCompare(null, ChildPosition.FIRST, "(/*)[1]");
+    final Element signature = getSignature(result);
+    Assertions.assertEquals("Root", signature.getParentNode().getLocalName());
+    Assertions.assertSame(signature, signature.getParentNode().getFirstChild());
+  }
+
+  @Test
+  public void testElementPaths() throws Exception {
+    Element signature = getSignature(
+        this.insertAndCompare("/*/*[local-name()='Body']", ChildPosition.LAST, "(/*/*[local-name()='Body'])[1]"));
+    Assertions.assertEquals("Body", signature.getParentNode().getLocalName());
+    Assertions.assertNotNull(signature.getParentNode().getNextSibling());
+
+    signature = getSignature(this.insertAndCompare("/*/Body[2]", ChildPosition.FIRST, "(/*/Body)[2]"));
+    Assertions.assertNull(signature.getParentNode().getNextSibling().getNextSibling());
+
+    signature = getSignature(this.insertAndCompare("/*/Body/Item[2]", ChildPosition.FIRST, "(/*/Body/Item)[2]"));
+    Assertions.assertEquals("Item", signature.getParentNode().getLocalName());
+    Assertions.assertEquals("<x>", signature.getNextSibling().getTextContent());
+  }
+
+  @Test
+  public void testCanonicalFormPreserved() throws Exception {
+    final String xml = "<root a=\"x&#9;y&#10;z&#13;\" b=\"&quot;&lt;&amp;\">line&#13;end\ttab\n"
+        + "<c>&#9;&lt;&gt;&amp;</c><!-- comment\n --><?pi data?></root>";
+    for (final XMLSignatureLocation location : new XMLSignatureLocation[] {
+        null, XMLSignatureLocation.builder().xPath("(/*)[1]").build() }) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      this.inserter.insert(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+          SIGNATURE.getBytes(StandardCharsets.UTF_8), location, out);
+
+      // Remove the signature (as the enveloped signature transform does) and compare the canonical forms
+      final Document signed = parse(out.toByteArray());
+      final Element signature = getSignature(signed);
+      signature.getParentNode().removeChild(signature);
+      final ByteArrayOutputStream unsigned = new ByteArrayOutputStream();
+      TransformerFactory.newInstance().newTransformer().transform(new DOMSource(signed), new StreamResult(unsigned));
+
+      Assertions.assertEquals(canonicalize(xml.getBytes(StandardCharsets.UTF_8)),
+          canonicalize(unsigned.toByteArray()));
+    }
+  }
+
+  @Test
+  public void testNoMatch() {
+    // a:Header is in a namespace, so a name test without prefix does not match it
+    final XMLSignatureLocation location = XMLSignatureLocation.builder().xPath("/*/Header").build();
+    Assertions.assertThrows(IOException.class, () -> this.insert(location));
+    final XMLSignatureLocation domLocation = XMLSignatureLocation.builder().xPath("(/*/Header)[1]").build();
+    Assertions.assertThrows(IOException.class, () -> this.insert(domLocation));
+  }
+
+  @Test
+  public void testDtdRejected() {
+    final byte[] document = ("<!DOCTYPE r [<!ENTITY e \"x\">]><r>&e;</r>").getBytes(StandardCharsets.UTF_8);
+    Assertions.assertThrows(IOException.class, () -> this.inserter.insert(new ByteArrayInputStream(document),
+        SIGNATURE.getBytes(StandardCharsets.UTF_8), null, new ByteArrayOutputStream()));
+    final XMLSignatureLocation domLocation = XMLSignatureLocation.builder().xPath("(/*)[1]").build();
+    Assertions.assertThrows(IOException.class, () -> this.inserter.insert(new ByteArrayInputStream(document),
+        SIGNATURE.getBytes(StandardCharsets.UTF_8), domLocation, new ByteArrayOutputStream()));
+  }
+
+  @Test
+  public void testIsStreamable() {
+    Assertions.assertTrue(XMLSignatureInserter.isStreamable(null));
+    Assertions.assertTrue(XMLSignatureInserter.isStreamable(new XMLSignatureLocation()));
+    Assertions.assertTrue(location("/*/*[local-name()=\"Body\"][1]"));
+    Assertions.assertTrue(location("/Root/Body"));
+    Assertions.assertFalse(location("//Body"));
+    Assertions.assertFalse(location("/a:Root"));
+    Assertions.assertFalse(location("/Root/Body[local-name()='Body']"));
+    Assertions.assertFalse(location("/*/*[@Id='x']"));
+    Assertions.assertFalse(location("/*/*[0]"));
+    Assertions.assertFalse(location("/"));
+  }
+
+  private static boolean location(final String xPath) {
+    return XMLSignatureInserter.isStreamable(XMLSignatureLocation.builder().xPath(xPath).build());
+  }
+
+  private Document insertAndCompare(final String xPath, final ChildPosition position, final String domXPath)
+      throws Exception {
+    final XMLSignatureLocation location = xPath != null || position != null
+        ? XMLSignatureLocation.builder().xPath(xPath).childPosition(position).build()
+        : null;
+    final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+    Assertions.assertEquals(XMLSignatureInserter.Mode.STREAMING, this.inserter.insert(
+        new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)), SIGNATURE.getBytes(StandardCharsets.UTF_8),
+        location, streamed));
+
+    final XMLSignatureLocation domLocation = XMLSignatureLocation.builder()
+        .xPath(domXPath != null ? domXPath : "(/*)[1]")
+        .childPosition(position)
+        .build();
+    final ByteArrayOutputStream dom = new ByteArrayOutputStream();
+    Assertions.assertEquals(XMLSignatureInserter.Mode.DOM, this.inserter.insert(
+        new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)), SIGNATURE.getBytes(StandardCharsets.UTF_8),
+        domLocation, dom));
+
+    final Document streamedDocument = parse(streamed.toByteArray());
+    final Document domDocument = parse(dom.toByteArray());
+    Assertions.assertTrue(streamedDocument.getDocumentElement().isEqualNode(domDocument.getDocumentElement()));
+    return streamedDocument;
+  }
+
+  private byte[] insert(final XMLSignatureLocation location) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    this.inserter.insert(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)),
+        SIGNATURE.getBytes(StandardCharsets.UTF_8), location, out);
+    return out.toByteArray();
+  }
+
+  private static Element getSignature(final Document document) {
+    final NodeList list = document.getElementsByTagNameNS(DSIG_NS, "Signature");
+    Assertions.assertEquals(1, list.getLength());
+    return (Element) list.item(0);
+  }
+
+  private static String canonicalize(final byte[] bytes) throws Exception {
+    final CanonicalizationMethod c14n = XMLSignatureFactory.getInstance("DOM")
+        .newCanonicalizationMethod(CanonicalizationMethod.INCLUSIVE_WITH_COMMENTS, (C14NMethodParameterSpec) null);
+    final OctetStreamData data = (OctetStreamData) c14n.transform(new OctetStreamData(new ByteArrayInputStream(bytes)),
+        null);
+    return new String(data.getOctetStream().readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  private static Document parse(final byte[] bytes) throws Exception {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    factory.setCoalescing(true);
+    return factory.newDocumentBuilder().parse(new ByteArrayInputStream(bytes));
+  }
+
+}
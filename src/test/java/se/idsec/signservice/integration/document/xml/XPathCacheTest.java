@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.document.xml;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import se.idsec.signservice.integration.core.error.InputValidationException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test cases for {@link XPathCache} and {@link XMLSignatureLocation#validate(String)}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class XPathCacheTest {
+
+  private static final String XML =
+      "<a:Root xmlns:a=\"urn:a\"><a:Header/><a:Body><a:Item/><a:Item/></a:Body></a:Root>";
+
+  @Test
+  public void testEvaluate() throws Exception {
+    final Document document = parse();
+    final XPathCache cache = new XPathCache();
+    final Map<String, String> ns = Map.of("x", "urn:a");
+
+    final Element body = (Element) cache.evaluate("/x:Root/x:Body", ns, document, XPathConstants.NODE);
+    Assertions.assertEquals("Body", body.getLocalName());
+    Assertions.assertEquals(2.0, cache.evaluate("count(/x:Root/x:Body/x:Item)", ns, document, XPathConstants.NUMBER));
+    Assertions.assertEquals(2, cache.size());
+
+    // Same expression with other bindings is another entry
+    Assertions.assertNull(cache.evaluate("/x:Root/x:Body", Map.of("x", "urn:b"), document, XPathConstants.NODE));
+    Assertions.assertEquals(3, cache.size());
+
+    cache.evaluate("/x:Root/x:Body", Map.of("x", "urn:a"), document, XPathConstants.NODE);
+    Assertions.assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    final XPathCache cache = new XPathCache(16, 2);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Object>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        results.add(executor.submit(() -> cache.evaluate("count(/*/*[local-name()='Body']/*)", null, parse(),
+            XPathConstants.NUMBER)));
+      }
+      for (final Future<Object> result : results) {
+        Assertions.assertEquals(2.0, result.get());
+      }
+    }
+    finally {
+      executor.shutdown();
+    }
+    Assertions.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testValidate() throws Exception {
+    final XPathCache cache = new XPathCache();
+    cache.validate("/*/*[local-name()='Body']", null);
+    Assertions.assertThrows(XPathExpressionException.class, () -> cache.validate("/*[", null));
+    Assertions.assertThrows(XPathExpressionException.class,
+        () -> cache.evaluate("/*[", null, parse(), XPathConstants.NODE));
+
+    // Invalid expressions are not cached
+    Assertions.assertEquals(1, cache.size());
+
+    XMLSignatureLocation.builder().xPath("/*/*[2]").childPosition(XMLSignatureLocation.ChildPosition.FIRST).build()
+        .validate("xmlSignatureLocation");
+    final InputValidationException e = Assertions.assertThrows(InputValidationException.class,
+        () -> XMLSignatureLocation.builder().xPath("//[").build().validate("xmlSignatureLocation"));
+    Assertions.assertEquals("xmlSignatureLocation.xPath", e.getObjectName());
+    Assertions.assertThrows(InputValidationException.class,
+        () -> XMLSignatureLocation.builder().childPosition("middle").build().validate("xmlSignatureLocation"));
+  }
+
+  private static Document parse() throws Exception {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    return factory.newDocumentBuilder().parse(new InputSource(new StringReader(XML)));
+  }
+
+}
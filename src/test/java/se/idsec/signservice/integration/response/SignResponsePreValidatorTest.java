@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.response;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.core.RestClientSignatureState;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Test cases for {@code SignResponsePreValidator}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignResponsePreValidatorTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+  @Test
+  public void testAccepted() throws Exception {
+    final SignResponsePreValidator validator = SignResponsePreValidator.builder().build();
+    Assertions.assertEquals("state-1", validator.validate(signResponse("state-1"), "state-1", state("state-1")));
+
+    // Line breaks in the Base64 encoding are accepted
+    final String encoded = Base64.getMimeEncoder().encodeToString(xml("state-1").getBytes(StandardCharsets.UTF_8));
+    Assertions.assertEquals("state-1", validator.validate(encoded, "state-1", state("state-1")));
+  }
+
+  @Test
+  public void testRejected() {
+    final SignResponsePreValidator validator = SignResponsePreValidator.builder()
+        .maxSize(2000)
+        .maxStateAge(Duration.ofMinutes(5))
+        .stateCreationTimeResolver(s -> "old".equals(s.getId()) ? NOW.minusSeconds(600) : NOW)
+        .clock(Clock.fixed(NOW, ZoneOffset.UTC))
+        .build();
+
+    assertRejected(SignResponseRejectedException.INVALID_RESPONSE.getErrorCode(),
+        () -> validator.validate("A".repeat(2001), "state-1", state("state-1")));
+    assertRejected(SignResponseRejectedException.STATE_ERROR.getErrorCode(),
+        () -> validator.validate(signResponse("state-1"), "state-2", state("state-1")));
+    assertRejected(SignResponseRejectedException.EXPIRED_RESPONSE.getErrorCode(),
+        () -> validator.validate(signResponse("old"), "old", state("old")));
+    assertRejected(SignResponseRejectedException.MISMATCH_ID.getErrorCode(),
+        () -> validator.validate(signResponse("state-2"), "state-1", state("state-1")));
+    assertRejected(SignResponseRejectedException.INVALID_RESPONSE.getErrorCode(),
+        () -> validator.validate("not base64 !!", "state-1", state("state-1")));
+    assertRejected(SignResponseRejectedException.INVALID_RESPONSE.getErrorCode(),
+        () -> validator.validate(encode("<AuthnRequest RequestID=\"state-1\"/>"), "state-1", state("state-1")));
+    assertRejected(SignResponseRejectedException.INVALID_RESPONSE.getErrorCode(),
+        () -> validator.validate(encode("<?xml version=\"1.0\"?>"
+            + "<!DOCTYPE x [<!ENTITY e SYSTEM \"file:///etc/passwd\">]><x>&e;</x>"), "state-1", state("state-1")));
+  }
+
+  private static void assertRejected(final String errorCode, final RejectedCall call) {
+    final SignResponseRejectedException e = Assertions.assertThrows(SignResponseRejectedException.class, call::run);
+    Assertions.assertEquals(errorCode, e.getErrorCode().getErrorCode());
+    Assertions.assertEquals(400, e.getHttpStatus());
+  }
+
+  private static RestClientSignatureState state(final String id) {
+    final RestClientSignatureState state = new RestClientSignatureState();
+    state.setId(id);
+    return state;
+  }
+
+  private static String signResponse(final String requestId) {
+    return encode(xml(requestId));
+  }
+
+  private static String xml(final String requestId) {
+    return """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <dss:SignResponse xmlns:dss="urn:oasis:names:tc:dss:1.0:core:schema" RequestID="%s"
+            Profile="http://id.elegnamnden.se/csig/1.1/dss-ext/profile">
+          <dss:Result><dss:ResultMajor>urn:oasis:names:tc:dss:1.0:resultmajor:Success</dss:ResultMajor></dss:Result>
+        </dss:SignResponse>""".formatted(requestId);
+  }
+
+  private static String encode(final String xml) {
+    return Base64.getEncoder().encodeToString(xml.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @FunctionalInterface
+  private interface RejectedCall {
+    void run() throws Exception;
+  }
+
+}
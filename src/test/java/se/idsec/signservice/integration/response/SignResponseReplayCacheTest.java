@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.response;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.SignResponseErrorStatusException;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignatureResult;
+import se.idsec.signservice.integration.admission.AdmissionRejectedException;
+import se.idsec.signservice.integration.core.RestClientSignatureState;
+import se.idsec.signservice.integration.core.SignatureState;
+import se.idsec.signservice.integration.document.SignedDocument;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test cases for {@code SignResponseReplayCache}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class SignResponseReplayCacheTest {
+
+  private final SignResponseReplayCache cache = new SignResponseReplayCache(100,
+      SignResponseReplayCache.DEFAULT_MAX_BYTES, Duration.ofMinutes(1), Duration.ofSeconds(10),
+      Clock.fixed(Instant.now(), ZoneOffset.UTC));
+
+  @Test
+  public void testDuplicates() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    final SignResponseReplayCache.Processor processor = () -> {
+      calls.incrementAndGet();
+      return SignatureResult.builder()
+          .id("state-1")
+          .signedDocuments(List.of(new SignedDocument("doc-1", "AAAA", "application/pdf", null)))
+          .build();
+    };
+    final SignatureResult result = this.cache.process("response", state("state-1"), null, "caller", processor);
+    final SignatureResult duplicate = this.cache.process("response", state("state-1"), null, "caller", processor);
+    Assertions.assertEquals("state-1", duplicate.getId());
+    Assertions.assertEquals("AAAA", duplicate.getSignedDocuments().get(0).getSignedContent());
+    Assertions.assertEquals(1, calls.get());
+
+    // Each duplicate gets its own copy
+    Assertions.assertNotSame(result, duplicate);
+    duplicate.setId("modified");
+    Assertions.assertEquals("state-1",
+        this.cache.process("response", state("state-1"), null, "caller", processor).getId());
+    Assertions.assertEquals(1, calls.get());
+
+    // Another response, or another state, is processed
+    this.cache.process("other-response", state("state-1"), null, "caller", processor);
+    this.cache.process("response", state("state-2"), null, "caller", processor);
+    Assertions.assertEquals(3, calls.get());
+  }
+
+  @Test
+  public void testCallerAndParameters() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    final SignResponseReplayCache.Processor processor = () -> {
+      calls.incrementAndGet();
+      return SignatureResult.builder().id("state-1").build();
+    };
+    final SignResponseProcessingParameters parameters = SignResponseProcessingParameters.builder()
+        .returnDocumentReferences(true)
+        .build();
+    this.cache.process("response", state("state-1"), parameters, "caller", processor);
+    this.cache.process("response", state("state-1"),
+        SignResponseProcessingParameters.builder().returnDocumentReferences(true).build(), "caller", processor);
+    Assertions.assertEquals(1, calls.get());
+
+    // Another caller posting the same response is not given the cached result
+    this.cache.process("response", state("state-1"), parameters, "other-caller", processor);
+    this.cache.process("response", state("state-1"), parameters, null, processor);
+    Assertions.assertEquals(3, calls.get());
+
+    // Neither is a duplicate having other processing parameters
+    this.cache.process("response", state("state-1"),
+        SignResponseProcessingParameters.builder().returnDocumentReferences(false).build(), "caller", processor);
+    this.cache.process("response", state("state-1"), null, "caller", processor);
+    Assertions.assertEquals(5, calls.get());
+  }
+
+  @Test
+  public void testFailures() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    final SignResponseReplayCache.Processor failing = () -> {
+      calls.incrementAndGet();
+      throw new SignResponseErrorStatusException("urn:oasis:names:tc:dss:1.0:resultmajor:RequesterError", null);
+    };
+    Assertions.assertThrows(SignResponseErrorStatusException.class,
+        () -> this.cache.process("response", state("state-1"), null, "caller", failing));
+    Assertions.assertThrows(SignResponseErrorStatusException.class,
+        () -> this.cache.process("response", state("state-1"), null, "caller", failing));
+    Assertions.assertEquals(1, calls.get());
+
+    // Transient failures are not cached
+    final SignResponseReplayCache.Processor transientFailure = () -> {
+      calls.incrementAndGet();
+      throw new AdmissionRejectedException(AdmissionRejectedException.QUEUE_FULL, "Queue full");
+    };
+    Assertions.assertThrows(AdmissionRejectedException.class,
+        () -> this.cache.process("response", state("state-2"), null, "caller", transientFailure));
+    Assertions.assertThrows(AdmissionRejectedException.class,
+        () -> this.cache.process("response", state("state-2"), null, "caller", transientFailure));
+    Assertions.assertEquals(3, calls.get());
+  }
+
+  @Test
+  public void testConcurrentDuplicates() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final SignResponseReplayCache.Processor processor = () -> {
+      calls.incrementAndGet();
+      started.countDown();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      }
+      catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return SignatureResult.builder().id("state-1").build();
+    };
+
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      final Future<SignatureResult> first =
+          executor.submit(() -> this.cache.process("r", state("state-1"), null, "caller", processor));
+      Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+      final Future<SignatureResult> second =
+          executor.submit(() -> this.cache.process("r", state("state-1"), null, "caller", processor));
+      final Future<SignatureResult> third =
+          executor.submit(() -> this.cache.process("r", state("state-1"), null, "caller", processor));
+      Thread.sleep(50);
+      release.countDown();
+
+      Assertions.assertEquals("state-1", first.get().getId());
+      Assertions.assertEquals("state-1", second.get().getId());
+      Assertions.assertNotSame(first.get(), second.get());
+      Assertions.assertNotSame(second.get(), third.get());
+      Assertions.assertEquals(1, calls.get());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testWaitTimeout() throws Exception {
+    final SignResponseReplayCache cache = new SignResponseReplayCache(100, SignResponseReplayCache.DEFAULT_MAX_BYTES,
+        Duration.ofMinutes(1), Duration.ofMillis(50), Clock.systemUTC());
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final SignResponseReplayCache.Processor processor = () -> {
+      started.countDown();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      }
+      catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return SignatureResult.builder().id("state-1").build();
+    };
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<SignatureResult> first =
+          executor.submit(() -> cache.process("r", state("state-1"), null, "caller", processor));
+      Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+      final AdmissionRejectedException e = Assertions.assertThrows(AdmissionRejectedException.class,
+          () -> cache.process("r", state("state-1"), null, "caller", processor));
+      Assertions.assertEquals(AdmissionRejectedException.WAIT_TIMEOUT, e.getErrorCode());
+      release.countDown();
+      Assertions.assertEquals("state-1", first.get().getId());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testMaxBytes() throws Exception {
+    final SignResponseReplayCache cache = new SignResponseReplayCache(100, 300, Duration.ofMinutes(1),
+        Duration.ofSeconds(10), Clock.systemUTC());
+    final AtomicInteger calls = new AtomicInteger();
+    final SignResponseReplayCache.Processor processor = () -> {
+      calls.incrementAndGet();
+      return SignatureResult.builder().id("x".repeat(100)).build();
+    };
+    for (int i = 0; i < 10; i++) {
+      cache.process("r", state("state-" + i), null, "caller", processor);
+    }
+    Assertions.assertEquals(10, calls.get());
+    Assertions.assertEquals(2, cache.size());
+
+    // A result larger than the maximum is not cached
+    final SignResponseReplayCache.Processor large = () -> {
+      calls.incrementAndGet();
+      return SignatureResult.builder().id("x".repeat(1000)).build();
+    };
+    cache.process("r", state("large"), null, "caller", large);
+    cache.process("r", state("large"), null, "caller", large);
+    Assertions.assertEquals(12, calls.get());
+  }
+
+  private static SignatureState state(final String id) {
+    final RestClientSignatureState state = new RestClientSignatureState();
+    state.setId(id);
+    return state;
+  }
+
+}
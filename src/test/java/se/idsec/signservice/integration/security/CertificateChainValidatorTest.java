@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.config.TestConfiguration;
+
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test cases for the {@link CertificateChainValidator} implementations and {@link CachingRevocationDataProvider}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class CertificateChainValidatorTest {
+
+  @Test
+  public void testPkixValidation() throws Exception {
+    final X509Certificate signer =
+        PolicyCertificates.decodeCertificate(PolicyCertificateCacheTest.load("test-signer.crt"));
+    final String ca = PolicyCertificateCacheTest.load("test-ca.crt");
+    final String signService = PolicyCertificateCacheTest.load("test-signservice.crt");
+
+    final PkixCertificateChainValidator validator = new PkixCertificateChainValidator();
+
+    final PolicyCertificates trustCa = new PolicyCertificates(
+        TestConfiguration.builder().signatureCertificate(signService).trustAnchors(List.of(ca)).build());
+    validator.validate(List.of(signer), trustCa);
+    validator.validate(List.of(signer, PolicyCertificates.decodeCertificate(ca)), trustCa);
+
+    final PolicyCertificates trustOther = new PolicyCertificates(
+        TestConfiguration.builder().signatureCertificate(signService).trustAnchors(List.of(signService)).build());
+    Assertions.assertThrows(CertPathValidatorException.class, () -> validator.validate(List.of(signer), trustOther));
+
+    // Trust any
+    final PolicyCertificates trustAny = new PolicyCertificates(
+        TestConfiguration.builder().signatureCertificate(signService).build());
+    validator.validate(List.of(signer, PolicyCertificates.decodeCertificate(ca)), trustAny);
+  }
+
+  @Test
+  public void testCachingValidator() throws Exception {
+    final X509Certificate signer =
+        PolicyCertificates.decodeCertificate(PolicyCertificateCacheTest.load("test-signer.crt"));
+    final String ca = PolicyCertificateCacheTest.load("test-ca.crt");
+    final String signService = PolicyCertificateCacheTest.load("test-signservice.crt");
+    final PolicyCertificates trustCa = new PolicyCertificates(
+        TestConfiguration.builder().signatureCertificate(signService).trustAnchors(List.of(ca)).build());
+    final PolicyCertificates trustOther = new PolicyCertificates(
+        TestConfiguration.builder().signatureCertificate(signService).trustAnchors(List.of(signService)).build());
+
+    final AtomicInteger calls = new AtomicInteger();
+    final PkixCertificateChainValidator pkix = new PkixCertificateChainValidator();
+    final MutableClock clock = new MutableClock(Instant.now());
+    final CachingCertificateChainValidator validator = new CachingCertificateChainValidator((chain, certs) -> {
+      calls.incrementAndGet();
+      pkix.validate(chain, certs);
+    }, Duration.ofMinutes(10), 100, clock);
+
+    validator.validate(List.of(signer), trustCa);
+    validator.validate(List.of(signer), trustCa);
+    Assertions.assertEquals(1, calls.get());
+
+    // Other trust anchors - not cached, and failures are never cached
+    Assertions.assertThrows(CertPathValidatorException.class, () -> validator.validate(List.of(signer), trustOther));
+    Assertions.assertThrows(CertPathValidatorException.class, () -> validator.validate(List.of(signer), trustOther));
+    Assertions.assertEquals(3, calls.get());
+
+    // TTL passed
+    clock.instant = clock.instant.plus(Duration.ofMinutes(11));
+    validator.validate(List.of(signer), trustCa);
+    Assertions.assertEquals(4, calls.get());
+
+    // Never cache beyond the certificate validity
+    clock.instant = signer.getNotAfter().toInstant().minusSeconds(60);
+    final CachingCertificateChainValidator validator2 =
+        new CachingCertificateChainValidator((chain, certs) -> calls.incrementAndGet(), Duration.ofDays(1), 100, clock);
+    validator2.validate(List.of(signer), trustCa);
+    validator2.validate(List.of(signer), trustCa);
+    Assertions.assertEquals(5, calls.get());
+    clock.instant = clock.instant.plusSeconds(61);
+    validator2.validate(List.of(signer), trustCa);
+    Assertions.assertEquals(6, calls.get());
+  }
+
+  @Test
+  public void testCachingRevocationDataProvider() throws Exception {
+    final X509Certificate signer =
+        PolicyCertificates.decodeCertificate(PolicyCertificateCacheTest.load("test-signer.crt"));
+    final X509Certificate ca = PolicyCertificates.decodeCertificate(PolicyCertificateCacheTest.load("test-ca.crt"));
+
+    final MutableClock clock = new MutableClock(Instant.now());
+    final AtomicInteger calls = new AtomicInteger();
+    final CachingRevocationDataProvider provider = new CachingRevocationDataProvider((c, i) -> {
+      calls.incrementAndGet();
+      return new RevocationData(RevocationData.Type.OCSP, new byte[] { 1, 2, 3 }, clock.instant(),
+          clock.instant().plus(Duration.ofMinutes(5)));
+    }, Duration.ofHours(1), 10, clock);
+
+    final RevocationData data = provider.getRevocationData(signer, ca);
+    Assertions.assertSame(data, provider.getRevocationData(signer, ca));
+    Assertions.assertEquals(1, calls.get());
+
+    // nextUpdate passed
+    clock.instant = clock.instant.plus(Duration.ofMinutes(6));
+    Assertions.assertNotSame(data, provider.getRevocationData(signer, ca));
+    Assertions.assertEquals(2, calls.get());
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant;
+
+    MutableClock(final Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return this.instant;
+    }
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.security;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.config.TestConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Test cases for {@code PolicyCertificateCache} and {@code PolicyCertificates}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class PolicyCertificateCacheTest {
+
+  @Test
+  public void testDecodeAndLookup() throws Exception {
+    final String ca = load("test-ca.crt");
+    final String signService = load("test-signservice.crt");
+    final X509Certificate caCert = PolicyCertificates.decodeCertificate(ca);
+
+    // Use Base64 DER for one of the certificates and PEM for the others
+    final TestConfiguration config = TestConfiguration.builder()
+        .signatureCertificate(signService)
+        .signServiceCertificates(List.of(Base64.getEncoder().encodeToString(
+            PolicyCertificates.decodeCertificate(signService).getEncoded())))
+        .trustAnchors(List.of(ca))
+        .build();
+
+    final PolicyCertificateCache cache = new PolicyCertificateCache();
+    final PolicyCertificates certs = cache.getCertificates(config);
+
+    Assertions.assertEquals(1, certs.getSignServiceCertificates().size());
+    Assertions.assertEquals(1, certs.getTrustAnchors().size());
+    Assertions.assertEquals(1, certs.getPkixTrustAnchors().size());
+    Assertions.assertTrue(certs.isTrustAnchor(caCert));
+    Assertions.assertFalse(certs.isSignServiceCertificate(caCert));
+    Assertions.assertTrue(certs.isSignServiceCertificate(certs.getSignatureCertificate()));
+
+    Assertions.assertEquals(caCert,
+        certs.getBySubjectKeyIdentifier(PolicyCertificates.getSubjectKeyIdentifier(caCert)));
+    Assertions.assertEquals(caCert,
+        certs.getByIssuerAndSerialNumber(caCert.getIssuerX500Principal(), caCert.getSerialNumber()));
+    Assertions.assertEquals(caCert, certs.getByFingerprint(PolicyCertificates.fingerprint(caCert)));
+
+    final X509Certificate signer = PolicyCertificates.decodeCertificate(load("test-signer.crt"));
+    Assertions.assertNull(certs.getByFingerprint(PolicyCertificates.fingerprint(signer)));
+    Assertions.assertFalse(certs.isTrustAnchor(signer));
+
+    // Same configuration -> same object
+    Assertions.assertSame(certs, cache.getCertificates(config));
+
+    // Updated configuration -> reloaded
+    final TestConfiguration config2 = config.toBuilder().trustAnchors(List.of()).build();
+    final PolicyCertificates certs2 = cache.getCertificates(config2);
+    Assertions.assertNotSame(certs, certs2);
+    Assertions.assertTrue(certs2.getTrustAnchors().isEmpty());
+  }
+
+  @Test
+  public void testBadCertificate() {
+    final TestConfiguration config = TestConfiguration.builder()
+        .signatureCertificate("not-a-certificate")
+        .build();
+    Assertions.assertThrows(CertificateException.class, () -> new PolicyCertificateCache().getCertificates(config));
+  }
+
+  static String load(final String resource) throws IOException {
+    try (final InputStream is = PolicyCertificateCacheTest.class.getClassLoader().getResourceAsStream(resource)) {
+      return new String(is.readAllBytes(), StandardCharsets.US_ASCII);
+    }
+  }
+
+}
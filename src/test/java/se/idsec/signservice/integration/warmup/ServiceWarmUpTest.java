@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019-2025 IDsec Solutions AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.idsec.signservice.integration.warmup;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import se.idsec.signservice.integration.SignRequestData;
+import se.idsec.signservice.integration.SignRequestInput;
+import se.idsec.signservice.integration.SignResponseProcessingParameters;
+import se.idsec.signservice.integration.SignServiceIntegrationService;
+import se.idsec.signservice.integration.SignatureResult;
+import se.idsec.signservice.integration.config.IntegrationServiceDefaultConfiguration;
+import se.idsec.signservice.integration.config.PolicyNotFoundException;
+import se.idsec.signservice.integration.config.PolicySnapshot;
+import se.idsec.signservice.integration.config.TestConfiguration;
+import se.idsec.signservice.integration.core.FileResource;
+import se.idsec.signservice.integration.core.SignatureState;
+import se.idsec.signservice.integration.document.pdf.PdfSignaturePage;
+import se.idsec.signservice.integration.security.PolicyCertificateCache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test cases for {@code ServiceWarmUp}.
+ *
+ * @author Martin Lindström (martin@idsec.se)
+ * @author Stefan Santesson (stefan@idsec.se)
+ */
+public class ServiceWarmUpTest {
+
+  @Test
+  public void testWarmUp() {
+    final ServiceWarmUp warmUp = new ServiceWarmUp(new StubService(new PolicySnapshot(List.of(
+        TestConfiguration.builder().policy("default").build(),
+        TestConfiguration.builder().policy("other")
+            .pdfSignaturePages(List.of(PdfSignaturePage.builder().id("page")
+                .pdfDocument(FileResource.builder().contents("JVBERi0xLjQ=").build()).build()))
+            .build()), 1)));
+    warmUp.setCertificateCache(new PolicyCertificateCache());
+    final AtomicInteger cycles = new AtomicInteger();
+    warmUp.setSyntheticCycle(s -> {
+      s.getConfiguration(null);
+      cycles.incrementAndGet();
+    });
+    warmUp.setSyntheticCycles(10);
+
+    Assertions.assertFalse(warmUp.isReady());
+    final WarmUpReport report = warmUp.warmUp();
+    Assertions.assertTrue(report.isSuccessful(), report.failures().toString());
+    Assertions.assertTrue(warmUp.isReady());
+    Assertions.assertEquals(2, report.policies());
+    Assertions.assertEquals(1, report.resources());
+    Assertions.assertEquals(2, report.certificates());
+    Assertions.assertEquals(10, report.syntheticCycles());
+    Assertions.assertEquals(10, cycles.get());
+    Assertions.assertTrue(report.serializers() > 0);
+  }
+
+  @Test
+  public void testFailedWarmUp() {
+    final FileResource missing = new FileResource();
+    missing.setResource("classpath:no-such-resource.pdf");
+    final ServiceWarmUp warmUp = new ServiceWarmUp(new StubService(new PolicySnapshot(List.of(
+        TestConfiguration.builder().policy("default")
+            .pdfSignaturePages(List.of(PdfSignaturePage.builder().id("page").pdfDocument(missing).build()))
+            .build()), 1)));
+
+    final WarmUpReport report = warmUp.warmUp();
+    Assertions.assertFalse(report.isSuccessful());
+    Assertions.assertTrue(report.failures().get(0).contains("failed to load resource"));
+    Assertions.assertFalse(warmUp.isReady());
+
+    // Without a certificate cache, no certificates are warmed
+    Assertions.assertEquals(0, report.certificates());
+  }
+
+  private record StubService(PolicySnapshot snapshot) implements SignServiceIntegrationService {
+
+    @Nonnull
+    @Override
+    public SignRequestData createSignRequest(
+        @Nonnull final SignRequestInput signRequestInput, @Nullable final String callerId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Nonnull
+    @Override
+    public SignatureResult processSignResponse(@Nonnull final String signResponse, @Nonnull final String relayState,
+        @Nonnull final SignatureState state, @Nullable final SignResponseProcessingParameters parameters,
+        @Nullable final String callerId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Nonnull
+    @Override
+    public IntegrationServiceDefaultConfiguration getConfiguration(@Nullable final String policy)
+        throws PolicyNotFoundException {
+      return this.snapshot.getConfiguration(policy);
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getPolicies() {
+      return this.snapshot.getPolicies();
+    }
+  }
+
+}